@@ -0,0 +1,83 @@
+package spring.start.here.juniemvc.config;
+
+import jakarta.validation.Valid;
+import jakarta.validation.constraints.NotNull;
+import jakarta.validation.constraints.Positive;
+import jakarta.validation.constraints.PositiveOrZero;
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.validation.annotation.Validated;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Typed configuration for the admission-control filter in front of the API.
+ */
+@Getter
+@Setter
+@Validated
+@ConfigurationProperties(prefix = "junie.admission")
+public class AdmissionControlProperties {
+
+    private boolean enabled = true;
+
+    // Request header identifying the client, honoured only from a trusted proxy; the remote address is
+    // used otherwise
+    @NotNull
+    private String clientIdHeader = "X-Client-Id";
+
+    // Remote addresses of the proxies allowed to set the client id header
+    @NotNull
+    private List<String> trustedProxies = new ArrayList<>();
+
+    // Clients tracked at once; the least recently seen client's bucket is dropped beyond this
+    @Positive
+    private int maxClients = 100_000;
+
+    // Token bucket applied to every client separately
+    @Valid
+    @NotNull
+    private Limit perClient = new Limit(50, 100);
+
+    // Token buckets per route, keyed by "METHOD /path" with numeric ids replaced by {id},
+    // e.g. junie.admission.routes[GET\ /api/v1/beer-orders].permits-per-second=20 (space escaped in .properties)
+    @Valid
+    @NotNull
+    private Map<String, Limit> routes = new HashMap<>();
+
+    // Maximum concurrently executing API requests; 0 derives the limit from the connection pool size
+    @PositiveOrZero
+    private int maxConcurrentRequests = 0;
+
+    // How long a request may wait for a concurrency slot before it is shed with 503
+    @NotNull
+    private Duration maxQueueWait = Duration.ofMillis(50);
+
+    // Retry-After sent with 503 responses
+    @NotNull
+    private Duration overloadRetryAfter = Duration.ofSeconds(1);
+
+    @Getter
+    @Setter
+    public static class Limit {
+
+        @Positive
+        private double permitsPerSecond;
+
+        @Positive
+        private int burst;
+
+        public Limit() {
+        }
+
+        public Limit(double permitsPerSecond, int burst) {
+            this.permitsPerSecond = permitsPerSecond;
+            this.burst = burst;
+        }
+    }
+}
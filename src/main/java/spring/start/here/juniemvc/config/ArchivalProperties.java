@@ -0,0 +1,52 @@
+package spring.start.here.juniemvc.config;
+
+import jakarta.validation.constraints.NotEmpty;
+import jakarta.validation.constraints.NotNull;
+import jakarta.validation.constraints.Positive;
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.validation.annotation.Validated;
+
+import java.time.Duration;
+import java.util.List;
+
+/**
+ * Typed configuration for moving old, completed orders out of the hot order tables.
+ */
+@Getter
+@Setter
+@Validated
+@ConfigurationProperties(prefix = "junie.archival")
+public class ArchivalProperties {
+
+    private boolean enabled = true;
+
+    // Orders in these statuses are never modified again and may be archived
+    @NotEmpty
+    private List<String> statuses = List.of("DELIVERED", "CANCELLED");
+
+    // Time since the order's last update before it is archived
+    @NotNull
+    private Duration minAge = Duration.ofDays(365);
+
+    // Orders moved per transaction
+    @Positive
+    private int chunkSize = 500;
+
+    // Pause between chunks so archival does not starve regular traffic
+    @NotNull
+    private Duration pauseBetweenChunks = Duration.ofMillis(200);
+
+    // Upper bound per run; the remainder is picked up by the next run
+    @Positive
+    private int maxChunksPerRun = 200;
+
+    // Orders are split by id into this many partitions, which nodes claim one at a time so several
+    // nodes can share a run
+    @Positive
+    private int partitions = 8;
+
+    @NotNull
+    private Duration interval = Duration.ofHours(1);
+}
@@ -0,0 +1,37 @@
+package spring.start.here.juniemvc.config;
+
+import jakarta.validation.constraints.NotNull;
+import jakarta.validation.constraints.Positive;
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.validation.annotation.Validated;
+
+import java.time.Duration;
+
+/**
+ * Typed configuration for the in-memory best-seller tracker.
+ * Memory is bounded by {@code retention / bucketWidth * capacity} counters, independent of the catalog size.
+ */
+@Getter
+@Setter
+@Validated
+@ConfigurationProperties(prefix = "junie.best-sellers")
+public class BestSellerProperties {
+
+    // Granularity of the sliding windows; windows are rounded up to whole buckets
+    @NotNull
+    private Duration bucketWidth = Duration.ofMinutes(1);
+
+    // Longest window that can be queried
+    @NotNull
+    private Duration retention = Duration.ofHours(1);
+
+    // Counters per bucket; estimates are off by at most (quantity in window) / capacity
+    @Positive
+    private int capacity = 1_000;
+
+    // Largest "limit" accepted by GET /api/v1/beers/top
+    @Positive
+    private int maxLimit = 100;
+}
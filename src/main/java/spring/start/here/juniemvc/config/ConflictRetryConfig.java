@@ -0,0 +1,36 @@
+package spring.start.here.juniemvc.config;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.aop.Advisor;
+import org.springframework.aop.support.DefaultPointcutAdvisor;
+import org.springframework.aop.support.annotation.AnnotationMatchingPointcut;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.config.BeanDefinition;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Role;
+import org.springframework.core.Ordered;
+import spring.start.here.juniemvc.service.ConflictRetryInterceptor;
+import spring.start.here.juniemvc.service.RetryOnConflict;
+
+/**
+ * Proxies {@link RetryOnConflict} methods. The advisor is an infrastructure bean so the auto-proxy creator
+ * registered for {@code @Transactional} picks it up, and it is ordered just ahead of the transaction advisor
+ * so each attempt gets a fresh transaction. The static factory method and lazily resolved dependencies keep
+ * the properties and registry out of the early creation of bean post-processors.
+ */
+@Configuration(proxyBeanMethods = false)
+@Role(BeanDefinition.ROLE_INFRASTRUCTURE)
+class ConflictRetryConfig {
+
+    @Bean
+    @Role(BeanDefinition.ROLE_INFRASTRUCTURE)
+    static Advisor conflictRetryAdvisor(ObjectProvider<ConflictRetryProperties> properties,
+                                        ObjectProvider<MeterRegistry> meterRegistry) {
+        DefaultPointcutAdvisor advisor = new DefaultPointcutAdvisor(
+                AnnotationMatchingPointcut.forMethodAnnotation(RetryOnConflict.class),
+                new ConflictRetryInterceptor(properties, meterRegistry));
+        advisor.setOrder(Ordered.LOWEST_PRECEDENCE - 1);
+        return advisor;
+    }
+}
@@ -0,0 +1,35 @@
+package spring.start.here.juniemvc.config;
+
+import jakarta.validation.constraints.Min;
+import jakarta.validation.constraints.NotNull;
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.validation.annotation.Validated;
+
+import java.time.Duration;
+
+/**
+ * Typed configuration for retrying {@code @RetryOnConflict} service methods after an optimistic-lock conflict.
+ */
+@Getter
+@Setter
+@Validated
+@ConfigurationProperties(prefix = "junie.conflict-retry")
+public class ConflictRetryProperties {
+
+    // When disabled the first conflict is returned to the client as 409
+    private boolean enabled = true;
+
+    // Attempts per call including the first one
+    @Min(1)
+    private int maxAttempts = 4;
+
+    // Upper bound of the random delay before the first retry; doubled for every further retry
+    @NotNull
+    private Duration initialBackoff = Duration.ofMillis(10);
+
+    // Upper bound of any single delay
+    @NotNull
+    private Duration maxBackoff = Duration.ofMillis(200);
+}
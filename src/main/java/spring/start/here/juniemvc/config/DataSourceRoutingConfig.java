@@ -0,0 +1,76 @@
+package spring.start.here.juniemvc.config;
+
+import com.zaxxer.hikari.HikariDataSource;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.flywaydb.core.Flyway;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+
+import javax.sql.DataSource;
+import java.util.Map;
+
+/**
+ * Replaces the auto-configured DataSource with a primary pool, a replica pool and a routing
+ * DataSource in front of them. Hikari and JDBC pool metrics are published per pool by the
+ * actuator, tagged with the pool names {@code primary} and {@code replica}.
+ */
+@Configuration(proxyBeanMethods = false)
+@EnableConfigurationProperties(DataSourceRoutingProperties.class)
+@ConditionalOnProperty(prefix = "junie.datasource.routing", name = "enabled", havingValue = "true")
+class DataSourceRoutingConfig {
+
+    @Bean
+    HikariDataSource primaryDataSource(DataSourceRoutingProperties properties) {
+        return pool("primary", properties.getPrimary());
+    }
+
+    @Bean
+    HikariDataSource replicaDataSource(DataSourceRoutingProperties properties) {
+        HikariDataSource replica = pool("replica", properties.getReplica());
+        if (properties.isMigrateReplica()) {
+            Flyway.configure().dataSource(replica).load().migrate();
+        }
+        return replica;
+    }
+
+    @Bean
+    ReplicaLagMonitor replicaLagMonitor(@Qualifier("replicaDataSource") DataSource replicaDataSource,
+                                        DataSourceRoutingProperties properties,
+                                        MeterRegistry meterRegistry) {
+        return new ReplicaLagMonitor(new JdbcTemplate(replicaDataSource), properties.getLagQuery(),
+                properties.getMaxReplicaLag(), meterRegistry);
+    }
+
+    @Bean
+    @Primary
+    DataSource dataSource(@Qualifier("primaryDataSource") DataSource primaryDataSource,
+                          @Qualifier("replicaDataSource") DataSource replicaDataSource,
+                          ReplicaLagMonitor replicaLagMonitor,
+                          MeterRegistry meterRegistry) {
+        ReadWriteRoutingDataSource routing = new ReadWriteRoutingDataSource(replicaLagMonitor, meterRegistry);
+        routing.setTargetDataSources(Map.of(
+                ReadWriteRoutingDataSource.Route.PRIMARY, primaryDataSource,
+                ReadWriteRoutingDataSource.Route.REPLICA, replicaDataSource));
+        routing.setDefaultTargetDataSource(primaryDataSource);
+        routing.afterPropertiesSet();
+        // Defer the physical connection until the transaction's read-only flag has been set.
+        // Outside transactions (Flyway, Hibernate bootstrap) connections come from the primary.
+        return new LazyConnectionDataSourceProxy(routing);
+    }
+
+    private static HikariDataSource pool(String poolName, DataSourceRoutingProperties.Pool pool) {
+        HikariDataSource dataSource = new HikariDataSource();
+        dataSource.setPoolName(poolName);
+        dataSource.setJdbcUrl(pool.getUrl());
+        dataSource.setUsername(pool.getUsername());
+        dataSource.setPassword(pool.getPassword());
+        dataSource.setMaximumPoolSize(pool.getMaximumPoolSize());
+        return dataSource;
+    }
+}
@@ -0,0 +1,62 @@
+package spring.start.here.juniemvc.config;
+
+import jakarta.validation.Valid;
+import jakarta.validation.constraints.NotBlank;
+import jakarta.validation.constraints.NotNull;
+import jakarta.validation.constraints.Positive;
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.validation.annotation.Validated;
+
+import java.time.Duration;
+
+/**
+ * Typed configuration for read/write datasource routing.
+ * Read-only transactions go to the replica pool, everything else to the primary pool.
+ */
+@Getter
+@Setter
+@Validated
+@ConfigurationProperties(prefix = "junie.datasource.routing")
+public class DataSourceRoutingProperties {
+
+    // Routing is opt-in; when disabled Spring Boot's single auto-configured DataSource is used
+    private boolean enabled = false;
+
+    @Valid
+    @NotNull
+    private Pool primary = new Pool();
+
+    @Valid
+    @NotNull
+    private Pool replica = new Pool();
+
+    // Reads fall back to the primary while the replica lags behind by more than this
+    @NotNull
+    private Duration maxReplicaLag = Duration.ofSeconds(5);
+
+    @NotNull
+    private Duration lagCheckInterval = Duration.ofSeconds(10);
+
+    // Query run against the replica returning its lag in seconds; blank means "never lagging"
+    private String lagQuery;
+
+    // Run the Flyway migrations against the replica too (for local setups without real replication)
+    private boolean migrateReplica = false;
+
+    @Getter
+    @Setter
+    public static class Pool {
+
+        @NotBlank
+        private String url = "jdbc:h2:mem:junie";
+
+        private String username = "sa";
+
+        private String password = "";
+
+        @Positive
+        private int maximumPoolSize = 10;
+    }
+}
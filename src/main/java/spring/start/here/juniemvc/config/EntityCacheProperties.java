@@ -0,0 +1,89 @@
+package spring.start.here.juniemvc.config;
+
+import jakarta.validation.Valid;
+import jakarta.validation.constraints.NotBlank;
+import jakarta.validation.constraints.NotNull;
+import jakarta.validation.constraints.Positive;
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.validation.annotation.Validated;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Typed configuration for the in-process cache of beers and customers read by id, and for the bus that
+ * carries their invalidations to the other nodes.
+ */
+@Getter
+@Setter
+@Validated
+@ConfigurationProperties(prefix = "junie.entity-cache")
+public class EntityCacheProperties {
+
+    public enum Transport {
+        // Single node; changes only invalidate the local cache
+        NONE,
+        // Changes are written to the entity_change table and polled by every node
+        DATABASE,
+        // Changes are sent as datagrams to other nodes on this host; for tests and local clusters
+        UDP
+    }
+
+    // When disabled every read goes to the database
+    private boolean enabled = true;
+
+    // Beers and customers held per node; the least recently read are evicted first
+    @Positive
+    private int maxEntries = 10_000;
+
+    // Upper bound on staleness should an invalidation be lost
+    @NotNull
+    private Duration timeToLive = Duration.ofMinutes(5);
+
+    @Valid
+    @NotNull
+    private Bus bus = new Bus();
+
+    @Getter
+    @Setter
+    public static class Bus {
+
+        @NotNull
+        private Transport transport = Transport.NONE;
+
+        // Identifies this node's own changes, which it does not apply twice
+        @NotBlank
+        private String nodeId = UUID.randomUUID().toString();
+
+        // How often local changes are sent and changes of other nodes are received
+        @NotNull
+        private Duration interval = Duration.ofMillis(500);
+
+        // Maximum number of changes sent at once
+        @Positive
+        private int maxBatchSize = 1_000;
+
+        // DATABASE: how far back each poll looks again, for changes committed after rows with higher ids
+        @NotNull
+        private Duration lookback = Duration.ofSeconds(5);
+
+        // DATABASE: how long change rows are kept
+        @NotNull
+        private Duration retention = Duration.ofHours(1);
+
+        // DATABASE: how often change rows older than the retention are deleted
+        @NotNull
+        private Duration purgeInterval = Duration.ofMinutes(10);
+
+        // UDP: port this node receives on, on the loopback interface
+        private int port = 7_471;
+
+        // UDP: ports of the other nodes on the loopback interface
+        @NotNull
+        private List<Integer> peerPorts = new ArrayList<>();
+    }
+}
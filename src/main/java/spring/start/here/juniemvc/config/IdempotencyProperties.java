@@ -0,0 +1,31 @@
+package spring.start.here.juniemvc.config;
+
+import jakarta.validation.constraints.NotNull;
+import jakarta.validation.constraints.Positive;
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.validation.annotation.Validated;
+
+import java.time.Duration;
+
+/**
+ * Typed configuration for {@code Idempotency-Key} handling on order creation.
+ */
+@Getter
+@Setter
+@Validated
+@ConfigurationProperties(prefix = "junie.idempotency")
+public class IdempotencyProperties {
+
+    // Maximum number of recently completed keys answered from memory
+    @Positive
+    private int cacheSize = 10_000;
+
+    // How long keys are kept in the database before they are purged
+    @NotNull
+    private Duration retention = Duration.ofHours(24);
+
+    @NotNull
+    private Duration purgeInterval = Duration.ofHours(1);
+}
@@ -0,0 +1,33 @@
+package spring.start.here.juniemvc.config;
+
+import jakarta.validation.constraints.NotNull;
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.validation.annotation.Validated;
+
+import java.time.Duration;
+
+/**
+ * Typed configuration for stock adjustments on {@code POST /api/v1/beer-inventory/{inventoryId}/adjustments}.
+ */
+@Getter
+@Setter
+@Validated
+@ConfigurationProperties(prefix = "junie.inventory-adjustment")
+public class InventoryAdjustmentProperties {
+
+    public enum Mode {
+        // Every adjustment is written with its own UPDATE before the response is sent
+        DIRECT,
+        // Adjustments are summed per inventory row in memory and written by a periodic batched flush
+        WRITE_BEHIND
+    }
+
+    @NotNull
+    private Mode mode = Mode.DIRECT;
+
+    // How often buffered adjustments are written; also the most a crash can lose in WRITE_BEHIND mode
+    @NotNull
+    private Duration flushInterval = Duration.ofMillis(200);
+}
@@ -0,0 +1,48 @@
+package spring.start.here.juniemvc.config;
+
+import jakarta.validation.constraints.AssertTrue;
+import jakarta.validation.constraints.NotNull;
+import jakarta.validation.constraints.Positive;
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.util.unit.DataSize;
+import org.springframework.validation.annotation.Validated;
+
+import java.nio.file.Path;
+import java.time.Duration;
+
+/**
+ * Typed configuration for bulk imports of warehouse stock counts from CSV files.
+ */
+@Getter
+@Setter
+@Validated
+@ConfigurationProperties(prefix = "junie.inventory-import")
+public class InventoryImportProperties {
+
+    // Import files are resolved against this directory and may not leave it
+    @NotNull
+    private Path directory = Path.of("imports");
+
+    // Size of each memory-mapped region parsed by one worker; regions are cut at line boundaries. A region
+    // is mapped into one buffer, so it can hold at most Integer.MAX_VALUE bytes
+    @NotNull
+    private DataSize chunkSize = DataSize.ofMegabytes(64);
+
+    // Rows per JDBC batch and transaction
+    @Positive
+    private int batchSize = 5_000;
+
+    // Chunks parsed and written concurrently; each worker holds one connection while it writes
+    @Positive
+    private int parallelism = 4;
+
+    @NotNull
+    private Duration progressLogInterval = Duration.ofSeconds(10);
+
+    @AssertTrue(message = "chunk-size must be between 1B and " + Integer.MAX_VALUE + "B")
+    boolean isChunkSizeMappable() {
+        return chunkSize == null || chunkSize.toBytes() > 0 && chunkSize.toBytes() <= Integer.MAX_VALUE;
+    }
+}
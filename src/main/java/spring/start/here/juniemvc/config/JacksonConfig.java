@@ -0,0 +1,20 @@
+package spring.start.here.juniemvc.config;
+
+import com.fasterxml.jackson.module.blackbird.BlackbirdModule;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * Adds modules to the application's single auto-configured ObjectMapper, which MVC, the SSE stream,
+ * merge patches and the admission filter all share. Blackbird replaces reflective property access
+ * with generated accessors for every bean and record without a hand-written serializer
+ * (see {@code web.json.DtoJsonSerializers}).
+ */
+@Configuration(proxyBeanMethods = false)
+class JacksonConfig {
+
+    @Bean
+    BlackbirdModule blackbirdModule() {
+        return new BlackbirdModule();
+    }
+}
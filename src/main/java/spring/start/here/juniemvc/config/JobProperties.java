@@ -0,0 +1,34 @@
+package spring.start.here.juniemvc.config;
+
+import jakarta.validation.constraints.NotBlank;
+import jakarta.validation.constraints.NotNull;
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.validation.annotation.Validated;
+
+import java.time.Duration;
+import java.util.UUID;
+
+/**
+ * Typed configuration for background jobs that must run once across all nodes sharing the database.
+ */
+@Getter
+@Setter
+@Validated
+@ConfigurationProperties(prefix = "junie.jobs")
+public class JobProperties {
+
+    // Coordinate jobs through leases in the database; when disabled every node runs every job
+    private boolean enabled = true;
+
+    // Owner recorded on the leases this node holds
+    @NotBlank
+    private String nodeId = UUID.randomUUID().toString();
+
+    // Longest a run, or one partition of a run, may hold its lease without renewing it. A node that dies
+    // mid-run frees the job once this has passed; a longer run that does not renew may be repeated by
+    // another node
+    @NotNull
+    private Duration leaseTime = Duration.ofMinutes(10);
+}
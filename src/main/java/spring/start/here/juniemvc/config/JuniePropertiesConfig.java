@@ -0,0 +1,26 @@
+package spring.start.here.juniemvc.config;
+
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * Registers the typed {@code junie.*} properties of features that are always on.
+ * Optional features register their own properties next to their conditional configuration.
+ */
+@Configuration(proxyBeanMethods = false)
+@EnableConfigurationProperties({
+        ArchivalProperties.class,
+        BestSellerProperties.class,
+        ConflictRetryProperties.class,
+        EntityCacheProperties.class,
+        IdempotencyProperties.class,
+        InventoryAdjustmentProperties.class,
+        InventoryImportProperties.class,
+        JobProperties.class,
+        OrderIntakeProperties.class,
+        OrderStreamProperties.class,
+        ReportingProperties.class,
+        SingleFlightProperties.class
+})
+class JuniePropertiesConfig {
+}
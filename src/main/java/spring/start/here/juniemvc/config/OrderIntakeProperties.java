@@ -0,0 +1,50 @@
+package spring.start.here.juniemvc.config;
+
+import jakarta.validation.constraints.NotNull;
+import jakarta.validation.constraints.Positive;
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.validation.annotation.Validated;
+
+import java.time.Duration;
+
+/**
+ * Typed configuration for order intake on {@code POST /api/v1/beer-orders}.
+ */
+@Getter
+@Setter
+@Validated
+@ConfigurationProperties(prefix = "junie.order-intake")
+public class OrderIntakeProperties {
+
+    public enum Mode {
+        // One transaction per request, responds 201 with the created order
+        SYNC,
+        // Validate and enqueue, responds 202 with a tracking id; a writer commits orders in groups
+        ASYNC
+    }
+
+    @NotNull
+    private Mode mode = Mode.SYNC;
+
+    // Orders waiting for the writer; submissions beyond this are rejected with 503
+    @Positive
+    private int queueCapacity = 10_000;
+
+    // Maximum number of orders committed in one transaction
+    @Positive
+    private int maxBatchSize = 500;
+
+    // How long the writer waits for more orders before committing a partial batch
+    @NotNull
+    private Duration maxLinger = Duration.ofMillis(10);
+
+    // Number of tracking tickets kept in memory
+    @Positive
+    private int trackingCacheSize = 100_000;
+
+    // Retry-After sent when the queue is full
+    @NotNull
+    private Duration retryAfter = Duration.ofSeconds(1);
+}
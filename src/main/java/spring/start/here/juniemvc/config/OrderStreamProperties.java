@@ -0,0 +1,37 @@
+package spring.start.here.juniemvc.config;
+
+import jakarta.validation.constraints.NotNull;
+import jakarta.validation.constraints.Positive;
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.validation.annotation.Validated;
+
+import java.time.Duration;
+
+/**
+ * Typed configuration for the order status Server-Sent Events stream.
+ */
+@Getter
+@Setter
+@Validated
+@ConfigurationProperties(prefix = "junie.order-stream")
+public class OrderStreamProperties {
+
+    // Comment events keeping idle connections (and proxies) alive
+    @NotNull
+    private Duration heartbeatInterval = Duration.ofSeconds(15);
+
+    // Connections are closed after this time; clients reconnect with Last-Event-ID
+    @NotNull
+    private Duration connectionTimeout = Duration.ofMinutes(30);
+
+    // Recent events kept for resuming with Last-Event-ID. A client that missed older events, or more of them
+    // than max-pending-per-subscriber, gets a resync event instead
+    @Positive
+    private int replayBufferSize = 10_000;
+
+    // Subscribers with more undelivered events than this are disconnected
+    @Positive
+    private int maxPendingPerSubscriber = 1_000;
+}
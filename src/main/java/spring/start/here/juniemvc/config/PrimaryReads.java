@@ -0,0 +1,32 @@
+package spring.start.here.juniemvc.config;
+
+import java.util.function.Supplier;
+
+/**
+ * Sends the connections the current thread opens while a callback runs to the primary, even for read-only
+ * transactions. For reads that must see every committed write, such as values put into a cache that is kept
+ * fresh by invalidations. Has no effect unless routing is enabled.
+ */
+public final class PrimaryReads {
+
+    private static final ThreadLocal<Boolean> ACTIVE = ThreadLocal.withInitial(() -> false);
+
+    private PrimaryReads() {
+    }
+
+    public static <T> T run(Supplier<T> work) {
+        if (ACTIVE.get()) {
+            return work.get();
+        }
+        ACTIVE.set(true);
+        try {
+            return work.get();
+        } finally {
+            ACTIVE.remove();
+        }
+    }
+
+    static boolean isActive() {
+        return ACTIVE.get();
+    }
+}
@@ -0,0 +1,53 @@
+package spring.start.here.juniemvc.config;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.jdbc.datasource.lookup.AbstractRoutingDataSource;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+/**
+ * Routes connections of read-only transactions to the replica pool and all other
+ * connections, including those opened inside {@link PrimaryReads#run}, to the primary pool. Must be wrapped in a
+ * {@link org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy} so the
+ * connection is only fetched once the transaction's read-only flag is known.
+ */
+class ReadWriteRoutingDataSource extends AbstractRoutingDataSource {
+
+    enum Route {
+        PRIMARY,
+        REPLICA
+    }
+
+    private final ReplicaLagMonitor replicaLagMonitor;
+    private final Counter primaryRoutes;
+    private final Counter replicaRoutes;
+    private final Counter fallbackRoutes;
+
+    ReadWriteRoutingDataSource(ReplicaLagMonitor replicaLagMonitor, MeterRegistry meterRegistry) {
+        this.replicaLagMonitor = replicaLagMonitor;
+        this.primaryRoutes = routeCounter(meterRegistry, "primary");
+        this.replicaRoutes = routeCounter(meterRegistry, "replica");
+        this.fallbackRoutes = routeCounter(meterRegistry, "replica_fallback");
+    }
+
+    @Override
+    protected Object determineCurrentLookupKey() {
+        if (!TransactionSynchronizationManager.isCurrentTransactionReadOnly() || PrimaryReads.isActive()) {
+            primaryRoutes.increment();
+            return Route.PRIMARY;
+        }
+        if (!replicaLagMonitor.isReplicaUsable()) {
+            fallbackRoutes.increment();
+            return Route.PRIMARY;
+        }
+        replicaRoutes.increment();
+        return Route.REPLICA;
+    }
+
+    private static Counter routeCounter(MeterRegistry meterRegistry, String route) {
+        return Counter.builder("junie.datasource.routing")
+                .description("Connections handed out per routing decision")
+                .tag("route", route)
+                .register(meterRegistry);
+    }
+}
@@ -0,0 +1,77 @@
+package spring.start.here.juniemvc.config;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.util.StringUtils;
+
+import java.time.Duration;
+
+/**
+ * Tracks how far the replica lags behind the primary and decides whether read-only
+ * transactions may be sent to it. A failing lag check marks the replica as unusable.
+ */
+class ReplicaLagMonitor {
+
+    private static final Logger log = LoggerFactory.getLogger(ReplicaLagMonitor.class);
+
+    private final JdbcTemplate replicaJdbcTemplate;
+    private final String lagQuery;
+    private final Duration maxReplicaLag;
+
+    private volatile boolean replicaUsable = true;
+    private volatile double lastLagSeconds = 0.0;
+
+    ReplicaLagMonitor(JdbcTemplate replicaJdbcTemplate, String lagQuery, Duration maxReplicaLag,
+                      MeterRegistry meterRegistry) {
+        this.replicaJdbcTemplate = replicaJdbcTemplate;
+        this.lagQuery = lagQuery;
+        this.maxReplicaLag = maxReplicaLag;
+
+        Gauge.builder("junie.datasource.replica.lag", this, m -> m.lastLagSeconds)
+                .description("Last measured replica lag")
+                .baseUnit("seconds")
+                .register(meterRegistry);
+        Gauge.builder("junie.datasource.replica.usable", this, m -> m.replicaUsable ? 1 : 0)
+                .description("Whether read-only transactions are routed to the replica")
+                .register(meterRegistry);
+    }
+
+    boolean isReplicaUsable() {
+        return replicaUsable;
+    }
+
+    double getLastLagSeconds() {
+        return lastLagSeconds;
+    }
+
+    /**
+     * Measure the replica lag and update the routing decision. Invoked periodically by the scheduler.
+     */
+    @Scheduled(fixedDelayString = "${junie.datasource.routing.lag-check-interval:10s}")
+    void checkLag() {
+        if (!StringUtils.hasText(lagQuery)) {
+            lastLagSeconds = 0.0;
+            replicaUsable = true;
+            return;
+        }
+        try {
+            Number lag = replicaJdbcTemplate.queryForObject(lagQuery, Number.class);
+            lastLagSeconds = lag != null ? lag.doubleValue() : 0.0;
+            boolean usable = lastLagSeconds * 1000 <= maxReplicaLag.toMillis();
+            if (usable != replicaUsable) {
+                log.warn("Replica lag is {}s (max {}), routing reads to {}",
+                        lastLagSeconds, maxReplicaLag, usable ? "replica" : "primary");
+            }
+            replicaUsable = usable;
+        } catch (RuntimeException ex) {
+            if (replicaUsable) {
+                log.warn("Replica lag check failed, routing reads to primary", ex);
+            }
+            replicaUsable = false;
+        }
+    }
+}
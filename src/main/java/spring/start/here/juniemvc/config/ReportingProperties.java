@@ -0,0 +1,29 @@
+package spring.start.here.juniemvc.config;
+
+import jakarta.validation.constraints.NotBlank;
+import jakarta.validation.constraints.Positive;
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.validation.annotation.Validated;
+
+/**
+ * Typed configuration for the daily sales rollups behind the reporting endpoints.
+ */
+@Getter
+@Setter
+@Validated
+@ConfigurationProperties(prefix = "junie.reporting")
+public class ReportingProperties {
+
+    // Rollups are built from the application database's order tables, so they must be off when orders are sharded
+    private boolean enabled = true;
+
+    // When the previous (closed) day is recomputed from the raw order tables
+    @NotBlank
+    private String rebuildCron = "0 15 0 * * *";
+
+    // Upper bound for the date range of a single report or rebuild request
+    @Positive
+    private int maxRangeDays = 366;
+}
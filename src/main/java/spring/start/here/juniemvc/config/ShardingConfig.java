@@ -0,0 +1,68 @@
+package spring.start.here.juniemvc.config;
+
+import com.zaxxer.hikari.HikariDataSource;
+import com.zaxxer.hikari.metrics.micrometer.MicrometerMetricsTrackerFactory;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.flywaydb.core.Flyway;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import spring.start.here.juniemvc.repository.ShardedBeerOrderRepository;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Opens one pool per order shard and migrates it with the shard schema in {@code db/shard}. The pools are
+ * owned by the repository rather than exposed as DataSource beans, so the auto-configured DataSource keeps
+ * serving everything else. Hikari pool metrics are published per pool, named {@code shard-<index>}.
+ * <p>
+ * Asynchronous intake, archival and the sales rollups work on the application database's order tables,
+ * which are empty while orders are sharded. Startup fails unless they are switched off.
+ */
+@Configuration(proxyBeanMethods = false)
+@EnableConfigurationProperties(ShardingProperties.class)
+@ConditionalOnProperty(prefix = "junie.sharding", name = "enabled", havingValue = "true")
+class ShardingConfig {
+
+    @Bean
+    ShardedBeerOrderRepository shardedBeerOrderRepository(ShardingProperties properties,
+                                                          OrderIntakeProperties orderIntakeProperties,
+                                                          ArchivalProperties archivalProperties,
+                                                          ReportingProperties reportingProperties,
+                                                          MeterRegistry meterRegistry) {
+        List<String> unsupported = new ArrayList<>();
+        if (orderIntakeProperties.getMode() == OrderIntakeProperties.Mode.ASYNC) {
+            unsupported.add("junie.order-intake.mode=SYNC");
+        }
+        if (archivalProperties.isEnabled()) {
+            unsupported.add("junie.archival.enabled=false");
+        }
+        if (reportingProperties.isEnabled()) {
+            unsupported.add("junie.reporting.enabled=false");
+        }
+        if (!unsupported.isEmpty()) {
+            throw new IllegalStateException("Sharded orders require " + String.join(", ", unsupported));
+        }
+
+        List<HikariDataSource> shards = new ArrayList<>();
+        for (ShardingProperties.Pool pool : properties.getShards()) {
+            HikariDataSource shard = pool("shard-" + shards.size(), pool, meterRegistry);
+            shards.add(shard);
+            Flyway.configure().dataSource(shard).locations("classpath:db/shard").load().migrate();
+        }
+        return new ShardedBeerOrderRepository(shards, properties.getScatterTimeout(), meterRegistry);
+    }
+
+    private static HikariDataSource pool(String poolName, ShardingProperties.Pool pool, MeterRegistry meterRegistry) {
+        HikariDataSource dataSource = new HikariDataSource();
+        dataSource.setPoolName(poolName);
+        dataSource.setJdbcUrl(pool.getUrl());
+        dataSource.setUsername(pool.getUsername());
+        dataSource.setPassword(pool.getPassword());
+        dataSource.setMaximumPoolSize(pool.getMaximumPoolSize());
+        dataSource.setMetricsTrackerFactory(new MicrometerMetricsTrackerFactory(meterRegistry));
+        return dataSource;
+    }
+}
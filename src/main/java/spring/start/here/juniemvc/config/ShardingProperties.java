@@ -0,0 +1,54 @@
+package spring.start.here.juniemvc.config;
+
+import jakarta.validation.Valid;
+import jakarta.validation.constraints.NotBlank;
+import jakarta.validation.constraints.NotEmpty;
+import jakarta.validation.constraints.NotNull;
+import jakarta.validation.constraints.Positive;
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.validation.annotation.Validated;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Typed configuration for storing orders in shards keyed by customer.
+ * Customers, beers and everything else stay in the application's own DataSource.
+ */
+@Getter
+@Setter
+@Validated
+@ConfigurationProperties(prefix = "junie.sharding")
+public class ShardingProperties {
+
+    // Sharding is opt-in; when disabled orders are stored with the rest of the data
+    private boolean enabled = false;
+
+    // One database per shard, in shard order. Order ids encode their shard, so shards can be added only
+    // to an empty setup
+    @Valid
+    @NotEmpty
+    private List<Pool> shards = new ArrayList<>();
+
+    // Longest wait for all shards of a scatter-gather read
+    @NotNull
+    private Duration scatterTimeout = Duration.ofSeconds(5);
+
+    @Getter
+    @Setter
+    public static class Pool {
+
+        @NotBlank
+        private String url;
+
+        private String username = "sa";
+
+        private String password = "";
+
+        @Positive
+        private int maximumPoolSize = 10;
+    }
+}
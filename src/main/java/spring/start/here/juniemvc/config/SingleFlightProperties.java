@@ -0,0 +1,36 @@
+package spring.start.here.juniemvc.config;
+
+import jakarta.validation.constraints.NotNull;
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.validation.annotation.Validated;
+
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Typed configuration for coalescing concurrent identical catalog reads into one database load.
+ */
+@Getter
+@Setter
+@Validated
+@ConfigurationProperties(prefix = "junie.single-flight")
+public class SingleFlightProperties {
+
+    // When disabled every caller runs its own query
+    private boolean enabled = true;
+
+    // How long a caller waits for a load started by another caller before running its own query
+    @NotNull
+    private Duration timeout = Duration.ofSeconds(2);
+
+    // Overrides of the timeout per key type, e.g. junie.single-flight.timeouts.beer-page=5s
+    @NotNull
+    private Map<String, @NotNull Duration> timeouts = new HashMap<>();
+
+    public Duration timeoutFor(String keyType) {
+        return timeouts.getOrDefault(keyType, timeout);
+    }
+}
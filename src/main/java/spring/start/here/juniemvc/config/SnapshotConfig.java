@@ -0,0 +1,15 @@
+package spring.start.here.juniemvc.config;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * Registers the snapshot properties when snapshots are enabled. The snapshot service and
+ * endpoint carry the same condition.
+ */
+@Configuration(proxyBeanMethods = false)
+@EnableConfigurationProperties(SnapshotProperties.class)
+@ConditionalOnProperty(prefix = "junie.snapshot", name = "enabled", havingValue = "true")
+class SnapshotConfig {
+}
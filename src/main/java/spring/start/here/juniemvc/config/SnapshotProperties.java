@@ -0,0 +1,42 @@
+package spring.start.here.juniemvc.config;
+
+import jakarta.validation.constraints.NotEmpty;
+import jakarta.validation.constraints.NotNull;
+import jakarta.validation.constraints.Positive;
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.validation.annotation.Validated;
+
+import java.nio.file.Path;
+import java.util.List;
+
+/**
+ * Typed configuration for binary database snapshots used to bootstrap perf and staging environments.
+ */
+@Getter
+@Setter
+@Validated
+@ConfigurationProperties(prefix = "junie.snapshot")
+public class SnapshotProperties {
+
+    // Snapshots are opt-in; when disabled neither the dump endpoint nor the startup restore exist
+    private boolean enabled = false;
+
+    @NotNull
+    private Path file = Path.of("snapshots/junie.snapshot");
+
+    // Load the snapshot at startup, after the Flyway migrations, when all tables are still empty
+    private boolean restoreOnStartup = false;
+
+    // Tables in foreign key order; they are dumped and restored in this order
+    @NotEmpty
+    private List<String> tables = List.of(
+            "customer", "beer", "beer_order", "beer_order_line", "beer_inventory",
+            "beer_order_archive", "beer_order_line_archive",
+            "beer_sales_daily", "customer_orders_daily", "idempotency_key");
+
+    // Rows per JDBC insert batch during restore
+    @Positive
+    private int batchSize = 10_000;
+}
@@ -0,0 +1,37 @@
+package spring.start.here.juniemvc.config;
+
+import org.springframework.boot.LazyInitializationExcludeFilter;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.annotation.AnnotatedElementUtils;
+import org.springframework.core.annotation.AnnotationUtils;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.util.ReflectionUtils;
+
+import java.lang.reflect.Method;
+
+/**
+ * Keeps lazy initialization (enabled by the {@code fast-start} profile) from disabling background jobs:
+ * a bean whose only entry points are {@code @Scheduled} methods would never be requested, so its
+ * schedules would never be registered. Such beans are always created eagerly.
+ */
+@Configuration(proxyBeanMethods = false)
+class StartupConfig {
+
+    @Bean
+    static LazyInitializationExcludeFilter scheduledBeansExcludeFilter() {
+        return (beanName, beanDefinition, beanType) -> beanType != null && hasScheduledMethods(beanType);
+    }
+
+    static boolean hasScheduledMethods(Class<?> beanType) {
+        if (!AnnotationUtils.isCandidateClass(beanType, Scheduled.class)) {
+            return false;
+        }
+        for (Method method : ReflectionUtils.getUniqueDeclaredMethods(beanType, ReflectionUtils.USER_DECLARED_METHODS)) {
+            if (AnnotatedElementUtils.hasAnnotation(method, Scheduled.class)) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
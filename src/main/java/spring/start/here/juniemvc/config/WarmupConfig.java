@@ -0,0 +1,15 @@
+package spring.start.here.juniemvc.config;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * Registers the warm-up properties when the startup warm-up is enabled. The warm-up runner
+ * carries the same condition.
+ */
+@Configuration(proxyBeanMethods = false)
+@EnableConfigurationProperties(WarmupProperties.class)
+@ConditionalOnProperty(prefix = "junie.warmup", name = "enabled", havingValue = "true")
+class WarmupConfig {
+}
@@ -0,0 +1,39 @@
+package spring.start.here.juniemvc.config;
+
+import jakarta.validation.constraints.NotNull;
+import jakarta.validation.constraints.Positive;
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.validation.annotation.Validated;
+
+import java.time.Duration;
+
+/**
+ * Typed configuration for the startup warm-up that runs before the instance reports ready.
+ */
+@Getter
+@Setter
+@Validated
+@ConfigurationProperties(prefix = "junie.warmup")
+public class WarmupProperties {
+
+    // When disabled the instance reports ready as soon as the context has started
+    private boolean enabled = false;
+
+    // Synthetic read requests per worker; each reads a page of beers and orders and a few single entities
+    @Positive
+    private int iterations = 2_000;
+
+    // Workers issuing the synthetic requests; also the number of pool connections opened up front
+    @Positive
+    private int concurrency = 4;
+
+    // Beers per page when pre-reading the catalog and issuing synthetic list requests
+    @Positive
+    private int pageSize = 25;
+
+    // Upper bound on the warm-up; readiness is reported when it expires even if iterations remain
+    @NotNull
+    private Duration timeout = Duration.ofSeconds(30);
+}
@@ -0,0 +1,17 @@
+package spring.start.here.juniemvc.domain.event;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * Published when lines of an existing order are added, changed or removed, with the net change per beer.
+ * Published within the writing transaction.
+ */
+public record BeerOrderLinesChangedEvent(
+        Integer orderId,
+        String orderStatus,
+        LocalDateTime orderCreatedDate,
+        List<BeerDelta> deltas
+) {
+    public record BeerDelta(Integer beerId, long quantity, long lineCount) {}
+}
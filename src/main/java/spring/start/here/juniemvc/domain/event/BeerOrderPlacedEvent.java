@@ -0,0 +1,22 @@
+package spring.start.here.juniemvc.domain.event;
+
+import spring.start.here.juniemvc.domain.model.BeerOrder;
+
+import java.util.List;
+
+/**
+ * Published when a new order is stored, with the quantity ordered per line. Published within the writing
+ * transaction where there is one; listeners that must only see committed orders run after commit.
+ */
+public record BeerOrderPlacedEvent(
+        Integer orderId,
+        List<BeerSale> sales
+) {
+    public record BeerSale(Integer beerId, int quantity) {}
+
+    public static BeerOrderPlacedEvent of(BeerOrder order) {
+        return new BeerOrderPlacedEvent(order.getId(), order.getBeerOrderLines().stream()
+                .map(line -> new BeerSale(line.getBeer().getId(), line.getOrderQuantity()))
+                .toList());
+    }
+}
@@ -0,0 +1,16 @@
+package spring.start.here.juniemvc.domain.event;
+
+import java.time.Instant;
+
+/**
+ * Published by every writer of {@code BeerOrder.orderStatus}, including order creation.
+ * Listeners that need committed data handle it after the publishing transaction commits.
+ */
+public record BeerOrderStatusChangedEvent(
+        Integer orderId,
+        Integer customerId,
+        String previousStatus, // null when the order was just created
+        String orderStatus,
+        Integer version,
+        Instant changedAt
+) {}
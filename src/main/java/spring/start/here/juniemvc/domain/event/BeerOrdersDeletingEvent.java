@@ -0,0 +1,11 @@
+package spring.start.here.juniemvc.domain.event;
+
+import java.util.List;
+
+/**
+ * Published by bulk deletes of orders, live or archived, within the deleting transaction and before the
+ * rows are gone, so listeners can still read the orders.
+ */
+public record BeerOrdersDeletingEvent(
+        List<Integer> orderIds
+) {}
@@ -0,0 +1,15 @@
+package spring.start.here.juniemvc.domain.event;
+
+/**
+ * Published by every update and delete of an entity that may be cached. Caches drop the entity after the
+ * publishing transaction commits, on this node and, through the invalidation bus, on the others.
+ */
+public record EntityChangedEvent(
+        EntityType entityType,
+        Integer id
+) {
+    public enum EntityType {
+        BEER,
+        CUSTOMER
+    }
+}
@@ -3,6 +3,7 @@ package spring.start.here.juniemvc.domain.model;
 import jakarta.persistence.*;
 import lombok.*;
 import org.hibernate.annotations.CreationTimestamp;
+import org.hibernate.annotations.DynamicUpdate;
 import org.hibernate.annotations.UpdateTimestamp;
 
 import java.math.BigDecimal;
@@ -16,6 +17,8 @@ import java.util.Set;
 @AllArgsConstructor
 @Builder
 @Entity
+// Partial updates write only the changed columns
+@DynamicUpdate
 @Table(name = "beer")
 public class Beer {
 
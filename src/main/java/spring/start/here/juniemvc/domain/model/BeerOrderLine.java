@@ -5,6 +5,7 @@ import lombok.*;
 import org.hibernate.annotations.CreationTimestamp;
 import org.hibernate.annotations.UpdateTimestamp;
 
+import java.math.BigDecimal;
 import java.time.LocalDateTime;
 
 @Getter
@@ -26,6 +27,9 @@ public class BeerOrderLine {
     private Integer orderQuantity;
     private Integer quantityAllocated;
 
+    // Beer price when the line was added; later price changes do not change the order
+    private BigDecimal unitPrice;
+
     @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "beer_order_id")
     private BeerOrder beerOrder;
@@ -0,0 +1,40 @@
+package spring.start.here.juniemvc.domain.model;
+
+import jakarta.persistence.*;
+import lombok.*;
+
+import java.io.Serializable;
+import java.time.LocalDate;
+
+/**
+ * Rollup of ordered quantity per beer per day (by order creation date), excluding cancelled orders.
+ */
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+@Entity
+@Table(name = "beer_sales_daily")
+@IdClass(BeerSalesDaily.Key.class)
+public class BeerSalesDaily {
+
+    @Id
+    private LocalDate salesDate;
+
+    @Id
+    private Integer beerId;
+
+    private Long quantity;
+    private Long orderLineCount;
+
+    @Getter
+    @Setter
+    @NoArgsConstructor
+    @AllArgsConstructor
+    @EqualsAndHashCode
+    public static class Key implements Serializable {
+        private LocalDate salesDate;
+        private Integer beerId;
+    }
+}
@@ -3,6 +3,7 @@ package spring.start.here.juniemvc.domain.model;
 import jakarta.persistence.*;
 import lombok.*;
 import org.hibernate.annotations.CreationTimestamp;
+import org.hibernate.annotations.DynamicUpdate;
 import org.hibernate.annotations.UpdateTimestamp;
 
 import java.time.LocalDateTime;
@@ -15,6 +16,8 @@ import java.util.Set;
 @AllArgsConstructor
 @Builder
 @Entity
+// Partial updates write only the changed columns
+@DynamicUpdate
 @Table(name = "customer")
 public class Customer {
 
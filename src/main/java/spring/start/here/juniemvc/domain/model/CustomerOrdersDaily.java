@@ -0,0 +1,39 @@
+package spring.start.here.juniemvc.domain.model;
+
+import jakarta.persistence.*;
+import lombok.*;
+
+import java.io.Serializable;
+import java.time.LocalDate;
+
+/**
+ * Rollup of orders per customer per day (by order creation date), excluding cancelled orders.
+ */
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+@Entity
+@Table(name = "customer_orders_daily")
+@IdClass(CustomerOrdersDaily.Key.class)
+public class CustomerOrdersDaily {
+
+    @Id
+    private LocalDate orderDate;
+
+    @Id
+    private Integer customerId;
+
+    private Long orderCount;
+
+    @Getter
+    @Setter
+    @NoArgsConstructor
+    @AllArgsConstructor
+    @EqualsAndHashCode
+    public static class Key implements Serializable {
+        private LocalDate orderDate;
+        private Integer customerId;
+    }
+}
@@ -0,0 +1,37 @@
+package spring.start.here.juniemvc.domain.model;
+
+import jakarta.persistence.*;
+import lombok.*;
+import org.hibernate.annotations.CreationTimestamp;
+
+import java.time.LocalDateTime;
+
+/**
+ * Records the outcome of a request carrying an {@code Idempotency-Key} header,
+ * so that retries of the same request can be answered without re-executing it.
+ */
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+@Entity
+@Table(name = "idempotency_key")
+public class IdempotencyKey {
+
+    @Id
+    @Column(name = "idempotency_key")
+    private String key;
+
+    @Version
+    private Integer version;
+
+    // SHA-256 of the request payload, used to reject a key reused for a different request
+    private String requestHash;
+
+    private Integer beerOrderId;
+
+    @Column(updatable = false)
+    @CreationTimestamp
+    private LocalDateTime createdDate;
+}
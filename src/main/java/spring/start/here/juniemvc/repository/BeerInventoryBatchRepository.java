@@ -0,0 +1,100 @@
+package spring.start.here.juniemvc.repository;
+
+import org.springframework.jdbc.core.BatchPreparedStatementSetter;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.stereotype.Repository;
+
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Bulk access to beer inventory for imports and stock adjustments. Rows are inserted with a single JDBC
+ * batch statement straight from primitive arrays, since Hibernate cannot batch inserts of IDENTITY-keyed
+ * entities. Adjustments add to the stored quantity in the UPDATE itself, so they never read the row first.
+ */
+@Repository
+public class BeerInventoryBatchRepository {
+
+    private static final String INSERT_INVENTORY = """
+            INSERT INTO beer_inventory (version, quantity_on_hand, beer_id, created_date, update_date)
+            VALUES (0, ?, ?, ?, ?)""";
+
+    private static final String ADD_TO_QUANTITY = """
+            UPDATE beer_inventory
+            SET quantity_on_hand = quantity_on_hand + ?, version = version + 1, update_date = ?
+            WHERE id = ?""";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    public BeerInventoryBatchRepository(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    /**
+     * @return the id of every beer that has a UPC, keyed by UPC
+     */
+    public Map<String, Integer> findBeerIdsByUpc() {
+        Map<String, Integer> beerIdsByUpc = new HashMap<>();
+        jdbcTemplate.query("SELECT upc, id FROM beer WHERE upc IS NOT NULL",
+                (RowCallbackHandler) rs -> beerIdsByUpc.put(rs.getString(1), rs.getInt(2)));
+        return beerIdsByUpc;
+    }
+
+    /**
+     * Insert one inventory row per entry of the first {@code count} elements of the arrays.
+     */
+    public void insertAll(int[] beerIds, int[] quantities, int count) {
+        if (count == 0) return;
+        Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+        jdbcTemplate.batchUpdate(INSERT_INVENTORY, new BatchPreparedStatementSetter() {
+            @Override
+            public void setValues(PreparedStatement ps, int i) throws SQLException {
+                ps.setInt(1, quantities[i]);
+                ps.setInt(2, beerIds[i]);
+                ps.setTimestamp(3, now);
+                ps.setTimestamp(4, now);
+            }
+
+            @Override
+            public int getBatchSize() {
+                return count;
+            }
+        });
+    }
+
+    /**
+     * Add {@code delta} to the quantity on hand of one inventory row.
+     * @return whether the row exists
+     */
+    public boolean addToQuantity(int inventoryId, long delta) {
+        return jdbcTemplate.update(ADD_TO_QUANTITY, delta, Timestamp.valueOf(LocalDateTime.now()), inventoryId) == 1;
+    }
+
+    /**
+     * Add each delta to the quantity on hand of its inventory row, for the first {@code count} elements
+     * of the arrays, with a single JDBC batch statement.
+     * @return the number of rows updated per entry; 0 where the row does not exist
+     */
+    public int[] addToQuantities(int[] inventoryIds, long[] deltas, int count) {
+        if (count == 0) return new int[0];
+        Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+        return jdbcTemplate.batchUpdate(ADD_TO_QUANTITY, new BatchPreparedStatementSetter() {
+            @Override
+            public void setValues(PreparedStatement ps, int i) throws SQLException {
+                ps.setLong(1, deltas[i]);
+                ps.setTimestamp(2, now);
+                ps.setInt(3, inventoryIds[i]);
+            }
+
+            @Override
+            public int getBatchSize() {
+                return count;
+            }
+        });
+    }
+}
@@ -0,0 +1,197 @@
+package spring.start.here.juniemvc.repository;
+
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.stereotype.Repository;
+import spring.start.here.juniemvc.domain.model.Beer;
+import spring.start.here.juniemvc.domain.model.BeerOrder;
+import spring.start.here.juniemvc.domain.model.BeerOrderLine;
+import spring.start.here.juniemvc.domain.model.Customer;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * Moves terminal orders from {@code beer_order}/{@code beer_order_line} into the archive tables and
+ * reads them back. Moving is set-based (one INSERT ... SELECT and one DELETE per table) and must run
+ * inside the caller's transaction.
+ */
+@Repository
+public class BeerOrderArchiveRepository {
+
+    private static final String SELECT_ARCHIVABLE = """
+            SELECT id FROM beer_order
+            WHERE order_status IN (:statuses) AND update_date < :updatedBefore
+              AND MOD(id, :partitions) = :partition
+            ORDER BY update_date
+            LIMIT :limit""";
+
+    // Re-check the status under a row lock so orders changed since they were selected stay put
+    private static final String LOCK_ARCHIVABLE = """
+            SELECT id FROM beer_order
+            WHERE id IN (:ids) AND order_status IN (:statuses)
+            FOR UPDATE""";
+
+    private static final String COPY_ORDERS = """
+            INSERT INTO beer_order_archive (id, version, order_status, order_status_callback_url, customer_id,
+                                            total_amount, line_count, created_date, update_date, archived_date)
+            SELECT id, version, order_status, order_status_callback_url, customer_id,
+                   total_amount, line_count, created_date, update_date, :archivedDate
+            FROM beer_order WHERE id IN (:ids)""";
+
+    private static final String COPY_LINES = """
+            INSERT INTO beer_order_line_archive (id, version, order_quantity, quantity_allocated, beer_order_id,
+                                                 beer_id, unit_price, created_date, update_date)
+            SELECT id, version, order_quantity, quantity_allocated, beer_order_id,
+                   beer_id, unit_price, created_date, update_date
+            FROM beer_order_line WHERE beer_order_id IN (:ids)""";
+
+    private static final String DELETE_LINES = "DELETE FROM beer_order_line WHERE beer_order_id IN (:ids)";
+
+    private static final String DELETE_ORDERS = "DELETE FROM beer_order WHERE id IN (:ids)";
+
+    private static final String SELECT_CUSTOMER_IDS = """
+            SELECT id FROM beer_order_archive WHERE customer_id = :customerId
+            ORDER BY id
+            LIMIT :limit""";
+
+    private static final String DELETE_ARCHIVED_LINES = "DELETE FROM beer_order_line_archive WHERE beer_order_id IN (:ids)";
+
+    private static final String DELETE_ARCHIVED_ORDERS = "DELETE FROM beer_order_archive WHERE id IN (:ids)";
+
+    private static final String SELECT_ORDERS = """
+            SELECT id, version, order_status, order_status_callback_url, customer_id, total_amount, line_count,
+                   created_date, update_date
+            FROM beer_order_archive WHERE id IN (:ids)""";
+
+    private static final String SELECT_LINES = """
+            SELECT id, version, order_quantity, quantity_allocated, beer_order_id, beer_id, unit_price,
+                   created_date, update_date
+            FROM beer_order_line_archive WHERE beer_order_id IN (:ids)""";
+
+    private final NamedParameterJdbcTemplate jdbcTemplate;
+
+    public BeerOrderArchiveRepository(NamedParameterJdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    /**
+     * Ids of at most {@code limit} orders in one of the given statuses, last updated before the cutoff,
+     * oldest first.
+     */
+    public List<Integer> findArchivableIds(Collection<String> statuses, LocalDateTime updatedBefore, int limit) {
+        return findArchivableIds(statuses, updatedBefore, limit, 0, 1);
+    }
+
+    /**
+     * Like {@link #findArchivableIds(Collection, LocalDateTime, int)}, limited to the orders whose
+     * {@code id mod partitions} is {@code partition}.
+     */
+    public List<Integer> findArchivableIds(Collection<String> statuses, LocalDateTime updatedBefore, int limit,
+                                           int partition, int partitions) {
+        return jdbcTemplate.queryForList(SELECT_ARCHIVABLE, new MapSqlParameterSource()
+                .addValue("statuses", statuses)
+                .addValue("updatedBefore", Timestamp.valueOf(updatedBefore))
+                .addValue("partition", partition)
+                .addValue("partitions", partitions)
+                .addValue("limit", limit), Integer.class);
+    }
+
+    /**
+     * Move the given orders and their lines to the archive tables.
+     * @return the number of orders moved; orders whose status left {@code statuses} are skipped
+     */
+    public int archive(List<Integer> orderIds, Collection<String> statuses) {
+        if (orderIds.isEmpty()) return 0;
+        List<Integer> locked = jdbcTemplate.queryForList(LOCK_ARCHIVABLE,
+                Map.of("ids", orderIds, "statuses", statuses), Integer.class);
+        if (locked.isEmpty()) return 0;
+
+        MapSqlParameterSource params = new MapSqlParameterSource()
+                .addValue("ids", locked)
+                .addValue("archivedDate", Timestamp.valueOf(LocalDateTime.now()));
+        jdbcTemplate.update(COPY_ORDERS, params);
+        jdbcTemplate.update(COPY_LINES, params);
+        jdbcTemplate.update(DELETE_LINES, params);
+        return jdbcTemplate.update(DELETE_ORDERS, params);
+    }
+
+    /**
+     * Ids of at most {@code limit} archived orders of a customer, lowest first.
+     */
+    public List<Integer> findIdsByCustomerId(Integer customerId, int limit) {
+        return jdbcTemplate.queryForList(SELECT_CUSTOMER_IDS, new MapSqlParameterSource()
+                .addValue("customerId", customerId)
+                .addValue("limit", limit), Integer.class);
+    }
+
+    /**
+     * Delete archived orders and their lines.
+     * @return the number of archived orders deleted
+     */
+    public int deleteAllById(Collection<Integer> ids) {
+        if (ids.isEmpty()) return 0;
+        Map<String, Collection<Integer>> params = Map.of("ids", ids);
+        jdbcTemplate.update(DELETE_ARCHIVED_LINES, params);
+        return jdbcTemplate.update(DELETE_ARCHIVED_ORDERS, params);
+    }
+
+    /**
+     * Load an archived order with its lines as a detached entity. Customer and beers carry only their ids.
+     */
+    public Optional<BeerOrder> findById(Integer id) {
+        return findAllById(List.of(id)).stream().findFirst();
+    }
+
+    /**
+     * Load archived orders with their lines as detached entities, with one query for the orders and one
+     * for the lines. Customer and beers carry only their ids.
+     */
+    public List<BeerOrder> findAllById(Collection<Integer> ids) {
+        if (ids.isEmpty()) return List.of();
+        Map<String, Collection<Integer>> params = Map.of("ids", ids);
+        Map<Integer, BeerOrder> orders = new HashMap<>();
+        jdbcTemplate.query(SELECT_ORDERS, params, rs -> {
+            BeerOrder order = BeerOrder.builder()
+                    .id(rs.getInt("id"))
+                    .version(rs.getInt("version"))
+                    .orderStatus(rs.getString("order_status"))
+                    .orderStatusCallbackUrl(rs.getString("order_status_callback_url"))
+                    .customer(rs.getObject("customer_id") != null
+                            ? Customer.builder().id(rs.getInt("customer_id")).build() : null)
+                    .totalAmount(rs.getBigDecimal("total_amount"))
+                    .lineCount(rs.getInt("line_count"))
+                    .createdDate(toLocalDateTime(rs.getTimestamp("created_date")))
+                    .updateDate(toLocalDateTime(rs.getTimestamp("update_date")))
+                    .build();
+            orders.put(order.getId(), order);
+        });
+        if (orders.isEmpty()) return List.of();
+
+        jdbcTemplate.query(SELECT_LINES, params, rs -> {
+            BeerOrder order = orders.get(rs.getInt("beer_order_id"));
+            order.getBeerOrderLines().add(BeerOrderLine.builder()
+                    .id(rs.getInt("id"))
+                    .version(rs.getInt("version"))
+                    .orderQuantity(rs.getInt("order_quantity"))
+                    .quantityAllocated(rs.getInt("quantity_allocated"))
+                    .beer(Beer.builder().id(rs.getInt("beer_id")).build())
+                    .unitPrice(rs.getBigDecimal("unit_price"))
+                    .beerOrder(order)
+                    .createdDate(toLocalDateTime(rs.getTimestamp("created_date")))
+                    .updateDate(toLocalDateTime(rs.getTimestamp("update_date")))
+                    .build());
+        });
+        return new ArrayList<>(orders.values());
+    }
+
+    private static LocalDateTime toLocalDateTime(Timestamp timestamp) {
+        return timestamp != null ? timestamp.toLocalDateTime() : null;
+    }
+}
@@ -0,0 +1,94 @@
+package spring.start.here.juniemvc.repository;
+
+import org.springframework.jdbc.core.BatchPreparedStatementSetter;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.support.GeneratedKeyHolder;
+import org.springframework.jdbc.support.KeyHolder;
+import org.springframework.stereotype.Repository;
+import spring.start.here.juniemvc.domain.model.BeerOrder;
+import spring.start.here.juniemvc.domain.model.BeerOrderLine;
+
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Inserts many new orders with two JDBC batch statements (orders, then lines).
+ * Hibernate cannot batch inserts of IDENTITY-keyed entities, so bulk writers use this instead of
+ * {@link BeerOrderRepository#saveAll}. Must run inside the caller's transaction.
+ */
+@Repository
+public class BeerOrderBatchRepository {
+
+    private static final String INSERT_ORDER = """
+            INSERT INTO beer_order (version, order_status, order_status_callback_url, customer_id,
+                                    total_amount, line_count, created_date, update_date)
+            VALUES (0, ?, ?, ?, ?, ?, ?, ?)""";
+
+    private static final String INSERT_LINE = """
+            INSERT INTO beer_order_line (version, order_quantity, quantity_allocated, beer_order_id, beer_id,
+                                         unit_price, created_date, update_date)
+            VALUES (0, ?, ?, ?, ?, ?, ?, ?)""";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    public BeerOrderBatchRepository(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    /**
+     * Insert the given transient orders and their lines, assigning the generated ids to the entities.
+     * @param orders orders with their totals, customer and line beer references carrying only ids
+     */
+    public void insertAll(List<BeerOrder> orders) {
+        if (orders.isEmpty()) return;
+        Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+
+        KeyHolder orderKeys = new GeneratedKeyHolder();
+        jdbcTemplate.batchUpdate(con -> con.prepareStatement(INSERT_ORDER, new String[]{"id"}),
+                new BatchPreparedStatementSetter() {
+                    @Override
+                    public void setValues(PreparedStatement ps, int i) throws SQLException {
+                        BeerOrder order = orders.get(i);
+                        ps.setString(1, order.getOrderStatus());
+                        ps.setString(2, order.getOrderStatusCallbackUrl());
+                        ps.setInt(3, order.getCustomer().getId());
+                        ps.setBigDecimal(4, order.getTotalAmount());
+                        ps.setInt(5, order.getLineCount());
+                        ps.setTimestamp(6, now);
+                        ps.setTimestamp(7, now);
+                    }
+
+                    @Override
+                    public int getBatchSize() {
+                        return orders.size();
+                    }
+                }, orderKeys);
+
+        List<Map<String, Object>> keys = orderKeys.getKeyList();
+        List<BeerOrderLine> lines = new ArrayList<>();
+        for (int i = 0; i < orders.size(); i++) {
+            BeerOrder order = orders.get(i);
+            order.setId(((Number) keys.get(i).values().iterator().next()).intValue());
+            order.setVersion(0);
+            order.setCreatedDate(now.toLocalDateTime());
+            order.setUpdateDate(now.toLocalDateTime());
+            lines.addAll(order.getBeerOrderLines());
+        }
+        if (lines.isEmpty()) return;
+
+        jdbcTemplate.batchUpdate(INSERT_LINE, lines, lines.size(), (ps, line) -> {
+            ps.setInt(1, line.getOrderQuantity());
+            ps.setInt(2, line.getQuantityAllocated() != null ? line.getQuantityAllocated() : 0);
+            ps.setInt(3, line.getBeerOrder().getId());
+            ps.setInt(4, line.getBeer().getId());
+            ps.setBigDecimal(5, line.getUnitPrice());
+            ps.setTimestamp(6, now);
+            ps.setTimestamp(7, now);
+        });
+    }
+}
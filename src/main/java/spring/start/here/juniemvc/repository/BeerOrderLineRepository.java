@@ -1,9 +1,21 @@
 package spring.start.here.juniemvc.repository;
 
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 import spring.start.here.juniemvc.domain.model.BeerOrderLine;
 
+import java.util.Collection;
+
 @Repository
 public interface BeerOrderLineRepository extends JpaRepository<BeerOrderLine, Integer> {
+
+    /**
+     * Delete all lines of the given orders with a single statement, without loading them.
+     */
+    @Modifying
+    @Query("delete from BeerOrderLine l where l.beerOrder.id in :orderIds")
+    int bulkDeleteByOrderIds(@Param("orderIds") Collection<Integer> orderIds);
 }
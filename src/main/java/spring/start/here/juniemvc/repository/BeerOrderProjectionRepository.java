@@ -0,0 +1,53 @@
+package spring.start.here.juniemvc.repository;
+
+import org.springframework.data.domain.Pageable;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Reads selected columns of {@code beer_order} without loading entities, for listings that only show a
+ * few fields. Order lines are never read.
+ */
+@Repository
+public class BeerOrderProjectionRepository {
+
+    // Columns that may be selected; anything else is rejected rather than concatenated into the query
+    private static final Set<String> COLUMNS =
+            Set.of("id", "version", "customer_id", "order_status", "order_status_callback_url", "total_amount",
+                    "line_count");
+
+    private final NamedParameterJdbcTemplate jdbcTemplate;
+
+    public BeerOrderProjectionRepository(NamedParameterJdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    /**
+     * The given columns of all orders, or of one page of them, ordered by id.
+     * @return one array per order holding the column values in the order requested
+     */
+    public List<Object[]> findColumns(List<String> columns, Pageable pageable) {
+        if (columns.isEmpty() || !COLUMNS.containsAll(columns)) {
+            throw new IllegalArgumentException("Unknown beer_order columns: " + columns);
+        }
+        StringBuilder sql = new StringBuilder("SELECT ")
+                .append(String.join(", ", columns))
+                .append(" FROM beer_order ORDER BY id");
+        MapSqlParameterSource params = new MapSqlParameterSource();
+        if (pageable.isPaged()) {
+            sql.append(" LIMIT :limit OFFSET :offset");
+            params.addValue("limit", pageable.getPageSize()).addValue("offset", pageable.getOffset());
+        }
+        return jdbcTemplate.query(sql.toString(), params, (rs, rowNum) -> {
+            Object[] row = new Object[columns.size()];
+            for (int i = 0; i < row.length; i++) {
+                row[i] = rs.getObject(i + 1);
+            }
+            return row;
+        });
+    }
+}
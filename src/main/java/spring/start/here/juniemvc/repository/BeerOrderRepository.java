@@ -1,13 +1,46 @@
 package spring.start.here.juniemvc.repository;
 
+import jakarta.persistence.LockModeType;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 import spring.start.here.juniemvc.domain.model.BeerOrder;
 import spring.start.here.juniemvc.domain.model.Customer;
 
+import java.util.Collection;
 import java.util.List;
+import java.util.Optional;
 
 @Repository
 public interface BeerOrderRepository extends JpaRepository<BeerOrder, Integer> {
     List<BeerOrder> findAllByCustomer(Customer customer);
+
+    /**
+     * Load an order and lock its row until the transaction ends, serializing concurrent line edits.
+     */
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("select o from BeerOrder o where o.id = :id")
+    Optional<BeerOrder> findWithLockById(@Param("id") Integer id);
+
+    /**
+     * Load orders together with their lines in a single query.
+     */
+    @EntityGraph(attributePaths = "beerOrderLines")
+    @Query("select o from BeerOrder o where o.id in :ids")
+    List<BeerOrder> findWithLinesByIdIn(@Param("ids") Collection<Integer> ids);
+
+    @Query("select o.id from BeerOrder o where o.customer.id = :customerId order by o.id")
+    List<Integer> findIdsByCustomerId(@Param("customerId") Integer customerId, Pageable pageable);
+
+    /**
+     * Delete orders with a single statement, without loading them. Their lines must be deleted first.
+     */
+    @Modifying
+    @Query("delete from BeerOrder o where o.id in :ids")
+    int bulkDeleteByIds(@Param("ids") Collection<Integer> ids);
 }
@@ -0,0 +1,102 @@
+package spring.start.here.juniemvc.repository;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import spring.start.here.juniemvc.domain.model.BeerSalesDaily;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+
+@Repository
+public interface BeerSalesDailyRepository extends JpaRepository<BeerSalesDaily, BeerSalesDaily.Key> {
+
+    List<BeerSalesDaily> findAllBySalesDateBetweenOrderBySalesDateAscBeerIdAsc(LocalDate from, LocalDate to);
+
+    List<BeerSalesDaily> findAllByBeerIdAndSalesDateBetweenOrderBySalesDateAsc(Integer beerId, LocalDate from, LocalDate to);
+
+    /**
+     * Add (sign = 1) or remove (sign = -1) the lines of one order to/from its day bucket.
+     */
+    @Modifying
+    @Query(value = """
+            MERGE INTO beer_sales_daily d
+            USING (SELECT CAST(o.created_date AS DATE) AS sales_date, l.beer_id AS beer_id,
+                          SUM(l.order_quantity) * :sign AS quantity, COUNT(*) * :sign AS line_count
+                   FROM beer_order o JOIN beer_order_line l ON l.beer_order_id = o.id
+                   WHERE o.id = :orderId
+                   GROUP BY CAST(o.created_date AS DATE), l.beer_id) s
+            ON d.sales_date = s.sales_date AND d.beer_id = s.beer_id
+            WHEN MATCHED THEN UPDATE SET quantity = d.quantity + s.quantity,
+                                         order_line_count = d.order_line_count + s.line_count
+            WHEN NOT MATCHED THEN INSERT (sales_date, beer_id, quantity, order_line_count)
+                                  VALUES (s.sales_date, s.beer_id, s.quantity, s.line_count)""",
+            nativeQuery = true)
+    int applyOrder(@Param("orderId") Integer orderId, @Param("sign") int sign);
+
+    /**
+     * Add a (possibly negative) quantity and line count to one day bucket of one beer.
+     */
+    @Modifying
+    @Query(value = """
+            MERGE INTO beer_sales_daily d
+            USING (SELECT CAST(:salesDate AS DATE) AS sales_date, CAST(:beerId AS INTEGER) AS beer_id,
+                          CAST(:quantity AS BIGINT) AS quantity, CAST(:lineCount AS BIGINT) AS line_count) s
+            ON d.sales_date = s.sales_date AND d.beer_id = s.beer_id
+            WHEN MATCHED THEN UPDATE SET quantity = d.quantity + s.quantity,
+                                         order_line_count = d.order_line_count + s.line_count
+            WHEN NOT MATCHED THEN INSERT (sales_date, beer_id, quantity, order_line_count)
+                                  VALUES (s.sales_date, s.beer_id, s.quantity, s.line_count)""",
+            nativeQuery = true)
+    int applyDelta(@Param("salesDate") LocalDate salesDate, @Param("beerId") Integer beerId,
+                   @Param("quantity") long quantity, @Param("lineCount") long lineCount);
+
+    /**
+     * Remove the lines of orders about to be deleted from their day buckets. Live and archived orders
+     * are both read; cancelled orders never counted and are skipped.
+     */
+    @Modifying
+    @Query(value = """
+            MERGE INTO beer_sales_daily d
+            USING (SELECT sales_date, beer_id, SUM(order_quantity) AS quantity, COUNT(*) AS line_count
+                   FROM (SELECT CAST(o.created_date AS DATE) AS sales_date, l.beer_id, l.order_quantity
+                         FROM beer_order o JOIN beer_order_line l ON l.beer_order_id = o.id
+                         WHERE o.id IN (:orderIds)
+                           AND (o.order_status IS NULL OR o.order_status <> 'CANCELLED')
+                         UNION ALL
+                         SELECT CAST(o.created_date AS DATE), l.beer_id, l.order_quantity
+                         FROM beer_order_archive o JOIN beer_order_line_archive l ON l.beer_order_id = o.id
+                         WHERE o.id IN (:orderIds)
+                           AND (o.order_status IS NULL OR o.order_status <> 'CANCELLED')) x
+                   GROUP BY sales_date, beer_id) s
+            ON d.sales_date = s.sales_date AND d.beer_id = s.beer_id
+            WHEN MATCHED THEN UPDATE SET quantity = d.quantity - s.quantity,
+                                         order_line_count = d.order_line_count - s.line_count""",
+            nativeQuery = true)
+    int removeOrders(@Param("orderIds") Collection<Integer> orderIds);
+
+    @Modifying
+    @Query(value = "DELETE FROM beer_sales_daily WHERE sales_date BETWEEN :from AND :to", nativeQuery = true)
+    int deleteRange(@Param("from") LocalDate from, @Param("to") LocalDate to);
+
+    @Modifying
+    @Query(value = """
+            INSERT INTO beer_sales_daily (sales_date, beer_id, quantity, order_line_count)
+            SELECT sales_date, beer_id, SUM(order_quantity), COUNT(*)
+            FROM (SELECT CAST(o.created_date AS DATE) AS sales_date, l.beer_id, l.order_quantity
+                  FROM beer_order o JOIN beer_order_line l ON l.beer_order_id = o.id
+                  WHERE o.created_date >= :fromInclusive AND o.created_date < :toExclusive
+                    AND (o.order_status IS NULL OR o.order_status <> 'CANCELLED')
+                  UNION ALL
+                  SELECT CAST(o.created_date AS DATE), l.beer_id, l.order_quantity
+                  FROM beer_order_archive o JOIN beer_order_line_archive l ON l.beer_order_id = o.id
+                  WHERE o.created_date >= :fromInclusive AND o.created_date < :toExclusive
+                    AND (o.order_status IS NULL OR o.order_status <> 'CANCELLED')) s
+            GROUP BY sales_date, beer_id""", nativeQuery = true)
+    int insertRange(@Param("fromInclusive") LocalDateTime fromInclusive,
+                    @Param("toExclusive") LocalDateTime toExclusive);
+}
@@ -0,0 +1,84 @@
+package spring.start.here.juniemvc.repository;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import spring.start.here.juniemvc.domain.model.CustomerOrdersDaily;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+
+@Repository
+public interface CustomerOrdersDailyRepository extends JpaRepository<CustomerOrdersDaily, CustomerOrdersDaily.Key> {
+
+    List<CustomerOrdersDaily> findAllByOrderDateBetweenOrderByOrderDateAscCustomerIdAsc(LocalDate from, LocalDate to);
+
+    List<CustomerOrdersDaily> findAllByCustomerIdAndOrderDateBetweenOrderByOrderDateAsc(Integer customerId,
+                                                                                       LocalDate from, LocalDate to);
+
+    /**
+     * Add (sign = 1) or remove (sign = -1) one order to/from its customer's day bucket.
+     */
+    @Modifying
+    @Query(value = """
+            MERGE INTO customer_orders_daily d
+            USING (SELECT CAST(o.created_date AS DATE) AS order_date, o.customer_id AS customer_id
+                   FROM beer_order o
+                   WHERE o.id = :orderId AND o.customer_id IS NOT NULL) s
+            ON d.order_date = s.order_date AND d.customer_id = s.customer_id
+            WHEN MATCHED THEN UPDATE SET order_count = d.order_count + :sign
+            WHEN NOT MATCHED THEN INSERT (order_date, customer_id, order_count)
+                                  VALUES (s.order_date, s.customer_id, :sign)""",
+            nativeQuery = true)
+    int applyOrder(@Param("orderId") Integer orderId, @Param("sign") int sign);
+
+    /**
+     * Remove orders about to be deleted from their customers' day buckets. Live and archived orders
+     * are both read; cancelled orders never counted and are skipped.
+     */
+    @Modifying
+    @Query(value = """
+            MERGE INTO customer_orders_daily d
+            USING (SELECT order_date, customer_id, COUNT(*) AS order_count
+                   FROM (SELECT CAST(o.created_date AS DATE) AS order_date, o.customer_id
+                         FROM beer_order o
+                         WHERE o.id IN (:orderIds) AND o.customer_id IS NOT NULL
+                           AND (o.order_status IS NULL OR o.order_status <> 'CANCELLED')
+                         UNION ALL
+                         SELECT CAST(o.created_date AS DATE), o.customer_id
+                         FROM beer_order_archive o
+                         WHERE o.id IN (:orderIds) AND o.customer_id IS NOT NULL
+                           AND (o.order_status IS NULL OR o.order_status <> 'CANCELLED')) x
+                   GROUP BY order_date, customer_id) s
+            ON d.order_date = s.order_date AND d.customer_id = s.customer_id
+            WHEN MATCHED THEN UPDATE SET order_count = d.order_count - s.order_count""",
+            nativeQuery = true)
+    int removeOrders(@Param("orderIds") Collection<Integer> orderIds);
+
+    @Modifying
+    @Query(value = "DELETE FROM customer_orders_daily WHERE order_date BETWEEN :from AND :to", nativeQuery = true)
+    int deleteRange(@Param("from") LocalDate from, @Param("to") LocalDate to);
+
+    @Modifying
+    @Query(value = """
+            INSERT INTO customer_orders_daily (order_date, customer_id, order_count)
+            SELECT order_date, customer_id, COUNT(*)
+            FROM (SELECT CAST(o.created_date AS DATE) AS order_date, o.customer_id
+                  FROM beer_order o
+                  WHERE o.created_date >= :fromInclusive AND o.created_date < :toExclusive
+                    AND o.customer_id IS NOT NULL
+                    AND (o.order_status IS NULL OR o.order_status <> 'CANCELLED')
+                  UNION ALL
+                  SELECT CAST(o.created_date AS DATE), o.customer_id
+                  FROM beer_order_archive o
+                  WHERE o.created_date >= :fromInclusive AND o.created_date < :toExclusive
+                    AND o.customer_id IS NOT NULL
+                    AND (o.order_status IS NULL OR o.order_status <> 'CANCELLED')) s
+            GROUP BY order_date, customer_id""", nativeQuery = true)
+    int insertRange(@Param("fromInclusive") LocalDateTime fromInclusive,
+                    @Param("toExclusive") LocalDateTime toExclusive);
+}
@@ -1,9 +1,37 @@
 package spring.start.here.juniemvc.repository;
 
+import jakarta.persistence.LockModeType;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 import spring.start.here.juniemvc.domain.model.Customer;
 
+import java.util.Optional;
+
 @Repository
 public interface CustomerRepository extends JpaRepository<Customer, Integer> {
+
+    /**
+     * Load a customer and lock its row against deletion until the transaction ends.
+     */
+    @Lock(LockModeType.PESSIMISTIC_READ)
+    @Query("select c from Customer c where c.id = :id")
+    Optional<Customer> findWithSharedLockById(@Param("id") Integer id);
+
+    /**
+     * Load a customer and lock its row until the transaction ends, waiting for shared locks to be released.
+     */
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("select c from Customer c where c.id = :id")
+    Optional<Customer> findWithLockById(@Param("id") Integer id);
+
+    /**
+     * Delete a customer without loading it or cascading to its orders, which must be deleted first.
+     */
+    @Modifying
+    @Query("delete from Customer c where c.id = :id")
+    int bulkDeleteById(@Param("id") Integer id);
 }
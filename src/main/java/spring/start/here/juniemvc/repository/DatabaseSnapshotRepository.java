@@ -0,0 +1,124 @@
+package spring.start.here.juniemvc.repository;
+
+import org.springframework.dao.DataAccessResourceFailureException;
+import org.springframework.dao.InvalidDataAccessApiUsageException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.io.IOException;
+import java.sql.ResultSetMetaData;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.regex.Pattern;
+
+/**
+ * Streams whole tables into a {@link SnapshotOutput} and loads them back from a {@link SnapshotInput}
+ * with JDBC batch inserts. Table and column names come from configuration and snapshot files and are
+ * checked to be plain identifiers before they are put into SQL. Must run inside the caller's transaction.
+ */
+@Repository
+public class DatabaseSnapshotRepository {
+
+    private static final Pattern IDENTIFIER = Pattern.compile("[A-Za-z_][A-Za-z0-9_]*");
+
+    private final JdbcTemplate jdbcTemplate;
+
+    public DatabaseSnapshotRepository(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    /**
+     * Write every row of the table to the snapshot.
+     * @return the number of rows written
+     */
+    public long dumpTable(String table, SnapshotOutput out) {
+        return jdbcTemplate.query("SELECT * FROM " + identifier(table), rs -> {
+            ResultSetMetaData metaData = rs.getMetaData();
+            String[] columns = new String[metaData.getColumnCount()];
+            int[] types = new int[columns.length];
+            for (int i = 0; i < columns.length; i++) {
+                columns[i] = metaData.getColumnName(i + 1);
+                types[i] = metaData.getColumnType(i + 1);
+                if (!SnapshotOutput.isSupported(types[i])) {
+                    throw new InvalidDataAccessApiUsageException("Column " + table + "." + columns[i]
+                            + " has type " + metaData.getColumnTypeName(i + 1) + " which snapshots do not support");
+                }
+            }
+            try {
+                out.beginTable(table, columns, types);
+                long rows = 0;
+                while (rs.next()) {
+                    out.writeRow(rs, types);
+                    rows++;
+                }
+                out.endTable();
+                return rows;
+            } catch (IOException ex) {
+                throw new DataAccessResourceFailureException("Could not write snapshot of " + table, ex);
+            }
+        });
+    }
+
+    /**
+     * Insert the rows of the snapshot's current table, i.e. the one last returned by {@link SnapshotInput#nextTable()}.
+     * @return the number of rows inserted
+     */
+    public long restoreTable(String table, SnapshotInput in, int batchSize) throws IOException {
+        String[] columns = in.columns();
+        int[] types = in.types();
+        List<String> columnList = new ArrayList<>(columns.length);
+        for (String column : columns) {
+            columnList.add(identifier(column));
+        }
+        String insert = "INSERT INTO " + identifier(table) + " (" + String.join(", ", columnList) + ") VALUES ("
+                + String.join(", ", Collections.nCopies(columns.length, "?")) + ")";
+
+        List<Object[]> batch = new ArrayList<>(batchSize);
+        long rows = 0;
+        for (Object[] row = in.nextRow(); row != null; row = in.nextRow()) {
+            batch.add(row);
+            if (batch.size() == batchSize) {
+                jdbcTemplate.batchUpdate(insert, batch, types);
+                rows += batch.size();
+                batch.clear();
+            }
+        }
+        if (!batch.isEmpty()) {
+            jdbcTemplate.batchUpdate(insert, batch, types);
+            rows += batch.size();
+        }
+        return rows;
+    }
+
+    public void clearTable(String table) {
+        jdbcTemplate.update("DELETE FROM " + identifier(table));
+    }
+
+    public boolean isEmpty(String table) {
+        Long rows = jdbcTemplate.queryForObject("SELECT COUNT(*) FROM " + identifier(table), Long.class);
+        return rows == null || rows == 0;
+    }
+
+    /**
+     * Move the table's identity columns past the highest restored value so new rows get fresh ids.
+     */
+    public void restartIdentity(String table) {
+        List<String> identityColumns = jdbcTemplate.queryForList("""
+                SELECT column_name FROM information_schema.columns
+                WHERE UPPER(table_name) = UPPER(?) AND is_identity = 'YES'""", String.class, table);
+        for (String column : identityColumns) {
+            Long max = jdbcTemplate.queryForObject(
+                    "SELECT MAX(" + identifier(column) + ") FROM " + identifier(table), Long.class);
+            jdbcTemplate.execute("ALTER TABLE " + identifier(table) + " ALTER COLUMN " + identifier(column)
+                    + " RESTART WITH " + (max != null ? max + 1 : 1));
+        }
+    }
+
+    private static String identifier(String name) {
+        if (!IDENTIFIER.matcher(name).matches()) {
+            throw new InvalidDataAccessApiUsageException("Not a plain SQL identifier: " + name);
+        }
+        return name;
+    }
+}
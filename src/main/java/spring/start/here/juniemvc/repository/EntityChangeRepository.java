@@ -0,0 +1,75 @@
+package spring.start.here.juniemvc.repository;
+
+import org.springframework.jdbc.core.BatchPreparedStatementSetter;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+import spring.start.here.juniemvc.domain.event.EntityChangedEvent;
+
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * The {@code entity_change} table through which nodes exchange cache invalidations. Timestamps are
+ * taken from the database clock, so nodes with skewed clocks still agree on what is recent.
+ */
+@Repository
+public class EntityChangeRepository {
+
+    private static final String INSERT_CHANGE =
+            "INSERT INTO entity_change (node_id, entity_type, entity_id) VALUES (?, ?, ?)";
+
+    private static final String SELECT_CHANGES_SINCE = """
+            SELECT id, entity_type, entity_id, created_date
+            FROM entity_change
+            WHERE created_date >= ? AND node_id <> ?
+            ORDER BY id""";
+
+    public record Change(long id, EntityChangedEvent event, LocalDateTime createdDate) {}
+
+    private final JdbcTemplate jdbcTemplate;
+
+    public EntityChangeRepository(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    /**
+     * Append the changes of one node with a single JDBC batch statement.
+     */
+    public void insertAll(String nodeId, List<EntityChangedEvent> changes) {
+        jdbcTemplate.batchUpdate(INSERT_CHANGE, new BatchPreparedStatementSetter() {
+            @Override
+            public void setValues(PreparedStatement ps, int i) throws SQLException {
+                EntityChangedEvent change = changes.get(i);
+                ps.setString(1, nodeId);
+                ps.setString(2, change.entityType().name());
+                ps.setInt(3, change.id());
+            }
+
+            @Override
+            public int getBatchSize() {
+                return changes.size();
+            }
+        });
+    }
+
+    /**
+     * @return the changes of every other node created at or after {@code since}, in id order
+     */
+    public List<Change> findSince(LocalDateTime since, String excludedNodeId) {
+        return jdbcTemplate.query(SELECT_CHANGES_SINCE, (rs, rowNum) -> new Change(
+                rs.getLong(1),
+                new EntityChangedEvent(EntityChangedEvent.EntityType.valueOf(rs.getString(2)), rs.getInt(3)),
+                rs.getTimestamp(4).toLocalDateTime()), Timestamp.valueOf(since), excludedNodeId);
+    }
+
+    public LocalDateTime currentTimestamp() {
+        return jdbcTemplate.queryForObject("SELECT LOCALTIMESTAMP", Timestamp.class).toLocalDateTime();
+    }
+
+    public int deleteCreatedBefore(LocalDateTime cutoff) {
+        return jdbcTemplate.update("DELETE FROM entity_change WHERE created_date < ?", Timestamp.valueOf(cutoff));
+    }
+}
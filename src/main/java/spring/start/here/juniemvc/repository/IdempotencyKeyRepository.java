@@ -0,0 +1,18 @@
+package spring.start.here.juniemvc.repository;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import spring.start.here.juniemvc.domain.model.IdempotencyKey;
+
+import java.time.LocalDateTime;
+
+@Repository
+public interface IdempotencyKeyRepository extends JpaRepository<IdempotencyKey, String> {
+
+    @Modifying
+    @Query("delete from IdempotencyKey k where k.createdDate < :cutoff")
+    int deleteCreatedBefore(@Param("cutoff") LocalDateTime cutoff);
+}
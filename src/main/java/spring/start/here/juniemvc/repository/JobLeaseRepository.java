@@ -0,0 +1,80 @@
+package spring.start.here.juniemvc.repository;
+
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+
+/**
+ * The {@code job_lease} table through which nodes agree on who runs a background job. Every change is a
+ * single conditional UPDATE, so two nodes racing for a lease cannot both win. Callers pass times derived
+ * from {@link #currentTimestamp()}, so nodes with skewed clocks still agree on when a lease expires.
+ */
+@Repository
+public class JobLeaseRepository {
+
+    private static final String INSERT_LEASE = "INSERT INTO job_lease (name) VALUES (?)";
+
+    private static final String ACQUIRE_LEASE = """
+            UPDATE job_lease SET owner = ?, locked_until = ?, last_started = ?
+            WHERE name = ?
+              AND (owner IS NULL OR locked_until <= ?)
+              AND (last_completed IS NULL OR last_completed <= ?)""";
+
+    private static final String RENEW_LEASE = "UPDATE job_lease SET locked_until = ? WHERE name = ? AND owner = ?";
+
+    private static final String RELEASE_LEASE = """
+            UPDATE job_lease SET owner = NULL, locked_until = NULL, last_completed = COALESCE(?, last_completed)
+            WHERE name = ? AND owner = ?""";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    public JobLeaseRepository(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    public LocalDateTime currentTimestamp() {
+        return jdbcTemplate.queryForObject("SELECT LOCALTIMESTAMP", LocalDateTime.class);
+    }
+
+    /**
+     * Create the lease row of a job unless another node already did.
+     */
+    public void createIfAbsent(String name) {
+        try {
+            jdbcTemplate.update(INSERT_LEASE, name);
+        } catch (DuplicateKeyException ex) {
+            // Created concurrently by another node
+        }
+    }
+
+    /**
+     * Take the lease if it is free or expired and the last run completed before {@code completedBefore}.
+     * @return whether the lease is now held by {@code owner} until {@code lockedUntil}
+     */
+    public boolean tryAcquire(String name, String owner, LocalDateTime now, LocalDateTime lockedUntil,
+                              LocalDateTime completedBefore) {
+        return jdbcTemplate.update(ACQUIRE_LEASE, owner, Timestamp.valueOf(lockedUntil), Timestamp.valueOf(now),
+                name, Timestamp.valueOf(now), Timestamp.valueOf(completedBefore)) == 1;
+    }
+
+    /**
+     * Extend a lease held by {@code owner} to {@code lockedUntil}.
+     * @return {@code false} when the lease had expired and was taken over by another node
+     */
+    public boolean renew(String name, String owner, LocalDateTime lockedUntil) {
+        return jdbcTemplate.update(RENEW_LEASE, Timestamp.valueOf(lockedUntil), name, owner) == 1;
+    }
+
+    /**
+     * Give up a lease held by {@code owner}, recording the completion time of a successful run.
+     * @param completedAt completion time, or {@code null} when the run failed and may be retried at once
+     * @return {@code false} when the lease had expired and was taken over by another node
+     */
+    public boolean release(String name, String owner, LocalDateTime completedAt) {
+        return jdbcTemplate.update(RELEASE_LEASE, completedAt != null ? Timestamp.valueOf(completedAt) : null,
+                name, owner) == 1;
+    }
+}
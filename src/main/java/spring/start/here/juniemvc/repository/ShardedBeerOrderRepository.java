@@ -0,0 +1,442 @@
+package spring.start.here.juniemvc.repository;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.dao.QueryTimeoutException;
+import org.springframework.data.domain.Pageable;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
+import org.springframework.transaction.support.TransactionTemplate;
+import spring.start.here.juniemvc.domain.model.Beer;
+import spring.start.here.juniemvc.domain.model.BeerOrder;
+import spring.start.here.juniemvc.domain.model.BeerOrderLine;
+import spring.start.here.juniemvc.domain.model.Customer;
+
+import javax.sql.DataSource;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Function;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
+
+/**
+ * Stores orders and their lines in shards keyed by customer: all orders of a customer live in shard
+ * {@code customerId mod shardCount}. Order and line ids are drawn from per-shard sequences as
+ * {@code sequenceValue * shardCount + shardIndex}, so every id names its shard and reads by id or by
+ * customer go to a single shard. Listing all orders reads every shard in parallel and merges by id.
+ * <p>
+ * Orders are returned as detached {@link BeerOrder} entities whose customer and line beers carry only ids.
+ * Each public read or write runs in its own shard transaction, except the methods documented to run inside
+ * {@link #executeInShardOf}.
+ */
+public class ShardedBeerOrderRepository implements AutoCloseable {
+
+    private static final String NEXT_ORDER_ID = "SELECT NEXT VALUE FOR beer_order_seq";
+
+    private static final String NEXT_LINE_ID = "SELECT NEXT VALUE FOR beer_order_line_seq";
+
+    private static final String ORDER_COLUMNS = """
+            SELECT id, version, order_status, order_status_callback_url, customer_id, total_amount, line_count,
+                   created_date, update_date
+            FROM beer_order""";
+
+    private static final String LINE_COLUMNS = """
+            SELECT id, version, order_quantity, quantity_allocated, beer_order_id, beer_id, unit_price,
+                   created_date, update_date
+            FROM beer_order_line""";
+
+    private static final String INSERT_ORDER = """
+            INSERT INTO beer_order (id, version, order_status, order_status_callback_url, customer_id,
+                                    total_amount, line_count, idempotency_key, created_date, update_date)
+            VALUES (?, 0, ?, ?, ?, ?, ?, ?, ?, ?)""";
+
+    private static final String INSERT_LINE = """
+            INSERT INTO beer_order_line (id, version, order_quantity, quantity_allocated, beer_order_id, beer_id,
+                                         unit_price, created_date, update_date)
+            VALUES (?, 0, ?, ?, ?, ?, ?, ?, ?)""";
+
+    private static final String UPDATE_ORDER = """
+            UPDATE beer_order
+            SET order_status = ?, total_amount = ?, line_count = ?, version = version + 1, update_date = ?
+            WHERE id = ? AND version = ?""";
+
+    private static final String UPDATE_LINE = """
+            UPDATE beer_order_line
+            SET order_quantity = ?, version = version + 1, update_date = ?
+            WHERE id = ? AND version = ?""";
+
+    private static final String DELETE_LINE = "DELETE FROM beer_order_line WHERE id = ? AND version = ?";
+
+    private record Shard(int index, JdbcTemplate jdbcTemplate, NamedParameterJdbcTemplate namedJdbcTemplate,
+                         TransactionTemplate transactionTemplate) {
+    }
+
+    private final List<DataSource> dataSources;
+    private final List<Shard> shards;
+    private final Duration scatterTimeout;
+    private final ExecutorService scatterExecutor;
+    private final Timer scatterGather;
+
+    /**
+     * @param dataSources one migrated DataSource per shard, in shard order; closed with this repository
+     */
+    public ShardedBeerOrderRepository(List<? extends DataSource> dataSources, Duration scatterTimeout,
+                                      MeterRegistry meterRegistry) {
+        this.dataSources = List.copyOf(dataSources);
+        List<Shard> shards = new ArrayList<>();
+        for (DataSource dataSource : this.dataSources) {
+            JdbcTemplate jdbcTemplate = new JdbcTemplate(dataSource);
+            shards.add(new Shard(shards.size(), jdbcTemplate, new NamedParameterJdbcTemplate(jdbcTemplate),
+                    new TransactionTemplate(new DataSourceTransactionManager(dataSource))));
+        }
+        this.shards = List.copyOf(shards);
+        this.scatterTimeout = scatterTimeout;
+        this.scatterExecutor = Executors.newFixedThreadPool(shards.size(),
+                Thread.ofPlatform().name("shard-query-", 0).daemon().factory());
+        this.scatterGather = Timer.builder("junie.sharding.scatter_gather")
+                .description("Reads sent to several shards, until the last shard answered")
+                .register(meterRegistry);
+    }
+
+    public int shardCount() {
+        return shards.size();
+    }
+
+    public int shardOfCustomer(int customerId) {
+        return Math.floorMod(customerId, shards.size());
+    }
+
+    public int shardOfOrder(int orderId) {
+        return Math.floorMod(orderId, shards.size());
+    }
+
+    /**
+     * Insert a new order and its lines into the shard of its customer, assigning ids, version and dates.
+     * @param order order with its totals, customer and line beer references carrying only ids
+     */
+    public BeerOrder insert(BeerOrder order) {
+        return insert(order, null);
+    }
+
+    /**
+     * Insert a new order like {@link #insert(BeerOrder)}, storing the idempotency key of the request that
+     * created it in the same shard transaction.
+     * @throws org.springframework.dao.DuplicateKeyException if the shard already holds an order for the key
+     */
+    public BeerOrder insert(BeerOrder order, String idempotencyKey) {
+        Shard shard = shards.get(shardOfCustomer(order.getCustomer().getId()));
+        return shard.transactionTemplate().execute(status -> {
+            LocalDateTime now = LocalDateTime.now();
+            order.setId(nextId(shard, NEXT_ORDER_ID));
+            order.setVersion(0);
+            order.setCreatedDate(now);
+            order.setUpdateDate(now);
+            shard.jdbcTemplate().update(INSERT_ORDER, order.getId(), order.getOrderStatus(),
+                    order.getOrderStatusCallbackUrl(), order.getCustomer().getId(), order.getTotalAmount(),
+                    order.getLineCount(), idempotencyKey, Timestamp.valueOf(now), Timestamp.valueOf(now));
+            insertLines(shard, order, List.copyOf(order.getBeerOrderLines()), now);
+            return order;
+        });
+    }
+
+    public Optional<BeerOrder> findById(int id) {
+        Shard shard = shardOf(id);
+        return shard.transactionTemplate().execute(status -> findWithLines(shard, id, ""));
+    }
+
+    /**
+     * The order created for an idempotency key, looked up in the shard of the customer that sent the request.
+     */
+    public Optional<BeerOrder> findByIdempotencyKey(int customerId, String idempotencyKey) {
+        Shard shard = shards.get(shardOfCustomer(customerId));
+        return shard.transactionTemplate().execute(status -> withLines(shard, shard.jdbcTemplate().query(
+                ORDER_COLUMNS + " WHERE idempotency_key = ?", this::mapOrder, idempotencyKey)).stream().findFirst());
+    }
+
+    /**
+     * Load an order with its lines and lock its row until the surrounding shard transaction ends.
+     * Must run inside {@link #executeInShardOf} for the same id.
+     */
+    public Optional<BeerOrder> findByIdForUpdate(int id) {
+        return findWithLines(shardOf(id), id, " FOR UPDATE");
+    }
+
+    /**
+     * Only the shards holding any of the ids are read, in parallel.
+     */
+    public List<BeerOrder> findAllById(Collection<Integer> ids) {
+        Map<Integer, List<Integer>> idsByShard = ids.stream()
+                .collect(Collectors.groupingBy(this::shardOfOrder, LinkedHashMap::new, Collectors.toList()));
+        return scatter(idsByShard.keySet().stream().map(shards::get).toList(),
+                shard -> shard.transactionTemplate().execute(status -> withLines(shard,
+                        shard.namedJdbcTemplate().query(ORDER_COLUMNS + " WHERE id IN (:ids)",
+                                Map.of("ids", idsByShard.get(shard.index())), this::mapOrder))));
+    }
+
+    public List<BeerOrder> findByCustomerId(int customerId, Pageable pageable) {
+        Shard shard = shards.get(shardOfCustomer(customerId));
+        String sql = ORDER_COLUMNS + " WHERE customer_id = ? ORDER BY id";
+        return shard.transactionTemplate().execute(status -> withLines(shard, pageable.isPaged()
+                ? shard.jdbcTemplate().query(sql + " LIMIT ? OFFSET ?", this::mapOrder,
+                customerId, pageable.getPageSize(), pageable.getOffset())
+                : shard.jdbcTemplate().query(sql, this::mapOrder, customerId)));
+    }
+
+    /**
+     * A page of all orders by id. Every shard returns its first {@code offset + size} orders, the merged
+     * result is cut to the page and only the lines of the orders on it are loaded; deep pages therefore read
+     * up to {@code shardCount * (offset + size)} order rows.
+     */
+    public List<BeerOrder> findAll(Pageable pageable) {
+        String sql = ORDER_COLUMNS + " ORDER BY id";
+        List<BeerOrder> merged = new ArrayList<>(scatter(shards, shard -> pageable.isPaged()
+                ? shard.jdbcTemplate().query(sql + " LIMIT ?", this::mapOrder, pageable.getOffset() + pageable.getPageSize())
+                : shard.jdbcTemplate().query(sql, this::mapOrder)));
+        // Each shard's orders are already sorted; the merged list holds at most shardCount pages
+        merged.sort(Comparator.comparing(BeerOrder::getId));
+        List<BeerOrder> page = pageable.isPaged()
+                ? merged.subList((int) Math.min(pageable.getOffset(), merged.size()),
+                (int) Math.min(pageable.getOffset() + pageable.getPageSize(), merged.size()))
+                : merged;
+
+        Map<Integer, List<BeerOrder>> pageByShard = page.stream()
+                .collect(Collectors.groupingBy(order -> shardOfOrder(order.getId()), LinkedHashMap::new, Collectors.toList()));
+        scatter(pageByShard.keySet().stream().map(shards::get).toList(),
+                shard -> withLines(shard, pageByShard.get(shard.index())));
+        return List.copyOf(page);
+    }
+
+    /**
+     * Run the given work in one transaction on the shard of the given order.
+     */
+    public <T> T executeInShardOf(int orderId, Supplier<T> work) {
+        return shardOf(orderId).transactionTemplate().execute(status -> work.get());
+    }
+
+    /**
+     * Write the status and totals of an order, bumping its version and update date. Joins the transaction
+     * of {@link #executeInShardOf} for the order, if any.
+     * @throws ObjectOptimisticLockingFailureException when the order's version has changed since it was read
+     */
+    public void update(BeerOrder order) {
+        LocalDateTime now = LocalDateTime.now();
+        int rows = shardOf(order.getId()).jdbcTemplate().update(UPDATE_ORDER, order.getOrderStatus(),
+                order.getTotalAmount(), order.getLineCount(), Timestamp.valueOf(now), order.getId(), order.getVersion());
+        if (rows == 0) {
+            throw new ObjectOptimisticLockingFailureException(BeerOrder.class, order.getId());
+        }
+        order.setVersion(order.getVersion() + 1);
+        order.setUpdateDate(now);
+    }
+
+    /**
+     * Insert new lines of an existing order, assigning ids, version and dates.
+     * Must run inside {@link #executeInShardOf} for the order.
+     */
+    public void insertLines(BeerOrder order, List<BeerOrderLine> lines) {
+        insertLines(shardOf(order.getId()), order, lines, LocalDateTime.now());
+    }
+
+    /**
+     * Write the quantities of changed lines, bumping their versions.
+     * Must run inside {@link #executeInShardOf} for their order.
+     * @throws ObjectOptimisticLockingFailureException when a line's version has changed since it was read
+     */
+    public void updateLines(BeerOrder order, List<BeerOrderLine> lines) {
+        Shard shard = shardOf(order.getId());
+        LocalDateTime now = LocalDateTime.now();
+        for (BeerOrderLine line : lines) {
+            if (shard.jdbcTemplate().update(UPDATE_LINE, line.getOrderQuantity(), Timestamp.valueOf(now),
+                    line.getId(), line.getVersion()) == 0) {
+                throw new ObjectOptimisticLockingFailureException(BeerOrderLine.class, line.getId());
+            }
+            line.setVersion(line.getVersion() + 1);
+            line.setUpdateDate(now);
+        }
+    }
+
+    /**
+     * Must run inside {@link #executeInShardOf} for their order.
+     * @throws ObjectOptimisticLockingFailureException when a line's version has changed since it was read
+     */
+    public void deleteLines(BeerOrder order, List<BeerOrderLine> lines) {
+        Shard shard = shardOf(order.getId());
+        for (BeerOrderLine line : lines) {
+            if (shard.jdbcTemplate().update(DELETE_LINE, line.getId(), line.getVersion()) == 0) {
+                throw new ObjectOptimisticLockingFailureException(BeerOrderLine.class, line.getId());
+            }
+        }
+    }
+
+    /**
+     * @return whether the order existed
+     */
+    public boolean delete(int id) {
+        Shard shard = shardOf(id);
+        return Boolean.TRUE.equals(shard.transactionTemplate().execute(status -> {
+            shard.jdbcTemplate().update("DELETE FROM beer_order_line WHERE beer_order_id = ?", id);
+            return shard.jdbcTemplate().update("DELETE FROM beer_order WHERE id = ?", id) > 0;
+        }));
+    }
+
+    /**
+     * Delete all orders of a customer and their lines, in one transaction on the customer's shard.
+     * @return the number of orders deleted
+     */
+    public int deleteByCustomerId(int customerId) {
+        Shard shard = shards.get(shardOfCustomer(customerId));
+        Integer deleted = shard.transactionTemplate().execute(status -> {
+            shard.jdbcTemplate().update("""
+                    DELETE FROM beer_order_line
+                    WHERE beer_order_id IN (SELECT id FROM beer_order WHERE customer_id = ?)""", customerId);
+            return shard.jdbcTemplate().update("DELETE FROM beer_order WHERE customer_id = ?", customerId);
+        });
+        return deleted != null ? deleted : 0;
+    }
+
+    /**
+     * Stops the scatter threads and closes the shard DataSources.
+     */
+    @Override
+    public void close() throws Exception {
+        scatterExecutor.shutdownNow();
+        for (DataSource dataSource : dataSources) {
+            if (dataSource instanceof AutoCloseable closeable) {
+                closeable.close();
+            }
+        }
+    }
+
+    private Shard shardOf(int orderId) {
+        return shards.get(shardOfOrder(orderId));
+    }
+
+    private Optional<BeerOrder> findWithLines(Shard shard, int id, String lock) {
+        List<BeerOrder> orders = shard.jdbcTemplate().query(ORDER_COLUMNS + " WHERE id = ?" + lock, this::mapOrder, id);
+        return withLines(shard, orders).stream().findFirst();
+    }
+
+    // Loads the lines of all given orders with one query
+    private List<BeerOrder> withLines(Shard shard, List<BeerOrder> orders) {
+        if (orders.isEmpty()) return orders;
+        Map<Integer, BeerOrder> byId = orders.stream()
+                .collect(Collectors.toMap(BeerOrder::getId, Function.identity()));
+        shard.namedJdbcTemplate().query(LINE_COLUMNS + " WHERE beer_order_id IN (:ids)", Map.of("ids", byId.keySet()),
+                (RowCallbackHandler) rs -> {
+                    BeerOrder order = byId.get(rs.getInt("beer_order_id"));
+                    order.getBeerOrderLines().add(mapLine(rs, order));
+                });
+        return orders;
+    }
+
+    private void insertLines(Shard shard, BeerOrder order, List<BeerOrderLine> lines, LocalDateTime now) {
+        if (lines.isEmpty()) return;
+        for (BeerOrderLine line : lines) {
+            line.setId(nextId(shard, NEXT_LINE_ID));
+            line.setVersion(0);
+            line.setBeerOrder(order);
+            line.setCreatedDate(now);
+            line.setUpdateDate(now);
+        }
+        shard.jdbcTemplate().batchUpdate(INSERT_LINE, lines, lines.size(), (ps, line) -> {
+            ps.setInt(1, line.getId());
+            ps.setInt(2, line.getOrderQuantity());
+            ps.setInt(3, line.getQuantityAllocated() != null ? line.getQuantityAllocated() : 0);
+            ps.setInt(4, order.getId());
+            ps.setInt(5, line.getBeer().getId());
+            ps.setBigDecimal(6, line.getUnitPrice());
+            ps.setTimestamp(7, Timestamp.valueOf(now));
+            ps.setTimestamp(8, Timestamp.valueOf(now));
+        });
+    }
+
+    private int nextId(Shard shard, String sequenceQuery) {
+        Long value = shard.jdbcTemplate().queryForObject(sequenceQuery, Long.class);
+        return Math.toIntExact(value * shards.size() + shard.index());
+    }
+
+    // Runs the query on every given shard in parallel and concatenates the results in shard order
+    private <T> List<T> scatter(List<Shard> targets, Function<Shard, List<T>> query) {
+        if (targets.size() <= 1) {
+            return targets.isEmpty() ? List.of() : query.apply(targets.getFirst());
+        }
+        long start = System.nanoTime();
+        List<Future<List<T>>> futures = targets.stream()
+                .map(shard -> scatterExecutor.submit(() -> query.apply(shard)))
+                .toList();
+        long deadline = start + scatterTimeout.toNanos();
+        List<T> results = new ArrayList<>();
+        try {
+            for (Future<List<T>> future : futures) {
+                results.addAll(future.get(deadline - System.nanoTime(), TimeUnit.NANOSECONDS));
+            }
+            return results;
+        } catch (TimeoutException ex) {
+            throw new QueryTimeoutException("Shards did not answer within " + scatterTimeout, ex);
+        } catch (ExecutionException ex) {
+            if (ex.getCause() instanceof RuntimeException cause) throw cause;
+            throw new IllegalStateException("Shard query failed", ex.getCause());
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            throw new QueryTimeoutException("Interrupted while waiting for shards", ex);
+        } finally {
+            futures.forEach(future -> future.cancel(true));
+            scatterGather.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        }
+    }
+
+    private BeerOrder mapOrder(ResultSet rs, int rowNum) throws SQLException {
+        Customer customer = new Customer();
+        customer.setId(rs.getInt("customer_id"));
+        return BeerOrder.builder()
+                .id(rs.getInt("id"))
+                .version(rs.getInt("version"))
+                .orderStatus(rs.getString("order_status"))
+                .orderStatusCallbackUrl(rs.getString("order_status_callback_url"))
+                .customer(customer)
+                .totalAmount(rs.getBigDecimal("total_amount"))
+                .lineCount(rs.getInt("line_count"))
+                .createdDate(toLocalDateTime(rs.getTimestamp("created_date")))
+                .updateDate(toLocalDateTime(rs.getTimestamp("update_date")))
+                .build();
+    }
+
+    private static BeerOrderLine mapLine(ResultSet rs, BeerOrder order) throws SQLException {
+        Beer beer = new Beer();
+        beer.setId(rs.getInt("beer_id"));
+        return BeerOrderLine.builder()
+                .id(rs.getInt("id"))
+                .version(rs.getInt("version"))
+                .orderQuantity(rs.getInt("order_quantity"))
+                .quantityAllocated(rs.getInt("quantity_allocated"))
+                .beerOrder(order)
+                .beer(beer)
+                .unitPrice(rs.getBigDecimal("unit_price"))
+                .createdDate(toLocalDateTime(rs.getTimestamp("created_date")))
+                .updateDate(toLocalDateTime(rs.getTimestamp("update_date")))
+                .build();
+    }
+
+    private static LocalDateTime toLocalDateTime(Timestamp timestamp) {
+        return timestamp != null ? timestamp.toLocalDateTime() : null;
+    }
+}
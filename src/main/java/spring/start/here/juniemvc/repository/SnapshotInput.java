@@ -0,0 +1,127 @@
+package spring.start.here.juniemvc.repository;
+
+import java.io.BufferedInputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.nio.charset.StandardCharsets;
+import java.sql.Timestamp;
+import java.sql.Types;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.zip.GZIPInputStream;
+
+/**
+ * Reads a database snapshot written by {@link SnapshotOutput} one table and one row at a time.
+ */
+public final class SnapshotInput implements Closeable {
+
+    private static final int BUFFER_SIZE = 1 << 16;
+
+    private final DataInputStream in;
+    private String table;
+    private String[] columns;
+    private int[] types;
+
+    public SnapshotInput(InputStream source) throws IOException {
+        this.in = new DataInputStream(new BufferedInputStream(new GZIPInputStream(source, BUFFER_SIZE), BUFFER_SIZE));
+        if (in.readInt() != SnapshotOutput.MAGIC) {
+            throw new IOException("Not a database snapshot");
+        }
+        int version = in.readInt();
+        if (version != SnapshotOutput.FORMAT_VERSION) {
+            throw new IOException("Unsupported snapshot format version " + version);
+        }
+    }
+
+    /**
+     * Advance to the next table; its rows must be read with {@link #nextRow()} before advancing again.
+     * @return the table name, or null at the end of the snapshot
+     */
+    public String nextTable() throws IOException {
+        if (in.readByte() == 0) {
+            table = null;
+            return null;
+        }
+        table = readString();
+        int columnCount = (int) readVarLong();
+        columns = new String[columnCount];
+        types = new int[columnCount];
+        for (int i = 0; i < columnCount; i++) {
+            columns[i] = readString();
+            types[i] = (int) readVarLong();
+        }
+        return table;
+    }
+
+    String[] columns() {
+        return columns;
+    }
+
+    int[] types() {
+        return types;
+    }
+
+    /**
+     * @return the values of the next row of the current table as JDBC parameter values, or null after its last row
+     */
+    Object[] nextRow() throws IOException {
+        if (in.readByte() == 0) {
+            return null;
+        }
+        Object[] row = new Object[types.length];
+        for (int i = 0; i < types.length; i++) {
+            row[i] = in.readBoolean() ? readValue(types[i]) : null;
+        }
+        return row;
+    }
+
+    @Override
+    public void close() throws IOException {
+        in.close();
+    }
+
+    private Object readValue(int type) throws IOException {
+        return switch (type) {
+            case Types.TINYINT, Types.SMALLINT, Types.INTEGER -> (int) readVarLong();
+            case Types.BIGINT -> readVarLong();
+            case Types.DECIMAL, Types.NUMERIC -> {
+                int scale = (int) readVarLong();
+                yield new BigDecimal(new BigInteger(readBytes()), scale);
+            }
+            case Types.TIMESTAMP -> {
+                long epochSecond = readVarLong();
+                int nano = (int) readVarLong();
+                yield Timestamp.valueOf(LocalDateTime.ofEpochSecond(epochSecond, nano, ZoneOffset.UTC));
+            }
+            case Types.DATE -> java.sql.Date.valueOf(LocalDate.ofEpochDay(readVarLong()));
+            case Types.BOOLEAN, Types.BIT -> in.readBoolean();
+            case Types.DOUBLE, Types.FLOAT, Types.REAL -> in.readDouble();
+            default -> readString();
+        };
+    }
+
+    private String readString() throws IOException {
+        return new String(readBytes(), StandardCharsets.UTF_8);
+    }
+
+    private byte[] readBytes() throws IOException {
+        byte[] bytes = new byte[(int) readVarLong()];
+        in.readFully(bytes);
+        return bytes;
+    }
+
+    private long readVarLong() throws IOException {
+        long zigZag = 0;
+        for (int shift = 0; ; shift += 7) {
+            byte b = in.readByte();
+            zigZag |= (long) (b & 0x7F) << shift;
+            if ((b & 0x80) == 0) break;
+        }
+        return (zigZag >>> 1) ^ -(zigZag & 1);
+    }
+}
@@ -0,0 +1,149 @@
+package spring.start.here.juniemvc.repository;
+
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.sql.Types;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Writes a database snapshot: a gzip stream of tables, each a header with column names and JDBC types
+ * followed by its rows. Integers are zig-zag varints and every value carries a null marker, so typical
+ * rows take a few bytes before compression. Read back with {@link SnapshotInput}.
+ */
+public final class SnapshotOutput implements Closeable {
+
+    static final int MAGIC = 0x4A534E50; // "JSNP"
+    static final int FORMAT_VERSION = 1;
+
+    private static final int BUFFER_SIZE = 1 << 16;
+
+    private final DataOutputStream out;
+
+    public SnapshotOutput(OutputStream target) throws IOException {
+        this.out = new DataOutputStream(new BufferedOutputStream(new GZIPOutputStream(target, BUFFER_SIZE), BUFFER_SIZE));
+        out.writeInt(MAGIC);
+        out.writeInt(FORMAT_VERSION);
+    }
+
+    void beginTable(String table, String[] columns, int[] types) throws IOException {
+        out.writeByte(1);
+        writeString(table);
+        writeVarLong(columns.length);
+        for (int i = 0; i < columns.length; i++) {
+            writeString(columns[i]);
+            writeVarLong(types[i]);
+        }
+    }
+
+    void writeRow(ResultSet rs, int[] types) throws SQLException, IOException {
+        out.writeByte(1);
+        for (int i = 0; i < types.length; i++) {
+            writeValue(rs, i + 1, types[i]);
+        }
+    }
+
+    void endTable() throws IOException {
+        out.writeByte(0);
+    }
+
+    /**
+     * Mark the end of the snapshot and flush everything to the target.
+     */
+    public void finish() throws IOException {
+        out.writeByte(0);
+        out.close();
+    }
+
+    @Override
+    public void close() throws IOException {
+        out.close();
+    }
+
+    static boolean isSupported(int type) {
+        return switch (type) {
+            case Types.TINYINT, Types.SMALLINT, Types.INTEGER, Types.BIGINT, Types.DECIMAL, Types.NUMERIC,
+                 Types.CHAR, Types.VARCHAR, Types.LONGVARCHAR, Types.NCHAR, Types.NVARCHAR, Types.CLOB,
+                 Types.TIMESTAMP, Types.DATE, Types.BOOLEAN, Types.BIT, Types.DOUBLE, Types.FLOAT, Types.REAL -> true;
+            default -> false;
+        };
+    }
+
+    private void writeValue(ResultSet rs, int column, int type) throws SQLException, IOException {
+        switch (type) {
+            case Types.TINYINT, Types.SMALLINT, Types.INTEGER, Types.BIGINT -> {
+                long value = rs.getLong(column);
+                if (present(rs)) writeVarLong(value);
+            }
+            case Types.DECIMAL, Types.NUMERIC -> {
+                BigDecimal value = rs.getBigDecimal(column);
+                if (present(value)) {
+                    writeVarLong(value.scale());
+                    writeBytes(value.unscaledValue().toByteArray());
+                }
+            }
+            case Types.TIMESTAMP -> {
+                Timestamp value = rs.getTimestamp(column);
+                if (present(value)) {
+                    LocalDateTime dateTime = value.toLocalDateTime();
+                    writeVarLong(dateTime.toEpochSecond(ZoneOffset.UTC));
+                    writeVarLong(dateTime.getNano());
+                }
+            }
+            case Types.DATE -> {
+                java.sql.Date value = rs.getDate(column);
+                if (present(value)) writeVarLong(value.toLocalDate().toEpochDay());
+            }
+            case Types.BOOLEAN, Types.BIT -> {
+                boolean value = rs.getBoolean(column);
+                if (present(rs)) out.writeBoolean(value);
+            }
+            case Types.DOUBLE, Types.FLOAT, Types.REAL -> {
+                double value = rs.getDouble(column);
+                if (present(rs)) out.writeDouble(value);
+            }
+            default -> {
+                String value = rs.getString(column);
+                if (present(value)) writeString(value);
+            }
+        }
+    }
+
+    private boolean present(ResultSet rs) throws SQLException, IOException {
+        boolean present = !rs.wasNull();
+        out.writeBoolean(present);
+        return present;
+    }
+
+    private boolean present(Object value) throws IOException {
+        out.writeBoolean(value != null);
+        return value != null;
+    }
+
+    private void writeString(String value) throws IOException {
+        writeBytes(value.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private void writeBytes(byte[] bytes) throws IOException {
+        writeVarLong(bytes.length);
+        out.write(bytes);
+    }
+
+    private void writeVarLong(long value) throws IOException {
+        long zigZag = (value << 1) ^ (value >> 63);
+        while ((zigZag & ~0x7FL) != 0) {
+            out.writeByte((int) ((zigZag & 0x7F) | 0x80));
+            zigZag >>>= 7;
+        }
+        out.writeByte((int) zigZag);
+    }
+}
@@ -9,4 +9,11 @@ public interface BeerInventoryService {
     List<BeerInventoryDto> getAll();
     List<BeerInventoryDto> getByBeerId(Integer beerId);
     Optional<BeerInventoryDto> getById(Integer id);
+
+    /**
+     * Add {@code delta} to the quantity on hand of an inventory row. Reads include the adjustment as soon
+     * as this returns, even when it is written later.
+     * @return false when the row does not exist
+     */
+    boolean adjustQuantity(Integer id, int delta);
 }
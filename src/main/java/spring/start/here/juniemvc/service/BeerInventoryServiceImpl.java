@@ -1,8 +1,12 @@
 package spring.start.here.juniemvc.service;
 
 import org.springframework.stereotype.Service;
-import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import spring.start.here.juniemvc.config.InventoryAdjustmentProperties;
 import spring.start.here.juniemvc.domain.model.Beer;
+import spring.start.here.juniemvc.domain.model.BeerInventory;
+import spring.start.here.juniemvc.repository.BeerInventoryBatchRepository;
 import spring.start.here.juniemvc.repository.BeerInventoryRepository;
 import spring.start.here.juniemvc.repository.BeerRepository;
 import spring.start.here.juniemvc.web.mappers.BeerInventoryMapper;
@@ -11,38 +15,76 @@ import spring.start.here.juniemvc.web.model.BeerInventoryDto;
 import java.util.List;
 import java.util.Optional;
 
+/**
+ * Inventory reads add the adjustments still held by the {@link InventoryDeltaBuffer} to the stored
+ * quantities. Each read opens its read-only transaction inside {@link InventoryDeltaBuffer#read}, so it
+ * holds no connection while it waits for a flush.
+ */
 @Service
 class BeerInventoryServiceImpl implements BeerInventoryService {
 
     private final BeerInventoryRepository beerInventoryRepository;
+    private final BeerInventoryBatchRepository beerInventoryBatchRepository;
     private final BeerRepository beerRepository;
     private final BeerInventoryMapper beerInventoryMapper;
+    private final InventoryDeltaBuffer inventoryDeltaBuffer;
+    private final TransactionTemplate readOnlyTransaction;
+    private final InventoryAdjustmentProperties properties;
 
     BeerInventoryServiceImpl(BeerInventoryRepository beerInventoryRepository,
+                             BeerInventoryBatchRepository beerInventoryBatchRepository,
                              BeerRepository beerRepository,
-                             BeerInventoryMapper beerInventoryMapper) {
+                             BeerInventoryMapper beerInventoryMapper,
+                             InventoryDeltaBuffer inventoryDeltaBuffer,
+                             PlatformTransactionManager transactionManager,
+                             InventoryAdjustmentProperties properties) {
         this.beerInventoryRepository = beerInventoryRepository;
+        this.beerInventoryBatchRepository = beerInventoryBatchRepository;
         this.beerRepository = beerRepository;
         this.beerInventoryMapper = beerInventoryMapper;
+        this.inventoryDeltaBuffer = inventoryDeltaBuffer;
+        this.readOnlyTransaction = new TransactionTemplate(transactionManager);
+        this.readOnlyTransaction.setReadOnly(true);
+        this.properties = properties;
     }
 
     @Override
-    @Transactional(readOnly = true)
     public List<BeerInventoryDto> getAll() {
-        return beerInventoryRepository.findAll().stream().map(beerInventoryMapper::toDto).toList();
+        return inventoryDeltaBuffer.read(() -> readOnlyTransaction.execute(status ->
+                beerInventoryRepository.findAll().stream().map(this::toDto).toList()));
     }
 
     @Override
-    @Transactional(readOnly = true)
     public List<BeerInventoryDto> getByBeerId(Integer beerId) {
-        Optional<Beer> beerOpt = beerRepository.findById(beerId);
-        return beerOpt.map(beer -> beerInventoryRepository.findAllByBeer(beer).stream().map(beerInventoryMapper::toDto).toList())
-                .orElseGet(List::of);
+        return inventoryDeltaBuffer.read(() -> readOnlyTransaction.execute(status -> {
+            Optional<Beer> beerOpt = beerRepository.findById(beerId);
+            return beerOpt.map(beer -> beerInventoryRepository.findAllByBeer(beer).stream().map(this::toDto).toList())
+                    .orElseGet(List::of);
+        }));
     }
 
     @Override
-    @Transactional(readOnly = true)
     public Optional<BeerInventoryDto> getById(Integer id) {
-        return beerInventoryRepository.findById(id).map(beerInventoryMapper::toDto);
+        return inventoryDeltaBuffer.read(() -> readOnlyTransaction.execute(status ->
+                beerInventoryRepository.findById(id).map(this::toDto)));
+    }
+
+    // Single statements without a transaction: a buffered adjustment must not check out a connection
+    @Override
+    public boolean adjustQuantity(Integer id, int delta) {
+        if (properties.getMode() == InventoryAdjustmentProperties.Mode.WRITE_BEHIND && inventoryDeltaBuffer.isRunning()) {
+            if (!inventoryDeltaBuffer.isTracked(id) && !beerInventoryRepository.existsById(id)) return false;
+            inventoryDeltaBuffer.add(id, delta);
+            return true;
+        }
+        return beerInventoryBatchRepository.addToQuantity(id, delta);
+    }
+
+    private BeerInventoryDto toDto(BeerInventory beerInventory) {
+        BeerInventoryDto dto = beerInventoryMapper.toDto(beerInventory);
+        long pendingDelta = inventoryDeltaBuffer.pendingDelta(dto.id());
+        if (pendingDelta == 0) return dto;
+        int stored = dto.quantityOnHand() != null ? dto.quantityOnHand() : 0;
+        return new BeerInventoryDto(dto.id(), dto.version(), dto.beerId(), Math.toIntExact(stored + pendingDelta));
     }
 }
@@ -0,0 +1,17 @@
+package spring.start.here.juniemvc.service;
+
+import spring.start.here.juniemvc.web.model.BeerOrderDto;
+import spring.start.here.juniemvc.web.model.BeerOrderUpsertDto;
+
+public interface BeerOrderIdempotencyService {
+
+    /**
+     * Create an order at most once per idempotency key.
+     * A retry with the same key returns the originally created order without re-executing,
+     * concurrent requests with the same key share a single execution.
+     * @param idempotencyKey the client supplied key
+     * @param upsertDto the order to create
+     * @return the created (or previously created) order
+     */
+    BeerOrderDto createOrder(String idempotencyKey, BeerOrderUpsertDto upsertDto);
+}
@@ -0,0 +1,185 @@
+package spring.start.here.juniemvc.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.MapperFeature;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.databind.json.JsonMapper;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import spring.start.here.juniemvc.config.IdempotencyProperties;
+import spring.start.here.juniemvc.domain.model.IdempotencyKey;
+import spring.start.here.juniemvc.repository.IdempotencyKeyRepository;
+import spring.start.here.juniemvc.web.exception.IdempotencyKeyConflictException;
+import spring.start.here.juniemvc.web.model.BeerOrderDto;
+import spring.start.here.juniemvc.web.model.BeerOrderUpsertDto;
+
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.LocalDateTime;
+import java.util.HexFormat;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Two-level idempotency store: a bounded LRU map of recently completed keys in front of the
+ * {@code idempotency_key} table. The key row is claimed in the transaction that creates the order,
+ * so a duplicate on another node fails on the primary key instead of creating a second order.
+ * <p>
+ * Sharded orders commit in their shard before that transaction does, so the shard also stores the key
+ * with the order. If the key row is lost after the shard committed, the retry claims the key again and
+ * gets back the order the shard holds for it rather than a second one.
+ */
+@Service
+class BeerOrderIdempotencyServiceImpl implements BeerOrderIdempotencyService {
+
+    // Trees read back by valueToTree strip trailing decimal zeros (JsonNodeFeature.STRIP_TRAILING_BIGDECIMAL_ZEROES)
+    private static final ObjectMapper CANONICAL_JSON = JsonMapper.builder()
+            .enable(MapperFeature.SORT_PROPERTIES_ALPHABETICALLY)
+            .enable(SerializationFeature.ORDER_MAP_ENTRIES_BY_KEYS)
+            .build();
+
+    private record CompletedRequest(String requestHash, BeerOrderDto order) {}
+
+    private final BeerOrderService beerOrderService;
+    private final IdempotencyKeyRepository idempotencyKeyRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final IdempotencyProperties properties;
+    private final ClusterJobRunner clusterJobRunner;
+
+    private final Map<String, CompletedRequest> completed;
+    private final ConcurrentHashMap<String, CompletableFuture<CompletedRequest>> inFlight = new ConcurrentHashMap<>();
+
+    BeerOrderIdempotencyServiceImpl(BeerOrderService beerOrderService,
+                                    IdempotencyKeyRepository idempotencyKeyRepository,
+                                    PlatformTransactionManager transactionManager,
+                                    IdempotencyProperties properties,
+                                    ClusterJobRunner clusterJobRunner) {
+        this.beerOrderService = beerOrderService;
+        this.idempotencyKeyRepository = idempotencyKeyRepository;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.properties = properties;
+        this.clusterJobRunner = clusterJobRunner;
+        this.completed = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, CompletedRequest> eldest) {
+                return size() > properties.getCacheSize();
+            }
+        };
+    }
+
+    @Override
+    public BeerOrderDto createOrder(String idempotencyKey, BeerOrderUpsertDto upsertDto) {
+        String requestHash = hash(upsertDto);
+
+        CompletedRequest cached;
+        synchronized (completed) {
+            cached = completed.get(idempotencyKey);
+        }
+        if (cached != null) {
+            return replay(idempotencyKey, requestHash, cached);
+        }
+
+        CompletableFuture<CompletedRequest> execution = new CompletableFuture<>();
+        CompletableFuture<CompletedRequest> existing = inFlight.putIfAbsent(idempotencyKey, execution);
+        if (existing != null) {
+            return replay(idempotencyKey, requestHash, await(existing));
+        }
+
+        try {
+            CompletedRequest result = loadOrExecute(idempotencyKey, requestHash, upsertDto);
+            synchronized (completed) {
+                completed.put(idempotencyKey, result);
+            }
+            execution.complete(result);
+            return replay(idempotencyKey, requestHash, result);
+        } catch (RuntimeException ex) {
+            execution.completeExceptionally(ex);
+            throw ex;
+        } finally {
+            inFlight.remove(idempotencyKey, execution);
+        }
+    }
+
+    /**
+     * Purge keys older than the configured retention, on one node per interval.
+     */
+    @Scheduled(fixedDelayString = "${junie.idempotency.purge-interval:1h}")
+    void purgeExpiredKeys() {
+        clusterJobRunner.runExclusive("idempotency-purge", properties.getPurgeInterval().dividedBy(2), () -> {
+            LocalDateTime cutoff = LocalDateTime.now().minus(properties.getRetention());
+            transactionTemplate.executeWithoutResult(status -> idempotencyKeyRepository.deleteCreatedBefore(cutoff));
+        });
+    }
+
+    private CompletedRequest loadOrExecute(String idempotencyKey, String requestHash, BeerOrderUpsertDto upsertDto) {
+        try {
+            return transactionTemplate.execute(status -> idempotencyKeyRepository.findById(idempotencyKey)
+                    .map(this::stored)
+                    .orElseGet(() -> execute(idempotencyKey, requestHash, upsertDto)));
+        } catch (DataIntegrityViolationException ex) {
+            // Another node claimed the key first; its transaction has committed by now
+            return idempotencyKeyRepository.findById(idempotencyKey)
+                    .map(this::stored)
+                    .orElseThrow(() -> ex);
+        }
+    }
+
+    private CompletedRequest execute(String idempotencyKey, String requestHash, BeerOrderUpsertDto upsertDto) {
+        IdempotencyKey claim = idempotencyKeyRepository.saveAndFlush(IdempotencyKey.builder()
+                .key(idempotencyKey)
+                .requestHash(requestHash)
+                .build());
+        BeerOrderDto order = beerOrderService.createOrder(upsertDto, idempotencyKey);
+        claim.setBeerOrderId(order.id());
+        return new CompletedRequest(requestHash, order);
+    }
+
+    private CompletedRequest stored(IdempotencyKey key) {
+        BeerOrderDto order = beerOrderService.getById(key.getBeerOrderId())
+                .orElseThrow(() -> new IdempotencyKeyConflictException(key.getKey(),
+                        "Order created for idempotency key " + key.getKey() + " no longer exists"));
+        return new CompletedRequest(key.getRequestHash(), order);
+    }
+
+    private static BeerOrderDto replay(String idempotencyKey, String requestHash, CompletedRequest completedRequest) {
+        if (!completedRequest.requestHash().equals(requestHash)) {
+            throw new IdempotencyKeyConflictException(idempotencyKey,
+                    "Idempotency key " + idempotencyKey + " was already used for a different request");
+        }
+        return completedRequest.order();
+    }
+
+    private static CompletedRequest await(CompletableFuture<CompletedRequest> execution) {
+        try {
+            return execution.join();
+        } catch (CompletionException ex) {
+            if (ex.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw ex;
+        }
+    }
+
+    /**
+     * SHA-256 of the request's canonical JSON: properties and map entries sorted by name, decimals without
+     * trailing zeros, so equal requests hash alike however they were built.
+     */
+    static String hash(Object request) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            return HexFormat.of().formatHex(digest.digest(
+                    CANONICAL_JSON.writeValueAsBytes(CANONICAL_JSON.valueToTree(request))));
+        } catch (NoSuchAlgorithmException ex) {
+            throw new IllegalStateException("SHA-256 not available", ex);
+        } catch (JsonProcessingException ex) {
+            throw new IllegalStateException("Cannot serialize request", ex);
+        }
+    }
+}
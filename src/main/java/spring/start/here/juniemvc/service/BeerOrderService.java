@@ -1,16 +1,29 @@
 package spring.start.here.juniemvc.service;
 
 import spring.start.here.juniemvc.web.model.BeerOrderDto;
+import spring.start.here.juniemvc.web.model.BeerOrderField;
+import spring.start.here.juniemvc.web.model.BeerOrderLinesPatchDto;
+import spring.start.here.juniemvc.web.model.BeerOrderMultiGetDto;
 import spring.start.here.juniemvc.web.model.BeerOrderUpsertDto;
 
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
 
 public interface BeerOrderService {
     BeerOrderDto createOrder(BeerOrderUpsertDto upsertDto);
+    /**
+     * Create an order for a request carrying an idempotency key, or return the order already created for the
+     * key where the key is stored with the order.
+     */
+    BeerOrderDto createOrder(BeerOrderUpsertDto upsertDto, String idempotencyKey);
     Optional<BeerOrderDto> getById(Integer id);
     List<BeerOrderDto> getAll(Integer pageNumber, Integer pageSize);
+    List<Map<String, Object>> getAll(Integer pageNumber, Integer pageSize, Set<BeerOrderField> fields);
+    BeerOrderMultiGetDto getByIds(List<Integer> ids);
     List<BeerOrderDto> getByCustomer(Integer customerId, Integer pageNumber, Integer pageSize);
     Optional<BeerOrderDto> updateStatus(Integer id, String orderStatus);
+    Optional<BeerOrderDto> patchLines(Integer id, BeerOrderLinesPatchDto patch);
     boolean delete(Integer id);
 }
@@ -1,44 +1,93 @@
 package spring.start.here.juniemvc.service;
 
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import spring.start.here.juniemvc.domain.event.BeerOrderPlacedEvent;
+import spring.start.here.juniemvc.domain.event.BeerOrderStatusChangedEvent;
+import spring.start.here.juniemvc.domain.event.BeerOrdersDeletingEvent;
 import spring.start.here.juniemvc.domain.model.Beer;
 import spring.start.here.juniemvc.domain.model.BeerOrder;
 import spring.start.here.juniemvc.domain.model.BeerOrderLine;
 import spring.start.here.juniemvc.domain.model.Customer;
+import spring.start.here.juniemvc.repository.BeerOrderArchiveRepository;
+import spring.start.here.juniemvc.repository.BeerOrderLineRepository;
+import spring.start.here.juniemvc.repository.BeerOrderProjectionRepository;
 import spring.start.here.juniemvc.repository.BeerOrderRepository;
 import spring.start.here.juniemvc.repository.BeerRepository;
 import spring.start.here.juniemvc.repository.CustomerRepository;
 import spring.start.here.juniemvc.web.mappers.BeerOrderLineMapper;
 import spring.start.here.juniemvc.web.mappers.BeerOrderMapper;
 import spring.start.here.juniemvc.web.model.BeerOrderDto;
+import spring.start.here.juniemvc.web.model.BeerOrderField;
+import spring.start.here.juniemvc.web.model.BeerOrderLineOperationDto;
 import spring.start.here.juniemvc.web.model.BeerOrderLineUpsertDto;
+import spring.start.here.juniemvc.web.model.BeerOrderLinesPatchDto;
+import spring.start.here.juniemvc.web.model.BeerOrderMultiGetDto;
 import spring.start.here.juniemvc.web.model.BeerOrderUpsertDto;
 
+import java.time.Instant;
+import java.time.LocalDateTime;
 import java.util.ArrayList;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
 import java.util.Optional;
+import java.util.Set;
+import java.util.function.Function;
+import java.util.stream.Collectors;
 
+/**
+ * Stores orders with the rest of the data; replaced by {@link ShardedBeerOrderServiceImpl} when orders are
+ * sharded.
+ */
 @Service
+@ConditionalOnProperty(prefix = "junie.sharding", name = "enabled", havingValue = "false", matchIfMissing = true)
 class BeerOrderServiceImpl implements BeerOrderService {
 
     private final BeerOrderRepository beerOrderRepository;
+    private final BeerOrderArchiveRepository beerOrderArchiveRepository;
+    private final BeerOrderLineRepository beerOrderLineRepository;
+    private final BeerOrderProjectionRepository beerOrderProjectionRepository;
     private final CustomerRepository customerRepository;
     private final BeerRepository beerRepository;
     private final BeerOrderMapper beerOrderMapper;
     private final BeerOrderLineMapper beerOrderLineMapper;
+    private final ApplicationEventPublisher eventPublisher;
 
     BeerOrderServiceImpl(BeerOrderRepository beerOrderRepository,
+                         BeerOrderArchiveRepository beerOrderArchiveRepository,
+                         BeerOrderLineRepository beerOrderLineRepository,
+                         BeerOrderProjectionRepository beerOrderProjectionRepository,
                          CustomerRepository customerRepository,
                          BeerRepository beerRepository,
                          BeerOrderMapper beerOrderMapper,
-                         BeerOrderLineMapper beerOrderLineMapper) {
+                         BeerOrderLineMapper beerOrderLineMapper,
+                         ApplicationEventPublisher eventPublisher) {
         this.beerOrderRepository = beerOrderRepository;
+        this.beerOrderArchiveRepository = beerOrderArchiveRepository;
+        this.beerOrderLineRepository = beerOrderLineRepository;
+        this.beerOrderProjectionRepository = beerOrderProjectionRepository;
         this.customerRepository = customerRepository;
         this.beerRepository = beerRepository;
         this.beerOrderMapper = beerOrderMapper;
         this.beerOrderLineMapper = beerOrderLineMapper;
+        this.eventPublisher = eventPublisher;
+    }
+
+    /**
+     * The caller claims the key in the transaction the order is created in, so the key is not stored
+     * with the order.
+     */
+    @Override
+    @Transactional
+    public BeerOrderDto createOrder(BeerOrderUpsertDto upsertDto, String idempotencyKey) {
+        return createOrder(upsertDto);
     }
 
     @Override
@@ -62,19 +111,26 @@ class BeerOrderServiceImpl implements BeerOrderService {
                     .beerOrder(order)
                     .orderQuantity(lineDto.orderQuantity())
                     .quantityAllocated(0)
+                    .unitPrice(beer.getPrice())
                     .build();
             lines.add(line);
+            OrderTotals.addLine(order, line);
         }
         order.getBeerOrderLines().addAll(lines);
 
         BeerOrder saved = beerOrderRepository.save(order);
+        publishStatusChanged(saved, null);
+        eventPublisher.publishEvent(BeerOrderPlacedEvent.of(saved));
         return beerOrderMapper.toDto(saved);
     }
 
     @Override
     @Transactional(readOnly = true)
     public Optional<BeerOrderDto> getById(Integer id) {
-        return beerOrderRepository.findById(id).map(beerOrderMapper::toDto);
+        // Archived orders are read-only and only reachable by id
+        return beerOrderRepository.findById(id)
+                .or(() -> beerOrderArchiveRepository.findById(id))
+                .map(beerOrderMapper::toDto);
     }
 
     @Override
@@ -88,6 +144,46 @@ class BeerOrderServiceImpl implements BeerOrderService {
         return beerOrderRepository.findAll().stream().map(beerOrderMapper::toDto).toList();
     }
 
+    /**
+     * Only the requested fields are read and emitted. Without order lines this is one query on the requested
+     * {@code beer_order} columns; with them the full orders are loaded and then trimmed.
+     */
+    @Override
+    @Transactional(readOnly = true)
+    public List<Map<String, Object>> getAll(Integer pageNumber, Integer pageSize, Set<BeerOrderField> fields) {
+        List<BeerOrderField> selected = List.copyOf(fields);
+        if (fields.contains(BeerOrderField.ORDER_LINES)) {
+            return getAll(pageNumber, pageSize).stream()
+                    .map(dto -> toFieldMap(selected, field -> field.readFrom(dto)))
+                    .toList();
+        }
+        Pageable pageable = pageNumber != null && pageSize != null
+                ? PageRequest.of(pageNumber, pageSize) : Pageable.unpaged();
+        List<String> columns = selected.stream().map(BeerOrderField::column).toList();
+        return beerOrderProjectionRepository.findColumns(columns, pageable).stream()
+                .map(row -> toFieldMap(selected, field -> row[selected.indexOf(field)]))
+                .toList();
+    }
+
+    /**
+     * Live orders are loaded with their lines in one query per chunk of ids; ids not found among them
+     * are looked up in the archive, like {@link #getById}.
+     */
+    @Override
+    @Transactional(readOnly = true)
+    public BeerOrderMultiGetDto getByIds(List<Integer> ids) {
+        MultiGet.Result<BeerOrderDto> result = MultiGet.resolve(ids, chunk -> {
+            List<BeerOrder> orders = new ArrayList<>(beerOrderRepository.findWithLinesByIdIn(chunk));
+            if (orders.size() < chunk.size()) {
+                Set<Integer> live = orders.stream().map(BeerOrder::getId).collect(Collectors.toSet());
+                orders.addAll(beerOrderArchiveRepository.findAllById(
+                        chunk.stream().filter(id -> !live.contains(id)).toList()));
+            }
+            return orders;
+        }, BeerOrder::getId, beerOrderMapper::toDto);
+        return new BeerOrderMultiGetDto(result.found(), result.missingIds());
+    }
+
     @Override
     @Transactional(readOnly = true)
     public List<BeerOrderDto> getByCustomer(Integer customerId, Integer pageNumber, Integer pageSize) {
@@ -98,11 +194,70 @@ class BeerOrderServiceImpl implements BeerOrderService {
     }
 
     @Override
+    @RetryOnConflict
     @Transactional
     public Optional<BeerOrderDto> updateStatus(Integer id, String orderStatus) {
         return beerOrderRepository.findById(id).map(order -> {
+            String previousStatus = order.getOrderStatus();
             order.setOrderStatus(orderStatus);
-            return beerOrderMapper.toDto(beerOrderRepository.save(order));
+            BeerOrder saved = beerOrderRepository.saveAndFlush(order);
+            publishStatusChanged(saved, previousStatus);
+            return beerOrderMapper.toDto(saved);
+        });
+    }
+
+    /**
+     * Apply line operations as a minimal diff: only the lines named by UPDATE/REMOVE and the beers named
+     * by ADD are loaded (one query each), and only the affected rows are inserted, updated or deleted,
+     * each guarded by its {@code @Version}. The order row is locked for the duration, its totals adjusted
+     * by the changed lines and its version bumped.
+     */
+    @Override
+    @Transactional
+    public Optional<BeerOrderDto> patchLines(Integer id, BeerOrderLinesPatchDto patch) {
+        return beerOrderRepository.findWithLockById(id).map(order -> {
+            if (patch.orderVersion() != null && !patch.orderVersion().equals(order.getVersion())) {
+                throw new ObjectOptimisticLockingFailureException(BeerOrder.class, id);
+            }
+            Map<Integer, BeerOrderLine> lines = loadTouchedLines(order, patch.operations());
+            Map<Integer, Beer> beers = loadAddedBeers(order, patch.operations());
+            Map<Integer, long[]> deltas = new LinkedHashMap<>(); // beerId -> {quantity, lineCount}
+
+            for (BeerOrderLineOperationDto op : patch.operations()) {
+                switch (op.op()) {
+                    case ADD -> {
+                        Beer beer = beers.get(op.beerId());
+                        BeerOrderLine line = beerOrderLineRepository.save(BeerOrderLine.builder()
+                                .beer(beer)
+                                .beerOrder(order)
+                                .orderQuantity(op.orderQuantity())
+                                .quantityAllocated(0)
+                                .unitPrice(beer.getPrice())
+                                .build());
+                        OrderTotals.addLine(order, line);
+                        OrderLinePatches.addDelta(deltas, op.beerId(), line.getOrderQuantity(), 1);
+                    }
+                    case UPDATE -> {
+                        BeerOrderLine line = OrderLinePatches.checkedLine(lines, op);
+                        OrderLinePatches.addDelta(deltas, beer(line), op.orderQuantity() - line.getOrderQuantity(), 0);
+                        OrderTotals.changeQuantity(order, line, op.orderQuantity());
+                        line.setOrderQuantity(op.orderQuantity());
+                    }
+                    case REMOVE -> {
+                        BeerOrderLine line = OrderLinePatches.checkedLine(lines, op);
+                        beerOrderLineRepository.delete(line);
+                        OrderTotals.removeLine(order, line);
+                        OrderLinePatches.addDelta(deltas, beer(line), -line.getOrderQuantity(), -1);
+                    }
+                }
+            }
+
+            // Touch the order row even when its totals are unchanged, so its version is bumped and stale
+            // order views are detected
+            order.setUpdateDate(LocalDateTime.now());
+            BeerOrder saved = beerOrderRepository.saveAndFlush(order);
+            eventPublisher.publishEvent(OrderLinePatches.changedEvent(saved, deltas));
+            return beerOrderMapper.toDto(saved);
         });
     }
 
@@ -110,7 +265,46 @@ class BeerOrderServiceImpl implements BeerOrderService {
     @Transactional
     public boolean delete(Integer id) {
         if (!beerOrderRepository.existsById(id)) return false;
-        beerOrderRepository.deleteById(id);
+        // Two bulk statements instead of loading the order and deleting each line through orphanRemoval
+        List<Integer> ids = List.of(id);
+        eventPublisher.publishEvent(new BeerOrdersDeletingEvent(ids));
+        beerOrderLineRepository.bulkDeleteByOrderIds(ids);
+        beerOrderRepository.bulkDeleteByIds(ids);
         return true;
     }
+
+    private Map<Integer, BeerOrderLine> loadTouchedLines(BeerOrder order, List<BeerOrderLineOperationDto> operations) {
+        Set<Integer> lineIds = OrderLinePatches.touchedLineIds(order.getId(), operations);
+        Map<Integer, BeerOrderLine> lines = beerOrderLineRepository.findAllById(lineIds).stream()
+                .filter(line -> Objects.equals(line.getBeerOrder().getId(), order.getId()))
+                .collect(Collectors.toMap(BeerOrderLine::getId, Function.identity()));
+        OrderLinePatches.requireFound(order.getId(), lineIds, lines.keySet(), "Lines not found in order: ");
+        return lines;
+    }
+
+    private Map<Integer, Beer> loadAddedBeers(BeerOrder order, List<BeerOrderLineOperationDto> operations) {
+        Set<Integer> beerIds = OrderLinePatches.addedBeerIds(operations);
+        if (beerIds.isEmpty()) return Map.of();
+        Map<Integer, Beer> beers = beerRepository.findAllById(beerIds).stream()
+                .collect(Collectors.toMap(Beer::getId, Function.identity()));
+        OrderLinePatches.requireFound(order.getId(), beerIds, beers.keySet(), "Beers not found: ");
+        return beers;
+    }
+
+    // Keyed by JSON name in DTO field order, so only the selected fields are serialized
+    static Map<String, Object> toFieldMap(List<BeerOrderField> fields, Function<BeerOrderField, Object> value) {
+        Map<String, Object> map = new LinkedHashMap<>();
+        fields.forEach(field -> map.put(field.jsonName(), value.apply(field)));
+        return map;
+    }
+
+    private static Integer beer(BeerOrderLine line) {
+        return line.getBeer() != null ? line.getBeer().getId() : null;
+    }
+
+    private void publishStatusChanged(BeerOrder order, String previousStatus) {
+        Integer customerId = order.getCustomer() != null ? order.getCustomer().getId() : null;
+        eventPublisher.publishEvent(new BeerOrderStatusChangedEvent(order.getId(), customerId,
+                previousStatus, order.getOrderStatus(), order.getVersion(), Instant.now()));
+    }
 }
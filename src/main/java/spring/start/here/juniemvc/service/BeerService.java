@@ -1,9 +1,12 @@
 package spring.start.here.juniemvc.service;
 
+import com.fasterxml.jackson.databind.JsonNode;
 import spring.start.here.juniemvc.web.model.BeerDto;
 import spring.start.here.juniemvc.web.model.BeerListDto;
+import spring.start.here.juniemvc.web.model.BeerMultiGetDto;
 import spring.start.here.juniemvc.web.model.BeerUpsertDto;
 
+import java.util.List;
 import java.util.Optional;
 
 /**
@@ -33,6 +36,13 @@ public interface BeerService {
      */
     BeerListDto getAllBeers(Integer pageNumber, Integer pageSize);
 
+    /**
+     * Get several beers by ID with one query per chunk of ids
+     * @param ids the beer IDs
+     * @return the beers found, in the order of the ids, and the ids that were not found
+     */
+    BeerMultiGetDto getBeersByIds(List<Integer> ids);
+
     /**
      * Update an existing beer
      * @param id the beer ID to update
@@ -41,6 +51,15 @@ public interface BeerService {
      */
     Optional<BeerDto> updateBeer(Integer id, BeerUpsertDto beerUpsertDto);
 
+    /**
+     * Partially update an existing beer with a JSON Merge Patch; only the changed columns are written
+     * @param id the beer ID to update
+     * @param mergePatch the fields to change, {@code null} members clear a field
+     * @param expectedVersion the version the client last saw, or null to skip the check
+     * @return the updated beer if found, empty otherwise
+     */
+    Optional<BeerDto> patchBeer(Integer id, JsonNode mergePatch, Integer expectedVersion);
+
     /**
      * Delete a beer by ID
      * @param id the beer ID to delete
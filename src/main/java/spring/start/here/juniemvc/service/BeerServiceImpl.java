@@ -1,16 +1,22 @@
 package spring.start.here.juniemvc.service;
 
+import com.fasterxml.jackson.databind.JsonNode;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import spring.start.here.juniemvc.domain.event.EntityChangedEvent;
 import spring.start.here.juniemvc.domain.model.Beer;
 import spring.start.here.juniemvc.repository.BeerRepository;
 import spring.start.here.juniemvc.web.mappers.BeerMapper;
 import spring.start.here.juniemvc.web.model.BeerDto;
 import spring.start.here.juniemvc.web.model.BeerListDto;
+import spring.start.here.juniemvc.web.model.BeerMultiGetDto;
 import spring.start.here.juniemvc.web.model.BeerUpsertDto;
 
+import java.util.List;
 import java.util.Optional;
 import java.util.stream.Collectors;
 
@@ -22,10 +28,20 @@ public class BeerServiceImpl implements BeerService {
 
     private final BeerRepository beerRepository;
     private final BeerMapper beerMapper;
+    private final JsonMergePatcher mergePatcher;
+    private final SingleFlight singleFlight;
+    private final EntityCache entityCache;
+    private final ApplicationEventPublisher eventPublisher;
 
-    public BeerServiceImpl(BeerRepository beerRepository, BeerMapper beerMapper) {
+    public BeerServiceImpl(BeerRepository beerRepository, BeerMapper beerMapper, JsonMergePatcher mergePatcher,
+                           SingleFlight singleFlight, EntityCache entityCache,
+                           ApplicationEventPublisher eventPublisher) {
         this.beerRepository = beerRepository;
         this.beerMapper = beerMapper;
+        this.mergePatcher = mergePatcher;
+        this.singleFlight = singleFlight;
+        this.entityCache = entityCache;
+        this.eventPublisher = eventPublisher;
     }
 
     @Override
@@ -36,46 +52,80 @@ public class BeerServiceImpl implements BeerService {
         return beerMapper.beerToBeerDto(savedBeer);
     }
 
+    /**
+     * Served from the {@link EntityCache} when possible; concurrent cache misses for the same beer share one
+     * query, see {@link SingleFlight}
+     */
     @Override
-    @Transactional(readOnly = true)
     public Optional<BeerDto> getBeerById(Integer id) {
-        return beerRepository.findById(id)
-                .map(beerMapper::beerToBeerDto);
+        return entityCache.get(EntityChangedEvent.EntityType.BEER, id, () ->
+                singleFlight.load("beer", new BeerKey(id), () -> beerRepository.findById(id)
+                        .map(beerMapper::beerToBeerDto)));
     }
 
+    /**
+     * Concurrent reads of the same page share one query, see {@link SingleFlight}
+     */
     @Override
-    @Transactional(readOnly = true)
     public BeerListDto getAllBeers(Integer pageNumber, Integer pageSize) {
         PageRequest pageRequest = PageRequest.of(
                 pageNumber != null ? pageNumber : 0,
                 pageSize != null ? pageSize : 25);
 
-        Page<Beer> beerPage = beerRepository.findAll(pageRequest);
+        return singleFlight.load("beer-page", new BeerPageKey(pageRequest.getPageNumber(), pageRequest.getPageSize()), () -> {
+            Page<Beer> beerPage = beerRepository.findAll(pageRequest);
 
-        return BeerListDto.builder()
-                .beers(beerPage.getContent().stream()
-                        .map(beerMapper::beerToBeerDto)
-                        .collect(Collectors.toList()))
-                .totalPages(beerPage.getTotalPages())
-                .currentPage(beerPage.getNumber())
-                .totalElements(beerPage.getTotalElements())
-                .build();
+            return BeerListDto.builder()
+                    .beers(beerPage.getContent().stream()
+                            .map(beerMapper::beerToBeerDto)
+                            .collect(Collectors.toList()))
+                    .totalPages(beerPage.getTotalPages())
+                    .currentPage(beerPage.getNumber())
+                    .totalElements(beerPage.getTotalElements())
+                    .build();
+        });
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public BeerMultiGetDto getBeersByIds(List<Integer> ids) {
+        MultiGet.Result<BeerDto> result = MultiGet.resolve(ids, beerRepository::findAllById,
+                Beer::getId, beerMapper::beerToBeerDto);
+        return new BeerMultiGetDto(result.found(), result.missingIds());
     }
 
     @Override
+    @RetryOnConflict
     @Transactional
     public Optional<BeerDto> updateBeer(Integer id, BeerUpsertDto beerUpsertDto) {
         return beerRepository.findById(id)
                 .map(existingBeer -> {
                     // Update the existing beer with new values
-                    existingBeer.setBeerName(beerUpsertDto.getBeerName());
-                    existingBeer.setBeerStyle(beerUpsertDto.getBeerStyle());
-                    existingBeer.setUpc(beerUpsertDto.getUpc());
-                    existingBeer.setPrice(beerUpsertDto.getPrice());
-                    existingBeer.setQuantityOnHand(beerUpsertDto.getQuantityOnHand());
+                    applyUpsert(existingBeer, beerUpsertDto);
 
                     // Save the updated beer
                     Beer savedBeer = beerRepository.save(existingBeer);
+                    publishChanged(id);
+                    return beerMapper.beerToBeerDto(savedBeer);
+                });
+    }
+
+    @Override
+    @Transactional
+    public Optional<BeerDto> patchBeer(Integer id, JsonNode mergePatch, Integer expectedVersion) {
+        return beerRepository.findById(id)
+                .map(existingBeer -> {
+                    if (expectedVersion != null && !expectedVersion.equals(existingBeer.getVersion())) {
+                        throw new ObjectOptimisticLockingFailureException(Beer.class, id);
+                    }
+                    BeerUpsertDto patched = mergePatcher.apply(
+                            beerMapper.beerToBeerUpsertDto(existingBeer), mergePatch, BeerUpsertDto.class);
+                    // Unchanged values are not dirty, so the dynamic UPDATE only carries the patched columns
+                    applyUpsert(existingBeer, patched);
+
+                    // Flush so the returned version reflects the update
+                    Beer savedBeer = beerRepository.saveAndFlush(existingBeer);
+                    publishChanged(id);
                     return beerMapper.beerToBeerDto(savedBeer);
                 });
     }
@@ -86,8 +136,27 @@ public class BeerServiceImpl implements BeerService {
         return beerRepository.findById(id)
                 .map(beer -> {
                     beerRepository.delete(beer);
+                    publishChanged(id);
                     return true;
                 })
                 .orElse(false);
     }
-}
\ No newline at end of file
+
+    private void publishChanged(Integer id) {
+        eventPublisher.publishEvent(new EntityChangedEvent(EntityChangedEvent.EntityType.BEER, id));
+    }
+
+    private static void applyUpsert(Beer beer, BeerUpsertDto beerUpsertDto) {
+        beer.setBeerName(beerUpsertDto.getBeerName());
+        beer.setBeerStyle(beerUpsertDto.getBeerStyle());
+        beer.setUpc(beerUpsertDto.getUpc());
+        beer.setPrice(beerUpsertDto.getPrice());
+        beer.setQuantityOnHand(beerUpsertDto.getQuantityOnHand());
+    }
+
+    private record BeerKey(Integer id) {
+    }
+
+    private record BeerPageKey(int pageNumber, int pageSize) {
+    }
+}
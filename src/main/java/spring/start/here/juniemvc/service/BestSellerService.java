@@ -0,0 +1,21 @@
+package spring.start.here.juniemvc.service;
+
+import spring.start.here.juniemvc.web.model.TopBeersDto;
+
+import java.time.Duration;
+
+/**
+ * Approximate, in-memory ranking of the beers sold most over recent sliding windows.
+ */
+public interface BestSellerService {
+
+    /**
+     * Count {@code quantity} units of a beer as sold now.
+     */
+    void recordSale(Integer beerId, int quantity);
+
+    /**
+     * The {@code limit} beers with the highest estimated quantity sold within the last {@code window}.
+     */
+    TopBeersDto getTopBeers(Duration window, int limit);
+}
@@ -0,0 +1,155 @@
+package spring.start.here.juniemvc.service;
+
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.event.TransactionalEventListener;
+import spring.start.here.juniemvc.config.BestSellerProperties;
+import spring.start.here.juniemvc.domain.event.BeerOrderPlacedEvent;
+import spring.start.here.juniemvc.domain.model.Beer;
+import spring.start.here.juniemvc.repository.BeerRepository;
+import spring.start.here.juniemvc.web.model.TopBeerDto;
+import spring.start.here.juniemvc.web.model.TopBeersDto;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Keeps one {@link SpaceSavingSketch} per time bucket in a ring covering the retention period.
+ * A window query merges the sketches of the buckets it spans: for a key absent from a full
+ * bucket, that bucket's minimum count is added to the upper bound, so every estimate stays
+ * within {@code [minimumQuantity, estimatedQuantity]} and the overestimate is bounded by
+ * {@code maxError = sum of bucket minimums <= totalQuantity / capacity}.
+ * Any beer selling more than {@code totalQuantity / capacity} in the window is guaranteed to
+ * be a candidate. Counts are kept per node and are lost on restart. Sales are recorded once the
+ * order has committed, so orders that roll back are never counted.
+ */
+@Service
+class BestSellerServiceImpl implements BestSellerService {
+
+    private static final class Bucket {
+        long epochIndex = -1;
+        final SpaceSavingSketch sketch;
+
+        Bucket(int capacity) {
+            this.sketch = new SpaceSavingSketch(capacity);
+        }
+    }
+
+    private record BucketSnapshot(Map<Integer, long[]> counts, long minCount, long totalWeight) {}
+
+    private final BeerRepository beerRepository;
+    private final long bucketWidthMillis;
+    private final Bucket[] buckets;
+
+    BestSellerServiceImpl(BeerRepository beerRepository, BestSellerProperties properties) {
+        this.beerRepository = beerRepository;
+        this.bucketWidthMillis = properties.getBucketWidth().toMillis();
+        int bucketCount = (int) Math.ceilDiv(properties.getRetention().toMillis(), bucketWidthMillis);
+        this.buckets = new Bucket[bucketCount];
+        for (int i = 0; i < bucketCount; i++) {
+            buckets[i] = new Bucket(properties.getCapacity());
+        }
+    }
+
+    @Override
+    public void recordSale(Integer beerId, int quantity) {
+        recordSale(beerId, quantity, System.currentTimeMillis());
+    }
+
+    // Without a transaction (sharded inserts, async intake) the order is already committed when published
+    @TransactionalEventListener(fallbackExecution = true)
+    void onOrderPlaced(BeerOrderPlacedEvent event) {
+        event.sales().forEach(sale -> recordSale(sale.beerId(), sale.quantity()));
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public TopBeersDto getTopBeers(Duration window, int limit) {
+        return getTopBeers(window, limit, System.currentTimeMillis());
+    }
+
+    void recordSale(Integer beerId, int quantity, long nowMillis) {
+        if (beerId == null || quantity <= 0) {
+            return;
+        }
+        long epochIndex = nowMillis / bucketWidthMillis;
+        Bucket bucket = buckets[(int) (epochIndex % buckets.length)];
+        synchronized (bucket) {
+            if (bucket.epochIndex != epochIndex) {
+                bucket.sketch.clear();
+                bucket.epochIndex = epochIndex;
+            }
+            bucket.sketch.add(beerId, quantity);
+        }
+    }
+
+    TopBeersDto getTopBeers(Duration window, int limit, long nowMillis) {
+        long currentIndex = nowMillis / bucketWidthMillis;
+        int bucketsInWindow = (int) Math.min(buckets.length, Math.max(1, Math.ceilDiv(window.toMillis(), bucketWidthMillis)));
+        long firstIndex = currentIndex - bucketsInWindow + 1;
+
+        List<BucketSnapshot> snapshots = new ArrayList<>(bucketsInWindow);
+        for (long index = firstIndex; index <= currentIndex; index++) {
+            BucketSnapshot snapshot = snapshot(index);
+            if (snapshot != null) {
+                snapshots.add(snapshot);
+            }
+        }
+
+        long totalQuantity = 0;
+        long maxError = 0;
+        Map<Integer, long[]> bounds = new HashMap<>();
+        for (BucketSnapshot snapshot : snapshots) {
+            totalQuantity += snapshot.totalWeight();
+            maxError += snapshot.minCount();
+            snapshot.counts().keySet().forEach(key -> bounds.putIfAbsent(key, new long[2]));
+        }
+        bounds.forEach((key, bound) -> {
+            for (BucketSnapshot snapshot : snapshots) {
+                long[] countAndError = snapshot.counts().get(key);
+                if (countAndError != null) {
+                    bound[0] += countAndError[0];
+                    bound[1] += countAndError[0] - countAndError[1];
+                } else {
+                    bound[0] += snapshot.minCount();
+                }
+            }
+        });
+
+        List<Map.Entry<Integer, long[]>> top = bounds.entrySet().stream()
+                .sorted(Comparator.comparingLong((Map.Entry<Integer, long[]> e) -> e.getValue()[0]).reversed()
+                        .thenComparing(Map.Entry::getKey))
+                .limit(limit)
+                .toList();
+        Map<Integer, Beer> beers = beerRepository.findAllById(top.stream().map(Map.Entry::getKey).toList()).stream()
+                .collect(Collectors.toMap(Beer::getId, Function.identity()));
+        List<TopBeerDto> result = top.stream()
+                .map(e -> new TopBeerDto(e.getKey(),
+                        beers.containsKey(e.getKey()) ? beers.get(e.getKey()).getBeerName() : null,
+                        e.getValue()[0], e.getValue()[1]))
+                .toList();
+
+        return new TopBeersDto(Instant.ofEpochMilli(firstIndex * bucketWidthMillis), Instant.ofEpochMilli(nowMillis),
+                totalQuantity, maxError, result);
+    }
+
+    private BucketSnapshot snapshot(long epochIndex) {
+        Bucket bucket = buckets[(int) (epochIndex % buckets.length)];
+        synchronized (bucket) {
+            if (bucket.epochIndex != epochIndex) {
+                return null;
+            }
+            SpaceSavingSketch sketch = bucket.sketch;
+            Map<Integer, long[]> counts = HashMap.newHashMap(sketch.size());
+            sketch.forEach((key, count) -> counts.put(key, new long[]{count, sketch.errorOf(key)}));
+            return new BucketSnapshot(counts, sketch.minCount(), sketch.totalWeight());
+        }
+    }
+}
@@ -0,0 +1,191 @@
+package spring.start.here.juniemvc.service;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+import spring.start.here.juniemvc.config.JobProperties;
+import spring.start.here.juniemvc.repository.JobLeaseRepository;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+/**
+ * Runs scheduled background work once across all nodes sharing the database. Every node keeps its own
+ * schedule; a run only goes ahead on the node that takes the job's lease in {@code job_lease}, and is
+ * skipped when another node holds it or completed the job within its minimum interval. Callers pass
+ * about half their schedule's period as the minimum interval, so triggers of other nodes within the
+ * same period are skipped and the next period's are not.
+ * <p>
+ * Partitioned jobs have one lease per partition. Each node claims free partitions one at a time, so
+ * nodes whose schedules fire together split the work, and a partition left by a failed or dead node
+ * is picked up by the next run once its lease is released or expired. A failing partition is counted
+ * and logged, and the remaining partitions still run.
+ * <p>
+ * Leases are taken, renewed and released in transactions of their own, committed before, during and
+ * after the work. Work running longer than the lease time renews its lease as it goes.
+ */
+@Component
+class ClusterJobRunner {
+
+    private static final Logger log = LoggerFactory.getLogger(ClusterJobRunner.class);
+
+    private record Meters(Counter completed, Counter failed, Counter skipped, Timer duration) {}
+
+    /**
+     * The lease of a running job or partition.
+     */
+    @FunctionalInterface
+    interface Lease {
+
+        /**
+         * Extend the lease by the lease time, counted from now.
+         * @return {@code false} when the lease expired and another node took it over; the work should stop
+         */
+        boolean renew();
+    }
+
+    @FunctionalInterface
+    interface PartitionWork {
+
+        void run(int partition, Lease lease);
+    }
+
+    private final JobLeaseRepository jobLeaseRepository;
+    private final TransactionTemplate leaseTransaction;
+    private final JobProperties properties;
+    private final MeterRegistry meterRegistry;
+    private final Map<String, Meters> meters = new ConcurrentHashMap<>();
+    // Lease rows known to exist, so they are only inserted once per node
+    private final Set<String> createdLeases = ConcurrentHashMap.newKeySet();
+
+    ClusterJobRunner(JobLeaseRepository jobLeaseRepository,
+                     PlatformTransactionManager transactionManager,
+                     JobProperties properties,
+                     MeterRegistry meterRegistry) {
+        this.jobLeaseRepository = jobLeaseRepository;
+        this.leaseTransaction = new TransactionTemplate(transactionManager);
+        this.leaseTransaction.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        this.properties = properties;
+        this.meterRegistry = meterRegistry;
+    }
+
+    /**
+     * Run the work on this node unless another node runs it or completed it within {@code minInterval}.
+     * @return whether the work ran here
+     */
+    boolean runExclusive(String job, Duration minInterval, Runnable work) {
+        boolean ran = run(job, job, minInterval, lease -> work.run());
+        if (!ran) meters(job).skipped().increment();
+        return ran;
+    }
+
+    /**
+     * Run the work for every partition {@code 0..partitions-1} that no other node runs or completed
+     * within {@code minInterval}, claiming them one at a time from a random starting point.
+     * @return the number of partitions run to completion on this node
+     */
+    int runPartitioned(String job, int partitions, Duration minInterval, PartitionWork work) {
+        int start = ThreadLocalRandom.current().nextInt(partitions);
+        int ran = 0;
+        boolean claimed = false;
+        for (int i = 0; i < partitions; i++) {
+            int partition = (start + i) % partitions;
+            try {
+                if (run(job, job + "#" + partition, minInterval, lease -> work.run(partition, lease))) {
+                    ran++;
+                    claimed = true;
+                }
+            } catch (RuntimeException ex) {
+                claimed = true;
+                log.error("Partition {} of job {} failed, its lease is released for the next run", partition, job, ex);
+            }
+        }
+        if (!claimed) meters(job).skipped().increment();
+        return ran;
+    }
+
+    private boolean run(String job, String lease, Duration minInterval, Consumer<Lease> work) {
+        Meters meters = meters(job);
+        String owner = properties.getNodeId();
+        if (properties.isEnabled() && !acquire(lease, owner, minInterval)) {
+            return false;
+        }
+        long start = System.nanoTime();
+        try {
+            work.accept(properties.isEnabled() ? () -> renew(lease, owner) : () -> true);
+            meters.completed().increment();
+        } catch (RuntimeException ex) {
+            meters.failed().increment();
+            if (properties.isEnabled()) release(lease, owner, false);
+            throw ex;
+        } finally {
+            meters.duration().record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        }
+        if (properties.isEnabled()) release(lease, owner, true);
+        return true;
+    }
+
+    private boolean acquire(String lease, String owner, Duration minInterval) {
+        if (!createdLeases.contains(lease)) {
+            // Separate transaction: some databases abort a transaction on the duplicate key of a lost race
+            leaseTransaction.executeWithoutResult(status -> jobLeaseRepository.createIfAbsent(lease));
+            createdLeases.add(lease);
+        }
+        return Boolean.TRUE.equals(leaseTransaction.execute(status -> {
+            LocalDateTime now = jobLeaseRepository.currentTimestamp();
+            return jobLeaseRepository.tryAcquire(lease, owner, now, now.plus(properties.getLeaseTime()),
+                    now.minus(minInterval));
+        }));
+    }
+
+    private boolean renew(String lease, String owner) {
+        boolean renewed = Boolean.TRUE.equals(leaseTransaction.execute(status -> jobLeaseRepository.renew(
+                lease, owner, jobLeaseRepository.currentTimestamp().plus(properties.getLeaseTime()))));
+        if (!renewed) {
+            log.warn("Lease {} expired and was taken over by another node while its run was still going", lease);
+        }
+        return renewed;
+    }
+
+    private void release(String lease, String owner, boolean completed) {
+        boolean released = Boolean.TRUE.equals(leaseTransaction.execute(status -> jobLeaseRepository.release(
+                lease, owner, completed ? jobLeaseRepository.currentTimestamp() : null)));
+        if (!released) {
+            log.warn("Lease {} expired before its run finished and may have been run again by another node; "
+                    + "consider a longer junie.jobs.lease-time", lease);
+        }
+    }
+
+    // Registered on first use of each job
+    private Meters meters(String job) {
+        return meters.computeIfAbsent(job, name -> new Meters(
+                runCounter(name, "completed"),
+                runCounter(name, "failed"),
+                runCounter(name, "skipped"),
+                Timer.builder("junie.jobs.duration")
+                        .description("Time spent running cluster jobs on this node, per run or partition")
+                        .tag("job", name)
+                        .register(meterRegistry)));
+    }
+
+    private Counter runCounter(String job, String outcome) {
+        return Counter.builder("junie.jobs.runs")
+                .description("Runs of cluster jobs on this node (partitions for partitioned jobs), by whether they "
+                        + "completed, failed or were skipped because another node had the job")
+                .tag("job", job)
+                .tag("outcome", outcome)
+                .register(meterRegistry);
+    }
+}
@@ -0,0 +1,99 @@
+package spring.start.here.juniemvc.service;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.aopalliance.intercept.MethodInterceptor;
+import org.aopalliance.intercept.MethodInvocation;
+import org.springframework.aop.ProxyMethodInvocation;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import spring.start.here.juniemvc.config.ConflictRetryProperties;
+
+import java.lang.reflect.Method;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Applies {@link RetryOnConflict}. Must be ordered before the transaction advice so every attempt runs,
+ * and commits, in a transaction of its own; a conflict detected at commit is retried like one detected
+ * by a flush. Delays use full jitter: uniformly random up to an exponentially growing bound, so callers
+ * that collided do not collide again on the next attempt.
+ */
+public class ConflictRetryInterceptor implements MethodInterceptor {
+
+    private record Meters(Counter conflicts, Counter firstAttempt, Counter afterRetry, Counter exhausted) {}
+
+    private final ObjectProvider<ConflictRetryProperties> properties;
+    private final ObjectProvider<MeterRegistry> meterRegistry;
+    private final Map<Method, Meters> meters = new ConcurrentHashMap<>();
+
+    /**
+     * Both are resolved on first use, so the advisor does not pull them into early bean creation.
+     */
+    public ConflictRetryInterceptor(ObjectProvider<ConflictRetryProperties> properties,
+                                    ObjectProvider<MeterRegistry> meterRegistry) {
+        this.properties = properties;
+        this.meterRegistry = meterRegistry;
+    }
+
+    @Override
+    public Object invoke(MethodInvocation invocation) throws Throwable {
+        ConflictRetryProperties properties = this.properties.getObject();
+        if (!properties.isEnabled() || TransactionSynchronizationManager.isActualTransactionActive()
+                || !(invocation instanceof ProxyMethodInvocation proxyInvocation)) {
+            return invocation.proceed();
+        }
+        Meters meters = this.meters.computeIfAbsent(invocation.getMethod(), this::register);
+        for (int attempt = 1; ; attempt++) {
+            try {
+                Object result = proxyInvocation.invocableClone().proceed();
+                (attempt == 1 ? meters.firstAttempt() : meters.afterRetry()).increment();
+                return result;
+            } catch (OptimisticLockingFailureException ex) {
+                meters.conflicts().increment();
+                if (attempt >= properties.getMaxAttempts()) {
+                    meters.exhausted().increment();
+                    throw ex;
+                }
+                backOff(properties, attempt, ex);
+            }
+        }
+    }
+
+    private static void backOff(ConflictRetryProperties properties, int attempt,
+                                OptimisticLockingFailureException conflict) {
+        long bound = Math.min(properties.getMaxBackoff().toNanos(),
+                properties.getInitialBackoff().toNanos() << Math.min(attempt - 1, 20));
+        try {
+            TimeUnit.NANOSECONDS.sleep(bound > 0 ? ThreadLocalRandom.current().nextLong(bound + 1) : 0);
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            throw conflict;
+        }
+    }
+
+    private Meters register(Method method) {
+        MeterRegistry registry = meterRegistry.getObject();
+        String name = method.getDeclaringClass().getSimpleName() + "." + method.getName();
+        return new Meters(
+                Counter.builder("junie.conflict_retry.conflicts")
+                        .description("Attempts of @RetryOnConflict methods that failed with an optimistic-lock conflict")
+                        .tag("method", name)
+                        .register(registry),
+                callCounter(registry, name, "first_attempt"),
+                callCounter(registry, name, "after_retry"),
+                callCounter(registry, name, "exhausted"));
+    }
+
+    private static Counter callCounter(MeterRegistry registry, String method, String outcome) {
+        return Counter.builder("junie.conflict_retry.calls")
+                .description("Calls of @RetryOnConflict methods by whether they succeeded at once, after retrying "
+                        + "or ran out of attempts")
+                .tag("method", method)
+                .tag("outcome", outcome)
+                .register(registry);
+    }
+}
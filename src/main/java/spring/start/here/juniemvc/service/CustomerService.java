@@ -1,6 +1,8 @@
 package spring.start.here.juniemvc.service;
 
+import com.fasterxml.jackson.databind.JsonNode;
 import spring.start.here.juniemvc.web.model.CustomerDto;
+import spring.start.here.juniemvc.web.model.CustomerMultiGetDto;
 import spring.start.here.juniemvc.web.model.CustomerUpsertDto;
 
 import java.util.List;
@@ -10,6 +12,8 @@ public interface CustomerService {
     CustomerDto create(CustomerUpsertDto upsertDto);
     Optional<CustomerDto> getById(Integer id);
     List<CustomerDto> getAll();
+    CustomerMultiGetDto getByIds(List<Integer> ids);
     Optional<CustomerDto> update(Integer id, CustomerUpsertDto upsertDto);
+    Optional<CustomerDto> patch(Integer id, JsonNode mergePatch, Integer expectedVersion);
     boolean delete(Integer id);
 }
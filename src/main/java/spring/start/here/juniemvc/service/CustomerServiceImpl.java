@@ -1,26 +1,71 @@
 package spring.start.here.juniemvc.service;
 
+import com.fasterxml.jackson.databind.JsonNode;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+import spring.start.here.juniemvc.domain.event.BeerOrdersDeletingEvent;
+import spring.start.here.juniemvc.domain.event.EntityChangedEvent;
 import spring.start.here.juniemvc.domain.model.Customer;
+import spring.start.here.juniemvc.repository.BeerOrderArchiveRepository;
+import spring.start.here.juniemvc.repository.BeerOrderLineRepository;
+import spring.start.here.juniemvc.repository.BeerOrderRepository;
 import spring.start.here.juniemvc.repository.CustomerRepository;
+import spring.start.here.juniemvc.repository.ShardedBeerOrderRepository;
 import spring.start.here.juniemvc.web.exception.CustomerNotFoundException;
 import spring.start.here.juniemvc.web.mappers.CustomerMapper;
 import spring.start.here.juniemvc.web.model.CustomerDto;
+import spring.start.here.juniemvc.web.model.CustomerMultiGetDto;
 import spring.start.here.juniemvc.web.model.CustomerUpsertDto;
 
 import java.util.List;
 import java.util.Optional;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
 
 @Service
 class CustomerServiceImpl implements CustomerService {
 
+    // Orders deleted per round of bulk statements; bounds the IN lists and the ids held in memory
+    static final int DELETE_CHUNK_SIZE = 1_000;
+
     private final CustomerRepository customerRepository;
+    private final BeerOrderRepository beerOrderRepository;
+    private final BeerOrderLineRepository beerOrderLineRepository;
+    private final BeerOrderArchiveRepository beerOrderArchiveRepository;
+    // Present when orders are sharded; their orders are then deleted from the customer's shard in one transaction
+    private final ShardedBeerOrderRepository shardedBeerOrderRepository;
     private final CustomerMapper customerMapper;
+    private final JsonMergePatcher mergePatcher;
+    private final EntityCache entityCache;
+    private final ApplicationEventPublisher eventPublisher;
+    private final TransactionTemplate transactionTemplate;
 
-    CustomerServiceImpl(CustomerRepository customerRepository, CustomerMapper customerMapper) {
+    CustomerServiceImpl(CustomerRepository customerRepository,
+                        BeerOrderRepository beerOrderRepository,
+                        BeerOrderLineRepository beerOrderLineRepository,
+                        BeerOrderArchiveRepository beerOrderArchiveRepository,
+                        ObjectProvider<ShardedBeerOrderRepository> shardedBeerOrderRepository,
+                        CustomerMapper customerMapper,
+                        JsonMergePatcher mergePatcher,
+                        EntityCache entityCache,
+                        ApplicationEventPublisher eventPublisher,
+                        PlatformTransactionManager transactionManager) {
         this.customerRepository = customerRepository;
+        this.beerOrderRepository = beerOrderRepository;
+        this.beerOrderLineRepository = beerOrderLineRepository;
+        this.beerOrderArchiveRepository = beerOrderArchiveRepository;
+        this.shardedBeerOrderRepository = shardedBeerOrderRepository.getIfAvailable();
         this.customerMapper = customerMapper;
+        this.mergePatcher = mergePatcher;
+        this.entityCache = entityCache;
+        this.eventPublisher = eventPublisher;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
     }
 
     @Override
@@ -31,10 +76,11 @@ class CustomerServiceImpl implements CustomerService {
         return customerMapper.toDto(saved);
     }
 
+    // No transaction of its own: a cached customer is served without checking out a connection
     @Override
-    @Transactional(readOnly = true)
     public Optional<CustomerDto> getById(Integer id) {
-        return customerRepository.findById(id).map(customerMapper::toDto);
+        return entityCache.get(EntityChangedEvent.EntityType.CUSTOMER, id, () ->
+                customerRepository.findById(id).map(customerMapper::toDto));
     }
 
     @Override
@@ -43,25 +89,105 @@ class CustomerServiceImpl implements CustomerService {
         return customerRepository.findAll().stream().map(customerMapper::toDto).toList();
     }
 
+    @Override
+    @Transactional(readOnly = true)
+    public CustomerMultiGetDto getByIds(List<Integer> ids) {
+        MultiGet.Result<CustomerDto> result = MultiGet.resolve(ids, customerRepository::findAllById,
+                Customer::getId, customerMapper::toDto);
+        return new CustomerMultiGetDto(result.found(), result.missingIds());
+    }
+
     @Override
     @Transactional
     public Optional<CustomerDto> update(Integer id, CustomerUpsertDto upsertDto) {
         Customer existing = customerRepository.findById(id)
                 .orElseThrow(() -> new CustomerNotFoundException(id));
 
-        existing.setName(upsertDto.name());
-        existing.setEmail(upsertDto.email());
-        existing.setPhone(upsertDto.phone());
+        applyUpsert(existing, upsertDto);
 
         Customer saved = customerRepository.save(existing);
+        publishChanged(id);
         return Optional.of(customerMapper.toDto(saved));
     }
 
     @Override
     @Transactional
+    public Optional<CustomerDto> patch(Integer id, JsonNode mergePatch, Integer expectedVersion) {
+        Customer existing = customerRepository.findById(id)
+                .orElseThrow(() -> new CustomerNotFoundException(id));
+        if (expectedVersion != null && !expectedVersion.equals(existing.getVersion())) {
+            throw new ObjectOptimisticLockingFailureException(Customer.class, id);
+        }
+
+        CustomerUpsertDto patched = mergePatcher.apply(
+                customerMapper.toUpsertDto(existing), mergePatch, CustomerUpsertDto.class);
+        // Only the changed columns are dirty and written by the dynamic UPDATE
+        applyUpsert(existing, patched);
+
+        Customer saved = customerRepository.saveAndFlush(existing);
+        publishChanged(id);
+        return Optional.of(customerMapper.toDto(saved));
+    }
+
+    /**
+     * Orders and archived orders are deleted in chunks, each committed in its own transaction so locks and
+     * undo stay bounded by the chunk size. If a later step fails, the customer is still there and repeating
+     * the delete finishes the job. Sharded orders are deleted while the customer row is locked, together with
+     * the customer, so an order being created for it concurrently is either deleted too or rejected.
+     */
+    @Override
     public boolean delete(Integer id) {
         if (!customerRepository.existsById(id)) return false;
-        customerRepository.deleteById(id);
+        int chunkSize;
+        if (shardedBeerOrderRepository == null) {
+            do {
+                chunkSize = deleteChunk(
+                        () -> beerOrderRepository.findIdsByCustomerId(id, PageRequest.of(0, DELETE_CHUNK_SIZE)),
+                        orderIds -> {
+                            beerOrderLineRepository.bulkDeleteByOrderIds(orderIds);
+                            beerOrderRepository.bulkDeleteByIds(orderIds);
+                        });
+            } while (chunkSize == DELETE_CHUNK_SIZE);
+        }
+        do {
+            chunkSize = deleteChunk(() -> beerOrderArchiveRepository.findIdsByCustomerId(id, DELETE_CHUNK_SIZE),
+                    beerOrderArchiveRepository::deleteAllById);
+        } while (chunkSize == DELETE_CHUNK_SIZE);
+        transactionTemplate.executeWithoutResult(status -> {
+            if (shardedBeerOrderRepository != null) {
+                customerRepository.findWithLockById(id);
+                shardedBeerOrderRepository.deleteByCustomerId(id);
+            }
+            customerRepository.bulkDeleteById(id);
+            publishChanged(id);
+        });
         return true;
     }
+
+    /**
+     * Delete one chunk of orders with bulk statements in a transaction of its own. The rollup listeners see
+     * the orders before they are deleted.
+     * @return the number of orders in the chunk
+     */
+    private int deleteChunk(Supplier<List<Integer>> chunk, Consumer<List<Integer>> delete) {
+        Integer deleted = transactionTemplate.execute(status -> {
+            List<Integer> orderIds = chunk.get();
+            if (!orderIds.isEmpty()) {
+                eventPublisher.publishEvent(new BeerOrdersDeletingEvent(orderIds));
+                delete.accept(orderIds);
+            }
+            return orderIds.size();
+        });
+        return deleted != null ? deleted : 0;
+    }
+
+    private void publishChanged(Integer id) {
+        eventPublisher.publishEvent(new EntityChangedEvent(EntityChangedEvent.EntityType.CUSTOMER, id));
+    }
+
+    private static void applyUpsert(Customer customer, CustomerUpsertDto upsertDto) {
+        customer.setName(upsertDto.name());
+        customer.setEmail(upsertDto.email());
+        customer.setPhone(upsertDto.phone());
+    }
 }
@@ -0,0 +1,76 @@
+package spring.start.here.juniemvc.service;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import spring.start.here.juniemvc.config.EntityCacheProperties;
+import spring.start.here.juniemvc.domain.event.EntityChangedEvent;
+import spring.start.here.juniemvc.repository.EntityChangeRepository;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Exchanges invalidations through the shared database: each batch of changes is one batched insert into
+ * {@code entity_change}, and each poll reads the rows of other nodes created since the newest one seen.
+ * <p>
+ * Row ids are assigned before commit, so a row may become visible after rows with higher ids. Polls
+ * therefore look back over the configured window and skip the rows they already applied; a row committed
+ * later than that is missed and its entity only leaves the caches when its time-to-live expires.
+ */
+@Component
+@ConditionalOnProperty(prefix = "junie.entity-cache.bus", name = "transport", havingValue = "database")
+class DatabaseInvalidationTransport implements InvalidationTransport {
+
+    private final EntityChangeRepository entityChangeRepository;
+    private final EntityCacheProperties.Bus properties;
+    private final ClusterJobRunner clusterJobRunner;
+
+    // Rows applied within the lookback window, with their creation time
+    private final Map<Long, LocalDateTime> applied = new HashMap<>();
+    // Creation time of the newest row seen; starts at the first poll, when no entity is cached yet
+    private LocalDateTime newest;
+
+    DatabaseInvalidationTransport(EntityChangeRepository entityChangeRepository,
+                                  EntityCacheProperties properties,
+                                  ClusterJobRunner clusterJobRunner) {
+        this.entityChangeRepository = entityChangeRepository;
+        this.properties = properties.getBus();
+        this.clusterJobRunner = clusterJobRunner;
+    }
+
+    @Override
+    public void send(List<EntityChangedEvent> changes) {
+        entityChangeRepository.insertAll(properties.getNodeId(), changes);
+    }
+
+    @Override
+    public List<EntityChangedEvent> receive() {
+        if (newest == null) {
+            newest = entityChangeRepository.currentTimestamp();
+        }
+        List<EntityChangedEvent> changes = new ArrayList<>();
+        for (EntityChangeRepository.Change change :
+                entityChangeRepository.findSince(newest.minus(properties.getLookback()), properties.getNodeId())) {
+            if (applied.putIfAbsent(change.id(), change.createdDate()) == null) {
+                changes.add(change.event());
+            }
+            if (change.createdDate().isAfter(newest)) {
+                newest = change.createdDate();
+            }
+        }
+        LocalDateTime windowStart = newest.minus(properties.getLookback());
+        applied.values().removeIf(createdDate -> createdDate.isBefore(windowStart));
+        return changes;
+    }
+
+    @Scheduled(fixedDelayString = "${junie.entity-cache.bus.purge-interval:10m}")
+    void purgeExpiredChanges() {
+        clusterJobRunner.runExclusive("entity-change-purge", properties.getPurgeInterval().dividedBy(2), () ->
+                entityChangeRepository.deleteCreatedBefore(entityChangeRepository.currentTimestamp()
+                        .minus(properties.getRetention())));
+    }
+}
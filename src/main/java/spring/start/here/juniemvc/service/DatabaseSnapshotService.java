@@ -0,0 +1,16 @@
+package spring.start.here.juniemvc.service;
+
+import spring.start.here.juniemvc.web.model.DatabaseSnapshotDto;
+
+public interface DatabaseSnapshotService {
+
+    /**
+     * Dump the configured tables into the snapshot file, replacing it once the dump is complete.
+     */
+    DatabaseSnapshotDto dump();
+
+    /**
+     * Load the snapshot file into the configured tables, which must all be empty.
+     */
+    DatabaseSnapshotDto restore();
+}
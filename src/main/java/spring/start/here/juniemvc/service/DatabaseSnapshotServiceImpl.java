@@ -0,0 +1,174 @@
+package spring.start.here.juniemvc.service;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+import spring.start.here.juniemvc.config.SnapshotProperties;
+import spring.start.here.juniemvc.repository.DatabaseSnapshotRepository;
+import spring.start.here.juniemvc.repository.SnapshotInput;
+import spring.start.here.juniemvc.repository.SnapshotOutput;
+import spring.start.here.juniemvc.web.model.DatabaseSnapshotDto;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Dumps all configured tables in one repeatable-read transaction, so the snapshot is consistent, and
+ * restores each table in its own transaction with batched inserts. A failed restore empties the tables it
+ * already restored, so the database is left empty and the restore can be retried. Runs the restore at
+ * startup when configured; the application only reports ready once it has finished.
+ */
+@Service
+// Restore before the warm-up reads the data
+@Order(Ordered.HIGHEST_PRECEDENCE)
+@ConditionalOnProperty(prefix = "junie.snapshot", name = "enabled", havingValue = "true")
+class DatabaseSnapshotServiceImpl implements DatabaseSnapshotService, ApplicationRunner {
+
+    private static final Logger log = LoggerFactory.getLogger(DatabaseSnapshotServiceImpl.class);
+
+    private final DatabaseSnapshotRepository databaseSnapshotRepository;
+    private final TransactionTemplate dumpTransaction;
+    private final TransactionTemplate restoreTransaction;
+    private final SnapshotProperties properties;
+
+    DatabaseSnapshotServiceImpl(DatabaseSnapshotRepository databaseSnapshotRepository,
+                                PlatformTransactionManager transactionManager,
+                                SnapshotProperties properties) {
+        this.databaseSnapshotRepository = databaseSnapshotRepository;
+        this.dumpTransaction = new TransactionTemplate(transactionManager);
+        this.dumpTransaction.setIsolationLevel(TransactionDefinition.ISOLATION_REPEATABLE_READ);
+        this.restoreTransaction = new TransactionTemplate(transactionManager);
+        this.properties = properties;
+    }
+
+    @Override
+    public void run(ApplicationArguments args) {
+        if (!properties.isRestoreOnStartup()) return;
+        if (!Files.isRegularFile(properties.getFile())) {
+            log.warn("Snapshot restore skipped, {} does not exist", properties.getFile());
+            return;
+        }
+        if (!allTablesEmpty()) {
+            log.info("Snapshot restore skipped, the database already contains data");
+            return;
+        }
+        restore();
+    }
+
+    @Override
+    public DatabaseSnapshotDto dump() {
+        long start = System.nanoTime();
+        Path file = properties.getFile().toAbsolutePath();
+        Map<String, Long> rowsPerTable = new LinkedHashMap<>();
+        try {
+            Files.createDirectories(file.getParent());
+            // Write next to the target and move it into place, so a failed dump never replaces a good snapshot
+            Path partial = Files.createTempFile(file.getParent(), file.getFileName().toString(), ".partial");
+            try {
+                try (OutputStream target = Files.newOutputStream(partial);
+                     SnapshotOutput out = new SnapshotOutput(target)) {
+                    dumpTransaction.executeWithoutResult(status -> {
+                        for (String table : properties.getTables()) {
+                            rowsPerTable.put(table, databaseSnapshotRepository.dumpTable(table, out));
+                        }
+                    });
+                    out.finish();
+                }
+                Files.move(partial, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            } finally {
+                Files.deleteIfExists(partial);
+            }
+            DatabaseSnapshotDto result = result(file, rowsPerTable, start);
+            log.info("Dumped {} rows into {} ({} bytes) in {} ms", total(rowsPerTable), file,
+                    result.fileBytes(), result.durationMillis());
+            return result;
+        } catch (IOException ex) {
+            throw new UncheckedIOException("Could not write snapshot " + file, ex);
+        }
+    }
+
+    @Override
+    public DatabaseSnapshotDto restore() {
+        long start = System.nanoTime();
+        Path file = properties.getFile().toAbsolutePath();
+        if (!allTablesEmpty()) {
+            throw new IllegalStateException("Snapshots can only be restored into empty tables");
+        }
+        Map<String, Long> rowsPerTable = new LinkedHashMap<>();
+        try (InputStream source = Files.newInputStream(file);
+             SnapshotInput in = new SnapshotInput(source)) {
+            for (String table = in.nextTable(); table != null; table = in.nextTable()) {
+                if (!properties.getTables().contains(table)) {
+                    throw new IllegalStateException("Snapshot contains table " + table + " which is not configured");
+                }
+                String current = table;
+                Long rows = restoreTransaction.execute(status -> {
+                    try {
+                        long restored = databaseSnapshotRepository.restoreTable(current, in, properties.getBatchSize());
+                        databaseSnapshotRepository.restartIdentity(current);
+                        return restored;
+                    } catch (IOException ex) {
+                        throw new UncheckedIOException(ex);
+                    }
+                });
+                rowsPerTable.put(table, rows != null ? rows : 0L);
+            }
+        } catch (IOException ex) {
+            clearRestoredTables(rowsPerTable, ex);
+            throw new UncheckedIOException("Could not read snapshot " + file, ex);
+        } catch (RuntimeException ex) {
+            clearRestoredTables(rowsPerTable, ex);
+            throw ex;
+        }
+        try {
+            DatabaseSnapshotDto result = result(file, rowsPerTable, start);
+            log.info("Restored {} rows from {} in {} ms", total(rowsPerTable), file, result.durationMillis());
+            return result;
+        } catch (IOException ex) {
+            throw new UncheckedIOException("Could not read snapshot " + file, ex);
+        }
+    }
+
+    // Back to front, as the snapshot lists tables in foreign key order
+    private void clearRestoredTables(Map<String, Long> rowsPerTable, Exception failure) {
+        if (rowsPerTable.isEmpty()) return;
+        log.warn("Snapshot restore failed, emptying the restored tables {}", rowsPerTable.keySet());
+        for (String table : new ArrayList<>(rowsPerTable.keySet()).reversed()) {
+            try {
+                restoreTransaction.executeWithoutResult(status -> databaseSnapshotRepository.clearTable(table));
+            } catch (RuntimeException ex) {
+                failure.addSuppressed(ex);
+            }
+        }
+    }
+
+    private boolean allTablesEmpty() {
+        return properties.getTables().stream().allMatch(databaseSnapshotRepository::isEmpty);
+    }
+
+    private static DatabaseSnapshotDto result(Path file, Map<String, Long> rowsPerTable, long startNanos)
+            throws IOException {
+        return new DatabaseSnapshotDto(file.toString(), Files.size(file), rowsPerTable,
+                (System.nanoTime() - startNanos) / 1_000_000);
+    }
+
+    private static long total(Map<String, Long> rowsPerTable) {
+        return rowsPerTable.values().stream().mapToLong(Long::longValue).sum();
+    }
+}
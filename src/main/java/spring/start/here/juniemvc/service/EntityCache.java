@@ -0,0 +1,93 @@
+package spring.start.here.juniemvc.service;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import spring.start.here.juniemvc.config.EntityCacheProperties;
+import spring.start.here.juniemvc.config.PrimaryReads;
+import spring.start.here.juniemvc.domain.event.EntityChangedEvent.EntityType;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.function.Supplier;
+
+/**
+ * In-process cache of beers and customers read by id, kept up to date by the {@link InvalidationBus}.
+ * Entities that do not exist are not cached. Cached values are shared between callers and must not be
+ * modified. Callers inside a transaction bypass the cache so they see their own uncommitted writes.
+ * <p>
+ * A load that overlaps any invalidation is returned but not cached, so a value read before a change
+ * committed can never be cached after the change was invalidated. Misses are loaded from the primary, as a
+ * replica lagging behind an invalidated change would put the old row back into the cache.
+ */
+@Component
+class EntityCache {
+
+    private record Key(EntityType entityType, Integer id) {}
+
+    private record Entry(Object value, long loadedAt) {}
+
+    private final Map<Key, Entry> entries;
+    private final EntityCacheProperties properties;
+
+    private final Counter hits;
+    private final Counter misses;
+
+    // Incremented by every invalidation; guarded by entries
+    private long invalidations;
+
+    EntityCache(EntityCacheProperties properties, MeterRegistry meterRegistry) {
+        this.properties = properties;
+        this.entries = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Key, Entry> eldest) {
+                return size() > properties.getMaxEntries();
+            }
+        };
+        this.hits = requestCounter(meterRegistry, "hit");
+        this.misses = requestCounter(meterRegistry, "miss");
+    }
+
+    @SuppressWarnings("unchecked")
+    <V> Optional<V> get(EntityType entityType, Integer id, Supplier<Optional<V>> loader) {
+        if (!properties.isEnabled() || TransactionSynchronizationManager.isActualTransactionActive()) {
+            return loader.get();
+        }
+        Key key = new Key(entityType, id);
+        long generation;
+        synchronized (entries) {
+            Entry entry = entries.get(key);
+            if (entry != null && System.nanoTime() - entry.loadedAt() < properties.getTimeToLive().toNanos()) {
+                hits.increment();
+                return Optional.of((V) entry.value());
+            }
+            generation = invalidations;
+        }
+        misses.increment();
+        Optional<V> loaded = PrimaryReads.run(loader);
+        loaded.ifPresent(value -> {
+            synchronized (entries) {
+                if (invalidations == generation) {
+                    entries.put(key, new Entry(value, System.nanoTime()));
+                }
+            }
+        });
+        return loaded;
+    }
+
+    void invalidate(EntityType entityType, Integer id) {
+        synchronized (entries) {
+            invalidations++;
+            entries.remove(new Key(entityType, id));
+        }
+    }
+
+    private static Counter requestCounter(MeterRegistry meterRegistry, String result) {
+        return Counter.builder("junie.entity_cache.requests")
+                .description("Reads of beers and customers by id, by whether the in-process cache had them")
+                .tag("result", result)
+                .register(meterRegistry);
+    }
+}
@@ -0,0 +1,138 @@
+package spring.start.here.juniemvc.service;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+import spring.start.here.juniemvc.config.EntityCacheProperties;
+import spring.start.here.juniemvc.domain.event.EntityChangedEvent;
+
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentLinkedQueue;
+
+/**
+ * Keeps the {@link EntityCache} of every node up to date. A committed change is applied to the local
+ * cache at once and queued; every interval the queued changes are sent to the other nodes through the
+ * {@link InvalidationTransport}, in batches without duplicates, and the changes received from them are
+ * applied. Without a transport only the local cache is invalidated.
+ * <p>
+ * Other nodes therefore serve a changed entity for up to about one interval, plus the transport's own
+ * delay. Changes that cannot be sent are kept for the next interval.
+ */
+@Component
+class InvalidationBus implements SmartLifecycle {
+
+    // Stops after the web server, so changes made during a graceful shutdown are still sent
+    static final int PHASE = SmartLifecycle.DEFAULT_PHASE - 4096;
+
+    private static final Logger log = LoggerFactory.getLogger(InvalidationBus.class);
+
+    private final EntityCache entityCache;
+    private final InvalidationTransport transport;
+    private final EntityCacheProperties properties;
+    private final ConcurrentLinkedQueue<EntityChangedEvent> outgoing = new ConcurrentLinkedQueue<>();
+
+    private final Counter localInvalidations;
+    private final Counter remoteInvalidations;
+    private final Counter sentChanges;
+
+    private volatile boolean running;
+
+    InvalidationBus(EntityCache entityCache,
+                    ObjectProvider<InvalidationTransport> transport,
+                    EntityCacheProperties properties,
+                    MeterRegistry meterRegistry) {
+        this.entityCache = entityCache;
+        this.transport = transport.getIfAvailable();
+        this.properties = properties;
+        this.localInvalidations = invalidationCounter(meterRegistry, "local");
+        this.remoteInvalidations = invalidationCounter(meterRegistry, "remote");
+        this.sentChanges = Counter.builder("junie.entity_cache.sent_changes")
+                .description("Changes sent to other nodes")
+                .register(meterRegistry);
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    void onEntityChanged(EntityChangedEvent change) {
+        entityCache.invalidate(change.entityType(), change.id());
+        localInvalidations.increment();
+        if (transport != null) {
+            outgoing.add(change);
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${junie.entity-cache.bus.interval:500ms}")
+    void exchange() {
+        if (transport == null || !running) return;
+        send();
+        receive();
+    }
+
+    @Override
+    public void start() {
+        running = true;
+    }
+
+    @Override
+    public void stop() {
+        running = false;
+        if (transport != null) send();
+    }
+
+    @Override
+    public boolean isRunning() {
+        return running;
+    }
+
+    @Override
+    public int getPhase() {
+        return PHASE;
+    }
+
+    private void send() {
+        int maxBatchSize = properties.getBus().getMaxBatchSize();
+        Set<EntityChangedEvent> batch = new LinkedHashSet<>();
+        do {
+            batch.clear();
+            EntityChangedEvent change;
+            while (batch.size() < maxBatchSize && (change = outgoing.poll()) != null) {
+                batch.add(change);
+            }
+            if (batch.isEmpty()) return;
+            try {
+                transport.send(List.copyOf(batch));
+                sentChanges.increment(batch.size());
+            } catch (RuntimeException ex) {
+                outgoing.addAll(batch);
+                log.warn("Sending {} invalidations failed, retrying with the next exchange", batch.size(), ex);
+                return;
+            }
+        } while (batch.size() == maxBatchSize);
+    }
+
+    private void receive() {
+        try {
+            List<EntityChangedEvent> changes = transport.receive();
+            for (EntityChangedEvent change : changes) {
+                entityCache.invalidate(change.entityType(), change.id());
+            }
+            remoteInvalidations.increment(changes.size());
+        } catch (RuntimeException ex) {
+            log.warn("Receiving invalidations failed, retrying with the next exchange", ex);
+        }
+    }
+
+    private static Counter invalidationCounter(MeterRegistry meterRegistry, String source) {
+        return Counter.builder("junie.entity_cache.invalidations")
+                .description("Cached beers and customers invalidated, by the node that changed them")
+                .tag("source", source)
+                .register(meterRegistry);
+    }
+}
@@ -0,0 +1,23 @@
+package spring.start.here.juniemvc.service;
+
+import spring.start.here.juniemvc.domain.event.EntityChangedEvent;
+
+import java.util.List;
+
+/**
+ * Carries cache invalidations between nodes for the {@link InvalidationBus}. The implementation is chosen
+ * with {@code junie.entity-cache.bus.transport}; there is none on a single node. Both methods are only
+ * called from the bus's scheduled exchange, never concurrently.
+ */
+interface InvalidationTransport {
+
+    /**
+     * Send changes committed on this node to every other node.
+     */
+    void send(List<EntityChangedEvent> changes);
+
+    /**
+     * @return changes committed on other nodes that arrived since the last call
+     */
+    List<EntityChangedEvent> receive();
+}
@@ -0,0 +1,152 @@
+package spring.start.here.juniemvc.service;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Parser for inventory CSV files of {@code upc,quantity} lines that works directly on the bytes of a
+ * memory-mapped region. The UPC is resolved through {@link UpcIndex} without being decoded and the
+ * quantity is parsed digit by digit, so nothing is allocated per line. Lines may end in LF or CRLF,
+ * fields may be quoted or padded with blanks, and blank lines are ignored.
+ */
+final class InventoryCsvParser {
+
+    interface RowHandler {
+
+        void row(int beerId, int quantity);
+
+        void unknownUpc();
+
+        void malformed();
+    }
+
+    private enum LineResult { ROW, UNKNOWN_UPC, MALFORMED, BLANK }
+
+    private InventoryCsvParser() {
+    }
+
+    /**
+     * Split the file into regions of about {@code chunkBytes} that each start at the beginning of a line,
+     * so every region can be mapped and parsed independently.
+     * @return region offsets; region {@code i} spans {@code [offsets[i], offsets[i + 1])}
+     */
+    static long[] chunkBoundaries(FileChannel channel, long chunkBytes) throws IOException {
+        long size = channel.size();
+        List<Long> boundaries = new ArrayList<>();
+        boundaries.add(0L);
+        ByteBuffer probe = ByteBuffer.allocate(8192);
+        long next = chunkBytes;
+        while (next < size) {
+            long lineStart = nextLineStart(channel, next, size, probe);
+            if (lineStart >= size) break;
+            boundaries.add(lineStart);
+            next = lineStart + chunkBytes;
+        }
+        boundaries.add(size);
+        return boundaries.stream().mapToLong(Long::longValue).toArray();
+    }
+
+    /**
+     * Parse every line of the buffer between its position and limit.
+     * @param skipHeader treat the first line as a header when its quantity is not a number
+     */
+    static void parse(ByteBuffer buf, UpcIndex index, RowHandler handler, boolean skipHeader) {
+        int limit = buf.limit();
+        int lineStart = buf.position();
+        boolean first = skipHeader;
+        while (lineStart < limit) {
+            int lineEnd = lineStart;
+            while (lineEnd < limit && buf.get(lineEnd) != '\n') {
+                lineEnd++;
+            }
+            LineResult result = parseLine(buf, lineStart, lineEnd, index, handler);
+            if (result == LineResult.UNKNOWN_UPC) {
+                handler.unknownUpc();
+            } else if (result == LineResult.MALFORMED && !first) {
+                handler.malformed();
+            }
+            if (result != LineResult.BLANK) {
+                first = false;
+            }
+            lineStart = lineEnd + 1;
+        }
+    }
+
+    private static LineResult parseLine(ByteBuffer buf, int from, int to, UpcIndex index, RowHandler handler) {
+        int end = trimEnd(buf, from, to);
+        int start = trimStart(buf, from, end);
+        if (start == end) return LineResult.BLANK;
+
+        int comma = start;
+        while (comma < end && buf.get(comma) != ',') {
+            comma++;
+        }
+        if (comma == end) return LineResult.MALFORMED;
+
+        int upcEnd = trimEnd(buf, start, comma);
+        int upcStart = start;
+        if (upcEnd - upcStart >= 2 && buf.get(upcStart) == '"' && buf.get(upcEnd - 1) == '"') {
+            upcStart++;
+            upcEnd--;
+        }
+        int qtyStart = trimStart(buf, comma + 1, end);
+        int qtyEnd = end;
+        if (qtyEnd - qtyStart >= 2 && buf.get(qtyStart) == '"' && buf.get(qtyEnd - 1) == '"') {
+            qtyStart++;
+            qtyEnd--;
+        }
+        if (upcStart == upcEnd || qtyStart == qtyEnd) return LineResult.MALFORMED;
+
+        long quantity = 0;
+        for (int i = qtyStart; i < qtyEnd; i++) {
+            byte b = buf.get(i);
+            if (b < '0' || b > '9') return LineResult.MALFORMED;
+            quantity = quantity * 10 + (b - '0');
+            if (quantity > Integer.MAX_VALUE) return LineResult.MALFORMED;
+        }
+
+        int beerId = index.get(buf, upcStart, upcEnd);
+        if (beerId == UpcIndex.NOT_FOUND) return LineResult.UNKNOWN_UPC;
+        handler.row(beerId, (int) quantity);
+        return LineResult.ROW;
+    }
+
+    private static int trimStart(ByteBuffer buf, int from, int to) {
+        while (from < to && isBlank(buf.get(from))) {
+            from++;
+        }
+        return from;
+    }
+
+    private static int trimEnd(ByteBuffer buf, int from, int to) {
+        while (to > from && (isBlank(buf.get(to - 1)) || buf.get(to - 1) == '\r')) {
+            to--;
+        }
+        return to;
+    }
+
+    private static boolean isBlank(byte b) {
+        return b == ' ' || b == '\t';
+    }
+
+    // Offset just after the first '\n' at or after position - 1, i.e. the first line start >= position
+    private static long nextLineStart(FileChannel channel, long position, long size, ByteBuffer probe)
+            throws IOException {
+        long offset = position - 1;
+        while (offset < size) {
+            probe.clear();
+            int read = channel.read(probe, offset);
+            if (read <= 0) break;
+            for (int i = 0; i < read; i++) {
+                if (probe.get(i) == '\n') {
+                    return offset + i + 1;
+                }
+            }
+            offset += read;
+        }
+        return size;
+    }
+}
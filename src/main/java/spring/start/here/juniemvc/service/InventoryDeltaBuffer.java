@@ -0,0 +1,203 @@
+package spring.start.here.juniemvc.service;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import spring.start.here.juniemvc.repository.BeerInventoryBatchRepository;
+
+import java.util.Arrays;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.StampedLock;
+import java.util.function.Supplier;
+
+/**
+ * Write-behind buffer for stock adjustments. Deltas are summed per inventory row in {@link LongAdder}s,
+ * which stripe concurrent updates of the same row over several cells, so scanners adjusting a popular
+ * beer never wait on each other or on the database. A periodic flush writes the net change of every
+ * adjusted row with one batched UPDATE in one transaction.
+ * <p>
+ * A flush holds the write side of a {@link StampedLock} while it drains and commits. Reads run under an
+ * optimistic stamp and are repeated under the read lock when a flush overlapped them, so a stored
+ * quantity plus its pending delta never counts a delta twice or misses one. The deltas of a failed flush
+ * are put back for the next one, the buffer is flushed once more when the application stops, and a crash
+ * loses at most one flush interval of adjustments.
+ */
+@Component
+class InventoryDeltaBuffer implements SmartLifecycle {
+
+    private static final Logger log = LoggerFactory.getLogger(InventoryDeltaBuffer.class);
+
+    // One adder per inventory row adjusted since startup; rows are only removed once found to be deleted
+    private final ConcurrentHashMap<Integer, LongAdder> pending = new ConcurrentHashMap<>();
+    private final StampedLock flushLock = new StampedLock();
+    private final BeerInventoryBatchRepository beerInventoryBatchRepository;
+    private final TransactionTemplate transactionTemplate;
+
+    private final Counter writtenRows;
+    private final Counter requeuedRows;
+    private final Counter droppedRows;
+    private final Timer flushTimer;
+
+    // Set by every adjustment, cleared by the flush that drains it; lets idle flushes skip the lock
+    private volatile boolean dirty;
+    private volatile boolean running;
+
+    InventoryDeltaBuffer(BeerInventoryBatchRepository beerInventoryBatchRepository,
+                         PlatformTransactionManager transactionManager,
+                         MeterRegistry meterRegistry) {
+        this.beerInventoryBatchRepository = beerInventoryBatchRepository;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.writtenRows = rowCounter(meterRegistry, "written");
+        this.requeuedRows = rowCounter(meterRegistry, "requeued");
+        this.droppedRows = rowCounter(meterRegistry, "dropped");
+        this.flushTimer = Timer.builder("junie.inventory_adjustment.flush")
+                .description("Time spent writing buffered stock adjustments")
+                .register(meterRegistry);
+    }
+
+    /**
+     * @return whether the row already has buffered adjustments, and so is known to exist
+     */
+    boolean isTracked(Integer inventoryId) {
+        return pending.containsKey(inventoryId);
+    }
+
+    void add(Integer inventoryId, long delta) {
+        LongAdder adder = pending.get(inventoryId);
+        if (adder == null) {
+            adder = pending.computeIfAbsent(inventoryId, id -> new LongAdder());
+        }
+        adder.add(delta);
+        if (!dirty) {
+            dirty = true;
+        }
+    }
+
+    /**
+     * The sum of the adjustments of the row not yet written. Only consistent with the stored quantity
+     * when both are read within {@link #read}.
+     */
+    long pendingDelta(Integer inventoryId) {
+        LongAdder adder = pending.get(inventoryId);
+        return adder != null ? adder.sum() : 0;
+    }
+
+    /**
+     * Run a read of stored inventory rows that also reads their {@link #pendingDelta}s. The reader runs
+     * a second time if a flush overlapped the first run, and must hold no transaction of its own before
+     * it is called, since the flush needs a connection while readers wait for it.
+     */
+    <T> T read(Supplier<T> reader) {
+        long stamp = flushLock.tryOptimisticRead();
+        if (stamp != 0) {
+            T result = reader.get();
+            if (flushLock.validate(stamp)) return result;
+        }
+        stamp = flushLock.readLock();
+        try {
+            return reader.get();
+        } finally {
+            flushLock.unlockRead(stamp);
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${junie.inventory-adjustment.flush-interval:200ms}")
+    void scheduledFlush() {
+        if (running) flush();
+    }
+
+    /**
+     * Write the net change of every row adjusted since the last flush.
+     */
+    void flush() {
+        if (!dirty) return;
+        long stamp = flushLock.writeLock();
+        try {
+            dirty = false;
+            int[] inventoryIds = new int[Math.max(pending.size(), 16)];
+            long[] deltas = new long[inventoryIds.length];
+            int count = 0;
+            for (Map.Entry<Integer, LongAdder> entry : pending.entrySet()) {
+                long delta = entry.getValue().sumThenReset();
+                if (delta == 0) continue;
+                if (count == inventoryIds.length) {
+                    inventoryIds = Arrays.copyOf(inventoryIds, count * 2);
+                    deltas = Arrays.copyOf(deltas, count * 2);
+                }
+                inventoryIds[count] = entry.getKey();
+                deltas[count] = delta;
+                count++;
+            }
+            if (count > 0) write(inventoryIds, deltas, count);
+        } finally {
+            flushLock.unlockWrite(stamp);
+        }
+    }
+
+    @Override
+    public void start() {
+        running = true;
+    }
+
+    @Override
+    public void stop() {
+        running = false;
+        flush();
+    }
+
+    @Override
+    public boolean isRunning() {
+        return running;
+    }
+
+    // Stop after the web server, so adjustments accepted during a graceful shutdown are still written
+    @Override
+    public int getPhase() {
+        return SmartLifecycle.DEFAULT_PHASE - 4096;
+    }
+
+    private void write(int[] inventoryIds, long[] deltas, int count) {
+        long start = System.nanoTime();
+        try {
+            int[] updated = transactionTemplate.execute(status ->
+                    beerInventoryBatchRepository.addToQuantities(inventoryIds, deltas, count));
+            int dropped = 0;
+            for (int i = 0; i < count; i++) {
+                if (updated[i] == 0) {
+                    dropped++;
+                    pending.remove(inventoryIds[i]);
+                    log.warn("Dropped stock adjustment of {} for inventory {}, the row no longer exists",
+                            deltas[i], inventoryIds[i]);
+                }
+            }
+            writtenRows.increment(count - dropped);
+            droppedRows.increment(dropped);
+        } catch (RuntimeException ex) {
+            // Nothing was committed; the next flush writes these together with whatever arrived meanwhile
+            for (int i = 0; i < count; i++) {
+                add(inventoryIds[i], deltas[i]);
+            }
+            requeuedRows.increment(count);
+            log.warn("Writing {} buffered stock adjustments failed, retrying with the next flush", count, ex);
+        } finally {
+            flushTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        }
+    }
+
+    private static Counter rowCounter(MeterRegistry meterRegistry, String outcome) {
+        return Counter.builder("junie.inventory_adjustment.rows")
+                .description("Inventory rows handled by the write-behind flush")
+                .tag("outcome", outcome)
+                .register(meterRegistry);
+    }
+}
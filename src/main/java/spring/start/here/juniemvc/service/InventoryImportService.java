@@ -0,0 +1,17 @@
+package spring.start.here.juniemvc.service;
+
+import spring.start.here.juniemvc.web.model.InventoryImportJobDto;
+
+import java.util.Optional;
+import java.util.UUID;
+
+public interface InventoryImportService {
+
+    /**
+     * Queue an import of a {@code upc,quantity} CSV file; imports run one after another in the background.
+     * @param file path relative to the configured import directory
+     */
+    InventoryImportJobDto startImport(String file);
+
+    Optional<InventoryImportJobDto> getJob(UUID jobId);
+}
@@ -0,0 +1,282 @@
+package spring.start.here.juniemvc.service;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import spring.start.here.juniemvc.config.InventoryImportProperties;
+import spring.start.here.juniemvc.repository.BeerInventoryBatchRepository;
+import spring.start.here.juniemvc.web.exception.InvalidInventoryImportException;
+import spring.start.here.juniemvc.web.model.InventoryImportJobDto;
+
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Imports warehouse stock counts as new {@code beer_inventory} rows. The file is cut into regions at
+ * line boundaries; each region is memory-mapped and parsed in place by one of a fixed number of workers,
+ * which collects rows into primitive arrays and writes them as one JDBC batch per transaction. Heap use
+ * is bounded by workers times batch size regardless of the file size.
+ * Batches are committed as they are written, so a failed import leaves the rows written before the failure.
+ */
+@Service
+class InventoryImportServiceImpl implements InventoryImportService, DisposableBean {
+
+    private static final Logger log = LoggerFactory.getLogger(InventoryImportServiceImpl.class);
+
+    // Finished jobs kept for status queries; queued and running jobs are always kept
+    static final int RETAINED_JOBS = 100;
+
+    private final BeerInventoryBatchRepository beerInventoryBatchRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final InventoryImportProperties properties;
+    private final ExecutorService coordinator;
+    private final ExecutorService workers;
+    private final Map<UUID, ImportJob> jobs = Collections.synchronizedMap(new LinkedHashMap<>());
+
+    private final Counter importedRows;
+    private final Counter unknownUpcRows;
+    private final Counter malformedRows;
+
+    InventoryImportServiceImpl(BeerInventoryBatchRepository beerInventoryBatchRepository,
+                               PlatformTransactionManager transactionManager,
+                               InventoryImportProperties properties,
+                               MeterRegistry meterRegistry) {
+        this.beerInventoryBatchRepository = beerInventoryBatchRepository;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.properties = properties;
+        this.coordinator = Executors.newSingleThreadExecutor(
+                Thread.ofPlatform().name("inventory-import").factory());
+        this.workers = Executors.newFixedThreadPool(properties.getParallelism(),
+                Thread.ofPlatform().name("inventory-import-worker-", 0).factory());
+        this.importedRows = rowCounter(meterRegistry, "imported");
+        this.unknownUpcRows = rowCounter(meterRegistry, "unknown_upc");
+        this.malformedRows = rowCounter(meterRegistry, "malformed");
+    }
+
+    @Override
+    public InventoryImportJobDto startImport(String file) {
+        Path directory = properties.getDirectory().toAbsolutePath().normalize();
+        Path path = directory.resolve(file).normalize();
+        if (!path.startsWith(directory)) {
+            throw new InvalidInventoryImportException(file, "The import file must be inside the import directory");
+        }
+        if (!Files.isRegularFile(path) || !Files.isReadable(path)) {
+            throw new InvalidInventoryImportException(file, "The import file does not exist or is not readable");
+        }
+
+        ImportJob job = new ImportJob(UUID.randomUUID(), file);
+        retain(job);
+        coordinator.execute(() -> run(job, path));
+        return job.toDto();
+    }
+
+    @Override
+    public Optional<InventoryImportJobDto> getJob(UUID jobId) {
+        return Optional.ofNullable(jobs.get(jobId)).map(ImportJob::toDto);
+    }
+
+    @Override
+    public void destroy() {
+        coordinator.shutdownNow();
+        workers.shutdownNow();
+    }
+
+    // Adds the job and drops the oldest finished jobs beyond RETAINED_JOBS
+    private void retain(ImportJob job) {
+        synchronized (jobs) {
+            jobs.put(job.id, job);
+            int excess = jobs.size() - RETAINED_JOBS;
+            for (Iterator<ImportJob> it = jobs.values().iterator(); excess > 0 && it.hasNext(); ) {
+                if (it.next().finishedAt != null) {
+                    it.remove();
+                    excess--;
+                }
+            }
+        }
+    }
+
+    private void run(ImportJob job, Path path) {
+        job.startedAt = Instant.now();
+        job.status = "RUNNING";
+        List<Future<?>> chunks = new ArrayList<>();
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            job.fileBytes = channel.size();
+            UpcIndex upcIndex = UpcIndex.of(beerInventoryBatchRepository.findBeerIdsByUpc());
+            long[] boundaries = InventoryCsvParser.chunkBoundaries(channel, properties.getChunkSize().toBytes());
+            log.info("Importing inventory from {} ({} bytes, {} chunks)", path, job.fileBytes, boundaries.length - 1);
+
+            for (int i = 0; i + 1 < boundaries.length; i++) {
+                long from = boundaries[i];
+                long to = boundaries[i + 1];
+                boolean first = i == 0;
+                chunks.add(workers.submit(() -> {
+                    importChunk(job, channel, from, to, first, upcIndex);
+                    return null;
+                }));
+            }
+            awaitChunks(job, chunks);
+
+            job.status = "COMPLETED";
+        } catch (Exception ex) {
+            chunks.forEach(chunk -> chunk.cancel(true));
+            Throwable cause = ex instanceof ExecutionException ? ex.getCause() : ex;
+            job.error = cause.getMessage();
+            job.status = "FAILED";
+            log.error("Inventory import {} of {} failed", job.id, path, cause);
+            if (ex instanceof InterruptedException) {
+                Thread.currentThread().interrupt();
+            }
+        } finally {
+            job.finishedAt = Instant.now();
+        }
+        logProgress(job);
+    }
+
+    private void awaitChunks(ImportJob job, List<Future<?>> chunks)
+            throws InterruptedException, ExecutionException {
+        long interval = properties.getProgressLogInterval().toMillis();
+        for (Future<?> chunk : chunks) {
+            while (true) {
+                try {
+                    chunk.get(interval, TimeUnit.MILLISECONDS);
+                    break;
+                } catch (TimeoutException ex) {
+                    logProgress(job);
+                }
+            }
+        }
+    }
+
+    private void importChunk(ImportJob job, FileChannel channel, long from, long to, boolean first,
+                             UpcIndex upcIndex) throws IOException {
+        // Each region is mapped separately, so the file may be far larger than 2 GB
+        MappedByteBuffer region = channel.map(FileChannel.MapMode.READ_ONLY, from, to - from);
+        BatchWriter writer = new BatchWriter(job);
+        InventoryCsvParser.parse(region, upcIndex, writer, first);
+        writer.flush();
+        job.bytesProcessed.add(to - from);
+    }
+
+    private void logProgress(ImportJob job) {
+        InventoryImportJobDto progress = job.toDto();
+        log.info("Inventory import {}: {} {}% of {} bytes, {} rows imported ({} rows/s), {} unknown UPC, {} malformed",
+                progress.jobId(), progress.status(), String.format("%.1f", progress.percentComplete()),
+                progress.fileBytes(), progress.rowsImported(), Math.round(progress.rowsPerSecond()),
+                progress.rowsUnknownUpc(), progress.rowsMalformed());
+    }
+
+    private static Counter rowCounter(MeterRegistry meterRegistry, String outcome) {
+        return Counter.builder("junie.inventory_import.rows")
+                .description("Rows read by inventory imports")
+                .tag("outcome", outcome)
+                .register(meterRegistry);
+    }
+
+    /**
+     * Collects the rows of one region and writes them in batches; owned by a single worker.
+     */
+    private final class BatchWriter implements InventoryCsvParser.RowHandler {
+
+        private final ImportJob job;
+        private final int[] beerIds = new int[properties.getBatchSize()];
+        private final int[] quantities = new int[properties.getBatchSize()];
+        private int count;
+
+        BatchWriter(ImportJob job) {
+            this.job = job;
+        }
+
+        @Override
+        public void row(int beerId, int quantity) {
+            beerIds[count] = beerId;
+            quantities[count] = quantity;
+            if (++count == beerIds.length) {
+                flush();
+            }
+        }
+
+        @Override
+        public void unknownUpc() {
+            job.rowsUnknownUpc.increment();
+            unknownUpcRows.increment();
+        }
+
+        @Override
+        public void malformed() {
+            job.rowsMalformed.increment();
+            malformedRows.increment();
+        }
+
+        void flush() {
+            if (count == 0) return;
+            if (Thread.currentThread().isInterrupted()) {
+                throw new CancellationException("Inventory import " + job.id + " was cancelled");
+            }
+            transactionTemplate.executeWithoutResult(status ->
+                    beerInventoryBatchRepository.insertAll(beerIds, quantities, count));
+            job.rowsImported.add(count);
+            importedRows.increment(count);
+            count = 0;
+        }
+    }
+
+    private static final class ImportJob {
+
+        final UUID id;
+        final String file;
+        final LongAdder bytesProcessed = new LongAdder();
+        final LongAdder rowsImported = new LongAdder();
+        final LongAdder rowsUnknownUpc = new LongAdder();
+        final LongAdder rowsMalformed = new LongAdder();
+        volatile String status = "QUEUED";
+        volatile long fileBytes;
+        volatile Instant startedAt;
+        volatile Instant finishedAt;
+        volatile String error;
+
+        ImportJob(UUID id, String file) {
+            this.id = id;
+            this.file = file;
+        }
+
+        InventoryImportJobDto toDto() {
+            long processed = bytesProcessed.sum();
+            long imported = rowsImported.sum();
+            double percent = fileBytes > 0 ? processed * 100.0 / fileBytes : 0.0;
+            double rowsPerSecond = 0.0;
+            if (startedAt != null) {
+                Duration elapsed = Duration.between(startedAt, finishedAt != null ? finishedAt : Instant.now());
+                rowsPerSecond = elapsed.toMillis() > 0 ? imported * 1000.0 / elapsed.toMillis() : 0.0;
+            }
+            return new InventoryImportJobDto(id, file, status, fileBytes, processed, percent, imported,
+                    rowsUnknownUpc.sum(), rowsMalformed.sum(), rowsPerSecond, startedAt, finishedAt, error);
+        }
+    }
+}
@@ -0,0 +1,64 @@
+package spring.start.here.juniemvc.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import jakarta.validation.ConstraintViolation;
+import jakarta.validation.ConstraintViolationException;
+import jakarta.validation.Validator;
+import org.springframework.stereotype.Component;
+import spring.start.here.juniemvc.web.exception.InvalidMergePatchException;
+
+import java.util.Iterator;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Applies a JSON Merge Patch (RFC 7396) to an upsert DTO: members present in the patch replace
+ * the current value, {@code null} members clear it and absent members are left untouched.
+ * The patched DTO is validated with the same constraints as a full update.
+ */
+@Component
+class JsonMergePatcher {
+
+    private final ObjectMapper objectMapper;
+    private final Validator validator;
+
+    JsonMergePatcher(ObjectMapper objectMapper, Validator validator) {
+        this.objectMapper = objectMapper;
+        this.validator = validator;
+    }
+
+    <T> T apply(T current, JsonNode mergePatch, Class<T> type) {
+        if (mergePatch == null || !mergePatch.isObject()) {
+            throw new InvalidMergePatchException("A merge patch must be a JSON object");
+        }
+        ObjectNode target = objectMapper.valueToTree(current);
+        Iterator<Map.Entry<String, JsonNode>> members = mergePatch.fields();
+        while (members.hasNext()) {
+            Map.Entry<String, JsonNode> member = members.next();
+            // The DTOs are flat, so unknown members are errors rather than new properties
+            if (!target.has(member.getKey())) {
+                throw new InvalidMergePatchException("Unknown property '" + member.getKey() + "'");
+            }
+            if (member.getValue().isNull()) {
+                target.putNull(member.getKey());
+            } else {
+                target.set(member.getKey(), member.getValue());
+            }
+        }
+
+        T patched;
+        try {
+            patched = objectMapper.treeToValue(target, type);
+        } catch (JsonProcessingException ex) {
+            throw new InvalidMergePatchException("Malformed merge patch: " + ex.getOriginalMessage());
+        }
+        Set<ConstraintViolation<T>> violations = validator.validate(patched);
+        if (!violations.isEmpty()) {
+            throw new ConstraintViolationException(violations);
+        }
+        return patched;
+    }
+}
@@ -0,0 +1,50 @@
+package spring.start.here.juniemvc.service;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+
+/**
+ * Resolves a list of ids with one IN query per chunk of ids and returns the results in the order the
+ * ids were requested. Duplicate ids are looked up and returned once, at their first position.
+ */
+final class MultiGet {
+
+    // Ids per IN query; keeps statements well below bind parameter limits and their plans cacheable
+    static final int CHUNK_SIZE = 500;
+
+    record Result<D>(List<D> found, List<Integer> missingIds) {
+    }
+
+    private MultiGet() {
+    }
+
+    static <E, D> Result<D> resolve(List<Integer> ids,
+                                    Function<List<Integer>, ? extends Iterable<E>> loader,
+                                    Function<E, Integer> idOf,
+                                    Function<E, D> mapper) {
+        List<Integer> distinct = new ArrayList<>(new LinkedHashSet<>(ids));
+        Map<Integer, E> loaded = new HashMap<>(distinct.size() * 2);
+        for (int from = 0; from < distinct.size(); from += CHUNK_SIZE) {
+            List<Integer> chunk = distinct.subList(from, Math.min(from + CHUNK_SIZE, distinct.size()));
+            for (E entity : loader.apply(chunk)) {
+                loaded.put(idOf.apply(entity), entity);
+            }
+        }
+
+        List<D> found = new ArrayList<>(loaded.size());
+        List<Integer> missingIds = new ArrayList<>();
+        for (Integer id : distinct) {
+            E entity = loaded.get(id);
+            if (entity != null) {
+                found.add(mapper.apply(entity));
+            } else {
+                missingIds.add(id);
+            }
+        }
+        return new Result<>(found, missingIds);
+    }
+}
@@ -0,0 +1,13 @@
+package spring.start.here.juniemvc.service;
+
+/**
+ * Moves old orders in a terminal status out of the hot order tables into the archive tables.
+ */
+public interface OrderArchivalService {
+
+    /**
+     * Archive eligible orders in throttled chunks, up to the configured maximum per run.
+     * @return the number of orders archived
+     */
+    int archiveCompletedOrders();
+}
@@ -0,0 +1,97 @@
+package spring.start.here.juniemvc.service;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import spring.start.here.juniemvc.config.ArchivalProperties;
+import spring.start.here.juniemvc.repository.BeerOrderArchiveRepository;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * Each chunk is moved in its own short transaction, followed by a pause, so row locks are held
+ * briefly and the job yields to regular traffic. Runs are bounded; whatever is left is picked up
+ * by the next run.
+ */
+@Service
+class OrderArchivalServiceImpl implements OrderArchivalService {
+
+    private static final Logger log = LoggerFactory.getLogger(OrderArchivalServiceImpl.class);
+
+    private final BeerOrderArchiveRepository beerOrderArchiveRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final ArchivalProperties properties;
+    private final ClusterJobRunner clusterJobRunner;
+    private final Counter archivedOrders;
+
+    OrderArchivalServiceImpl(BeerOrderArchiveRepository beerOrderArchiveRepository,
+                             PlatformTransactionManager transactionManager,
+                             ArchivalProperties properties,
+                             ClusterJobRunner clusterJobRunner,
+                             MeterRegistry meterRegistry) {
+        this.beerOrderArchiveRepository = beerOrderArchiveRepository;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.properties = properties;
+        this.clusterJobRunner = clusterJobRunner;
+        this.archivedOrders = Counter.builder("junie.archival.orders")
+                .description("Orders moved to the archive tables")
+                .register(meterRegistry);
+    }
+
+    @Override
+    public int archiveCompletedOrders() {
+        return archive(0, 1, properties.getMaxChunksPerRun(), () -> true);
+    }
+
+    /**
+     * Scheduled runs are split by order id into partitions that the nodes claim one at a time, and the
+     * chunks allowed per run are shared out over the partitions. A partition's lease is renewed before each
+     * further chunk, and its run stops once the lease was lost.
+     */
+    @Scheduled(fixedDelayString = "${junie.archival.interval:1h}")
+    void scheduledArchival() {
+        if (!properties.isEnabled()) return;
+        int partitions = properties.getPartitions();
+        int maxChunks = Math.ceilDiv(properties.getMaxChunksPerRun(), partitions);
+        clusterJobRunner.runPartitioned("archival", partitions, properties.getInterval().dividedBy(2),
+                (partition, lease) -> archive(partition, partitions, maxChunks, lease));
+    }
+
+    private int archive(int partition, int partitions, int maxChunks, ClusterJobRunner.Lease lease) {
+        LocalDateTime cutoff = LocalDateTime.now().minus(properties.getMinAge());
+        int total = 0;
+        for (int chunk = 0; chunk < maxChunks; chunk++) {
+            if (chunk > 0 && !lease.renew()) break;
+            List<Integer> ids = beerOrderArchiveRepository.findArchivableIds(properties.getStatuses(), cutoff,
+                    properties.getChunkSize(), partition, partitions);
+            if (ids.isEmpty()) break;
+
+            Integer moved = transactionTemplate.execute(status ->
+                    beerOrderArchiveRepository.archive(ids, properties.getStatuses()));
+            total += moved != null ? moved : 0;
+            archivedOrders.increment(moved != null ? moved : 0);
+
+            if (ids.size() < properties.getChunkSize() || !pause()) break;
+        }
+        if (total > 0) {
+            log.info("Archived {} orders last updated before {}", total, cutoff);
+        }
+        return total;
+    }
+
+    private boolean pause() {
+        try {
+            Thread.sleep(properties.getPauseBetweenChunks());
+            return true;
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+}
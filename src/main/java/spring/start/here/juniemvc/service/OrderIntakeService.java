@@ -0,0 +1,29 @@
+package spring.start.here.juniemvc.service;
+
+import spring.start.here.juniemvc.web.model.BeerOrderUpsertDto;
+import spring.start.here.juniemvc.web.model.OrderIntakeTicketDto;
+
+import java.util.Optional;
+import java.util.UUID;
+
+public interface OrderIntakeService {
+
+    /**
+     * @return true if orders are accepted asynchronously and committed in groups
+     */
+    boolean isAsync();
+
+    /**
+     * Validate an order and enqueue it for the group-commit writer.
+     * @param upsertDto the order to create
+     * @return the tracking ticket of the queued order
+     */
+    OrderIntakeTicketDto submit(BeerOrderUpsertDto upsertDto);
+
+    /**
+     * Get the current state of a queued order
+     * @param trackingId the tracking id returned by {@link #submit}
+     * @return the ticket if it is still tracked
+     */
+    Optional<OrderIntakeTicketDto> getTicket(UUID trackingId);
+}
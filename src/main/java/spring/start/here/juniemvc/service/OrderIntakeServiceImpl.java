@@ -0,0 +1,301 @@
+package spring.start.here.juniemvc.service;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import spring.start.here.juniemvc.config.OrderIntakeProperties;
+import spring.start.here.juniemvc.domain.event.BeerOrderPlacedEvent;
+import spring.start.here.juniemvc.domain.event.BeerOrderStatusChangedEvent;
+import spring.start.here.juniemvc.domain.model.BeerOrder;
+import spring.start.here.juniemvc.domain.model.BeerOrderLine;
+import spring.start.here.juniemvc.domain.model.Customer;
+import spring.start.here.juniemvc.repository.BeerOrderBatchRepository;
+import spring.start.here.juniemvc.repository.BeerRepository;
+import spring.start.here.juniemvc.repository.CustomerRepository;
+import spring.start.here.juniemvc.web.exception.OrderIntakeRejectedException;
+import spring.start.here.juniemvc.web.mappers.BeerOrderLineMapper;
+import spring.start.here.juniemvc.web.model.BeerOrderLineUpsertDto;
+import spring.start.here.juniemvc.web.model.BeerOrderUpsertDto;
+import spring.start.here.juniemvc.web.model.OrderIntakeTicketDto;
+
+import java.math.BigDecimal;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.stream.Collectors;
+
+/**
+ * Asynchronous order intake. Requests are validated and put on a bounded queue; a single writer
+ * thread drains the queue and commits up to {@code maxBatchSize} orders per transaction with
+ * batched inserts, so the commit rate no longer limits the order rate.
+ */
+@Service
+class OrderIntakeServiceImpl implements OrderIntakeService, SmartLifecycle {
+
+    private static final Logger log = LoggerFactory.getLogger(OrderIntakeServiceImpl.class);
+
+    static final String QUEUED = "QUEUED";
+    static final String COMMITTED = "COMMITTED";
+    static final String FAILED = "FAILED";
+
+    record PendingOrder(UUID trackingId, BeerOrderUpsertDto upsertDto) {}
+
+    private final CustomerRepository customerRepository;
+    private final BeerRepository beerRepository;
+    private final BeerOrderBatchRepository beerOrderBatchRepository;
+    private final BeerOrderLineMapper beerOrderLineMapper;
+    private final TransactionTemplate transactionTemplate;
+    private final ApplicationEventPublisher eventPublisher;
+    private final OrderIntakeProperties properties;
+
+    private final BlockingQueue<PendingOrder> queue;
+    private final Map<UUID, OrderIntakeTicketDto> tickets;
+
+    private final Counter committedOrders;
+    private final Counter failedOrders;
+    private final Counter rejectedOrders;
+
+    // Submissions hold the read lock from the running check to the enqueue; stop() flips running under
+    // the write lock, so nothing is enqueued after the writer's final drain has started
+    private final ReadWriteLock intakeLock = new ReentrantReadWriteLock();
+    private volatile boolean running;
+    private Thread writer;
+
+    OrderIntakeServiceImpl(CustomerRepository customerRepository,
+                           BeerRepository beerRepository,
+                           BeerOrderBatchRepository beerOrderBatchRepository,
+                           BeerOrderLineMapper beerOrderLineMapper,
+                           PlatformTransactionManager transactionManager,
+                           ApplicationEventPublisher eventPublisher,
+                           OrderIntakeProperties properties,
+                           MeterRegistry meterRegistry) {
+        this.customerRepository = customerRepository;
+        this.beerRepository = beerRepository;
+        this.beerOrderBatchRepository = beerOrderBatchRepository;
+        this.beerOrderLineMapper = beerOrderLineMapper;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.eventPublisher = eventPublisher;
+        this.properties = properties;
+        this.queue = new ArrayBlockingQueue<>(properties.getQueueCapacity());
+        this.tickets = new LinkedHashMap<>(16, 0.75f, false) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<UUID, OrderIntakeTicketDto> eldest) {
+                return size() > properties.getTrackingCacheSize();
+            }
+        };
+
+        this.committedOrders = intakeCounter(meterRegistry, "committed");
+        this.failedOrders = intakeCounter(meterRegistry, "failed");
+        this.rejectedOrders = intakeCounter(meterRegistry, "rejected");
+        Gauge.builder("junie.order_intake.queue_size", queue, BlockingQueue::size)
+                .description("Orders waiting for the group-commit writer")
+                .register(meterRegistry);
+    }
+
+    @Override
+    public boolean isAsync() {
+        return properties.getMode() == OrderIntakeProperties.Mode.ASYNC;
+    }
+
+    @Override
+    public OrderIntakeTicketDto submit(BeerOrderUpsertDto upsertDto) {
+        validate(upsertDto);
+
+        OrderIntakeTicketDto ticket = new OrderIntakeTicketDto(UUID.randomUUID(), QUEUED, null, null);
+        track(ticket);
+        boolean queued;
+        intakeLock.readLock().lock();
+        try {
+            queued = running && enqueue(new PendingOrder(ticket.trackingId(), upsertDto));
+        } finally {
+            intakeLock.readLock().unlock();
+        }
+        if (!queued) {
+            synchronized (tickets) {
+                tickets.remove(ticket.trackingId());
+            }
+            rejectedOrders.increment();
+            throw new OrderIntakeRejectedException(properties.getRetryAfter());
+        }
+        return ticket;
+    }
+
+    @Override
+    public Optional<OrderIntakeTicketDto> getTicket(UUID trackingId) {
+        synchronized (tickets) {
+            return Optional.ofNullable(tickets.get(trackingId));
+        }
+    }
+
+    @Override
+    public void start() {
+        if (!isAsync()) return;
+        running = true;
+        writer = Thread.ofPlatform().name("order-intake-writer").start(this::drainQueue);
+    }
+
+    @Override
+    public void stop() {
+        intakeLock.writeLock().lock();
+        try {
+            running = false;
+        } finally {
+            intakeLock.writeLock().unlock();
+        }
+        if (writer == null) return;
+        try {
+            // The writer commits whatever is still queued before it exits
+            writer.join(TimeUnit.SECONDS.toMillis(30));
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    @Override
+    public boolean isRunning() {
+        return running;
+    }
+
+    boolean enqueue(PendingOrder pending) {
+        return queue.offer(pending);
+    }
+
+    private void validate(BeerOrderUpsertDto upsertDto) {
+        if (!customerRepository.existsById(upsertDto.customerId())) {
+            throw new IllegalArgumentException("Customer not found: " + upsertDto.customerId());
+        }
+        Set<Integer> beerIds = upsertDto.orderLines().stream()
+                .map(BeerOrderLineUpsertDto::beerId)
+                .collect(Collectors.toSet());
+        if (!beerIds.isEmpty() && beerRepository.countByIdIn(beerIds) != beerIds.size()) {
+            throw new IllegalArgumentException("Beer not found: one of " + beerIds);
+        }
+    }
+
+    private void drainQueue() {
+        List<PendingOrder> batch = new ArrayList<>(properties.getMaxBatchSize());
+        while (running || !queue.isEmpty()) {
+            try {
+                PendingOrder first = queue.poll(100, TimeUnit.MILLISECONDS);
+                if (first == null) continue;
+                batch.add(first);
+                fillBatch(batch);
+                commit(batch);
+            } catch (InterruptedException ex) {
+                Thread.currentThread().interrupt();
+                return;
+            } finally {
+                batch.clear();
+            }
+        }
+    }
+
+    private void fillBatch(List<PendingOrder> batch) throws InterruptedException {
+        long deadline = System.nanoTime() + properties.getMaxLinger().toNanos();
+        while (batch.size() < properties.getMaxBatchSize()) {
+            queue.drainTo(batch, properties.getMaxBatchSize() - batch.size());
+            long remaining = deadline - System.nanoTime();
+            if (batch.size() >= properties.getMaxBatchSize() || remaining <= 0) return;
+            PendingOrder next = queue.poll(remaining, TimeUnit.NANOSECONDS);
+            if (next == null) return;
+            batch.add(next);
+        }
+    }
+
+    private void commit(List<PendingOrder> batch) {
+        try {
+            List<BeerOrder> orders = transactionTemplate.execute(status -> insert(batch));
+            markCommitted(batch, orders);
+        } catch (RuntimeException ex) {
+            // Isolate the failing order(s) so one bad order does not fail the whole group
+            log.warn("Group commit of {} orders failed, committing them one by one", batch.size(), ex);
+            for (PendingOrder pending : batch) {
+                try {
+                    List<BeerOrder> orders = transactionTemplate.execute(status -> insert(List.of(pending)));
+                    markCommitted(List.of(pending), orders);
+                } catch (RuntimeException single) {
+                    failedOrders.increment();
+                    track(new OrderIntakeTicketDto(pending.trackingId(), FAILED, null, single.getMessage()));
+                }
+            }
+        }
+    }
+
+    private List<BeerOrder> insert(List<PendingOrder> batch) {
+        Map<Integer, BigDecimal> prices = beerPrices(batch);
+        List<BeerOrder> orders = batch.stream().map(pending -> toEntity(pending.upsertDto(), prices)).toList();
+        beerOrderBatchRepository.insertAll(orders);
+        return orders;
+    }
+
+    // Current prices of all beers in the batch, read with one query to snapshot onto the lines
+    private Map<Integer, BigDecimal> beerPrices(List<PendingOrder> batch) {
+        Set<Integer> beerIds = batch.stream()
+                .flatMap(pending -> pending.upsertDto().orderLines().stream())
+                .map(BeerOrderLineUpsertDto::beerId)
+                .collect(Collectors.toSet());
+        Map<Integer, BigDecimal> prices = new HashMap<>();
+        beerRepository.findAllById(beerIds).forEach(beer -> prices.put(beer.getId(), beer.getPrice()));
+        return prices;
+    }
+
+    private void markCommitted(List<PendingOrder> batch, List<BeerOrder> orders) {
+        Instant now = Instant.now();
+        for (int i = 0; i < batch.size(); i++) {
+            BeerOrder order = orders.get(i);
+            track(new OrderIntakeTicketDto(batch.get(i).trackingId(), COMMITTED, order.getId(), null));
+            eventPublisher.publishEvent(new BeerOrderStatusChangedEvent(order.getId(), order.getCustomer().getId(),
+                    null, order.getOrderStatus(), order.getVersion(), now));
+            eventPublisher.publishEvent(BeerOrderPlacedEvent.of(order));
+        }
+        committedOrders.increment(batch.size());
+    }
+
+    private BeerOrder toEntity(BeerOrderUpsertDto upsertDto, Map<Integer, BigDecimal> prices) {
+        BeerOrder order = BeerOrder.builder()
+                .customer(Customer.builder().id(upsertDto.customerId()).build())
+                .orderStatus("NEW")
+                .orderStatusCallbackUrl(upsertDto.orderStatusCallbackUrl())
+                .build();
+        for (BeerOrderLineUpsertDto lineDto : upsertDto.orderLines()) {
+            BeerOrderLine line = beerOrderLineMapper.toEntity(lineDto);
+            line.setBeerOrder(order);
+            line.setQuantityAllocated(0);
+            line.setUnitPrice(prices.get(lineDto.beerId()));
+            order.getBeerOrderLines().add(line);
+            OrderTotals.addLine(order, line);
+        }
+        return order;
+    }
+
+    private void track(OrderIntakeTicketDto ticket) {
+        synchronized (tickets) {
+            tickets.put(ticket.trackingId(), ticket);
+        }
+    }
+
+    private static Counter intakeCounter(MeterRegistry meterRegistry, String outcome) {
+        return Counter.builder("junie.order_intake.orders")
+                .description("Orders handled by the asynchronous intake")
+                .tag("outcome", outcome)
+                .register(meterRegistry);
+    }
+}
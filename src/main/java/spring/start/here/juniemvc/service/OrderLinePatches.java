@@ -0,0 +1,91 @@
+package spring.start.here.juniemvc.service;
+
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
+import spring.start.here.juniemvc.domain.event.BeerOrderLinesChangedEvent;
+import spring.start.here.juniemvc.domain.model.BeerOrder;
+import spring.start.here.juniemvc.domain.model.BeerOrderLine;
+import spring.start.here.juniemvc.web.exception.InvalidOrderLinePatchException;
+import spring.start.here.juniemvc.web.model.BeerOrderLineOperationDto;
+
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+/**
+ * Checks and bookkeeping shared by every store of order lines when applying a line patch: which lines and
+ * beers the operations name, the version check of each touched line and the net change per beer.
+ */
+final class OrderLinePatches {
+
+    private OrderLinePatches() {
+    }
+
+    /**
+     * Ids of the lines named by UPDATE and REMOVE operations, after checking every operation carries the
+     * fields it needs and no line is changed twice.
+     */
+    static Set<Integer> touchedLineIds(Integer orderId, List<BeerOrderLineOperationDto> operations) {
+        Set<Integer> lineIds = new HashSet<>();
+        for (BeerOrderLineOperationDto op : operations) {
+            if (op.op() == BeerOrderLineOperationDto.Operation.ADD) {
+                if (op.beerId() == null || op.orderQuantity() == null) {
+                    throw new InvalidOrderLinePatchException(orderId, "ADD requires beerId and orderQuantity");
+                }
+                continue;
+            }
+            if (op.lineId() == null) {
+                throw new InvalidOrderLinePatchException(orderId, op.op() + " requires lineId");
+            }
+            if (op.op() == BeerOrderLineOperationDto.Operation.UPDATE && op.orderQuantity() == null) {
+                throw new InvalidOrderLinePatchException(orderId, "UPDATE requires orderQuantity");
+            }
+            if (!lineIds.add(op.lineId())) {
+                throw new InvalidOrderLinePatchException(orderId, "Line " + op.lineId() + " is changed more than once");
+            }
+        }
+        return lineIds;
+    }
+
+    static Set<Integer> addedBeerIds(List<BeerOrderLineOperationDto> operations) {
+        return operations.stream()
+                .filter(op -> op.op() == BeerOrderLineOperationDto.Operation.ADD)
+                .map(BeerOrderLineOperationDto::beerId)
+                .collect(Collectors.toSet());
+    }
+
+    /**
+     * @throws InvalidOrderLinePatchException naming the requested ids that were not found
+     */
+    static void requireFound(Integer orderId, Set<Integer> requested, Set<Integer> found, String message) {
+        if (found.size() != requested.size()) {
+            Set<Integer> missing = new HashSet<>(requested);
+            missing.removeAll(found);
+            throw new InvalidOrderLinePatchException(orderId, message + missing);
+        }
+    }
+
+    static BeerOrderLine checkedLine(Map<Integer, BeerOrderLine> lines, BeerOrderLineOperationDto op) {
+        BeerOrderLine line = lines.get(op.lineId());
+        if (op.version() != null && !op.version().equals(line.getVersion())) {
+            throw new ObjectOptimisticLockingFailureException(BeerOrderLine.class, line.getId());
+        }
+        return line;
+    }
+
+    static void addDelta(Map<Integer, long[]> deltas, Integer beerId, long quantity, long lineCount) {
+        long[] delta = deltas.computeIfAbsent(beerId, key -> new long[2]);
+        delta[0] += quantity;
+        delta[1] += lineCount;
+    }
+
+    // Beers whose changes cancel out are left out
+    static BeerOrderLinesChangedEvent changedEvent(BeerOrder order, Map<Integer, long[]> deltas) {
+        return new BeerOrderLinesChangedEvent(order.getId(), order.getOrderStatus(), order.getCreatedDate(),
+                deltas.entrySet().stream()
+                        .filter(e -> e.getValue()[0] != 0 || e.getValue()[1] != 0)
+                        .map(e -> new BeerOrderLinesChangedEvent.BeerDelta(e.getKey(), e.getValue()[0], e.getValue()[1]))
+                        .toList());
+    }
+}
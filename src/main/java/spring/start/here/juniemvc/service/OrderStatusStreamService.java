@@ -0,0 +1,23 @@
+package spring.start.here.juniemvc.service;
+
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.util.Set;
+
+public interface OrderStatusStreamService {
+
+    /**
+     * Subscribe to order status changes.
+     * @param customerId only stream orders of this customer, or null
+     * @param orderIds only stream these orders, or empty for all
+     * @param lastEventId replay buffered events after this id, or null for live events only
+     * @return the emitter streaming {@code order-status} events, starting with a {@code resync} event when
+     *         the events after {@code lastEventId} cannot be replayed
+     */
+    SseEmitter subscribe(Integer customerId, Set<Integer> orderIds, String lastEventId);
+
+    /**
+     * @return number of currently connected subscribers
+     */
+    int getSubscriberCount();
+}
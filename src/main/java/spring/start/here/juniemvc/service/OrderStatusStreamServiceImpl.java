@@ -0,0 +1,256 @@
+package spring.start.here.juniemvc.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.web.servlet.mvc.method.annotation.ResponseBodyEmitter.DataWithMediaType;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+import spring.start.here.juniemvc.config.OrderStreamProperties;
+import spring.start.here.juniemvc.domain.event.BeerOrderStatusChangedEvent;
+import spring.start.here.juniemvc.web.model.BeerOrderStatusEventDto;
+
+import java.io.IOException;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Fans order status changes out to SSE subscribers. Each event is serialized once; publishing only
+ * appends the frame to each matching subscriber's queue, and every subscriber drains its own queue on
+ * a virtual thread. A slow client never blocks the publisher or other clients, and one that falls too
+ * far behind is disconnected.
+ * Recent events are kept in a ring buffer so reconnecting clients can resume from Last-Event-ID.
+ * <p>
+ * Event ids are {@code <epoch>-<sequence>}, with an epoch drawn at startup: a client reconnecting to
+ * another node or after a restart sends an id from another epoch. It then gets a {@code resync} event
+ * instead of a replay and reloads the orders it follows, as it does when the events it missed are no
+ * longer buffered or are more than it could be sent at once.
+ */
+@Service
+class OrderStatusStreamServiceImpl implements OrderStatusStreamService, DisposableBean {
+
+    static final String EVENT_NAME = "order-status";
+
+    static final String RESYNC_EVENT_NAME = "resync";
+
+    private record StatusEvent(long sequence, BeerOrderStatusChangedEvent change, Set<DataWithMediaType> frame) {}
+
+    private final OrderStreamProperties properties;
+    private final ObjectMapper objectMapper;
+    private final ExecutorService dispatcher = Executors.newVirtualThreadPerTaskExecutor();
+    private final Set<Subscriber> subscribers = ConcurrentHashMap.newKeySet();
+    private final String epoch = Integer.toUnsignedString(ThreadLocalRandom.current().nextInt(), 36);
+
+    // Guarded by itself; also serializes id assignment with subscription so no event is missed or duplicated
+    private final ArrayDeque<StatusEvent> replayBuffer = new ArrayDeque<>();
+    private long lastSequence = 0;
+
+    private final Counter publishedEvents;
+    private final Counter droppedSubscribers;
+
+    OrderStatusStreamServiceImpl(OrderStreamProperties properties, ObjectMapper objectMapper,
+                                 MeterRegistry meterRegistry) {
+        this.properties = properties;
+        this.objectMapper = objectMapper;
+        this.publishedEvents = Counter.builder("junie.order_stream.events")
+                .description("Order status events published to the stream")
+                .register(meterRegistry);
+        this.droppedSubscribers = Counter.builder("junie.order_stream.dropped_subscribers")
+                .description("Subscribers disconnected because they fell too far behind")
+                .register(meterRegistry);
+        Gauge.builder("junie.order_stream.subscribers", subscribers, Set::size)
+                .description("Connected order status stream subscribers")
+                .register(meterRegistry);
+    }
+
+    @Override
+    public SseEmitter subscribe(Integer customerId, Set<Integer> orderIds, String lastEventId) {
+        SseEmitter emitter = new SseEmitter(properties.getConnectionTimeout().toMillis());
+        Subscriber subscriber = new Subscriber(emitter, customerId, orderIds);
+        emitter.onCompletion(() -> subscribers.remove(subscriber));
+        emitter.onTimeout(() -> subscribers.remove(subscriber));
+        emitter.onError(ex -> subscribers.remove(subscriber));
+
+        synchronized (replayBuffer) {
+            if (lastEventId != null) {
+                List<StatusEvent> missed = missedEvents(lastEventId, subscriber);
+                if (missed != null) {
+                    missed.forEach(event -> subscriber.enqueue(event.frame()));
+                } else {
+                    subscriber.enqueue(SseEmitter.event()
+                            .id(eventId(lastSequence))
+                            .name(RESYNC_EVENT_NAME)
+                            .data(RESYNC_EVENT_NAME)
+                            .build());
+                }
+            }
+            if (!subscriber.closed.get()) {
+                subscribers.add(subscriber);
+            }
+        }
+        return emitter;
+    }
+
+    @Override
+    public int getSubscriberCount() {
+        return subscribers.size();
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    void onStatusChanged(BeerOrderStatusChangedEvent change) {
+        String json = toJson(change);
+        synchronized (replayBuffer) {
+            long sequence = ++lastSequence;
+            StatusEvent event = new StatusEvent(sequence, change, SseEmitter.event()
+                    .id(eventId(sequence))
+                    .name(EVENT_NAME)
+                    .data(json)
+                    .build());
+            replayBuffer.addLast(event);
+            if (replayBuffer.size() > properties.getReplayBufferSize()) {
+                replayBuffer.removeFirst();
+            }
+            for (Subscriber subscriber : subscribers) {
+                if (subscriber.matches(change)) {
+                    subscriber.enqueue(event.frame());
+                }
+            }
+        }
+        publishedEvents.increment();
+    }
+
+    @Scheduled(fixedRateString = "${junie.order-stream.heartbeat-interval:15s}")
+    void sendHeartbeats() {
+        Set<DataWithMediaType> heartbeat = SseEmitter.event().comment("heartbeat").build();
+        subscribers.forEach(subscriber -> subscriber.enqueue(heartbeat));
+    }
+
+    @Override
+    public void destroy() {
+        subscribers.forEach(subscriber -> subscriber.emitter.complete());
+        subscribers.clear();
+        dispatcher.shutdown();
+    }
+
+    // The buffered events after the client's last one that match its filter, or null when they cannot all be
+    // replayed. Must hold the replayBuffer lock.
+    private List<StatusEvent> missedEvents(String lastEventId, Subscriber subscriber) {
+        long cursor = sequenceOf(lastEventId);
+        long oldest = replayBuffer.isEmpty() ? lastSequence + 1 : replayBuffer.getFirst().sequence();
+        if (cursor < oldest - 1 || cursor > lastSequence) {
+            return null;
+        }
+        List<StatusEvent> missed = new ArrayList<>();
+        for (StatusEvent event : replayBuffer) {
+            if (event.sequence() > cursor && subscriber.matches(event.change())) {
+                if (missed.size() == properties.getMaxPendingPerSubscriber()) {
+                    return null;
+                }
+                missed.add(event);
+            }
+        }
+        return missed;
+    }
+
+    private String eventId(long sequence) {
+        return epoch + "-" + sequence;
+    }
+
+    // The sequence of an id from this epoch, or -1 for ids of another epoch or node
+    private long sequenceOf(String eventId) {
+        int separator = eventId.lastIndexOf('-');
+        if (separator < 0 || !eventId.substring(0, separator).equals(epoch)) {
+            return -1;
+        }
+        try {
+            return Long.parseLong(eventId.substring(separator + 1));
+        } catch (NumberFormatException ex) {
+            return -1;
+        }
+    }
+
+    private String toJson(BeerOrderStatusChangedEvent change) {
+        try {
+            return objectMapper.writeValueAsString(new BeerOrderStatusEventDto(change.orderId(),
+                    change.customerId(), change.previousStatus(), change.orderStatus(), change.version(),
+                    change.changedAt()));
+        } catch (JsonProcessingException ex) {
+            throw new IllegalStateException("Cannot serialize order status event", ex);
+        }
+    }
+
+    private final class Subscriber {
+
+        private final SseEmitter emitter;
+        private final Integer customerId;
+        private final Set<Integer> orderIds;
+        private final ConcurrentLinkedQueue<Set<DataWithMediaType>> pending = new ConcurrentLinkedQueue<>();
+        private final AtomicInteger pendingCount = new AtomicInteger();
+        private final AtomicBoolean draining = new AtomicBoolean();
+        private final AtomicBoolean closed = new AtomicBoolean();
+
+        Subscriber(SseEmitter emitter, Integer customerId, Set<Integer> orderIds) {
+            this.emitter = emitter;
+            this.customerId = customerId;
+            this.orderIds = orderIds;
+        }
+
+        boolean matches(BeerOrderStatusChangedEvent change) {
+            return (customerId == null || customerId.equals(change.customerId()))
+                    && (orderIds.isEmpty() || orderIds.contains(change.orderId()));
+        }
+
+        void enqueue(Set<DataWithMediaType> frame) {
+            if (pendingCount.incrementAndGet() > properties.getMaxPendingPerSubscriber()) {
+                droppedSubscribers.increment();
+                disconnect();
+                return;
+            }
+            pending.add(frame);
+            if (draining.compareAndSet(false, true)) {
+                dispatcher.execute(this::drain);
+            }
+        }
+
+        private void drain() {
+            try {
+                Set<DataWithMediaType> frame;
+                while ((frame = pending.poll()) != null) {
+                    pendingCount.decrementAndGet();
+                    emitter.send(frame);
+                }
+            } catch (IOException | IllegalStateException ex) {
+                disconnect();
+                return;
+            } finally {
+                draining.set(false);
+            }
+            // An event may have been queued after the last poll but before draining was reset
+            if (!pending.isEmpty() && draining.compareAndSet(false, true)) {
+                dispatcher.execute(this::drain);
+            }
+        }
+
+        private void disconnect() {
+            subscribers.remove(this);
+            if (closed.compareAndSet(false, true)) {
+                pending.clear();
+                emitter.complete();
+            }
+        }
+    }
+}
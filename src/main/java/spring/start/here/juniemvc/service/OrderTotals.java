@@ -0,0 +1,40 @@
+package spring.start.here.juniemvc.service;
+
+import spring.start.here.juniemvc.domain.model.BeerOrder;
+import spring.start.here.juniemvc.domain.model.BeerOrderLine;
+
+import java.math.BigDecimal;
+
+/**
+ * Maintenance of the total amount and line count kept on each order. Every line that is added, changed
+ * or removed must go through here so the totals match the lines without reading them back.
+ */
+final class OrderTotals {
+
+    private OrderTotals() {
+    }
+
+    static void addLine(BeerOrder order, BeerOrderLine line) {
+        apply(order, amount(line.getUnitPrice(), line.getOrderQuantity()), 1);
+    }
+
+    static void changeQuantity(BeerOrder order, BeerOrderLine line, int newQuantity) {
+        apply(order, amount(line.getUnitPrice(), newQuantity - line.getOrderQuantity()), 0);
+    }
+
+    static void removeLine(BeerOrder order, BeerOrderLine line) {
+        apply(order, amount(line.getUnitPrice(), -line.getOrderQuantity()), -1);
+    }
+
+    // Lines of beers without a price add nothing to the total
+    private static BigDecimal amount(BigDecimal unitPrice, int quantity) {
+        return unitPrice != null ? unitPrice.multiply(BigDecimal.valueOf(quantity)) : BigDecimal.ZERO;
+    }
+
+    private static void apply(BeerOrder order, BigDecimal amount, int lines) {
+        BigDecimal total = order.getTotalAmount() != null ? order.getTotalAmount() : BigDecimal.ZERO;
+        int count = order.getLineCount() != null ? order.getLineCount() : 0;
+        order.setTotalAmount(total.add(amount));
+        order.setLineCount(count + lines);
+    }
+}
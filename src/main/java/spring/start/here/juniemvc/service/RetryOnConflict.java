@@ -0,0 +1,21 @@
+package spring.start.here.juniemvc.service;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Re-runs a service method in a fresh transaction when it fails with an optimistic-lock conflict, after a
+ * random backoff, up to {@code junie.conflict-retry.max-attempts} times. Only for methods that reload the
+ * entity on every call and have no effects outside the transaction; a version supplied by the client must
+ * not be checked in such a method, since a retry cannot make it match.
+ * <p>
+ * A call made inside an existing transaction is not retried; the conflict propagates to the outermost caller.
+ */
+@Documented
+@Target(ElementType.METHOD)
+@Retention(RetentionPolicy.RUNTIME)
+public @interface RetryOnConflict {
+}
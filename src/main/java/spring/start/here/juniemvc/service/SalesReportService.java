@@ -0,0 +1,29 @@
+package spring.start.here.juniemvc.service;
+
+import spring.start.here.juniemvc.web.model.DailyBeerSalesDto;
+import spring.start.here.juniemvc.web.model.DailyCustomerOrdersDto;
+import spring.start.here.juniemvc.web.model.RollupRebuildResultDto;
+
+import java.time.LocalDate;
+import java.util.List;
+
+/**
+ * Daily sales reports served from pre-aggregated rollup tables.
+ */
+public interface SalesReportService {
+
+    /**
+     * Quantity sold per beer and day within {@code [from, to]}, optionally restricted to one beer.
+     */
+    List<DailyBeerSalesDto> getBeerSales(LocalDate from, LocalDate to, Integer beerId);
+
+    /**
+     * Orders per customer and day within {@code [from, to]}, optionally restricted to one customer.
+     */
+    List<DailyCustomerOrdersDto> getCustomerOrders(LocalDate from, LocalDate to, Integer customerId);
+
+    /**
+     * Recompute the rollups of {@code [from, to]} from the raw order tables. Safe to run repeatedly.
+     */
+    RollupRebuildResultDto rebuild(LocalDate from, LocalDate to);
+}
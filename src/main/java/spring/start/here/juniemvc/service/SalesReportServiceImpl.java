@@ -0,0 +1,181 @@
+package spring.start.here.juniemvc.service;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.scheduling.support.CronExpression;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+import spring.start.here.juniemvc.config.ReportingProperties;
+import spring.start.here.juniemvc.domain.event.BeerOrderLinesChangedEvent;
+import spring.start.here.juniemvc.domain.event.BeerOrderStatusChangedEvent;
+import spring.start.here.juniemvc.domain.event.BeerOrdersDeletingEvent;
+import spring.start.here.juniemvc.domain.model.OrderStatus;
+import spring.start.here.juniemvc.repository.BeerSalesDailyRepository;
+import spring.start.here.juniemvc.repository.CustomerOrdersDailyRepository;
+import spring.start.here.juniemvc.web.mappers.SalesRollupMapper;
+import spring.start.here.juniemvc.web.model.DailyBeerSalesDto;
+import spring.start.here.juniemvc.web.model.DailyCustomerOrdersDto;
+import spring.start.here.juniemvc.web.model.RollupRebuildResultDto;
+
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * Keeps {@code beer_sales_daily} and {@code customer_orders_daily} up to date incrementally:
+ * every order status change adds or removes the order from its day bucket within the writing
+ * transaction, so reports read a handful of pre-aggregated rows instead of scanning order lines.
+ * Bulk order deletes announce the orders they are about to remove. The previous day is recomputed
+ * from the raw tables once it is closed, which also repairs drift from writes that bypass the events.
+ */
+@Service
+@ConditionalOnProperty(prefix = "junie.reporting", name = "enabled", havingValue = "true", matchIfMissing = true)
+class SalesReportServiceImpl implements SalesReportService {
+
+    private static final Logger log = LoggerFactory.getLogger(SalesReportServiceImpl.class);
+
+    private final BeerSalesDailyRepository beerSalesDailyRepository;
+    private final CustomerOrdersDailyRepository customerOrdersDailyRepository;
+    private final SalesRollupMapper salesRollupMapper;
+    private final TransactionTemplate transactionTemplate;
+    private final ClusterJobRunner clusterJobRunner;
+    // Half the period of the rebuild schedule, so the rebuild runs on one node per period
+    private final Duration rebuildMinInterval;
+    private final Counter appliedDeltas;
+    private final Counter rebuiltDays;
+
+    SalesReportServiceImpl(BeerSalesDailyRepository beerSalesDailyRepository,
+                           CustomerOrdersDailyRepository customerOrdersDailyRepository,
+                           SalesRollupMapper salesRollupMapper,
+                           PlatformTransactionManager transactionManager,
+                           ClusterJobRunner clusterJobRunner,
+                           ReportingProperties properties,
+                           MeterRegistry meterRegistry) {
+        this.beerSalesDailyRepository = beerSalesDailyRepository;
+        this.customerOrdersDailyRepository = customerOrdersDailyRepository;
+        this.salesRollupMapper = salesRollupMapper;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.clusterJobRunner = clusterJobRunner;
+        this.rebuildMinInterval = halfPeriod(properties.getRebuildCron());
+        this.appliedDeltas = Counter.builder("junie.reporting.rollup.deltas")
+                .description("Order status changes applied to the daily rollups")
+                .register(meterRegistry);
+        this.rebuiltDays = Counter.builder("junie.reporting.rollup.rebuilt_days")
+                .description("Days recomputed from the raw order tables")
+                .register(meterRegistry);
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public List<DailyBeerSalesDto> getBeerSales(LocalDate from, LocalDate to, Integer beerId) {
+        var rows = beerId == null
+                ? beerSalesDailyRepository.findAllBySalesDateBetweenOrderBySalesDateAscBeerIdAsc(from, to)
+                : beerSalesDailyRepository.findAllByBeerIdAndSalesDateBetweenOrderBySalesDateAsc(beerId, from, to);
+        return rows.stream().map(salesRollupMapper::toDto).toList();
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public List<DailyCustomerOrdersDto> getCustomerOrders(LocalDate from, LocalDate to, Integer customerId) {
+        var rows = customerId == null
+                ? customerOrdersDailyRepository.findAllByOrderDateBetweenOrderByOrderDateAscCustomerIdAsc(from, to)
+                : customerOrdersDailyRepository.findAllByCustomerIdAndOrderDateBetweenOrderByOrderDateAsc(
+                        customerId, from, to);
+        return rows.stream().map(salesRollupMapper::toDto).toList();
+    }
+
+    @Override
+    @Transactional
+    public RollupRebuildResultDto rebuild(LocalDate from, LocalDate to) {
+        beerSalesDailyRepository.deleteRange(from, to);
+        customerOrdersDailyRepository.deleteRange(from, to);
+        int beerSalesRows = beerSalesDailyRepository.insertRange(from.atStartOfDay(), to.plusDays(1).atStartOfDay());
+        int customerOrdersRows = customerOrdersDailyRepository.insertRange(from.atStartOfDay(),
+                to.plusDays(1).atStartOfDay());
+        rebuiltDays.increment(from.datesUntil(to.plusDays(1)).count());
+        return new RollupRebuildResultDto(from, to, beerSalesRows, customerOrdersRows);
+    }
+
+    /**
+     * Recompute yesterday once it can no longer receive new orders, on one node.
+     */
+    @Scheduled(cron = "${junie.reporting.rebuild-cron:0 15 0 * * *}")
+    void rebuildPreviousDay() {
+        clusterJobRunner.runExclusive("rollup-rebuild", rebuildMinInterval, () -> {
+            LocalDate yesterday = LocalDate.now().minusDays(1);
+            RollupRebuildResultDto result = transactionTemplate.execute(status -> rebuild(yesterday, yesterday));
+            log.info("Rebuilt sales rollups for {}: {} beer rows, {} customer rows",
+                    yesterday, result.beerSalesRows(), result.customerOrdersRows());
+        });
+    }
+
+    /**
+     * Runs synchronously in the publisher's transaction so the rollups commit or roll back
+     * together with the order write; publishers outside a transaction get one of their own.
+     */
+    @EventListener
+    @Transactional
+    void onStatusChanged(BeerOrderStatusChangedEvent event) {
+        int sign = delta(event.previousStatus(), event.orderStatus());
+        if (sign == 0) {
+            return;
+        }
+        beerSalesDailyRepository.applyOrder(event.orderId(), sign);
+        customerOrdersDailyRepository.applyOrder(event.orderId(), sign);
+        appliedDeltas.increment();
+    }
+
+    /**
+     * Line edits of an order that counts as a sale move its day bucket by the net change per beer.
+     */
+    @EventListener
+    @Transactional
+    void onLinesChanged(BeerOrderLinesChangedEvent event) {
+        if (!counts(event.orderStatus()) || event.orderCreatedDate() == null) {
+            return;
+        }
+        LocalDate salesDate = event.orderCreatedDate().toLocalDate();
+        for (BeerOrderLinesChangedEvent.BeerDelta delta : event.deltas()) {
+            beerSalesDailyRepository.applyDelta(salesDate, delta.beerId(), delta.quantity(), delta.lineCount());
+        }
+        appliedDeltas.increment();
+    }
+
+    private static Duration halfPeriod(String cron) {
+        if (Scheduled.CRON_DISABLED.equals(cron)) return Duration.ZERO;
+        CronExpression expression = CronExpression.parse(cron);
+        LocalDateTime next = expression.next(LocalDateTime.now());
+        return Duration.between(next, expression.next(next)).dividedBy(2);
+    }
+
+    /**
+     * Bulk deletes take their orders out of the day buckets before the rows are gone.
+     */
+    @EventListener
+    @Transactional
+    void onOrdersDeleting(BeerOrdersDeletingEvent event) {
+        beerSalesDailyRepository.removeOrders(event.orderIds());
+        customerOrdersDailyRepository.removeOrders(event.orderIds());
+        appliedDeltas.increment();
+    }
+
+    /**
+     * +1 when the order starts counting as a sale, -1 when it stops, 0 otherwise.
+     * A {@code null} previous status means the order was just created and did not count yet.
+     */
+    static int delta(String previousStatus, String orderStatus) {
+        return (counts(orderStatus) ? 1 : 0) - (previousStatus != null && counts(previousStatus) ? 1 : 0);
+    }
+
+    private static boolean counts(String orderStatus) {
+        return !OrderStatus.CANCELLED.name().equals(orderStatus);
+    }
+}
@@ -0,0 +1,267 @@
+package spring.start.here.juniemvc.service;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import spring.start.here.juniemvc.domain.event.BeerOrderPlacedEvent;
+import spring.start.here.juniemvc.domain.event.BeerOrderStatusChangedEvent;
+import spring.start.here.juniemvc.domain.model.Beer;
+import spring.start.here.juniemvc.domain.model.BeerOrder;
+import spring.start.here.juniemvc.domain.model.BeerOrderLine;
+import spring.start.here.juniemvc.domain.model.Customer;
+import spring.start.here.juniemvc.repository.BeerRepository;
+import spring.start.here.juniemvc.repository.CustomerRepository;
+import spring.start.here.juniemvc.repository.ShardedBeerOrderRepository;
+import spring.start.here.juniemvc.web.mappers.BeerOrderMapper;
+import spring.start.here.juniemvc.web.model.BeerOrderDto;
+import spring.start.here.juniemvc.web.model.BeerOrderField;
+import spring.start.here.juniemvc.web.model.BeerOrderLineOperationDto;
+import spring.start.here.juniemvc.web.model.BeerOrderLineUpsertDto;
+import spring.start.here.juniemvc.web.model.BeerOrderLinesPatchDto;
+import spring.start.here.juniemvc.web.model.BeerOrderMultiGetDto;
+import spring.start.here.juniemvc.web.model.BeerOrderUpsertDto;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Stores orders in the customer shards of {@link ShardedBeerOrderRepository}. Customers and beers are read
+ * from the application database before the shard is written, so the two are never in one transaction;
+ * events are published after the shard transaction committed. Archived orders are not consulted, as
+ * archival has to be off while orders are sharded (see {@code ShardingConfig}).
+ * <p>
+ * The shards have no foreign key to the customer. Instead a new order keeps the customer row share-locked
+ * until its shard transaction committed, and deleting a customer write-locks the row before emptying its
+ * shard, so an order is either deleted with its customer or not created.
+ */
+@Service
+@ConditionalOnProperty(prefix = "junie.sharding", name = "enabled", havingValue = "true")
+class ShardedBeerOrderServiceImpl implements BeerOrderService {
+
+    private final ShardedBeerOrderRepository shardedBeerOrderRepository;
+    private final CustomerRepository customerRepository;
+    private final BeerRepository beerRepository;
+    private final BeerOrderMapper beerOrderMapper;
+    private final ApplicationEventPublisher eventPublisher;
+    private final TransactionTemplate transactionTemplate;
+
+    ShardedBeerOrderServiceImpl(ShardedBeerOrderRepository shardedBeerOrderRepository,
+                                CustomerRepository customerRepository,
+                                BeerRepository beerRepository,
+                                BeerOrderMapper beerOrderMapper,
+                                ApplicationEventPublisher eventPublisher,
+                                PlatformTransactionManager transactionManager) {
+        this.shardedBeerOrderRepository = shardedBeerOrderRepository;
+        this.customerRepository = customerRepository;
+        this.beerRepository = beerRepository;
+        this.beerOrderMapper = beerOrderMapper;
+        this.eventPublisher = eventPublisher;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+    }
+
+    @Override
+    public BeerOrderDto createOrder(BeerOrderUpsertDto upsertDto) {
+        return createOrder(upsertDto, null);
+    }
+
+    /**
+     * The key is stored with the order in its shard transaction. If the shard already holds an order for the
+     * key, because the caller's transaction failed after an earlier attempt committed in the shard, that
+     * order is returned and no events are published again.
+     */
+    @Override
+    public BeerOrderDto createOrder(BeerOrderUpsertDto upsertDto, String idempotencyKey) {
+        return transactionTemplate.execute(status -> {
+            customerRepository.findWithSharedLockById(upsertDto.customerId())
+                    .orElseThrow(() -> new IllegalArgumentException("Customer not found: " + upsertDto.customerId()));
+            BeerOrder saved;
+            try {
+                saved = shardedBeerOrderRepository.insert(newOrder(upsertDto), idempotencyKey);
+            } catch (DuplicateKeyException ex) {
+                return shardedBeerOrderRepository.findByIdempotencyKey(upsertDto.customerId(), idempotencyKey)
+                        .map(beerOrderMapper::toDto)
+                        .orElseThrow(() -> ex);
+            }
+            publishStatusChanged(saved, null);
+            eventPublisher.publishEvent(BeerOrderPlacedEvent.of(saved));
+            return beerOrderMapper.toDto(saved);
+        });
+    }
+
+    private BeerOrder newOrder(BeerOrderUpsertDto upsertDto) {
+        Map<Integer, Beer> beers = beerRepository.findAllById(upsertDto.orderLines().stream()
+                        .map(BeerOrderLineUpsertDto::beerId).collect(Collectors.toSet())).stream()
+                .collect(Collectors.toMap(Beer::getId, Function.identity()));
+
+        BeerOrder order = BeerOrder.builder()
+                .customer(Customer.builder().id(upsertDto.customerId()).build())
+                .orderStatus("NEW")
+                .orderStatusCallbackUrl(upsertDto.orderStatusCallbackUrl())
+                .build();
+        for (BeerOrderLineUpsertDto lineDto : upsertDto.orderLines()) {
+            Beer beer = Optional.ofNullable(beers.get(lineDto.beerId()))
+                    .orElseThrow(() -> new IllegalArgumentException("Beer not found: " + lineDto.beerId()));
+            BeerOrderLine line = BeerOrderLine.builder()
+                    .beer(beer)
+                    .beerOrder(order)
+                    .orderQuantity(lineDto.orderQuantity())
+                    .quantityAllocated(0)
+                    .unitPrice(beer.getPrice())
+                    .build();
+            order.getBeerOrderLines().add(line);
+            OrderTotals.addLine(order, line);
+        }
+        return order;
+    }
+
+    @Override
+    public Optional<BeerOrderDto> getById(Integer id) {
+        return shardedBeerOrderRepository.findById(id).map(beerOrderMapper::toDto);
+    }
+
+    @Override
+    public List<BeerOrderDto> getAll(Integer pageNumber, Integer pageSize) {
+        return shardedBeerOrderRepository.findAll(pageable(pageNumber, pageSize)).stream()
+                .map(beerOrderMapper::toDto)
+                .toList();
+    }
+
+    /**
+     * Full orders are read from the shards and then trimmed to the requested fields.
+     */
+    @Override
+    public List<Map<String, Object>> getAll(Integer pageNumber, Integer pageSize, Set<BeerOrderField> fields) {
+        List<BeerOrderField> selected = List.copyOf(fields);
+        return getAll(pageNumber, pageSize).stream()
+                .map(dto -> BeerOrderServiceImpl.toFieldMap(selected, field -> field.readFrom(dto)))
+                .toList();
+    }
+
+    @Override
+    public BeerOrderMultiGetDto getByIds(List<Integer> ids) {
+        MultiGet.Result<BeerOrderDto> result = MultiGet.resolve(ids, shardedBeerOrderRepository::findAllById,
+                BeerOrder::getId, beerOrderMapper::toDto);
+        return new BeerOrderMultiGetDto(result.found(), result.missingIds());
+    }
+
+    @Override
+    public List<BeerOrderDto> getByCustomer(Integer customerId, Integer pageNumber, Integer pageSize) {
+        return shardedBeerOrderRepository.findByCustomerId(customerId, pageable(pageNumber, pageSize)).stream()
+                .map(beerOrderMapper::toDto)
+                .toList();
+    }
+
+    @Override
+    @RetryOnConflict
+    public Optional<BeerOrderDto> updateStatus(Integer id, String orderStatus) {
+        return shardedBeerOrderRepository.findById(id).map(order -> {
+            String previousStatus = order.getOrderStatus();
+            order.setOrderStatus(orderStatus);
+            shardedBeerOrderRepository.update(order);
+            publishStatusChanged(order, previousStatus);
+            return beerOrderMapper.toDto(order);
+        });
+    }
+
+    /**
+     * Same operations and checks as the unsharded service. The added beers are read first; the order row is
+     * then locked in its shard and its lines are all loaded with it, as orders carry few lines.
+     */
+    @Override
+    public Optional<BeerOrderDto> patchLines(Integer id, BeerOrderLinesPatchDto patch) {
+        Set<Integer> lineIds = OrderLinePatches.touchedLineIds(id, patch.operations());
+        Set<Integer> beerIds = OrderLinePatches.addedBeerIds(patch.operations());
+        Map<Integer, Beer> beers = beerIds.isEmpty() ? Map.of() : beerRepository.findAllById(beerIds).stream()
+                .collect(Collectors.toMap(Beer::getId, Function.identity()));
+        Map<Integer, long[]> deltas = new LinkedHashMap<>(); // beerId -> {quantity, lineCount}
+
+        Optional<BeerOrder> patched = shardedBeerOrderRepository.executeInShardOf(id, () ->
+                shardedBeerOrderRepository.findByIdForUpdate(id).map(order -> {
+                    if (patch.orderVersion() != null && !patch.orderVersion().equals(order.getVersion())) {
+                        throw new ObjectOptimisticLockingFailureException(BeerOrder.class, id);
+                    }
+                    Map<Integer, BeerOrderLine> lines = order.getBeerOrderLines().stream()
+                            .filter(line -> lineIds.contains(line.getId()))
+                            .collect(Collectors.toMap(BeerOrderLine::getId, Function.identity()));
+                    OrderLinePatches.requireFound(id, lineIds, lines.keySet(), "Lines not found in order: ");
+                    OrderLinePatches.requireFound(id, beerIds, beers.keySet(), "Beers not found: ");
+                    applyOperations(order, patch.operations(), lines, beers, deltas);
+                    return order;
+                }));
+
+        patched.ifPresent(order -> eventPublisher.publishEvent(OrderLinePatches.changedEvent(order, deltas)));
+        return patched.map(beerOrderMapper::toDto);
+    }
+
+    @Override
+    public boolean delete(Integer id) {
+        return shardedBeerOrderRepository.delete(id);
+    }
+
+    private void applyOperations(BeerOrder order, List<BeerOrderLineOperationDto> operations,
+                                 Map<Integer, BeerOrderLine> lines, Map<Integer, Beer> beers,
+                                 Map<Integer, long[]> deltas) {
+        List<BeerOrderLine> added = new ArrayList<>();
+        List<BeerOrderLine> updated = new ArrayList<>();
+        List<BeerOrderLine> removed = new ArrayList<>();
+        for (BeerOrderLineOperationDto op : operations) {
+            switch (op.op()) {
+                case ADD -> {
+                    Beer beer = beers.get(op.beerId());
+                    BeerOrderLine line = BeerOrderLine.builder()
+                            .beer(beer)
+                            .beerOrder(order)
+                            .orderQuantity(op.orderQuantity())
+                            .quantityAllocated(0)
+                            .unitPrice(beer.getPrice())
+                            .build();
+                    added.add(line);
+                    OrderTotals.addLine(order, line);
+                    OrderLinePatches.addDelta(deltas, op.beerId(), line.getOrderQuantity(), 1);
+                }
+                case UPDATE -> {
+                    BeerOrderLine line = OrderLinePatches.checkedLine(lines, op);
+                    OrderLinePatches.addDelta(deltas, line.getBeer().getId(), op.orderQuantity() - line.getOrderQuantity(), 0);
+                    OrderTotals.changeQuantity(order, line, op.orderQuantity());
+                    line.setOrderQuantity(op.orderQuantity());
+                    updated.add(line);
+                }
+                case REMOVE -> {
+                    BeerOrderLine line = OrderLinePatches.checkedLine(lines, op);
+                    removed.add(line);
+                    OrderTotals.removeLine(order, line);
+                    OrderLinePatches.addDelta(deltas, line.getBeer().getId(), -line.getOrderQuantity(), -1);
+                }
+            }
+        }
+        shardedBeerOrderRepository.deleteLines(order, removed);
+        shardedBeerOrderRepository.updateLines(order, updated);
+        shardedBeerOrderRepository.insertLines(order, added);
+        order.getBeerOrderLines().removeAll(removed);
+        order.getBeerOrderLines().addAll(added);
+        // Written even when the totals are unchanged, so the order version is bumped like the unsharded one
+        shardedBeerOrderRepository.update(order);
+    }
+
+    private static Pageable pageable(Integer pageNumber, Integer pageSize) {
+        return pageNumber != null && pageSize != null ? PageRequest.of(pageNumber, pageSize) : Pageable.unpaged();
+    }
+
+    private void publishStatusChanged(BeerOrder order, String previousStatus) {
+        eventPublisher.publishEvent(new BeerOrderStatusChangedEvent(order.getId(), order.getCustomer().getId(),
+                previousStatus, order.getOrderStatus(), order.getVersion(), Instant.now()));
+    }
+}
@@ -0,0 +1,118 @@
+package spring.start.here.juniemvc.service;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import spring.start.here.juniemvc.config.SingleFlightProperties;
+
+import java.time.Duration;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Supplier;
+
+/**
+ * Coalesces concurrent identical reads: the first caller for a key runs the load in its own read-only
+ * transaction and every caller arriving while it is in flight waits for and shares its result, or its
+ * exception. Waiters hold no transaction and therefore no pool connection. A waiter that is not served
+ * within the timeout of its key type runs its own load, so a slow, expensive read can be given longer than
+ * a point lookup. Results are shared between callers and must not be modified.
+ * <p>
+ * A caller may receive a result whose load started shortly before its own request, never one older than
+ * that. Callers inside a transaction bypass coalescing so they see their own uncommitted writes.
+ */
+@Component
+class SingleFlight {
+
+    private final ConcurrentHashMap<Object, CompletableFuture<Object>> inFlight = new ConcurrentHashMap<>();
+    private final TransactionTemplate readOnlyTransaction;
+    private final SingleFlightProperties properties;
+
+    private final Counter leaderCalls;
+    private final Counter sharedCalls;
+    private final Counter timedOutCalls;
+
+    SingleFlight(PlatformTransactionManager transactionManager,
+                 SingleFlightProperties properties,
+                 MeterRegistry meterRegistry) {
+        this.readOnlyTransaction = new TransactionTemplate(transactionManager);
+        this.readOnlyTransaction.setReadOnly(true);
+        this.properties = properties;
+        this.leaderCalls = callCounter(meterRegistry, "leader");
+        this.sharedCalls = callCounter(meterRegistry, "shared");
+        this.timedOutCalls = callCounter(meterRegistry, "timeout");
+    }
+
+    /**
+     * Load the value for the key, sharing the load with concurrent callers for an equal key, waiting at most
+     * the default timeout.
+     * @param key identifies the read, including every argument that affects the result
+     */
+    <V> V load(Object key, Supplier<V> loader) {
+        return load(null, key, loader);
+    }
+
+    /**
+     * Load the value for the key, sharing the load with concurrent callers for an equal key.
+     * @param keyType names the kind of read, selects the timeout configured for it
+     * @param key identifies the read, including every argument that affects the result
+     */
+    <V> V load(String keyType, Object key, Supplier<V> loader) {
+        if (!properties.isEnabled() || TransactionSynchronizationManager.isActualTransactionActive()) {
+            return readOnly(loader);
+        }
+        CompletableFuture<Object> call = new CompletableFuture<>();
+        CompletableFuture<Object> existing = inFlight.putIfAbsent(key, call);
+        if (existing == null) {
+            leaderCalls.increment();
+            try {
+                V value = readOnly(loader);
+                call.complete(value);
+                return value;
+            } catch (Throwable ex) {
+                call.completeExceptionally(ex);
+                throw ex;
+            } finally {
+                inFlight.remove(key, call);
+            }
+        }
+        return await(key, existing, properties.timeoutFor(keyType), loader);
+    }
+
+    @SuppressWarnings("unchecked")
+    private <V> V await(Object key, CompletableFuture<Object> call, Duration timeout, Supplier<V> loader) {
+        try {
+            V value = (V) call.get(timeout.toNanos(), TimeUnit.NANOSECONDS);
+            sharedCalls.increment();
+            return value;
+        } catch (TimeoutException ex) {
+            timedOutCalls.increment();
+            return readOnly(loader);
+        } catch (ExecutionException ex) {
+            sharedCalls.increment();
+            if (ex.getCause() instanceof RuntimeException runtimeException) throw runtimeException;
+            if (ex.getCause() instanceof Error error) throw error;
+            throw new IllegalStateException("Load of " + key + " failed", ex.getCause());
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            throw new CancellationException("Interrupted while waiting for the load of " + key);
+        }
+    }
+
+    private <V> V readOnly(Supplier<V> loader) {
+        return readOnlyTransaction.execute(status -> loader.get());
+    }
+
+    private static Counter callCounter(MeterRegistry meterRegistry, String outcome) {
+        return Counter.builder("junie.single_flight.calls")
+                .description("Coalesced reads by whether the caller ran the load, shared it or timed out waiting")
+                .tag("outcome", outcome)
+                .register(meterRegistry);
+    }
+}
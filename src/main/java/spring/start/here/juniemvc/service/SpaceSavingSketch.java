@@ -0,0 +1,148 @@
+package spring.start.here.juniemvc.service;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.function.ObjLongConsumer;
+
+/**
+ * Weighted Space-Saving summary (Metwally et al.) keeping at most {@code capacity} counters.
+ * <p>
+ * When a new key arrives and the summary is full, the counter with the smallest count is
+ * reassigned to the new key, which inherits that count as its error. For a stream of total
+ * weight {@code N} this guarantees, for every key:
+ * <ul>
+ *     <li>{@code count - error <= true weight <= count} for monitored keys,</li>
+ *     <li>{@code error <= minCount() <= N / capacity},</li>
+ *     <li>every key with true weight above {@code N / capacity} is monitored.</li>
+ * </ul>
+ * Counters live in an indexed binary min-heap so updates and evictions are {@code O(log capacity)}.
+ * Not thread-safe.
+ */
+class SpaceSavingSketch {
+
+    private static final class Entry {
+        final Integer key;
+        long count;
+        long error;
+        int heapIndex;
+
+        Entry(Integer key) {
+            this.key = key;
+        }
+    }
+
+    private final int capacity;
+    private final Map<Integer, Entry> entries;
+    private final Entry[] heap;
+    private int size;
+    private long totalWeight;
+
+    SpaceSavingSketch(int capacity) {
+        this.capacity = capacity;
+        this.entries = HashMap.newHashMap(capacity);
+        this.heap = new Entry[capacity];
+    }
+
+    void add(Integer key, long weight) {
+        totalWeight += weight;
+        Entry entry = entries.get(key);
+        if (entry != null) {
+            entry.count += weight;
+            siftDown(entry.heapIndex);
+            return;
+        }
+        if (size < capacity) {
+            entry = new Entry(key);
+            entry.count = weight;
+            entry.heapIndex = size;
+            heap[size++] = entry;
+            entries.put(key, entry);
+            siftUp(entry.heapIndex);
+            return;
+        }
+        // Evict the minimum; the newcomer may have occurred up to that many times unseen
+        Entry evicted = heap[0];
+        entries.remove(evicted.key);
+        entry = new Entry(key);
+        entry.error = evicted.count;
+        entry.count = evicted.count + weight;
+        entry.heapIndex = 0;
+        heap[0] = entry;
+        entries.put(key, entry);
+        siftDown(0);
+    }
+
+    /**
+     * Smallest monitored count once the summary is full, i.e. the most an unmonitored key may have
+     * occurred; {@code 0} while there is still room, because then every key seen is monitored.
+     */
+    long minCount() {
+        return size < capacity ? 0 : heap[0].count;
+    }
+
+    long totalWeight() {
+        return totalWeight;
+    }
+
+    int size() {
+        return size;
+    }
+
+    void clear() {
+        entries.clear();
+        Arrays.fill(heap, 0, size, null);
+        size = 0;
+        totalWeight = 0;
+    }
+
+    /**
+     * Visit every monitored key with its (over-estimated) count; the error is {@link #errorOf(Integer)}.
+     */
+    void forEach(ObjLongConsumer<Integer> consumer) {
+        for (int i = 0; i < size; i++) {
+            consumer.accept(heap[i].key, heap[i].count);
+        }
+    }
+
+    long errorOf(Integer key) {
+        Entry entry = entries.get(key);
+        return entry != null ? entry.error : minCount();
+    }
+
+    private void siftUp(int index) {
+        Entry entry = heap[index];
+        while (index > 0) {
+            int parent = (index - 1) >>> 1;
+            if (heap[parent].count <= entry.count) {
+                break;
+            }
+            move(heap[parent], index);
+            index = parent;
+        }
+        move(entry, index);
+    }
+
+    private void siftDown(int index) {
+        Entry entry = heap[index];
+        int half = size >>> 1;
+        while (index < half) {
+            int child = 2 * index + 1;
+            int right = child + 1;
+            if (right < size && heap[right].count < heap[child].count) {
+                child = right;
+            }
+            if (entry.count <= heap[child].count) {
+                break;
+            }
+            move(heap[child], index);
+            index = child;
+        }
+        move(entry, index);
+    }
+
+    private void move(Entry entry, int index) {
+        heap[index] = entry;
+        entry.heapIndex = index;
+    }
+}
@@ -0,0 +1,155 @@
+package spring.start.here.juniemvc.service;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.stereotype.Component;
+import spring.start.here.juniemvc.config.EntityCacheProperties;
+import spring.start.here.juniemvc.domain.event.EntityChangedEvent;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.net.DatagramPacket;
+import java.net.DatagramSocket;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.SocketException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Exchanges invalidations as datagrams between nodes on the same host, for tests and local clusters
+ * without a shared database. A datagram holds the sender's node id on its first line and one
+ * {@code ENTITY_TYPE id} line per change. Delivery is not guaranteed; an entity whose invalidation is
+ * lost leaves the caches when its time-to-live expires.
+ */
+@Component
+@ConditionalOnProperty(prefix = "junie.entity-cache.bus", name = "transport", havingValue = "udp")
+class UdpInvalidationTransport implements InvalidationTransport, SmartLifecycle {
+
+    private static final Logger log = LoggerFactory.getLogger(UdpInvalidationTransport.class);
+
+    // Keeps every datagram within a typical MTU, so none is fragmented
+    private static final int MAX_DATAGRAM_SIZE = 1_400;
+
+    private final EntityCacheProperties.Bus properties;
+    private final InetAddress loopback = InetAddress.getLoopbackAddress();
+    private final ConcurrentLinkedQueue<EntityChangedEvent> received = new ConcurrentLinkedQueue<>();
+
+    private volatile DatagramSocket socket;
+    private Thread receiver;
+
+    UdpInvalidationTransport(EntityCacheProperties properties) {
+        this.properties = properties.getBus();
+    }
+
+    @Override
+    public void send(List<EntityChangedEvent> changes) {
+        byte[] header = (properties.getNodeId() + "\n").getBytes(StandardCharsets.UTF_8);
+        ByteArrayOutputStream datagram = new ByteArrayOutputStream(MAX_DATAGRAM_SIZE);
+        datagram.writeBytes(header);
+        for (EntityChangedEvent change : changes) {
+            byte[] line = (change.entityType().name() + " " + change.id() + "\n").getBytes(StandardCharsets.UTF_8);
+            if (datagram.size() + line.length > MAX_DATAGRAM_SIZE) {
+                sendToPeers(datagram);
+                datagram.reset();
+                datagram.writeBytes(header);
+            }
+            datagram.writeBytes(line);
+        }
+        sendToPeers(datagram);
+    }
+
+    @Override
+    public List<EntityChangedEvent> receive() {
+        List<EntityChangedEvent> changes = new ArrayList<>();
+        EntityChangedEvent change;
+        while ((change = received.poll()) != null) {
+            changes.add(change);
+        }
+        return changes;
+    }
+
+    @Override
+    public void start() {
+        DatagramSocket bound;
+        try {
+            bound = new DatagramSocket(new InetSocketAddress(loopback, properties.getPort()));
+        } catch (SocketException ex) {
+            throw new IllegalStateException("Cannot receive invalidations on port " + properties.getPort(), ex);
+        }
+        socket = bound;
+        receiver = Thread.ofPlatform().name("invalidation-receiver").daemon().start(() -> receiveDatagrams(bound));
+    }
+
+    @Override
+    public void stop() {
+        DatagramSocket current = socket;
+        socket = null;
+        if (current == null) return;
+        // Closing the socket ends the receiver's blocking receive
+        current.close();
+        try {
+            receiver.join(TimeUnit.SECONDS.toMillis(5));
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    @Override
+    public boolean isRunning() {
+        return socket != null;
+    }
+
+    // Starts before and stops after the bus, which sends its last changes when it stops
+    @Override
+    public int getPhase() {
+        return InvalidationBus.PHASE - 1;
+    }
+
+    private void sendToPeers(ByteArrayOutputStream datagram) {
+        DatagramSocket current = socket;
+        if (current == null) throw new IllegalStateException("Invalidation transport is not running");
+        byte[] bytes = datagram.toByteArray();
+        try {
+            for (Integer peerPort : properties.getPeerPorts()) {
+                current.send(new DatagramPacket(bytes, bytes.length, loopback, peerPort));
+            }
+        } catch (IOException ex) {
+            throw new UncheckedIOException(ex);
+        }
+    }
+
+    private void receiveDatagrams(DatagramSocket bound) {
+        byte[] buffer = new byte[MAX_DATAGRAM_SIZE];
+        DatagramPacket packet = new DatagramPacket(buffer, buffer.length);
+        while (!bound.isClosed()) {
+            try {
+                packet.setLength(buffer.length);
+                bound.receive(packet);
+                decode(new String(buffer, 0, packet.getLength(), StandardCharsets.UTF_8));
+            } catch (IOException ex) {
+                if (!bound.isClosed()) log.warn("Receiving invalidations failed", ex);
+            } catch (RuntimeException ex) {
+                log.warn("Ignored malformed invalidation datagram", ex);
+            }
+        }
+    }
+
+    private void decode(String datagram) {
+        String[] lines = datagram.split("\n");
+        // Peers may list this node's own port; its own changes are already applied
+        if (lines[0].equals(properties.getNodeId())) return;
+        for (int i = 1; i < lines.length; i++) {
+            int space = lines[i].indexOf(' ');
+            received.add(new EntityChangedEvent(
+                    EntityChangedEvent.EntityType.valueOf(lines[i].substring(0, space)),
+                    Integer.valueOf(lines[i].substring(space + 1))));
+        }
+    }
+}
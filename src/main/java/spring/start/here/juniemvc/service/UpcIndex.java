@@ -0,0 +1,81 @@
+package spring.start.here.juniemvc.service;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Map;
+
+/**
+ * Open-addressing map from UPC to beer id whose lookups hash and compare the key bytes in place,
+ * so the import parser resolves a UPC straight from the mapped file without creating a String per line.
+ * Immutable once built and safe to read from many threads.
+ */
+final class UpcIndex {
+
+    static final int NOT_FOUND = -1;
+
+    private final byte[][] keys;
+    private final int[] values;
+    private final int mask;
+
+    private UpcIndex(int capacity) {
+        this.keys = new byte[capacity][];
+        this.values = new int[capacity];
+        this.mask = capacity - 1;
+    }
+
+    static UpcIndex of(Map<String, Integer> beerIdsByUpc) {
+        // At most half full so probe sequences stay short
+        int capacity = 16;
+        while (capacity < beerIdsByUpc.size() * 2) {
+            capacity <<= 1;
+        }
+        UpcIndex index = new UpcIndex(capacity);
+        beerIdsByUpc.forEach((upc, beerId) -> index.put(upc.getBytes(StandardCharsets.UTF_8), beerId));
+        return index;
+    }
+
+    /**
+     * @return the beer id for the UPC in {@code buf[from, to)}, or {@link #NOT_FOUND}
+     */
+    int get(ByteBuffer buf, int from, int to) {
+        int length = to - from;
+        int hash = 0x811c9dc5;
+        for (int i = from; i < to; i++) {
+            hash = (hash ^ buf.get(i)) * 0x01000193;
+        }
+        for (int slot = spread(hash) & mask; keys[slot] != null; slot = (slot + 1) & mask) {
+            byte[] key = keys[slot];
+            if (key.length == length && matches(key, buf, from)) {
+                return values[slot];
+            }
+        }
+        return NOT_FOUND;
+    }
+
+    private void put(byte[] key, int value) {
+        int hash = 0x811c9dc5;
+        for (byte b : key) {
+            hash = (hash ^ b) * 0x01000193;
+        }
+        int slot = spread(hash) & mask;
+        while (keys[slot] != null && !Arrays.equals(keys[slot], key)) {
+            slot = (slot + 1) & mask;
+        }
+        keys[slot] = key;
+        values[slot] = value;
+    }
+
+    private static boolean matches(byte[] key, ByteBuffer buf, int from) {
+        for (int i = 0; i < key.length; i++) {
+            if (key[i] != buf.get(from + i)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static int spread(int hash) {
+        return hash ^ (hash >>> 16);
+    }
+}
@@ -0,0 +1,171 @@
+package spring.start.here.juniemvc.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+import spring.start.here.juniemvc.config.WarmupProperties;
+import spring.start.here.juniemvc.web.model.BeerDto;
+import spring.start.here.juniemvc.web.model.BeerListDto;
+import spring.start.here.juniemvc.web.model.BeerOrderDto;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Warms the instance up before it takes traffic: opens the pool connections, reads the beer catalog
+ * once and then runs synthetic read requests through the services, mappers and JSON serialization from
+ * several threads so the hot paths are compiled before real requests arrive. Runs as the last
+ * application runner; Spring Boot only reports readiness ({@code /actuator/health/readiness}) after all
+ * runners have returned. Only reads, so it is safe against a live database.
+ */
+@Component
+@Order(Ordered.LOWEST_PRECEDENCE)
+@ConditionalOnProperty(prefix = "junie.warmup", name = "enabled", havingValue = "true")
+class WarmupRunner implements ApplicationRunner {
+
+    private static final Logger log = LoggerFactory.getLogger(WarmupRunner.class);
+
+    // Single-entity reads per iteration, taken from the front of the page just read
+    private static final int ENTITY_READS = 3;
+
+    private final BeerService beerService;
+    private final BeerOrderService beerOrderService;
+    private final ObjectMapper objectMapper;
+    private final DataSource dataSource;
+    private final WarmupProperties properties;
+    private final Timer warmupTimer;
+
+    WarmupRunner(BeerService beerService,
+                 BeerOrderService beerOrderService,
+                 ObjectMapper objectMapper,
+                 DataSource dataSource,
+                 WarmupProperties properties,
+                 MeterRegistry meterRegistry) {
+        this.beerService = beerService;
+        this.beerOrderService = beerOrderService;
+        this.objectMapper = objectMapper;
+        this.dataSource = dataSource;
+        this.properties = properties;
+        this.warmupTimer = Timer.builder("junie.warmup.duration")
+                .description("Time spent warming up before reporting ready")
+                .register(meterRegistry);
+    }
+
+    @Override
+    public void run(ApplicationArguments args) throws InterruptedException {
+        long start = System.nanoTime();
+        long deadline = start + properties.getTimeout().toNanos();
+        try {
+            openConnections();
+            int catalogPages = readCatalog(deadline);
+            long requests = runSyntheticRequests(deadline);
+            log.info("Warm-up finished in {} ms: {} catalog pages, {} synthetic requests",
+                    TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start), catalogPages, requests);
+        } catch (RuntimeException | SQLException | ExecutionException ex) {
+            // A failed warm-up only costs latency; the instance is still able to serve
+            log.warn("Warm-up failed after {} ms, reporting ready anyway",
+                    TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start), ex);
+        } finally {
+            warmupTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        }
+    }
+
+    // Hold as many connections at once as there are workers, so the pool has created them all
+    private void openConnections() throws SQLException {
+        List<Connection> connections = new ArrayList<>(properties.getConcurrency());
+        try {
+            for (int i = 0; i < properties.getConcurrency(); i++) {
+                Connection connection = dataSource.getConnection();
+                connections.add(connection);
+                // Forces the physical connection behind lazy and routing proxies
+                connection.isValid(1);
+            }
+        } finally {
+            for (Connection connection : connections) {
+                connection.close();
+            }
+        }
+    }
+
+    private int readCatalog(long deadline) {
+        int page = 0;
+        BeerListDto beers;
+        do {
+            beers = beerService.getAllBeers(page++, properties.getPageSize());
+        } while (page < beers.getTotalPages() && System.nanoTime() < deadline);
+        return page;
+    }
+
+    private long runSyntheticRequests(long deadline) throws InterruptedException, ExecutionException {
+        LongAdder requests = new LongAdder();
+        AtomicBoolean expired = new AtomicBoolean();
+        ExecutorService workers = Executors.newFixedThreadPool(properties.getConcurrency(),
+                Thread.ofPlatform().name("warmup-", 0).factory());
+        try {
+            List<Future<?>> futures = new ArrayList<>();
+            for (int w = 0; w < properties.getConcurrency(); w++) {
+                futures.add(workers.submit(() -> {
+                    for (int i = 0; i < properties.getIterations() && !expired.get(); i++) {
+                        requests.add(iteration(i));
+                        if (System.nanoTime() >= deadline) {
+                            expired.set(true);
+                        }
+                    }
+                    return null;
+                }));
+            }
+            for (Future<?> future : futures) {
+                future.get();
+            }
+        } finally {
+            workers.shutdownNow();
+        }
+        if (expired.get()) {
+            log.info("Warm-up stopped after {} when its timeout expired", properties.getTimeout());
+        }
+        return requests.sum();
+    }
+
+    private int iteration(int i) throws JsonProcessingException {
+        int requests = 0;
+        BeerListDto beers = beerService.getAllBeers(0, properties.getPageSize());
+        objectMapper.writeValueAsBytes(beers);
+        requests++;
+        List<BeerDto> beerPage = beers.getBeers();
+        for (int b = 0; b < Math.min(ENTITY_READS, beerPage.size()); b++) {
+            BeerDto beer = beerPage.get((i + b) % beerPage.size());
+            objectMapper.writeValueAsBytes(beerService.getBeerById(beer.getId()).orElse(null));
+            requests++;
+        }
+
+        List<BeerOrderDto> orders = beerOrderService.getAll(0, properties.getPageSize());
+        objectMapper.writeValueAsBytes(orders);
+        requests++;
+        for (int o = 0; o < Math.min(ENTITY_READS, orders.size()); o++) {
+            BeerOrderDto order = orders.get((i + o) % orders.size());
+            objectMapper.writeValueAsBytes(beerOrderService.getById(order.id()).orElse(null));
+            requests++;
+        }
+        return requests;
+    }
+}
@@ -1,13 +1,24 @@
 package spring.start.here.juniemvc.web.controller;
 
+import com.fasterxml.jackson.databind.JsonNode;
 import jakarta.validation.Valid;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.server.ResponseStatusException;
+import spring.start.here.juniemvc.config.BestSellerProperties;
 import spring.start.here.juniemvc.service.BeerService;
+import spring.start.here.juniemvc.service.BestSellerService;
 import spring.start.here.juniemvc.web.model.BeerDto;
 import spring.start.here.juniemvc.web.model.BeerListDto;
+import spring.start.here.juniemvc.web.model.BeerMultiGetDto;
 import spring.start.here.juniemvc.web.model.BeerUpsertDto;
+import spring.start.here.juniemvc.web.model.TopBeersDto;
+
+import java.time.Duration;
+import java.util.List;
 
 /**
  * REST Controller for Beer operations
@@ -17,9 +28,15 @@ import spring.start.here.juniemvc.web.model.BeerUpsertDto;
 public class BeerController {
 
     private final BeerService beerService;
+    private final BestSellerService bestSellerService;
+    private final BestSellerProperties bestSellerProperties;
 
-    public BeerController(BeerService beerService) {
+    public BeerController(BeerService beerService,
+                          BestSellerService bestSellerService,
+                          BestSellerProperties bestSellerProperties) {
         this.beerService = beerService;
+        this.bestSellerService = bestSellerService;
+        this.bestSellerProperties = bestSellerProperties;
     }
 
     /**
@@ -58,6 +75,37 @@ public class BeerController {
         return beerService.getAllBeers(pageNumber, pageSize);
     }
 
+    /**
+     * Get several beers by ID in one request
+     * @param ids the beer IDs, e.g. {@code ids=3,1,2}
+     * @return the beers found, in the order of the ids, and the ids that were not found
+     */
+    @GetMapping(params = "ids")
+    public BeerMultiGetDto getBeersByIds(@RequestParam("ids") List<Integer> ids) {
+        return beerService.getBeersByIds(IdLists.check(ids));
+    }
+
+    /**
+     * Get the best-selling beers of a recent window, estimated from an in-memory summary
+     * @param window the window length as ISO-8601 duration, at most the configured retention
+     * @param limit the number of beers to return
+     * @return the top beers with upper and lower bounds of the quantity sold
+     */
+    @GetMapping("/top")
+    public TopBeersDto getTopBeers(
+            @RequestParam(name = "window", defaultValue = "PT1H") Duration window,
+            @RequestParam(name = "limit", defaultValue = "20") int limit) {
+        if (window.isNegative() || window.isZero() || window.compareTo(bestSellerProperties.getRetention()) > 0) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST,
+                    "window must be positive and at most " + bestSellerProperties.getRetention());
+        }
+        if (limit < 1 || limit > bestSellerProperties.getMaxLimit()) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST,
+                    "limit must be between 1 and " + bestSellerProperties.getMaxLimit());
+        }
+        return bestSellerService.getTopBeers(window, limit);
+    }
+
     /**
      * Update an existing beer
      * @param beerId the beer ID to update
@@ -73,6 +121,23 @@ public class BeerController {
                 .orElse(ResponseEntity.notFound().build());
     }
 
+    /**
+     * Partially update a beer with a JSON Merge Patch; only the supplied fields change
+     * @param beerId the beer ID to update
+     * @param ifMatch optional ETag of the version the patch was based on
+     * @param mergePatch the fields to change, null members clear a field
+     * @return the updated beer with its new ETag, 404 if not found or 409 if the version is stale
+     */
+    @PatchMapping(path = "/{beerId}", consumes = {"application/merge-patch+json", MediaType.APPLICATION_JSON_VALUE})
+    public ResponseEntity<BeerDto> patchBeer(
+            @PathVariable("beerId") Integer beerId,
+            @RequestHeader(name = HttpHeaders.IF_MATCH, required = false) String ifMatch,
+            @RequestBody JsonNode mergePatch) {
+        return beerService.patchBeer(beerId, mergePatch, VersionETags.parseIfMatch(ifMatch))
+                .map(beer -> ResponseEntity.ok().eTag(VersionETags.of(beer.getVersion())).body(beer))
+                .orElse(ResponseEntity.notFound().build());
+    }
+
     /**
      * Delete a beer by ID
      * @param beerId the beer ID to delete
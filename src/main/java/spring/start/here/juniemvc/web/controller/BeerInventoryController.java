@@ -1,19 +1,30 @@
 package spring.start.here.juniemvc.web.controller;
 
+import jakarta.validation.Valid;
+import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 import spring.start.here.juniemvc.service.BeerInventoryService;
+import spring.start.here.juniemvc.service.InventoryImportService;
 import spring.start.here.juniemvc.web.model.BeerInventoryDto;
+import spring.start.here.juniemvc.web.model.InventoryAdjustmentDto;
+import spring.start.here.juniemvc.web.model.InventoryImportJobDto;
+import spring.start.here.juniemvc.web.model.InventoryImportRequestDto;
 
+import java.net.URI;
 import java.util.List;
+import java.util.UUID;
 
 @RestController
 @RequestMapping("/api/v1/beer-inventory")
 class BeerInventoryController {
 
     private final BeerInventoryService beerInventoryService;
+    private final InventoryImportService inventoryImportService;
 
-    BeerInventoryController(BeerInventoryService beerInventoryService) {
+    BeerInventoryController(BeerInventoryService beerInventoryService,
+                            InventoryImportService inventoryImportService) {
         this.beerInventoryService = beerInventoryService;
+        this.inventoryImportService = inventoryImportService;
     }
 
     @GetMapping
@@ -25,4 +36,26 @@ class BeerInventoryController {
     List<BeerInventoryDto> getByBeer(@PathVariable Integer beerId) {
         return beerInventoryService.getByBeerId(beerId);
     }
+
+    @PostMapping("/{inventoryId}/adjustments")
+    ResponseEntity<Void> adjust(@PathVariable Integer inventoryId, @Valid @RequestBody InventoryAdjustmentDto adjustment) {
+        return beerInventoryService.adjustQuantity(inventoryId, adjustment.delta())
+                ? ResponseEntity.noContent().build()
+                : ResponseEntity.notFound().build();
+    }
+
+    @PostMapping("/imports")
+    ResponseEntity<InventoryImportJobDto> startImport(@Valid @RequestBody InventoryImportRequestDto request) {
+        InventoryImportJobDto job = inventoryImportService.startImport(request.file());
+        return ResponseEntity.accepted()
+                .location(URI.create("/api/v1/beer-inventory/imports/" + job.jobId()))
+                .body(job);
+    }
+
+    @GetMapping("/imports/{jobId}")
+    ResponseEntity<InventoryImportJobDto> getImport(@PathVariable UUID jobId) {
+        return inventoryImportService.getJob(jobId)
+                .map(ResponseEntity::ok)
+                .orElse(ResponseEntity.notFound().build());
+    }
 }
@@ -2,28 +2,92 @@ package spring.start.here.juniemvc.web.controller;
 
 import jakarta.validation.Valid;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.server.ResponseStatusException;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+import spring.start.here.juniemvc.service.BeerOrderIdempotencyService;
 import spring.start.here.juniemvc.service.BeerOrderService;
+import spring.start.here.juniemvc.service.OrderIntakeService;
+import spring.start.here.juniemvc.service.OrderStatusStreamService;
 import spring.start.here.juniemvc.web.model.BeerOrderDto;
+import spring.start.here.juniemvc.web.model.BeerOrderLinesPatchDto;
+import spring.start.here.juniemvc.web.model.BeerOrderMultiGetDto;
 import spring.start.here.juniemvc.web.model.BeerOrderUpsertDto;
+import spring.start.here.juniemvc.web.model.OrderIntakeTicketDto;
 
+import java.net.URI;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
 
 @RestController
 @RequestMapping("/api/v1/beer-orders")
 class BeerOrderController {
 
+    static final String IDEMPOTENCY_KEY_HEADER = "Idempotency-Key";
+    static final int IDEMPOTENCY_KEY_MAX_LENGTH = 100;
+
     private final BeerOrderService beerOrderService;
+    private final BeerOrderIdempotencyService beerOrderIdempotencyService;
+    private final OrderIntakeService orderIntakeService;
+    private final OrderStatusStreamService orderStatusStreamService;
 
-    BeerOrderController(BeerOrderService beerOrderService) {
+    BeerOrderController(BeerOrderService beerOrderService,
+                        BeerOrderIdempotencyService beerOrderIdempotencyService,
+                        OrderIntakeService orderIntakeService,
+                        OrderStatusStreamService orderStatusStreamService) {
         this.beerOrderService = beerOrderService;
+        this.beerOrderIdempotencyService = beerOrderIdempotencyService;
+        this.orderIntakeService = orderIntakeService;
+        this.orderStatusStreamService = orderStatusStreamService;
     }
 
+    /**
+     * Create an order. In asynchronous intake mode the order is queued and 202 is returned with a
+     * tracking ticket; requests carrying an Idempotency-Key are always processed synchronously.
+     */
     @PostMapping
-    @ResponseStatus(HttpStatus.CREATED)
-    BeerOrderDto createBeerOrder(@Valid @RequestBody BeerOrderUpsertDto upsert) {
-        return beerOrderService.createOrder(upsert);
+    ResponseEntity<?> createBeerOrder(@RequestHeader(name = IDEMPOTENCY_KEY_HEADER, required = false) String idempotencyKey,
+                                      @Valid @RequestBody BeerOrderUpsertDto upsert) {
+        if (idempotencyKey == null) {
+            if (orderIntakeService.isAsync()) {
+                OrderIntakeTicketDto ticket = orderIntakeService.submit(upsert);
+                return ResponseEntity.accepted()
+                        .location(URI.create("/api/v1/beer-orders/intake/" + ticket.trackingId()))
+                        .body(ticket);
+            }
+            return ResponseEntity.status(HttpStatus.CREATED).body(beerOrderService.createOrder(upsert));
+        }
+        if (idempotencyKey.isBlank() || idempotencyKey.length() > IDEMPOTENCY_KEY_MAX_LENGTH) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST,
+                    IDEMPOTENCY_KEY_HEADER + " must be 1 to " + IDEMPOTENCY_KEY_MAX_LENGTH + " characters");
+        }
+        return ResponseEntity.status(HttpStatus.CREATED)
+                .body(beerOrderIdempotencyService.createOrder(idempotencyKey, upsert));
+    }
+
+    @GetMapping("/intake/{trackingId}")
+    ResponseEntity<OrderIntakeTicketDto> getIntakeTicket(@PathVariable("trackingId") UUID trackingId) {
+        return orderIntakeService.getTicket(trackingId)
+                .map(ResponseEntity::ok)
+                .orElse(ResponseEntity.notFound().build());
+    }
+
+    /**
+     * Stream order status changes as Server-Sent Events, optionally filtered by customer and/or order ids.
+     * Reconnecting clients send Last-Event-ID to receive the events they missed, or a {@code resync} event
+     * telling them to reload the orders they follow.
+     */
+    @GetMapping(path = "/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    SseEmitter streamOrderStatus(@RequestParam(required = false) Integer customerId,
+                                 @RequestParam(required = false) List<Integer> orderIds,
+                                 @RequestHeader(name = "Last-Event-ID", required = false) String lastEventId) {
+        return orderStatusStreamService.subscribe(customerId,
+                orderIds != null ? new HashSet<>(orderIds) : Set.of(), lastEventId);
     }
 
     @GetMapping("/{orderId}")
@@ -39,6 +103,22 @@ class BeerOrderController {
         return beerOrderService.getAll(pageNumber, pageSize);
     }
 
+    /**
+     * List orders limited to the given fields, e.g. {@code fields=summary} for id, customer and status.
+     * Unless {@code orderLines} is requested the order lines are not read at all.
+     */
+    @GetMapping(params = {"fields", "!ids"})
+    List<Map<String, Object>> getBeerOrderFields(@RequestParam("fields") String fields,
+                                                 @RequestParam(required = false) Integer pageNumber,
+                                                 @RequestParam(required = false) Integer pageSize) {
+        return beerOrderService.getAll(pageNumber, pageSize, FieldSets.parseBeerOrderFields(fields));
+    }
+
+    @GetMapping(params = "ids")
+    BeerOrderMultiGetDto getBeerOrdersByIds(@RequestParam("ids") List<Integer> ids) {
+        return beerOrderService.getByIds(IdLists.check(ids));
+    }
+
     @GetMapping("/customer/{customerId}")
     List<BeerOrderDto> getBeerOrdersByCustomer(@PathVariable("customerId") Integer customerId,
                                                @RequestParam(required = false) Integer pageNumber,
@@ -54,6 +134,18 @@ class BeerOrderController {
                 .orElse(ResponseEntity.notFound().build());
     }
 
+    /**
+     * Add, update or remove individual order lines without replacing the whole order.
+     * Operations are applied in order within one transaction; a stale version fails the whole patch with 409.
+     */
+    @PatchMapping("/{orderId}/lines")
+    ResponseEntity<BeerOrderDto> patchBeerOrderLines(@PathVariable("orderId") Integer orderId,
+                                                     @Valid @RequestBody BeerOrderLinesPatchDto patch) {
+        return beerOrderService.patchLines(orderId, patch)
+                .map(ResponseEntity::ok)
+                .orElse(ResponseEntity.notFound().build());
+    }
+
     @DeleteMapping("/{orderId}")
     ResponseEntity<Void> deleteBeerOrder(@PathVariable("orderId") Integer orderId) {
         return beerOrderService.delete(orderId)
@@ -1,11 +1,15 @@
 package spring.start.here.juniemvc.web.controller;
 
+import com.fasterxml.jackson.databind.JsonNode;
 import jakarta.validation.Valid;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 import spring.start.here.juniemvc.service.CustomerService;
 import spring.start.here.juniemvc.web.model.CustomerDto;
+import spring.start.here.juniemvc.web.model.CustomerMultiGetDto;
 import spring.start.here.juniemvc.web.model.CustomerUpsertDto;
 
 import java.util.List;
@@ -38,6 +42,11 @@ class CustomerController {
         return customerService.getAll();
     }
 
+    @GetMapping(params = "ids")
+    CustomerMultiGetDto getByIds(@RequestParam("ids") List<Integer> ids) {
+        return customerService.getByIds(IdLists.check(ids));
+    }
+
     @PutMapping("/{id}")
     ResponseEntity<CustomerDto> update(@PathVariable Integer id, @Valid @RequestBody CustomerUpsertDto upsertDto) {
         return customerService.update(id, upsertDto)
@@ -45,6 +54,15 @@ class CustomerController {
                 .orElse(ResponseEntity.notFound().build());
     }
 
+    @PatchMapping(path = "/{id}", consumes = {"application/merge-patch+json", MediaType.APPLICATION_JSON_VALUE})
+    ResponseEntity<CustomerDto> patch(@PathVariable Integer id,
+                                      @RequestHeader(name = HttpHeaders.IF_MATCH, required = false) String ifMatch,
+                                      @RequestBody JsonNode mergePatch) {
+        return customerService.patch(id, mergePatch, VersionETags.parseIfMatch(ifMatch))
+                .map(customer -> ResponseEntity.ok().eTag(VersionETags.of(customer.version())).body(customer))
+                .orElse(ResponseEntity.notFound().build());
+    }
+
     @DeleteMapping("/{id}")
     ResponseEntity<Void> delete(@PathVariable Integer id) {
         return customerService.delete(id)
@@ -0,0 +1,40 @@
+package spring.start.here.juniemvc.web.controller;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.web.server.ResponseStatusException;
+import spring.start.here.juniemvc.web.model.BeerOrderField;
+
+import java.util.Arrays;
+import java.util.EnumSet;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+/**
+ * Parsing of the {@code fields} parameter of the order listing, e.g. {@code ?fields=summary} or
+ * {@code ?fields=customerId,orderStatus}. The id is always included.
+ */
+final class FieldSets {
+
+    static final String SUMMARY = "summary";
+
+    private FieldSets() {
+    }
+
+    static Set<BeerOrderField> parseBeerOrderFields(String fields) {
+        if (SUMMARY.equals(fields.trim())) {
+            return EnumSet.copyOf(BeerOrderField.SUMMARY);
+        }
+        Set<BeerOrderField> parsed = EnumSet.of(BeerOrderField.ID);
+        for (String name : fields.split(",")) {
+            parsed.add(Arrays.stream(BeerOrderField.values())
+                    .filter(field -> field.jsonName().equals(name.trim()))
+                    .findFirst()
+                    .orElseThrow(() -> new ResponseStatusException(HttpStatus.BAD_REQUEST,
+                            "fields must be " + SUMMARY + " or a comma separated list of "
+                                    + Arrays.stream(BeerOrderField.values())
+                                    .map(BeerOrderField::jsonName)
+                                    .collect(Collectors.joining(", ")))));
+        }
+        return parsed;
+    }
+}
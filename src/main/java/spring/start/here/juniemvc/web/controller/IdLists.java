@@ -0,0 +1,28 @@
+package spring.start.here.juniemvc.web.controller;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.util.List;
+
+/**
+ * Validation of the {@code ids} parameter of the multi-get endpoints, e.g. {@code ?ids=3,1,2}.
+ */
+final class IdLists {
+
+    // Largest number of ids accepted by one multi-get request
+    static final int MAX_IDS = 1_000;
+
+    private IdLists() {
+    }
+
+    static List<Integer> check(List<Integer> ids) {
+        if (ids.isEmpty() || ids.contains(null)) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "ids must be a non-empty list of ids");
+        }
+        if (ids.size() > MAX_IDS) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "ids must name at most " + MAX_IDS + " ids");
+        }
+        return ids;
+    }
+}
@@ -0,0 +1,66 @@
+package spring.start.here.juniemvc.web.controller;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.server.ResponseStatusException;
+import spring.start.here.juniemvc.config.ReportingProperties;
+import spring.start.here.juniemvc.service.SalesReportService;
+import spring.start.here.juniemvc.web.model.DailyBeerSalesDto;
+import spring.start.here.juniemvc.web.model.DailyCustomerOrdersDto;
+import spring.start.here.juniemvc.web.model.RollupRebuildResultDto;
+
+import java.time.LocalDate;
+import java.time.temporal.ChronoUnit;
+import java.util.List;
+
+@RestController
+@RequestMapping("/api/v1/reports")
+@ConditionalOnProperty(prefix = "junie.reporting", name = "enabled", havingValue = "true", matchIfMissing = true)
+class ReportController {
+
+    private final SalesReportService salesReportService;
+    private final ReportingProperties reportingProperties;
+
+    ReportController(SalesReportService salesReportService, ReportingProperties reportingProperties) {
+        this.salesReportService = salesReportService;
+        this.reportingProperties = reportingProperties;
+    }
+
+    @GetMapping("/beer-sales")
+    List<DailyBeerSalesDto> getBeerSales(@RequestParam("from") @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+                                         @RequestParam("to") @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to,
+                                         @RequestParam(name = "beerId", required = false) Integer beerId) {
+        checkRange(from, to);
+        return salesReportService.getBeerSales(from, to, beerId);
+    }
+
+    @GetMapping("/customer-orders")
+    List<DailyCustomerOrdersDto> getCustomerOrders(@RequestParam("from") @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+                                                   @RequestParam("to") @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to,
+                                                   @RequestParam(name = "customerId", required = false) Integer customerId) {
+        checkRange(from, to);
+        return salesReportService.getCustomerOrders(from, to, customerId);
+    }
+
+    /**
+     * Recompute the rollups of a date range from the raw order tables, e.g. after a bulk correction.
+     */
+    @PostMapping("/rollups/rebuild")
+    RollupRebuildResultDto rebuildRollups(@RequestParam("from") @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+                                          @RequestParam("to") @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to) {
+        checkRange(from, to);
+        return salesReportService.rebuild(from, to);
+    }
+
+    private void checkRange(LocalDate from, LocalDate to) {
+        if (to.isBefore(from)) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "from must not be after to");
+        }
+        if (ChronoUnit.DAYS.between(from, to) >= reportingProperties.getMaxRangeDays()) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST,
+                    "date range must not exceed " + reportingProperties.getMaxRangeDays() + " days");
+        }
+    }
+}
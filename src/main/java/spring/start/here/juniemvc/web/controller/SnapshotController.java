@@ -0,0 +1,28 @@
+package spring.start.here.juniemvc.web.controller;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+import spring.start.here.juniemvc.service.DatabaseSnapshotService;
+import spring.start.here.juniemvc.web.model.DatabaseSnapshotDto;
+
+/**
+ * Dumps the database into the configured snapshot file. Restoring happens only at startup.
+ */
+@RestController
+@RequestMapping("/api/v1/admin/snapshot")
+@ConditionalOnProperty(prefix = "junie.snapshot", name = "enabled", havingValue = "true")
+class SnapshotController {
+
+    private final DatabaseSnapshotService databaseSnapshotService;
+
+    SnapshotController(DatabaseSnapshotService databaseSnapshotService) {
+        this.databaseSnapshotService = databaseSnapshotService;
+    }
+
+    @PostMapping
+    DatabaseSnapshotDto dump() {
+        return databaseSnapshotService.dump();
+    }
+}
@@ -0,0 +1,39 @@
+package spring.start.here.juniemvc.web.controller;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.web.server.ResponseStatusException;
+
+/**
+ * Entity versions exposed as strong ETags, e.g. {@code "3"}, and read back from {@code If-Match}.
+ */
+final class VersionETags {
+
+    private VersionETags() {
+    }
+
+    static String of(Integer version) {
+        return "\"" + version + "\"";
+    }
+
+    /**
+     * @return the expected version, or null when the header is absent or {@code *}
+     */
+    static Integer parseIfMatch(String ifMatch) {
+        if (ifMatch == null || ifMatch.isBlank() || ifMatch.trim().equals("*")) {
+            return null;
+        }
+        String tag = ifMatch.trim();
+        // Weak tags carry the same version; the comparison below is exact either way
+        if (tag.startsWith("W/")) {
+            tag = tag.substring(2);
+        }
+        if (tag.length() < 3 || !tag.startsWith("\"") || !tag.endsWith("\"")) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "If-Match must be a single entity tag");
+        }
+        try {
+            return Integer.valueOf(tag.substring(1, tag.length() - 1));
+        } catch (NumberFormatException ex) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "If-Match does not name a version of this resource");
+        }
+    }
+}
@@ -1,5 +1,8 @@
 package spring.start.here.juniemvc.web.exception;
 
+import jakarta.validation.ConstraintViolation;
+import jakarta.validation.ConstraintViolationException;
+import org.springframework.dao.OptimisticLockingFailureException;
 import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.HttpStatusCode;
@@ -44,6 +47,32 @@ public class GlobalExceptionHandler extends ResponseEntityExceptionHandler {
         return new ResponseEntity<>(problemDetail, headers, status);
     }
 
+    @ExceptionHandler(ConstraintViolationException.class)
+    public ProblemDetail handleConstraintViolation(ConstraintViolationException ex) {
+        ProblemDetail problemDetail = ProblemDetail.forStatusAndDetail(
+                HttpStatus.BAD_REQUEST, "Validation failed");
+        problemDetail.setTitle("Validation Error");
+        problemDetail.setType(URI.create("https://api.juniemvc.com/errors/validation"));
+        problemDetail.setProperty("timestamp", Instant.now());
+
+        Map<String, String> validationErrors = new HashMap<>();
+        for (ConstraintViolation<?> violation : ex.getConstraintViolations()) {
+            validationErrors.put(violation.getPropertyPath().toString(), violation.getMessage());
+        }
+        problemDetail.setProperty("errors", validationErrors);
+        return problemDetail;
+    }
+
+    @ExceptionHandler(InvalidMergePatchException.class)
+    public ProblemDetail handleInvalidMergePatch(InvalidMergePatchException ex) {
+        ProblemDetail problemDetail = ProblemDetail.forStatusAndDetail(
+                HttpStatus.BAD_REQUEST, ex.getMessage());
+        problemDetail.setTitle("Invalid Merge Patch");
+        problemDetail.setType(URI.create("https://api.juniemvc.com/errors/merge-patch"));
+        problemDetail.setProperty("timestamp", Instant.now());
+        return problemDetail;
+    }
+
     @ExceptionHandler(CustomerNotFoundException.class)
     public ProblemDetail handleCustomerNotFound(CustomerNotFoundException ex) {
         ProblemDetail problemDetail = ProblemDetail.forStatusAndDetail(
@@ -56,6 +85,61 @@ public class GlobalExceptionHandler extends ResponseEntityExceptionHandler {
         return problemDetail;
     }
 
+    @ExceptionHandler(IdempotencyKeyConflictException.class)
+    public ProblemDetail handleIdempotencyKeyConflict(IdempotencyKeyConflictException ex) {
+        ProblemDetail problemDetail = ProblemDetail.forStatusAndDetail(
+                HttpStatus.UNPROCESSABLE_ENTITY, ex.getMessage());
+        problemDetail.setTitle("Idempotency Key Conflict");
+        problemDetail.setType(URI.create("https://api.juniemvc.com/errors/idempotency-key"));
+        problemDetail.setProperty("timestamp", Instant.now());
+        problemDetail.setProperty("idempotencyKey", ex.getIdempotencyKey());
+        return problemDetail;
+    }
+
+    @ExceptionHandler(OrderIntakeRejectedException.class)
+    public ResponseEntity<ProblemDetail> handleOrderIntakeRejected(OrderIntakeRejectedException ex) {
+        ProblemDetail problemDetail = ProblemDetail.forStatusAndDetail(
+                HttpStatus.SERVICE_UNAVAILABLE, ex.getMessage());
+        problemDetail.setTitle("Service Unavailable");
+        problemDetail.setType(URI.create("https://api.juniemvc.com/errors/overload"));
+        problemDetail.setProperty("timestamp", Instant.now());
+        return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                .header(HttpHeaders.RETRY_AFTER, Long.toString(Math.max(1, ex.getRetryAfter().toSeconds())))
+                .body(problemDetail);
+    }
+
+    @ExceptionHandler(InvalidOrderLinePatchException.class)
+    public ProblemDetail handleInvalidOrderLinePatch(InvalidOrderLinePatchException ex) {
+        ProblemDetail problemDetail = ProblemDetail.forStatusAndDetail(
+                HttpStatus.UNPROCESSABLE_ENTITY, ex.getMessage());
+        problemDetail.setTitle("Invalid Order Line Patch");
+        problemDetail.setType(URI.create("https://api.juniemvc.com/errors/order-line-patch"));
+        problemDetail.setProperty("timestamp", Instant.now());
+        problemDetail.setProperty("orderId", ex.getOrderId());
+        return problemDetail;
+    }
+
+    @ExceptionHandler(InvalidInventoryImportException.class)
+    public ProblemDetail handleInvalidInventoryImport(InvalidInventoryImportException ex) {
+        ProblemDetail problemDetail = ProblemDetail.forStatusAndDetail(
+                HttpStatus.UNPROCESSABLE_ENTITY, ex.getMessage());
+        problemDetail.setTitle("Invalid Inventory Import");
+        problemDetail.setType(URI.create("https://api.juniemvc.com/errors/inventory-import"));
+        problemDetail.setProperty("timestamp", Instant.now());
+        problemDetail.setProperty("file", ex.getFile());
+        return problemDetail;
+    }
+
+    @ExceptionHandler(OptimisticLockingFailureException.class)
+    public ProblemDetail handleOptimisticLockingFailure(OptimisticLockingFailureException ex) {
+        ProblemDetail problemDetail = ProblemDetail.forStatusAndDetail(
+                HttpStatus.CONFLICT, "The resource was modified concurrently; reload it and retry");
+        problemDetail.setTitle("Conflict");
+        problemDetail.setType(URI.create("https://api.juniemvc.com/errors/conflict"));
+        problemDetail.setProperty("timestamp", Instant.now());
+        return problemDetail;
+    }
+
     @ExceptionHandler(Exception.class)
     public ProblemDetail handleGenericException(Exception ex) {
         ProblemDetail problemDetail = ProblemDetail.forStatusAndDetail(
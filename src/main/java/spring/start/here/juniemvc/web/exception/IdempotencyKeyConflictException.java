@@ -0,0 +1,19 @@
+package spring.start.here.juniemvc.web.exception;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.ResponseStatus;
+
+@ResponseStatus(code = HttpStatus.UNPROCESSABLE_ENTITY, reason = "Idempotency key conflict")
+public class IdempotencyKeyConflictException extends RuntimeException {
+
+    private final String idempotencyKey;
+
+    public IdempotencyKeyConflictException(String idempotencyKey, String message) {
+        super(message);
+        this.idempotencyKey = idempotencyKey;
+    }
+
+    public String getIdempotencyKey() {
+        return idempotencyKey;
+    }
+}
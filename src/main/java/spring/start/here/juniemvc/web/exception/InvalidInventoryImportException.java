@@ -0,0 +1,19 @@
+package spring.start.here.juniemvc.web.exception;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.ResponseStatus;
+
+@ResponseStatus(code = HttpStatus.UNPROCESSABLE_ENTITY, reason = "Invalid inventory import")
+public class InvalidInventoryImportException extends RuntimeException {
+
+    private final String file;
+
+    public InvalidInventoryImportException(String file, String message) {
+        super(message);
+        this.file = file;
+    }
+
+    public String getFile() {
+        return file;
+    }
+}
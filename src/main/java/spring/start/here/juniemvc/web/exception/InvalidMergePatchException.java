@@ -0,0 +1,12 @@
+package spring.start.here.juniemvc.web.exception;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.ResponseStatus;
+
+@ResponseStatus(code = HttpStatus.BAD_REQUEST, reason = "Invalid merge patch")
+public class InvalidMergePatchException extends RuntimeException {
+
+    public InvalidMergePatchException(String message) {
+        super(message);
+    }
+}
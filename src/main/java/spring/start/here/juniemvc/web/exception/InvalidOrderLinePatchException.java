@@ -0,0 +1,19 @@
+package spring.start.here.juniemvc.web.exception;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.ResponseStatus;
+
+@ResponseStatus(code = HttpStatus.UNPROCESSABLE_ENTITY, reason = "Invalid order line patch")
+public class InvalidOrderLinePatchException extends RuntimeException {
+
+    private final Integer orderId;
+
+    public InvalidOrderLinePatchException(Integer orderId, String message) {
+        super(message);
+        this.orderId = orderId;
+    }
+
+    public Integer getOrderId() {
+        return orderId;
+    }
+}
@@ -0,0 +1,21 @@
+package spring.start.here.juniemvc.web.exception;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.ResponseStatus;
+
+import java.time.Duration;
+
+@ResponseStatus(code = HttpStatus.SERVICE_UNAVAILABLE, reason = "Order intake queue is full")
+public class OrderIntakeRejectedException extends RuntimeException {
+
+    private final Duration retryAfter;
+
+    public OrderIntakeRejectedException(Duration retryAfter) {
+        super("Order intake queue is full, retry later");
+        this.retryAfter = retryAfter;
+    }
+
+    public Duration getRetryAfter() {
+        return retryAfter;
+    }
+}
@@ -0,0 +1,53 @@
+package spring.start.here.juniemvc.web.filter;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.zaxxer.hikari.HikariDataSource;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.boot.web.servlet.FilterRegistrationBean;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.Ordered;
+import spring.start.here.juniemvc.config.AdmissionControlProperties;
+
+import javax.sql.DataSource;
+import java.sql.SQLException;
+
+@Configuration(proxyBeanMethods = false)
+@EnableConfigurationProperties(AdmissionControlProperties.class)
+@ConditionalOnProperty(prefix = "junie.admission", name = "enabled", havingValue = "true", matchIfMissing = true)
+class AdmissionControlConfig {
+
+    // Hikari's default maximumPoolSize
+    private static final int DEFAULT_POOL_SIZE = 10;
+
+    @Bean
+    FilterRegistrationBean<AdmissionControlFilter> admissionControlFilter(AdmissionControlProperties properties,
+                                                                          ObjectProvider<DataSource> dataSource,
+                                                                          ObjectMapper objectMapper,
+                                                                          MeterRegistry meterRegistry) {
+        int maxConcurrentRequests = properties.getMaxConcurrentRequests() > 0
+                ? properties.getMaxConcurrentRequests()
+                : poolSize(dataSource.getIfAvailable());
+
+        FilterRegistrationBean<AdmissionControlFilter> registration = new FilterRegistrationBean<>(
+                new AdmissionControlFilter(properties, maxConcurrentRequests, objectMapper, meterRegistry,
+                        System::nanoTime));
+        registration.addUrlPatterns("/api/*");
+        registration.setOrder(Ordered.HIGHEST_PRECEDENCE + 10);
+        return registration;
+    }
+
+    private static int poolSize(DataSource dataSource) {
+        try {
+            if (dataSource != null && dataSource.isWrapperFor(HikariDataSource.class)) {
+                return dataSource.unwrap(HikariDataSource.class).getMaximumPoolSize();
+            }
+        } catch (SQLException ex) {
+            // fall through to the default
+        }
+        return DEFAULT_POOL_SIZE;
+    }
+}
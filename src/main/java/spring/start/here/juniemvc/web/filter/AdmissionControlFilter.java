@@ -0,0 +1,166 @@
+package spring.start.here.juniemvc.web.filter;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ProblemDetail;
+import org.springframework.util.StringUtils;
+import org.springframework.web.filter.OncePerRequestFilter;
+import spring.start.here.juniemvc.config.AdmissionControlProperties;
+
+import java.io.IOException;
+import java.net.URI;
+import java.time.Instant;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.function.LongSupplier;
+import java.util.regex.Pattern;
+
+/**
+ * Admission control in front of the API: per-client and per-route token buckets answer
+ * with 429 when a rate is exceeded, and a concurrency limit sized to the connection pool
+ * sheds requests with 503 instead of letting them queue on the pool. Both carry {@code Retry-After}.
+ */
+class AdmissionControlFilter extends OncePerRequestFilter {
+
+    private static final Pattern NUMERIC_SEGMENT = Pattern.compile("/\\d+(?=/|$)");
+
+    private final AdmissionControlProperties properties;
+    private final ObjectMapper objectMapper;
+    private final LongSupplier nanoClock;
+    private final Semaphore concurrencySlots;
+    private final Map<String, TokenBucket> routeBuckets = new HashMap<>();
+    private final Set<String> trustedProxies;
+    // Least recently seen clients are evicted first, so rotating client ids cannot grow the map
+    private final Map<String, TokenBucket> clientBuckets;
+
+    private final Counter shedClientRate;
+    private final Counter shedRouteRate;
+    private final Counter shedOverload;
+
+    AdmissionControlFilter(AdmissionControlProperties properties, int maxConcurrentRequests,
+                           ObjectMapper objectMapper, MeterRegistry meterRegistry, LongSupplier nanoClock) {
+        this.properties = properties;
+        this.objectMapper = objectMapper;
+        this.nanoClock = nanoClock;
+        this.concurrencySlots = new Semaphore(maxConcurrentRequests, true);
+        this.trustedProxies = Set.copyOf(properties.getTrustedProxies());
+        this.clientBuckets = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, TokenBucket> eldest) {
+                return size() > properties.getMaxClients();
+            }
+        };
+
+        long now = nanoClock.getAsLong();
+        properties.getRoutes().forEach((route, limit) ->
+                routeBuckets.put(route, new TokenBucket(limit.getPermitsPerSecond(), limit.getBurst(), now)));
+
+        this.shedClientRate = shedCounter(meterRegistry, "client_rate");
+        this.shedRouteRate = shedCounter(meterRegistry, "route_rate");
+        this.shedOverload = shedCounter(meterRegistry, "overload");
+        Gauge.builder("junie.admission.in_flight", concurrencySlots, s -> maxConcurrentRequests - s.availablePermits())
+                .description("API requests currently admitted")
+                .register(meterRegistry);
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response,
+                                    FilterChain filterChain) throws ServletException, IOException {
+        long now = nanoClock.getAsLong();
+
+        long clientWait = clientBucket(clientId(request), now).tryAcquire(now);
+        if (clientWait > 0) {
+            shedClientRate.increment();
+            reject(response, HttpStatus.TOO_MANY_REQUESTS, clientWait, "Client request rate exceeded");
+            return;
+        }
+
+        TokenBucket routeBucket = routeBuckets.get(routeKey(request));
+        if (routeBucket != null) {
+            long routeWait = routeBucket.tryAcquire(now);
+            if (routeWait > 0) {
+                shedRouteRate.increment();
+                reject(response, HttpStatus.TOO_MANY_REQUESTS, routeWait, "Route request rate exceeded");
+                return;
+            }
+        }
+
+        if (!acquireSlot()) {
+            shedOverload.increment();
+            reject(response, HttpStatus.SERVICE_UNAVAILABLE, properties.getOverloadRetryAfter().toNanos(),
+                    "Server is overloaded");
+            return;
+        }
+        try {
+            filterChain.doFilter(request, response);
+        } finally {
+            concurrencySlots.release();
+        }
+    }
+
+    static String routeKey(HttpServletRequest request) {
+        String path = request.getRequestURI().substring(request.getContextPath().length());
+        return request.getMethod() + " " + NUMERIC_SEGMENT.matcher(path).replaceAll("/{id}");
+    }
+
+    private String clientId(HttpServletRequest request) {
+        String remoteAddress = request.getRemoteAddr();
+        if (!trustedProxies.contains(remoteAddress)) {
+            return remoteAddress;
+        }
+        String clientId = request.getHeader(properties.getClientIdHeader());
+        return StringUtils.hasText(clientId) ? clientId : remoteAddress;
+    }
+
+    private TokenBucket clientBucket(String clientId, long now) {
+        AdmissionControlProperties.Limit limit = properties.getPerClient();
+        synchronized (clientBuckets) {
+            return clientBuckets.computeIfAbsent(clientId,
+                    id -> new TokenBucket(limit.getPermitsPerSecond(), limit.getBurst(), now));
+        }
+    }
+
+    private boolean acquireSlot() {
+        try {
+            return concurrencySlots.tryAcquire(properties.getMaxQueueWait().toNanos(), TimeUnit.NANOSECONDS);
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+
+    private void reject(HttpServletResponse response, HttpStatus status, long retryAfterNanos,
+                        String detail) throws IOException {
+        long retryAfterSeconds = Math.max(1, TimeUnit.NANOSECONDS.toSeconds(retryAfterNanos + 999_999_999L));
+
+        ProblemDetail problemDetail = ProblemDetail.forStatusAndDetail(status, detail);
+        problemDetail.setTitle(status.getReasonPhrase());
+        problemDetail.setType(URI.create("https://api.juniemvc.com/errors/overload"));
+        problemDetail.setProperty("timestamp", Instant.now());
+
+        response.setStatus(status.value());
+        response.setHeader(HttpHeaders.RETRY_AFTER, Long.toString(retryAfterSeconds));
+        response.setContentType(MediaType.APPLICATION_PROBLEM_JSON_VALUE);
+        objectMapper.writeValue(response.getOutputStream(), problemDetail);
+    }
+
+    private static Counter shedCounter(MeterRegistry meterRegistry, String reason) {
+        return Counter.builder("junie.admission.shed")
+                .description("API requests rejected by admission control")
+                .tag("reason", reason)
+                .register(meterRegistry);
+    }
+}
@@ -0,0 +1,38 @@
+package spring.start.here.juniemvc.web.filter;
+
+/**
+ * Classic token bucket: holds up to {@code burst} tokens and refills continuously
+ * at {@code permitsPerSecond}.
+ */
+class TokenBucket {
+
+    private static final double NANOS_PER_SECOND = 1_000_000_000.0;
+
+    private final double capacity;
+    private final double tokensPerNano;
+
+    private double tokens;
+    private long lastRefillNanos;
+
+    TokenBucket(double permitsPerSecond, int burst, long nowNanos) {
+        this.capacity = burst;
+        this.tokensPerNano = permitsPerSecond / NANOS_PER_SECOND;
+        this.tokens = burst;
+        this.lastRefillNanos = nowNanos;
+    }
+
+    /**
+     * Take one token.
+     * @param nowNanos the current {@link System#nanoTime()}
+     * @return 0 if a token was taken, otherwise the nanoseconds until the next token is available
+     */
+    synchronized long tryAcquire(long nowNanos) {
+        tokens = Math.min(capacity, tokens + (nowNanos - lastRefillNanos) * tokensPerNano);
+        lastRefillNanos = nowNanos;
+        if (tokens >= 1.0) {
+            tokens -= 1.0;
+            return 0;
+        }
+        return (long) Math.ceil((1.0 - tokens) / tokensPerNano);
+    }
+}
@@ -0,0 +1,138 @@
+package spring.start.here.juniemvc.web.json;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.SerializableString;
+import com.fasterxml.jackson.core.io.SerializedString;
+import com.fasterxml.jackson.databind.JsonSerializer;
+import com.fasterxml.jackson.databind.SerializerProvider;
+import org.springframework.boot.jackson.JsonComponent;
+import spring.start.here.juniemvc.web.model.BeerOrderDto;
+import spring.start.here.juniemvc.web.model.BeerOrderLineDto;
+import spring.start.here.juniemvc.web.model.CustomerDto;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.util.List;
+
+/**
+ * Hand-written serializers for the DTOs on the order and customer list endpoints, where serialization
+ * dominated CPU time. Field names are pre-encoded once and lines are written inline without a
+ * serializer lookup per element. The output is identical to Jackson's default for these records:
+ * same property order and nulls written as {@code null}; {@code DtoJsonSerializersTest} guards this,
+ * so a new record component must be added here as well.
+ */
+@JsonComponent
+public class DtoJsonSerializers {
+
+    private static final SerializableString ID = new SerializedString("id");
+    private static final SerializableString VERSION = new SerializedString("version");
+    private static final SerializableString CUSTOMER_ID = new SerializedString("customerId");
+    private static final SerializableString CUSTOMER_REF = new SerializedString("customerRef");
+    private static final SerializableString ORDER_STATUS = new SerializedString("orderStatus");
+    private static final SerializableString ORDER_STATUS_CALLBACK_URL = new SerializedString("orderStatusCallbackUrl");
+    private static final SerializableString TOTAL_AMOUNT = new SerializedString("totalAmount");
+    private static final SerializableString LINE_COUNT = new SerializedString("lineCount");
+    private static final SerializableString ORDER_LINES = new SerializedString("orderLines");
+    private static final SerializableString BEER_ID = new SerializedString("beerId");
+    private static final SerializableString ORDER_QUANTITY = new SerializedString("orderQuantity");
+    private static final SerializableString QUANTITY_ALLOCATED = new SerializedString("quantityAllocated");
+    private static final SerializableString UNIT_PRICE = new SerializedString("unitPrice");
+    private static final SerializableString NAME = new SerializedString("name");
+    private static final SerializableString EMAIL = new SerializedString("email");
+    private static final SerializableString PHONE = new SerializedString("phone");
+
+    public static class BeerOrderSerializer extends JsonSerializer<BeerOrderDto> {
+
+        @Override
+        public void serialize(BeerOrderDto order, JsonGenerator gen, SerializerProvider provider) throws IOException {
+            gen.writeStartObject(order);
+            writeInteger(gen, ID, order.id());
+            writeInteger(gen, VERSION, order.version());
+            writeInteger(gen, CUSTOMER_ID, order.customerId());
+            writeString(gen, CUSTOMER_REF, order.customerRef());
+            writeString(gen, ORDER_STATUS, order.orderStatus());
+            writeString(gen, ORDER_STATUS_CALLBACK_URL, order.orderStatusCallbackUrl());
+            writeDecimal(gen, TOTAL_AMOUNT, order.totalAmount());
+            writeInteger(gen, LINE_COUNT, order.lineCount());
+            gen.writeFieldName(ORDER_LINES);
+            List<BeerOrderLineDto> lines = order.orderLines();
+            if (lines == null) {
+                gen.writeNull();
+            } else {
+                gen.writeStartArray(lines, lines.size());
+                for (BeerOrderLineDto line : lines) {
+                    writeLine(line, gen);
+                }
+                gen.writeEndArray();
+            }
+            gen.writeEndObject();
+        }
+    }
+
+    public static class BeerOrderLineSerializer extends JsonSerializer<BeerOrderLineDto> {
+
+        @Override
+        public void serialize(BeerOrderLineDto line, JsonGenerator gen, SerializerProvider provider)
+                throws IOException {
+            writeLine(line, gen);
+        }
+    }
+
+    public static class CustomerSerializer extends JsonSerializer<CustomerDto> {
+
+        @Override
+        public void serialize(CustomerDto customer, JsonGenerator gen, SerializerProvider provider)
+                throws IOException {
+            gen.writeStartObject(customer);
+            writeInteger(gen, ID, customer.id());
+            writeInteger(gen, VERSION, customer.version());
+            writeString(gen, NAME, customer.name());
+            writeString(gen, EMAIL, customer.email());
+            writeString(gen, PHONE, customer.phone());
+            gen.writeEndObject();
+        }
+    }
+
+    private static void writeLine(BeerOrderLineDto line, JsonGenerator gen) throws IOException {
+        if (line == null) {
+            gen.writeNull();
+            return;
+        }
+        gen.writeStartObject(line);
+        writeInteger(gen, ID, line.id());
+        writeInteger(gen, VERSION, line.version());
+        writeInteger(gen, BEER_ID, line.beerId());
+        writeInteger(gen, ORDER_QUANTITY, line.orderQuantity());
+        writeInteger(gen, QUANTITY_ALLOCATED, line.quantityAllocated());
+        writeDecimal(gen, UNIT_PRICE, line.unitPrice());
+        gen.writeEndObject();
+    }
+
+    private static void writeInteger(JsonGenerator gen, SerializableString name, Integer value) throws IOException {
+        gen.writeFieldName(name);
+        if (value == null) {
+            gen.writeNull();
+        } else {
+            gen.writeNumber(value.intValue());
+        }
+    }
+
+    private static void writeDecimal(JsonGenerator gen, SerializableString name, BigDecimal value)
+            throws IOException {
+        gen.writeFieldName(name);
+        if (value == null) {
+            gen.writeNull();
+        } else {
+            gen.writeNumber(value);
+        }
+    }
+
+    private static void writeString(JsonGenerator gen, SerializableString name, String value) throws IOException {
+        gen.writeFieldName(name);
+        if (value == null) {
+            gen.writeNull();
+        } else {
+            gen.writeString(value);
+        }
+    }
+}
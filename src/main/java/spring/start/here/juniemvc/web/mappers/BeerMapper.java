@@ -18,4 +18,6 @@ public interface BeerMapper {
     @Mapping(target = "createdDate", ignore = true)
     @Mapping(target = "updateDate", ignore = true)
     Beer beerUpsertDtoToBeer(BeerUpsertDto beerUpsertDto);
+
+    BeerUpsertDto beerToBeerUpsertDto(Beer beer);
 }
\ No newline at end of file
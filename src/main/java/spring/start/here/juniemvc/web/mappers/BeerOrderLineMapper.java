@@ -19,6 +19,7 @@ public interface BeerOrderLineMapper {
     @Mapping(target = "beerOrder", ignore = true)
     @Mapping(target = "beer", source = "beerId", qualifiedByName = "beerFromId")
     @Mapping(target = "quantityAllocated", ignore = true)
+    @Mapping(target = "unitPrice", ignore = true)
     BeerOrderLine toEntity(BeerOrderLineUpsertDto upsert);
 
     @Named("beerFromId")
@@ -19,4 +19,6 @@ public interface CustomerMapper {
     @Mapping(target = "updateDate", ignore = true)
     @Mapping(target = "beerOrders", ignore = true)
     Customer toEntity(CustomerUpsertDto upsert);
+
+    CustomerUpsertDto toUpsertDto(Customer customer);
 }
@@ -0,0 +1,18 @@
+package spring.start.here.juniemvc.web.mappers;
+
+import org.mapstruct.Mapper;
+import org.mapstruct.Mapping;
+import spring.start.here.juniemvc.domain.model.BeerSalesDaily;
+import spring.start.here.juniemvc.domain.model.CustomerOrdersDaily;
+import spring.start.here.juniemvc.web.model.DailyBeerSalesDto;
+import spring.start.here.juniemvc.web.model.DailyCustomerOrdersDto;
+
+@Mapper(componentModel = "spring")
+public interface SalesRollupMapper {
+
+    @Mapping(target = "date", source = "salesDate")
+    DailyBeerSalesDto toDto(BeerSalesDaily entity);
+
+    @Mapping(target = "date", source = "orderDate")
+    DailyCustomerOrdersDto toDto(CustomerOrdersDaily entity);
+}
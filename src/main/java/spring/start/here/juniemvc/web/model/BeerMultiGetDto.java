@@ -0,0 +1,8 @@
+package spring.start.here.juniemvc.web.model;
+
+import java.util.List;
+
+public record BeerMultiGetDto(
+        List<BeerDto> beers, // in the order the ids were requested
+        List<Integer> missingIds
+) {}
@@ -1,6 +1,7 @@
 package spring.start.here.juniemvc.web.model;
 
 
+import java.math.BigDecimal;
 import java.util.List;
 
 import jakarta.validation.Valid;
@@ -14,6 +15,8 @@ public record BeerOrderDto(
         String customerRef, //reference information from customer
         String orderStatus, // enum status of the order, NEW, PAID, CANCELLED, INPROCESS, COMPLETE.
         String orderStatusCallbackUrl,
+        BigDecimal totalAmount, // Read-only, sum of orderQuantity * unitPrice over the lines
+        Integer lineCount, // Read-only
         @NotEmpty(message = "Beer order must have at least one beer order line")
         @Valid
         List<BeerOrderLineDto> orderLines
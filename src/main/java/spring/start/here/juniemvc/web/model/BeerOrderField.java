@@ -0,0 +1,53 @@
+package spring.start.here.juniemvc.web.model;
+
+import java.util.Collections;
+import java.util.EnumSet;
+import java.util.Set;
+
+/**
+ * Fields of {@link BeerOrderDto} that a listing can be limited to with {@code fields=}, each with the
+ * {@code beer_order} column it is read from. Order lines have no column of their own.
+ */
+public enum BeerOrderField {
+    ID("id", "id"),
+    VERSION("version", "version"),
+    CUSTOMER_ID("customerId", "customer_id"),
+    ORDER_STATUS("orderStatus", "order_status"),
+    ORDER_STATUS_CALLBACK_URL("orderStatusCallbackUrl", "order_status_callback_url"),
+    TOTAL_AMOUNT("totalAmount", "total_amount"),
+    LINE_COUNT("lineCount", "line_count"),
+    ORDER_LINES("orderLines", null);
+
+    // The view requested with fields=summary, as shown by the order dashboards
+    public static final Set<BeerOrderField> SUMMARY =
+            Collections.unmodifiableSet(EnumSet.of(ID, CUSTOMER_ID, ORDER_STATUS));
+
+    private final String jsonName;
+    private final String column;
+
+    BeerOrderField(String jsonName, String column) {
+        this.jsonName = jsonName;
+        this.column = column;
+    }
+
+    public String jsonName() {
+        return jsonName;
+    }
+
+    public String column() {
+        return column;
+    }
+
+    public Object readFrom(BeerOrderDto dto) {
+        return switch (this) {
+            case ID -> dto.id();
+            case VERSION -> dto.version();
+            case CUSTOMER_ID -> dto.customerId();
+            case ORDER_STATUS -> dto.orderStatus();
+            case ORDER_STATUS_CALLBACK_URL -> dto.orderStatusCallbackUrl();
+            case TOTAL_AMOUNT -> dto.totalAmount();
+            case LINE_COUNT -> dto.lineCount();
+            case ORDER_LINES -> dto.orderLines();
+        };
+    }
+}
@@ -16,5 +16,6 @@ public record BeerOrderLineDto(
         @Positive(message = "Order quantity must be positive")
         Integer orderQuantity,
         @PositiveOrZero(message = "Quantity allocated must be zero or positive")
-        Integer quantityAllocated
+        Integer quantityAllocated,
+        BigDecimal unitPrice // Read-only, beer price when the line was added
 ) {}
@@ -0,0 +1,20 @@
+package spring.start.here.juniemvc.web.model;
+
+import jakarta.validation.constraints.NotNull;
+import jakarta.validation.constraints.Positive;
+
+public record BeerOrderLineOperationDto(
+        @NotNull(message = "Operation is required")
+        Operation op,
+        Integer lineId, // required for UPDATE and REMOVE
+        Integer version, // optional expected line version for UPDATE and REMOVE
+        Integer beerId, // required for ADD
+        @Positive(message = "Order quantity must be positive")
+        Integer orderQuantity // required for ADD and UPDATE
+) {
+    public enum Operation {
+        ADD,
+        UPDATE,
+        REMOVE
+    }
+}
@@ -0,0 +1,13 @@
+package spring.start.here.juniemvc.web.model;
+
+import jakarta.validation.Valid;
+import jakarta.validation.constraints.NotEmpty;
+
+import java.util.List;
+
+public record BeerOrderLinesPatchDto(
+        Integer orderVersion, // optional expected order version
+        @NotEmpty(message = "At least one operation is required")
+        @Valid
+        List<BeerOrderLineOperationDto> operations
+) {}
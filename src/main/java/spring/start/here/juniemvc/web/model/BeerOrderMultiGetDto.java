@@ -0,0 +1,8 @@
+package spring.start.here.juniemvc.web.model;
+
+import java.util.List;
+
+public record BeerOrderMultiGetDto(
+        List<BeerOrderDto> orders, // in the order the ids were requested
+        List<Integer> missingIds
+) {}
@@ -0,0 +1,12 @@
+package spring.start.here.juniemvc.web.model;
+
+import java.time.Instant;
+
+public record BeerOrderStatusEventDto(
+        Integer orderId,
+        Integer customerId,
+        String previousStatus,
+        String orderStatus,
+        Integer version,
+        Instant changedAt
+) {}
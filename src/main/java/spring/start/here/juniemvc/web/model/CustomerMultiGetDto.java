@@ -0,0 +1,8 @@
+package spring.start.here.juniemvc.web.model;
+
+import java.util.List;
+
+public record CustomerMultiGetDto(
+        List<CustomerDto> customers, // in the order the ids were requested
+        List<Integer> missingIds
+) {}
@@ -0,0 +1,10 @@
+package spring.start.here.juniemvc.web.model;
+
+import java.time.LocalDate;
+
+public record DailyBeerSalesDto(
+        LocalDate date,
+        Integer beerId,
+        long quantity, // total ordered quantity
+        long orderLineCount
+) {}
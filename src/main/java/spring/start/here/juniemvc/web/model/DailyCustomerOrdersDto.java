@@ -0,0 +1,9 @@
+package spring.start.here.juniemvc.web.model;
+
+import java.time.LocalDate;
+
+public record DailyCustomerOrdersDto(
+        LocalDate date,
+        Integer customerId,
+        long orderCount
+) {}
@@ -0,0 +1,10 @@
+package spring.start.here.juniemvc.web.model;
+
+import java.util.Map;
+
+public record DatabaseSnapshotDto(
+        String file,
+        long fileBytes,
+        Map<String, Long> rowsPerTable, // in dump/restore order
+        long durationMillis
+) {}
@@ -0,0 +1,7 @@
+package spring.start.here.juniemvc.web.model;
+
+import jakarta.validation.constraints.NotNull;
+
+public record InventoryAdjustmentDto(
+        @NotNull Integer delta // added to the quantity on hand; negative when stock leaves
+) {}
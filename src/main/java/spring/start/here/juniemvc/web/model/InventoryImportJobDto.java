@@ -0,0 +1,20 @@
+package spring.start.here.juniemvc.web.model;
+
+import java.time.Instant;
+import java.util.UUID;
+
+public record InventoryImportJobDto(
+        UUID jobId,
+        String file,
+        String status, // QUEUED, RUNNING, COMPLETED or FAILED
+        long fileBytes,
+        long bytesProcessed,
+        double percentComplete,
+        long rowsImported,
+        long rowsUnknownUpc,
+        long rowsMalformed,
+        double rowsPerSecond,
+        Instant startedAt,
+        Instant finishedAt,
+        String error // set when FAILED
+) {}
@@ -0,0 +1,7 @@
+package spring.start.here.juniemvc.web.model;
+
+import jakarta.validation.constraints.NotBlank;
+
+public record InventoryImportRequestDto(
+        @NotBlank String file // relative to the configured import directory
+) {}
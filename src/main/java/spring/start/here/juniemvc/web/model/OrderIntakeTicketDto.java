@@ -0,0 +1,10 @@
+package spring.start.here.juniemvc.web.model;
+
+import java.util.UUID;
+
+public record OrderIntakeTicketDto(
+        UUID trackingId,
+        String status, // QUEUED, COMMITTED or FAILED
+        Integer orderId, // set once COMMITTED
+        String error // set when FAILED
+) {}
@@ -0,0 +1,10 @@
+package spring.start.here.juniemvc.web.model;
+
+import java.time.LocalDate;
+
+public record RollupRebuildResultDto(
+        LocalDate from,
+        LocalDate to,
+        int beerSalesRows,
+        int customerOrdersRows
+) {}
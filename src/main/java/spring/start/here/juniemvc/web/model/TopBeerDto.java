@@ -0,0 +1,8 @@
+package spring.start.here.juniemvc.web.model;
+
+public record TopBeerDto(
+        Integer beerId,
+        String beerName,
+        long estimatedQuantity, // upper bound of the quantity sold in the window
+        long minimumQuantity // guaranteed lower bound
+) {}
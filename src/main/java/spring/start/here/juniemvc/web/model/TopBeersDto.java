@@ -0,0 +1,12 @@
+package spring.start.here.juniemvc.web.model;
+
+import java.time.Instant;
+import java.util.List;
+
+public record TopBeersDto(
+        Instant windowStart,
+        Instant windowEnd,
+        long totalQuantity, // exact quantity sold in the window
+        long maxError, // no estimate exceeds the true quantity by more than this
+        List<TopBeerDto> beers
+) {}
@@ -0,0 +1,11 @@
+-- Outbox of cache invalidations: every node appends the beers and customers it changed and polls the
+-- changes of the other nodes. Rows are purged once every node has had time to read them.
+CREATE TABLE entity_change (
+    id BIGINT AUTO_INCREMENT PRIMARY KEY,
+    node_id VARCHAR(64) NOT NULL,
+    entity_type VARCHAR(20) NOT NULL,
+    entity_id INTEGER NOT NULL,
+    created_date TIMESTAMP DEFAULT LOCALTIMESTAMP NOT NULL
+);
+
+CREATE INDEX idx_entity_change_created_date ON entity_change (created_date);
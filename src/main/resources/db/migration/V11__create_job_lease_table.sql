@@ -0,0 +1,10 @@
+-- One row per cluster-wide background job, and per partition of jobs whose work is split ("archival#3").
+-- A node runs the job or partition while it owns an unexpired lease; last_completed keeps other nodes
+-- from repeating a run finished within the job's minimum interval. Times come from the database clock.
+CREATE TABLE job_lease (
+    name VARCHAR(100) PRIMARY KEY,
+    owner VARCHAR(100),
+    locked_until TIMESTAMP,
+    last_started TIMESTAMP,
+    last_completed TIMESTAMP
+);
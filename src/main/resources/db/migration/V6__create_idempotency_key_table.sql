@@ -0,0 +1,9 @@
+CREATE TABLE idempotency_key (
+    idempotency_key VARCHAR(100) PRIMARY KEY,
+    version INTEGER,
+    request_hash VARCHAR(64) NOT NULL,
+    beer_order_id INTEGER,
+    created_date TIMESTAMP
+);
+
+CREATE INDEX idx_idempotency_key_created_date ON idempotency_key (created_date);
@@ -0,0 +1,18 @@
+-- Daily rollups maintained incrementally from order creation and status changes.
+-- Cancelled orders are not counted. Buckets are keyed by the order's creation date.
+CREATE TABLE beer_sales_daily (
+    sales_date DATE NOT NULL,
+    beer_id INTEGER NOT NULL,
+    quantity BIGINT NOT NULL,
+    order_line_count BIGINT NOT NULL,
+    PRIMARY KEY (sales_date, beer_id)
+);
+
+CREATE TABLE customer_orders_daily (
+    order_date DATE NOT NULL,
+    customer_id INTEGER NOT NULL,
+    order_count BIGINT NOT NULL,
+    PRIMARY KEY (order_date, customer_id)
+);
+
+CREATE INDEX idx_beer_order_created_date ON beer_order (created_date);
@@ -0,0 +1,31 @@
+-- Terminal orders (DELIVERED, CANCELLED) are moved here by the archival job once they are old enough.
+-- Ids are kept so archived orders stay addressable; no foreign keys so customers and beers can evolve.
+CREATE TABLE beer_order_archive (
+    id INTEGER PRIMARY KEY,
+    version INTEGER,
+    order_status VARCHAR(50),
+    order_status_callback_url VARCHAR(255),
+    customer_id INTEGER,
+    created_date TIMESTAMP,
+    update_date TIMESTAMP,
+    archived_date TIMESTAMP
+);
+
+CREATE INDEX idx_beer_order_archive_customer ON beer_order_archive (customer_id);
+CREATE INDEX idx_beer_order_archive_created_date ON beer_order_archive (created_date);
+
+CREATE TABLE beer_order_line_archive (
+    id INTEGER PRIMARY KEY,
+    version INTEGER,
+    order_quantity INTEGER,
+    quantity_allocated INTEGER,
+    beer_order_id INTEGER,
+    beer_id INTEGER,
+    created_date TIMESTAMP,
+    update_date TIMESTAMP
+);
+
+CREATE INDEX idx_beer_order_line_archive_order ON beer_order_line_archive (beer_order_id);
+
+-- Lets the archival job find old terminal orders without scanning the table
+CREATE INDEX idx_beer_order_status_update_date ON beer_order (order_status, update_date);
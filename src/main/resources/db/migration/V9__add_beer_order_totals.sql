@@ -0,0 +1,25 @@
+-- The beer price is snapshotted onto each line when it is added, and every order keeps its total and
+-- line count up to date on each line change, so order values are read from beer_order alone.
+-- Existing lines take the current beer price.
+ALTER TABLE beer_order_line ADD COLUMN unit_price DECIMAL(19, 2);
+UPDATE beer_order_line l SET unit_price = (SELECT b.price FROM beer b WHERE b.id = l.beer_id);
+
+ALTER TABLE beer_order ADD COLUMN total_amount DECIMAL(19, 2) DEFAULT 0 NOT NULL;
+ALTER TABLE beer_order ADD COLUMN line_count INTEGER DEFAULT 0 NOT NULL;
+UPDATE beer_order o SET
+    total_amount = (SELECT COALESCE(SUM(l.order_quantity * l.unit_price), 0)
+                    FROM beer_order_line l WHERE l.beer_order_id = o.id),
+    line_count = (SELECT COUNT(*) FROM beer_order_line l WHERE l.beer_order_id = o.id);
+
+-- Lets order listings and reports sort and filter by order value
+CREATE INDEX idx_beer_order_total_amount ON beer_order (total_amount);
+
+ALTER TABLE beer_order_line_archive ADD COLUMN unit_price DECIMAL(19, 2);
+UPDATE beer_order_line_archive l SET unit_price = (SELECT b.price FROM beer b WHERE b.id = l.beer_id);
+
+ALTER TABLE beer_order_archive ADD COLUMN total_amount DECIMAL(19, 2) DEFAULT 0 NOT NULL;
+ALTER TABLE beer_order_archive ADD COLUMN line_count INTEGER DEFAULT 0 NOT NULL;
+UPDATE beer_order_archive o SET
+    total_amount = (SELECT COALESCE(SUM(l.order_quantity * l.unit_price), 0)
+                    FROM beer_order_line_archive l WHERE l.beer_order_id = o.id),
+    line_count = (SELECT COUNT(*) FROM beer_order_line_archive l WHERE l.beer_order_id = o.id);
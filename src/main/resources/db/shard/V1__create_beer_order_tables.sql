@@ -0,0 +1,37 @@
+-- Orders of the customers mapped to one shard. Customers and beers live in the application database,
+-- so there are no foreign keys to them. Ids come from the sequences and are spread over the shards by
+-- the application (sequence value * shard count + shard index), so every id names its shard.
+CREATE SEQUENCE beer_order_seq START WITH 1;
+CREATE SEQUENCE beer_order_line_seq START WITH 1;
+
+CREATE TABLE beer_order (
+    id INTEGER PRIMARY KEY,
+    version INTEGER,
+    order_status VARCHAR(50),
+    order_status_callback_url VARCHAR(255),
+    customer_id INTEGER,
+    total_amount DECIMAL(19, 2) DEFAULT 0 NOT NULL,
+    line_count INTEGER DEFAULT 0 NOT NULL,
+    -- Key of the idempotent request that created the order, written in the order's shard transaction
+    idempotency_key VARCHAR(100),
+    created_date TIMESTAMP,
+    update_date TIMESTAMP,
+    CONSTRAINT uk_beer_order_idempotency_key UNIQUE (idempotency_key)
+);
+
+CREATE INDEX idx_beer_order_customer ON beer_order (customer_id);
+
+CREATE TABLE beer_order_line (
+    id INTEGER PRIMARY KEY,
+    version INTEGER,
+    order_quantity INTEGER,
+    quantity_allocated INTEGER,
+    beer_order_id INTEGER,
+    beer_id INTEGER,
+    unit_price DECIMAL(19, 2),
+    created_date TIMESTAMP,
+    update_date TIMESTAMP,
+    CONSTRAINT fk_beer_order_line_order FOREIGN KEY (beer_order_id) REFERENCES beer_order(id)
+);
+
+CREATE INDEX idx_beer_order_line_order ON beer_order_line (beer_order_id);
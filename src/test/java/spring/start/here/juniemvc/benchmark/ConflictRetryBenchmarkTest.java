@@ -0,0 +1,103 @@
+package spring.start.here.juniemvc.benchmark;
+
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.dao.OptimisticLockingFailureException;
+import spring.start.here.juniemvc.config.ConflictRetryProperties;
+import spring.start.here.juniemvc.service.BeerService;
+import spring.start.here.juniemvc.web.model.BeerUpsertDto;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Concurrent edits of one beer: successful updates per second with and without retrying optimistic-lock
+ * conflicts. Run with {@code mvn test -Pbenchmark}.
+ */
+@Tag("benchmark")
+@SpringBootTest(properties = "junie.warmup.enabled=false")
+class ConflictRetryBenchmarkTest {
+
+    private static final int CALLERS = 16;
+    private static final int UPDATES_PER_CALLER = 50;
+
+    @Autowired
+    BeerService beerService;
+
+    @Autowired
+    ConflictRetryProperties conflictRetryProperties;
+
+    @Test
+    void contendedUpdates_successfulThroughputWithAndWithoutRetry() throws Exception {
+        Integer beerId = beerService.saveBeer(beer(0)).getId();
+
+        conflictRetryProperties.setEnabled(false);
+        Result withoutRetry = contend(beerId);
+        conflictRetryProperties.setEnabled(true);
+        Result withRetry = contend(beerId);
+
+        int attempted = CALLERS * UPDATES_PER_CALLER;
+        System.out.printf("conflict retry: %d updates by %d callers%n", attempted, CALLERS);
+        System.out.printf("  without retry: %4d succeeded, %4d conflicts returned, %8.1f successful updates/s%n",
+                withoutRetry.succeeded, withoutRetry.conflicts, withoutRetry.successesPerSecond());
+        System.out.printf("  with retry:    %4d succeeded, %4d conflicts returned, %8.1f successful updates/s%n",
+                withRetry.succeeded, withRetry.conflicts, withRetry.successesPerSecond());
+        assertThat(withRetry.succeeded).isGreaterThan(withoutRetry.succeeded);
+    }
+
+    // All callers start together and update the same row; a conflict that reaches the caller counts as failed
+    private Result contend(Integer beerId) throws Exception {
+        AtomicInteger succeeded = new AtomicInteger();
+        AtomicInteger conflicts = new AtomicInteger();
+        ExecutorService executor = Executors.newFixedThreadPool(CALLERS);
+        try {
+            CountDownLatch start = new CountDownLatch(1);
+            List<Future<?>> futures = new ArrayList<>();
+            for (int c = 0; c < CALLERS; c++) {
+                int caller = c;
+                futures.add(executor.submit(() -> {
+                    start.await();
+                    for (int i = 0; i < UPDATES_PER_CALLER; i++) {
+                        try {
+                            beerService.updateBeer(beerId, beer(caller * UPDATES_PER_CALLER + i));
+                            succeeded.incrementAndGet();
+                        } catch (OptimisticLockingFailureException ex) {
+                            conflicts.incrementAndGet();
+                        }
+                    }
+                    return null;
+                }));
+            }
+            long started = System.nanoTime();
+            start.countDown();
+            for (Future<?> future : futures) {
+                future.get();
+            }
+            return new Result(succeeded.get(), conflicts.get(), System.nanoTime() - started);
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    private static BeerUpsertDto beer(int quantity) {
+        return BeerUpsertDto.builder()
+                .beerName("Contended").beerStyle("IPA").upc("contended")
+                .quantityOnHand(quantity).price(BigDecimal.TEN).build();
+    }
+
+    private record Result(int succeeded, int conflicts, long nanos) {
+        double successesPerSecond() {
+            return succeeded * 1e9 / nanos;
+        }
+    }
+}
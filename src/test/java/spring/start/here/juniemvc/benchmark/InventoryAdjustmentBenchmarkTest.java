@@ -0,0 +1,118 @@
+package spring.start.here.juniemvc.benchmark;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import spring.start.here.juniemvc.config.InventoryAdjustmentProperties;
+import spring.start.here.juniemvc.domain.model.Beer;
+import spring.start.here.juniemvc.domain.model.BeerInventory;
+import spring.start.here.juniemvc.repository.BeerInventoryRepository;
+import spring.start.here.juniemvc.repository.BeerRepository;
+import spring.start.here.juniemvc.service.BeerInventoryService;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Scanners sending +1/-1 stock adjustments for a few popular beers: adjustments per second and UPDATE
+ * statements with direct writes and with the write-behind buffer. Run with {@code mvn test -Pbenchmark}.
+ */
+@Tag("benchmark")
+@SpringBootTest(properties = "junie.warmup.enabled=false")
+class InventoryAdjustmentBenchmarkTest {
+
+    private static final int SCANNERS = 16;
+    private static final int SCANS_PER_SCANNER = 2_000;
+    private static final int ROWS = 4;
+
+    @Autowired
+    BeerInventoryService beerInventoryService;
+
+    @Autowired
+    BeerRepository beerRepository;
+
+    @Autowired
+    BeerInventoryRepository beerInventoryRepository;
+
+    @Autowired
+    InventoryAdjustmentProperties inventoryAdjustmentProperties;
+
+    @Autowired
+    MeterRegistry meterRegistry;
+
+    @Test
+    void scannerAdjustments_throughputDirectAndWriteBehind() throws Exception {
+        Beer beer = beerRepository.save(Beer.builder()
+                .beerName("Scanned").beerStyle("IPA").upc("scanned").price(BigDecimal.TEN).quantityOnHand(0)
+                .build());
+        List<Integer> inventoryIds = new ArrayList<>();
+        for (int i = 0; i < ROWS; i++) {
+            inventoryIds.add(beerInventoryRepository.save(BeerInventory.builder()
+                    .beer(beer).quantityOnHand(1_000_000).build()).getId());
+        }
+
+        inventoryAdjustmentProperties.setMode(InventoryAdjustmentProperties.Mode.DIRECT);
+        long directNanos = scan(inventoryIds);
+        inventoryAdjustmentProperties.setMode(InventoryAdjustmentProperties.Mode.WRITE_BEHIND);
+        double rowsBefore = writtenRows();
+        long writeBehindNanos = scan(inventoryIds);
+        // Buffered adjustments are already visible to reads before they are flushed
+        assertQuantities(inventoryIds);
+        Thread.sleep(inventoryAdjustmentProperties.getFlushInterval().multipliedBy(3).toMillis());
+        long writeBehindUpdates = Math.round(writtenRows() - rowsBefore);
+
+        int adjustments = SCANNERS * SCANS_PER_SCANNER;
+        System.out.printf("inventory adjustments: %d by %d scanners over %d rows%n", adjustments, SCANNERS, ROWS);
+        System.out.printf("  direct:       %10.1f adjustments/s, %6d UPDATEs%n",
+                adjustments * 1e9 / directNanos, adjustments);
+        System.out.printf("  write-behind: %10.1f adjustments/s, %6d UPDATEs%n",
+                adjustments * 1e9 / writeBehindNanos, writeBehindUpdates);
+        assertThat(writeBehindUpdates).isLessThan(adjustments);
+        assertQuantities(inventoryIds);
+    }
+
+    // Every scanner alternates +1 and -1 over all rows, so each row ends where it started
+    private long scan(List<Integer> inventoryIds) throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(SCANNERS);
+        try {
+            CountDownLatch start = new CountDownLatch(1);
+            List<Future<?>> futures = new ArrayList<>();
+            for (int s = 0; s < SCANNERS; s++) {
+                futures.add(executor.submit(() -> {
+                    start.await();
+                    for (int i = 0; i < SCANS_PER_SCANNER; i++) {
+                        beerInventoryService.adjustQuantity(inventoryIds.get(i / 2 % ROWS), i % 2 == 0 ? 1 : -1);
+                    }
+                    return null;
+                }));
+            }
+            long started = System.nanoTime();
+            start.countDown();
+            for (Future<?> future : futures) {
+                future.get();
+            }
+            return System.nanoTime() - started;
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    private void assertQuantities(List<Integer> inventoryIds) {
+        for (Integer inventoryId : inventoryIds) {
+            assertThat(beerInventoryService.getById(inventoryId).orElseThrow().quantityOnHand()).isEqualTo(1_000_000);
+        }
+    }
+
+    private double writtenRows() {
+        return meterRegistry.get("junie.inventory_adjustment.rows").tag("outcome", "written").counter().count();
+    }
+}
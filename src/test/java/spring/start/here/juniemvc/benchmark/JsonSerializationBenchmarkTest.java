@@ -0,0 +1,73 @@
+package spring.start.here.juniemvc.benchmark;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import spring.start.here.juniemvc.web.model.BeerOrderDto;
+import spring.start.here.juniemvc.web.model.BeerOrderLineDto;
+
+import java.io.OutputStream;
+import java.lang.management.ManagementFactory;
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * ns/op and bytes allocated per serialized {@code BeerOrderDto} with 100 lines, for a plain reflective
+ * ObjectMapper versus the application's shared mapper (Blackbird plus hand-written serializers).
+ * Output goes to a discarding stream, as the response body would. Run with {@code mvn test -Pbenchmark}.
+ */
+@Tag("benchmark")
+@SpringBootTest(properties = "junie.warmup.enabled=false")
+class JsonSerializationBenchmarkTest {
+
+    private static final int LINES = 100;
+    private static final int WARMUP_OPS = 50_000;
+    private static final int MEASURED_OPS = 200_000;
+
+    @Autowired
+    ObjectMapper objectMapper;
+
+    @Test
+    void beerOrderWith100Lines_reflectiveVersusFastPath() throws Exception {
+        List<BeerOrderLineDto> lines = new ArrayList<>();
+        for (int i = 0; i < LINES; i++) {
+            lines.add(new BeerOrderLineDto(1_000 + i, 0, 1 + i, 1 + i % 12, i % 3, new BigDecimal("12.95")));
+        }
+        BeerOrderDto order = new BeerOrderDto(42, 3, 7, "customer-ref-7", "NEW", "https://example.com/orders/42",
+                new BigDecimal("8210.30"), lines.size(), lines);
+
+        Result reflective = measure(new ObjectMapper(), order);
+        Result fastPath = measure(objectMapper, order);
+
+        System.out.printf("json %d-line order (%d bytes): reflective %.0f ns/op %d B/op, fast path %.0f ns/op %d B/op (%.1fx)%n",
+                LINES, objectMapper.writeValueAsBytes(order).length,
+                reflective.nanosPerOp(), reflective.bytesPerOp(),
+                fastPath.nanosPerOp(), fastPath.bytesPerOp(),
+                reflective.nanosPerOp() / fastPath.nanosPerOp());
+        assertThat(fastPath.nanosPerOp()).isPositive();
+    }
+
+    private static Result measure(ObjectMapper mapper, BeerOrderDto order) throws Exception {
+        OutputStream sink = OutputStream.nullOutputStream();
+        for (int i = 0; i < WARMUP_OPS; i++) {
+            mapper.writeValue(sink, order);
+        }
+        com.sun.management.ThreadMXBean threads = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        long allocatedBefore = threads.getCurrentThreadAllocatedBytes();
+        long start = System.nanoTime();
+        for (int i = 0; i < MEASURED_OPS; i++) {
+            mapper.writeValue(sink, order);
+        }
+        long elapsed = System.nanoTime() - start;
+        long allocated = threads.getCurrentThreadAllocatedBytes() - allocatedBefore;
+        return new Result((double) elapsed / MEASURED_OPS, allocated / MEASURED_OPS);
+    }
+
+    private record Result(double nanosPerOp, long bytesPerOp) {
+    }
+}
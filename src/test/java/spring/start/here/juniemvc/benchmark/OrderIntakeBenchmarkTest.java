@@ -0,0 +1,110 @@
+package spring.start.here.juniemvc.benchmark;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import spring.start.here.juniemvc.service.BeerOrderService;
+import spring.start.here.juniemvc.service.BeerService;
+import spring.start.here.juniemvc.service.CustomerService;
+import spring.start.here.juniemvc.service.OrderIntakeService;
+import spring.start.here.juniemvc.web.model.BeerOrderLineUpsertDto;
+import spring.start.here.juniemvc.web.model.BeerOrderUpsertDto;
+import spring.start.here.juniemvc.web.model.BeerUpsertDto;
+import spring.start.here.juniemvc.web.model.CustomerUpsertDto;
+import spring.start.here.juniemvc.web.model.OrderIntakeTicketDto;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.function.Consumer;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Orders per second of the synchronous path (one transaction per order) versus the
+ * asynchronous intake (group commit). Run with {@code mvn test -Pbenchmark}.
+ */
+@Tag("benchmark")
+@SpringBootTest(properties = {
+        "junie.order-intake.mode=ASYNC",
+        "junie.order-intake.queue-capacity=100000"
+})
+class OrderIntakeBenchmarkTest {
+
+    private static final int ORDERS = 20_000;
+    private static final int CLIENTS = 16;
+
+    @Autowired
+    BeerOrderService beerOrderService;
+
+    @Autowired
+    OrderIntakeService orderIntakeService;
+
+    @Autowired
+    CustomerService customerService;
+
+    @Autowired
+    BeerService beerService;
+
+    BeerOrderUpsertDto order;
+
+    @BeforeEach
+    void setUp() {
+        Integer customerId = customerService.create(new CustomerUpsertDto("Bench", "bench@example.com", "1")).id();
+        List<BeerOrderLineUpsertDto> lines = new ArrayList<>();
+        for (int i = 0; i < 3; i++) {
+            Integer beerId = beerService.saveBeer(BeerUpsertDto.builder()
+                    .beerName("Bench " + i).beerStyle("IPA").upc("bench-" + System.nanoTime())
+                    .quantityOnHand(100).price(BigDecimal.TEN).build()).getId();
+            lines.add(new BeerOrderLineUpsertDto(beerId, 1));
+        }
+        order = new BeerOrderUpsertDto(customerId, "BENCH", null, lines);
+    }
+
+    @Test
+    void ordersPerSecond_syncVersusGroupCommit() throws Exception {
+        double sync = run(ignored -> beerOrderService.createOrder(order));
+
+        List<OrderIntakeTicketDto> tickets = Collections.synchronizedList(new ArrayList<>());
+        long start = System.nanoTime();
+        runClients(ignored -> tickets.add(orderIntakeService.submit(order)));
+        for (OrderIntakeTicketDto ticket : tickets) {
+            while (!"COMMITTED".equals(orderIntakeService.getTicket(ticket.trackingId()).orElseThrow().status())) {
+                Thread.sleep(1);
+            }
+        }
+        double async = ORDERS / ((System.nanoTime() - start) / 1e9);
+
+        System.out.printf("order intake: sync %.0f orders/s, async group commit %.0f orders/s (%.1fx)%n",
+                sync, async, async / sync);
+        assertThat(async).isPositive();
+    }
+
+    private double run(Consumer<Integer> task) throws Exception {
+        long start = System.nanoTime();
+        runClients(task);
+        return ORDERS / ((System.nanoTime() - start) / 1e9);
+    }
+
+    private static void runClients(Consumer<Integer> task) throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(CLIENTS);
+        try {
+            List<Future<?>> futures = new ArrayList<>();
+            for (int i = 0; i < ORDERS; i++) {
+                int n = i;
+                futures.add(executor.submit(() -> task.accept(n)));
+            }
+            for (Future<?> future : futures) {
+                future.get();
+            }
+        } finally {
+            executor.shutdown();
+        }
+    }
+}
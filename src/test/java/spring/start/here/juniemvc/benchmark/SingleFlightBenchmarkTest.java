@@ -0,0 +1,95 @@
+package spring.start.here.juniemvc.benchmark;
+
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import spring.start.here.juniemvc.config.SingleFlightProperties;
+import spring.start.here.juniemvc.service.BeerService;
+import spring.start.here.juniemvc.web.model.BeerUpsertDto;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Thundering herd on one beer and the first catalog page: database statements executed with and
+ * without single-flight coalescing. Run with {@code mvn test -Pbenchmark}.
+ */
+@Tag("benchmark")
+@SpringBootTest(properties = {
+        "spring.jpa.properties.hibernate.generate_statistics=true",
+        "junie.warmup.enabled=false",
+        // Measures coalescing alone; the entity cache would serve every round after the first
+        "junie.entity-cache.enabled=false"
+})
+class SingleFlightBenchmarkTest {
+
+    private static final int CALLERS = 200;
+    private static final int ROUNDS = 50;
+
+    @Autowired
+    BeerService beerService;
+
+    @Autowired
+    SingleFlightProperties singleFlightProperties;
+
+    @Autowired
+    EntityManagerFactory entityManagerFactory;
+
+    @Test
+    void thunderingHerd_statementsWithAndWithoutCoalescing() throws Exception {
+        for (int i = 0; i < 100; i++) {
+            beerService.saveBeer(BeerUpsertDto.builder()
+                    .beerName("Herd " + i).beerStyle("IPA").upc("herd-" + i)
+                    .quantityOnHand(10).price(BigDecimal.TEN).build());
+        }
+        Integer beerId = beerService.getAllBeers(0, 1).getBeers().get(0).getId();
+
+        singleFlightProperties.setEnabled(false);
+        long uncoalesced = statementsForHerd(beerId);
+        singleFlightProperties.setEnabled(true);
+        long coalesced = statementsForHerd(beerId);
+
+        System.out.printf("single-flight: %d reads, %d statements without coalescing, %d with (%.1fx fewer)%n",
+                CALLERS * ROUNDS * 2L, uncoalesced, coalesced, (double) uncoalesced / coalesced);
+        assertThat(coalesced).isPositive().isLessThan(uncoalesced);
+    }
+
+    // Every round releases all callers at once; each reads the same beer and the same page
+    private long statementsForHerd(Integer beerId) throws Exception {
+        Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+        ExecutorService executor = Executors.newFixedThreadPool(CALLERS);
+        try {
+            for (int round = 0; round < ROUNDS; round++) {
+                CountDownLatch start = new CountDownLatch(1);
+                List<Future<?>> futures = new ArrayList<>();
+                for (int c = 0; c < CALLERS; c++) {
+                    futures.add(executor.submit(() -> {
+                        start.await();
+                        beerService.getBeerById(beerId);
+                        beerService.getAllBeers(0, 25);
+                        return null;
+                    }));
+                }
+                start.countDown();
+                for (Future<?> future : futures) {
+                    future.get();
+                }
+            }
+        } finally {
+            executor.shutdown();
+        }
+        return statistics.getPrepareStatementCount();
+    }
+}
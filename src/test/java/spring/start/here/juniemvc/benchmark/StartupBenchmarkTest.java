@@ -0,0 +1,132 @@
+package spring.start.here.juniemvc.benchmark;
+
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import spring.start.here.juniemvc.JunieMvcApplication;
+
+import java.io.IOException;
+import java.net.ConnectException;
+import java.net.ServerSocket;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.net.http.HttpTimeoutException;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Time from launching a JVM to the first successful {@code GET /api/v1/beers}, for the default
+ * configuration versus the {@code fast-start} profile. Each mode is started in a fresh JVM several
+ * times and the median is reported. Run with {@code mvn test -Pbenchmark}.
+ * <p>
+ * By default both modes run from the test classpath, which measures lazy initialization and the
+ * deferred JPA bootstrap. To include AOT and AppCDS, build with {@code mvn -Pfast-start package},
+ * create the archive as described in {@code application-fast-start.properties} and pass
+ * {@code -Djunie.benchmark.jar=target/app/junie-mvc-0.0.1-SNAPSHOT.jar} and
+ * {@code -Djunie.benchmark.cds-archive=target/app/junie.jsa}.
+ */
+@Tag("benchmark")
+class StartupBenchmarkTest {
+
+    private static final int RUNS = 3;
+    private static final Duration STARTUP_TIMEOUT = Duration.ofMinutes(2);
+
+    private final HttpClient httpClient = HttpClient.newBuilder()
+            .connectTimeout(Duration.ofMillis(500))
+            .build();
+
+    @Test
+    void timeToFirstRequest_defaultVersusFastStart() throws Exception {
+        String jar = System.getProperty("junie.benchmark.jar");
+        String cdsArchive = System.getProperty("junie.benchmark.cds-archive");
+
+        long standard = median(() -> timeToFirstRequest(command(jar, null, false)));
+        long fastStart = median(() -> timeToFirstRequest(command(jar, cdsArchive, true)));
+
+        System.out.printf("startup: default %d ms, fast-start %d ms to first successful request (%.1fx)%s%n",
+                standard, fastStart, (double) standard / fastStart,
+                jar != null ? " from " + jar + (cdsArchive != null ? " with AOT and AppCDS" : " with AOT") : "");
+        assertThat(fastStart).isPositive();
+    }
+
+    private List<String> command(String jar, String cdsArchive, boolean fastStart) {
+        List<String> command = new ArrayList<>();
+        command.add(Path.of(System.getProperty("java.home"), "bin", "java").toString());
+        if (jar != null) {
+            if (fastStart) {
+                if (cdsArchive != null) {
+                    command.add("-XX:SharedArchiveFile=" + cdsArchive);
+                }
+                command.add("-Dspring.aot.enabled=true");
+            }
+            command.addAll(Arrays.asList("-jar", jar));
+        } else {
+            command.addAll(Arrays.asList("-cp", System.getProperty("java.class.path"),
+                    JunieMvcApplication.class.getName()));
+        }
+        if (fastStart) {
+            command.add("--spring.profiles.active=fast-start");
+        }
+        return command;
+    }
+
+    private long timeToFirstRequest(List<String> command) throws Exception {
+        int port = freePort();
+        List<String> withPort = new ArrayList<>(command);
+        withPort.add("--server.port=" + port);
+        HttpRequest request = HttpRequest.newBuilder(URI.create("http://localhost:" + port + "/api/v1/beers"))
+                .timeout(Duration.ofSeconds(5))
+                .build();
+
+        long start = System.nanoTime();
+        Process process = new ProcessBuilder(withPort)
+                .redirectOutput(ProcessBuilder.Redirect.DISCARD)
+                .redirectError(ProcessBuilder.Redirect.DISCARD)
+                .start();
+        try {
+            while (System.nanoTime() - start < STARTUP_TIMEOUT.toNanos()) {
+                if (!process.isAlive()) {
+                    throw new IllegalStateException("Application exited with " + process.exitValue());
+                }
+                try {
+                    if (httpClient.send(request, HttpResponse.BodyHandlers.discarding()).statusCode() == 200) {
+                        return (System.nanoTime() - start) / 1_000_000;
+                    }
+                } catch (ConnectException | HttpTimeoutException ex) {
+                    // not listening yet
+                }
+                Thread.sleep(10);
+            }
+            throw new IllegalStateException("Application did not answer within " + STARTUP_TIMEOUT);
+        } finally {
+            process.destroy();
+            process.waitFor();
+        }
+    }
+
+    private static long median(Measurement measurement) throws Exception {
+        long[] millis = new long[RUNS];
+        for (int i = 0; i < RUNS; i++) {
+            millis[i] = measurement.run();
+        }
+        Arrays.sort(millis);
+        return millis[RUNS / 2];
+    }
+
+    private static int freePort() throws IOException {
+        try (ServerSocket socket = new ServerSocket(0)) {
+            return socket.getLocalPort();
+        }
+    }
+
+    @FunctionalInterface
+    private interface Measurement {
+        long run() throws Exception;
+    }
+}
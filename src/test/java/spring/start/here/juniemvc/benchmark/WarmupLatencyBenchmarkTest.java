@@ -0,0 +1,214 @@
+package spring.start.here.juniemvc.benchmark;
+
+import org.flywaydb.core.Flyway;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import spring.start.here.juniemvc.JunieMvcApplication;
+
+import java.io.IOException;
+import java.net.ConnectException;
+import java.net.ServerSocket;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.file.Path;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadLocalRandom;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * p99 latency of catalog and order reads over the first minute after an instance reports ready,
+ * with and without the startup warm-up. Each mode runs in a fresh JVM against the same seeded
+ * database file; admission control is off so the load is not throttled. Run with
+ * {@code mvn test -Pbenchmark}; {@code -Djunie.benchmark.duration=PT30S} shortens the measurement.
+ */
+@Tag("benchmark")
+class WarmupLatencyBenchmarkTest {
+
+    private static final int BEERS = 500;
+    private static final int CUSTOMERS = 50;
+    private static final int ORDERS = 2_000;
+    private static final int CLIENTS = 8;
+    private static final Duration WINDOW = Duration.ofSeconds(5);
+    private static final Duration STARTUP_TIMEOUT = Duration.ofMinutes(2);
+
+    private final HttpClient httpClient = HttpClient.newBuilder()
+            .connectTimeout(Duration.ofMillis(500))
+            .build();
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void firstMinuteP99_coldVersusWarmedUp() throws Exception {
+        Duration duration = Duration.parse(System.getProperty("junie.benchmark.duration", "PT60S"));
+        String url = "jdbc:h2:file:" + directory.resolve("bench").toAbsolutePath();
+        seed(url);
+
+        long[] cold = p99PerWindow(url, false, duration);
+        long[] warm = p99PerWindow(url, true, duration);
+
+        System.out.printf("first-minute p99 (ms per %ds window after ready)%n", WINDOW.toSeconds());
+        for (int w = 0; w < cold.length; w++) {
+            System.out.printf("  %3d-%3ds: cold %5.1f ms, warmed up %5.1f ms%n", w * WINDOW.toSeconds(),
+                    (w + 1) * WINDOW.toSeconds(), cold[w] / 1e6, warm[w] / 1e6);
+        }
+        assertThat(warm[0]).isPositive();
+    }
+
+    private long[] p99PerWindow(String url, boolean warmup, Duration duration) throws Exception {
+        int port = freePort();
+        List<String> command = List.of(
+                Path.of(System.getProperty("java.home"), "bin", "java").toString(),
+                "-cp", System.getProperty("java.class.path"), JunieMvcApplication.class.getName(),
+                "--server.port=" + port,
+                "--spring.datasource.url=" + url,
+                "--spring.datasource.username=sa",
+                "--junie.admission.enabled=false",
+                "--junie.warmup.enabled=" + warmup);
+        Process process = new ProcessBuilder(command)
+                .redirectOutput(ProcessBuilder.Redirect.DISCARD)
+                .redirectError(ProcessBuilder.Redirect.DISCARD)
+                .start();
+        try {
+            awaitReady(process, port);
+            return measure(port, duration);
+        } finally {
+            process.destroy();
+            process.waitFor();
+        }
+    }
+
+    private void awaitReady(Process process, int port) throws Exception {
+        HttpRequest readiness = HttpRequest.newBuilder(
+                URI.create("http://localhost:" + port + "/actuator/health/readiness")).build();
+        long deadline = System.nanoTime() + STARTUP_TIMEOUT.toNanos();
+        while (System.nanoTime() < deadline) {
+            if (!process.isAlive()) {
+                throw new IllegalStateException("Application exited with " + process.exitValue());
+            }
+            try {
+                if (httpClient.send(readiness, HttpResponse.BodyHandlers.discarding()).statusCode() == 200) {
+                    return;
+                }
+            } catch (ConnectException ex) {
+                // not listening yet
+            }
+            Thread.sleep(10);
+        }
+        throw new IllegalStateException("Application did not become ready within " + STARTUP_TIMEOUT);
+    }
+
+    // Latencies of all clients, bucketed by the window in which the request was sent
+    private long[] measure(int port, Duration duration) throws Exception {
+        int windows = (int) Math.ceil((double) duration.toNanos() / WINDOW.toNanos());
+        List<List<Long>> latencies = new ArrayList<>();
+        for (int w = 0; w < windows; w++) {
+            latencies.add(new ArrayList<>());
+        }
+        long start = System.nanoTime();
+        long end = start + duration.toNanos();
+
+        ExecutorService clients = Executors.newFixedThreadPool(CLIENTS);
+        try {
+            List<Future<List<long[]>>> futures = new ArrayList<>();
+            for (int c = 0; c < CLIENTS; c++) {
+                futures.add(clients.submit(() -> {
+                    List<long[]> samples = new ArrayList<>();
+                    while (System.nanoTime() < end) {
+                        HttpRequest request = HttpRequest.newBuilder(URI.create(
+                                "http://localhost:" + port + randomPath())).build();
+                        long sent = System.nanoTime();
+                        int status = httpClient.send(request, HttpResponse.BodyHandlers.discarding()).statusCode();
+                        if (status != 200) {
+                            throw new IllegalStateException("Unexpected status " + status);
+                        }
+                        samples.add(new long[]{sent - start, System.nanoTime() - sent});
+                    }
+                    return samples;
+                }));
+            }
+            for (Future<List<long[]>> future : futures) {
+                for (long[] sample : future.get()) {
+                    latencies.get((int) Math.min(windows - 1, sample[0] / WINDOW.toNanos())).add(sample[1]);
+                }
+            }
+        } finally {
+            clients.shutdown();
+        }
+
+        long[] p99 = new long[windows];
+        for (int w = 0; w < windows; w++) {
+            long[] sorted = latencies.get(w).stream().mapToLong(Long::longValue).sorted().toArray();
+            p99[w] = sorted.length == 0 ? 0 : sorted[(int) Math.ceil(sorted.length * 0.99) - 1];
+        }
+        return p99;
+    }
+
+    private static String randomPath() {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        return switch (random.nextInt(4)) {
+            case 0 -> "/api/v1/beers?pageNumber=" + random.nextInt(BEERS / 25) + "&pageSize=25";
+            case 1 -> "/api/v1/beers/" + (1 + random.nextInt(BEERS));
+            case 2 -> "/api/v1/beer-orders?pageNumber=" + random.nextInt(ORDERS / 25) + "&pageSize=25";
+            default -> "/api/v1/beer-orders/" + (1 + random.nextInt(ORDERS));
+        };
+    }
+
+    // Migrates and fills the database file once; both JVMs then only read from it
+    private static void seed(String url) throws SQLException {
+        Flyway.configure().dataSource(url, "sa", "").load().migrate();
+        try (Connection connection = DriverManager.getConnection(url, "sa", "")) {
+            insert(connection, "INSERT INTO beer (version, beer_name, beer_style, upc, quantity_on_hand, price) "
+                    + "VALUES (0, ?, 'IPA', ?, 100, 12.95)", BEERS, (statement, i) -> {
+                statement.setString(1, "Beer " + i);
+                statement.setString(2, "upc-" + i);
+            });
+            insert(connection, "INSERT INTO customer (version, name, email) VALUES (0, ?, ?)", CUSTOMERS,
+                    (statement, i) -> {
+                        statement.setString(1, "Customer " + i);
+                        statement.setString(2, "customer" + i + "@example.com");
+                    });
+            insert(connection, "INSERT INTO beer_order (version, order_status, customer_id) VALUES (0, 'NEW', ?)",
+                    ORDERS, (statement, i) -> statement.setInt(1, 1 + i % CUSTOMERS));
+            insert(connection, "INSERT INTO beer_order_line (version, order_quantity, quantity_allocated, "
+                    + "beer_order_id, beer_id) VALUES (0, 2, 0, ?, ?)", ORDERS * 3, (statement, i) -> {
+                statement.setInt(1, 1 + i / 3);
+                statement.setInt(2, 1 + i % BEERS);
+            });
+        }
+    }
+
+    private static void insert(Connection connection, String sql, int rows, RowBinder binder) throws SQLException {
+        try (PreparedStatement statement = connection.prepareStatement(sql)) {
+            for (int i = 0; i < rows; i++) {
+                binder.bind(statement, i);
+                statement.addBatch();
+            }
+            statement.executeBatch();
+        }
+    }
+
+    private static int freePort() throws IOException {
+        try (ServerSocket socket = new ServerSocket(0)) {
+            return socket.getLocalPort();
+        }
+    }
+
+    @FunctionalInterface
+    private interface RowBinder {
+        void bind(PreparedStatement statement, int row) throws SQLException;
+    }
+}
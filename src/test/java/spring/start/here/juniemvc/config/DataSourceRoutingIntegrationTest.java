@@ -0,0 +1,65 @@
+package spring.start.here.juniemvc.config;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import spring.start.here.juniemvc.service.BeerService;
+import spring.start.here.juniemvc.web.model.BeerUpsertDto;
+
+import javax.sql.DataSource;
+import java.math.BigDecimal;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Two embedded H2 databases stand in for primary and replica. They are not replicated,
+ * so a write is only visible to read-only transactions if they were wrongly routed to the primary.
+ */
+@SpringBootTest(properties = {
+        "junie.datasource.routing.enabled=true",
+        "junie.datasource.routing.primary.url=jdbc:h2:mem:routing-primary;DB_CLOSE_DELAY=-1",
+        "junie.datasource.routing.replica.url=jdbc:h2:mem:routing-replica;DB_CLOSE_DELAY=-1",
+        "junie.datasource.routing.migrate-replica=true"
+})
+class DataSourceRoutingIntegrationTest {
+
+    @Autowired
+    BeerService beerService;
+
+    @Autowired
+    @Qualifier("primaryDataSource")
+    DataSource primaryDataSource;
+
+    @Autowired
+    @Qualifier("replicaDataSource")
+    DataSource replicaDataSource;
+
+    @Test
+    void writesGoToPrimary_readOnlyTransactionsGoToReplica() {
+        beerService.saveBeer(BeerUpsertDto.builder()
+                .beerName("Routed Lager").beerStyle("LAGER").upc("routing-1")
+                .quantityOnHand(10).price(new BigDecimal("9.99"))
+                .build());
+
+        assertThat(countBeers(primaryDataSource)).isEqualTo(1);
+        assertThat(countBeers(replicaDataSource)).isZero();
+        assertThat(beerService.getAllBeers(0, 25).getTotalElements()).isZero();
+    }
+
+    @Test
+    void cachedReadsById_areLoadedFromPrimary() {
+        Integer id = beerService.saveBeer(BeerUpsertDto.builder()
+                .beerName("Cached Lager").beerStyle("LAGER").upc("routing-2")
+                .quantityOnHand(10).price(new BigDecimal("9.99"))
+                .build()).getId();
+
+        assertThat(beerService.getBeerById(id)).isPresent();
+        assertThat(beerService.deleteBeer(id)).isTrue();
+    }
+
+    private static Integer countBeers(DataSource dataSource) {
+        return new JdbcTemplate(dataSource).queryForObject("SELECT COUNT(*) FROM beer", Integer.class);
+    }
+}
@@ -0,0 +1,75 @@
+package spring.start.here.juniemvc.config;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.BDDMockito.given;
+
+@ExtendWith(MockitoExtension.class)
+class ReadWriteRoutingDataSourceTest {
+
+    @Mock
+    ReplicaLagMonitor replicaLagMonitor;
+
+    SimpleMeterRegistry meterRegistry;
+    ReadWriteRoutingDataSource routingDataSource;
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        routingDataSource = new ReadWriteRoutingDataSource(replicaLagMonitor, meterRegistry);
+    }
+
+    @AfterEach
+    void tearDown() {
+        TransactionSynchronizationManager.setCurrentTransactionReadOnly(false);
+    }
+
+    @Test
+    void readWriteTransaction_routesToPrimary() {
+        TransactionSynchronizationManager.setCurrentTransactionReadOnly(false);
+
+        assertThat(routingDataSource.determineCurrentLookupKey())
+                .isEqualTo(ReadWriteRoutingDataSource.Route.PRIMARY);
+        assertThat(meterRegistry.get("junie.datasource.routing").tag("route", "primary").counter().count())
+                .isEqualTo(1.0);
+    }
+
+    @Test
+    void readOnlyTransaction_routesToReplica() {
+        TransactionSynchronizationManager.setCurrentTransactionReadOnly(true);
+        given(replicaLagMonitor.isReplicaUsable()).willReturn(true);
+
+        assertThat(routingDataSource.determineCurrentLookupKey())
+                .isEqualTo(ReadWriteRoutingDataSource.Route.REPLICA);
+        assertThat(meterRegistry.get("junie.datasource.routing").tag("route", "replica").counter().count())
+                .isEqualTo(1.0);
+    }
+
+    @Test
+    void readOnlyTransaction_insidePrimaryReads_routesToPrimary() {
+        TransactionSynchronizationManager.setCurrentTransactionReadOnly(true);
+
+        assertThat(PrimaryReads.run(routingDataSource::determineCurrentLookupKey))
+                .isEqualTo(ReadWriteRoutingDataSource.Route.PRIMARY);
+        assertThat(PrimaryReads.isActive()).isFalse();
+    }
+
+    @Test
+    void readOnlyTransaction_laggingReplica_fallsBackToPrimary() {
+        TransactionSynchronizationManager.setCurrentTransactionReadOnly(true);
+        given(replicaLagMonitor.isReplicaUsable()).willReturn(false);
+
+        assertThat(routingDataSource.determineCurrentLookupKey())
+                .isEqualTo(ReadWriteRoutingDataSource.Route.PRIMARY);
+        assertThat(meterRegistry.get("junie.datasource.routing").tag("route", "replica_fallback").counter().count())
+                .isEqualTo(1.0);
+    }
+}
@@ -0,0 +1,264 @@
+package spring.start.here.juniemvc.config;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
+import org.springframework.transaction.support.TransactionTemplate;
+import spring.start.here.juniemvc.JunieMvcApplication;
+import spring.start.here.juniemvc.service.BeerOrderIdempotencyService;
+import spring.start.here.juniemvc.service.BeerOrderService;
+import spring.start.here.juniemvc.service.BeerService;
+import spring.start.here.juniemvc.service.CustomerService;
+import spring.start.here.juniemvc.web.model.BeerOrderDto;
+import spring.start.here.juniemvc.web.model.BeerOrderLineDto;
+import spring.start.here.juniemvc.web.model.BeerOrderLineOperationDto;
+import spring.start.here.juniemvc.web.model.BeerOrderLineUpsertDto;
+import spring.start.here.juniemvc.web.model.BeerOrderLinesPatchDto;
+import spring.start.here.juniemvc.web.model.BeerOrderUpsertDto;
+import spring.start.here.juniemvc.web.model.BeerUpsertDto;
+import spring.start.here.juniemvc.web.model.CustomerUpsertDto;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * Three embedded H2 databases stand in for the order shards, next to the application database that keeps
+ * customers and beers. Orders are checked in the shard databases directly.
+ */
+@SpringBootTest(properties = {
+        "junie.sharding.enabled=true",
+        "junie.sharding.shards[0].url=" + ShardingIntegrationTest.SHARD_0,
+        "junie.sharding.shards[1].url=" + ShardingIntegrationTest.SHARD_1,
+        "junie.sharding.shards[2].url=" + ShardingIntegrationTest.SHARD_2,
+        "junie.archival.enabled=false",
+        "junie.reporting.enabled=false",
+        "junie.warmup.enabled=false"
+})
+class ShardingIntegrationTest {
+
+    static final String SHARD_0 = "jdbc:h2:mem:sharding-0;DB_CLOSE_DELAY=-1";
+    static final String SHARD_1 = "jdbc:h2:mem:sharding-1;DB_CLOSE_DELAY=-1";
+    static final String SHARD_2 = "jdbc:h2:mem:sharding-2;DB_CLOSE_DELAY=-1";
+
+    @Autowired
+    BeerOrderService beerOrderService;
+
+    @Autowired
+    CustomerService customerService;
+
+    @Autowired
+    BeerService beerService;
+
+    @Autowired
+    BeerOrderIdempotencyService beerOrderIdempotencyService;
+
+    @Autowired
+    TransactionTemplate transactionTemplate;
+
+    @Test
+    void ordersAreStoredInTheShardOfTheirCustomer() {
+        Integer beerId = beer("Sharded Stout", "4.00");
+        List<Integer> customerIds = new ArrayList<>();
+        for (int i = 0; i < 3; i++) {
+            customerIds.add(customer("Shard customer " + i));
+        }
+
+        for (Integer customerId : customerIds) {
+            BeerOrderDto order = beerOrderService.createOrder(order(customerId, beerId, 2));
+
+            int shard = customerId % 3;
+            assertThat(order.id() % 3).isEqualTo(shard);
+            assertThat(order.orderLines()).allSatisfy(line -> assertThat(line.id() % 3).isEqualTo(shard));
+            assertThat(order.totalAmount()).isEqualByComparingTo("8.00");
+            assertThat(countOrders(shard, order.id())).isEqualTo(1);
+            assertThat(countOrders((shard + 1) % 3, order.id())).isZero();
+            assertThat(beerOrderService.getById(order.id())).get()
+                    .extracting(BeerOrderDto::customerId).isEqualTo(customerId);
+            assertThat(beerOrderService.getByCustomer(customerId, null, null))
+                    .extracting(BeerOrderDto::id).containsExactly(order.id());
+        }
+    }
+
+    @Test
+    void getAll_mergesShardsInIdOrder() {
+        Integer beerId = beer("Merged Porter", "3.00");
+        List<Integer> ids = new ArrayList<>();
+        for (int i = 0; i < 7; i++) {
+            ids.add(beerOrderService.createOrder(order(customer("Merge customer " + i), beerId, 1)).id());
+        }
+
+        List<Integer> all = beerOrderService.getAll(null, null).stream().map(BeerOrderDto::id).toList();
+        assertThat(all).isSortedAccordingTo(Comparator.naturalOrder()).containsAll(ids);
+
+        List<Integer> paged = new ArrayList<>();
+        for (int page = 0; page * 3 < all.size(); page++) {
+            List<BeerOrderDto> orders = beerOrderService.getAll(page, 3);
+            assertThat(orders).allSatisfy(order -> assertThat(order.orderLines()).hasSize(1));
+            orders.forEach(order -> paged.add(order.id()));
+        }
+        assertThat(paged).isEqualTo(all);
+        assertThat(beerOrderService.getByIds(List.of(ids.get(2), ids.get(0), -3)).orders())
+                .extracting(BeerOrderDto::id).containsExactly(ids.get(2), ids.get(0));
+    }
+
+    @Test
+    void updateAndPatchLines_areGuardedByVersion() {
+        Integer beerId = beer("Patched Pils", "2.50");
+        Integer otherBeerId = beer("Added Ale", "5.00");
+        BeerOrderDto order = beerOrderService.createOrder(order(customer("Patch customer"), beerId, 2));
+        BeerOrderLineDto line = order.orderLines().getFirst();
+
+        BeerOrderDto paid = beerOrderService.updateStatus(order.id(), "PAID").orElseThrow();
+        assertThat(paid.version()).isEqualTo(order.version() + 1);
+
+        BeerOrderDto patched = beerOrderService.patchLines(order.id(), new BeerOrderLinesPatchDto(paid.version(), List.of(
+                new BeerOrderLineOperationDto(BeerOrderLineOperationDto.Operation.UPDATE, line.id(), line.version(), null, 4),
+                new BeerOrderLineOperationDto(BeerOrderLineOperationDto.Operation.ADD, null, null, otherBeerId, 1)))).orElseThrow();
+
+        assertThat(patched.totalAmount()).isEqualByComparingTo("15.00");
+        assertThat(patched.lineCount()).isEqualTo(2);
+        assertThat(beerOrderService.getById(order.id())).get().satisfies(read -> {
+            assertThat(read.version()).isEqualTo(paid.version() + 1);
+            assertThat(read.orderStatus()).isEqualTo("PAID");
+            assertThat(read.orderLines()).extracting(BeerOrderLineDto::orderQuantity).containsExactlyInAnyOrder(4, 1);
+        });
+        assertThatThrownBy(() -> beerOrderService.patchLines(order.id(), new BeerOrderLinesPatchDto(paid.version(), List.of(
+                new BeerOrderLineOperationDto(BeerOrderLineOperationDto.Operation.REMOVE, line.id(), null, null, null)))))
+                .isInstanceOf(ObjectOptimisticLockingFailureException.class);
+
+        assertThat(beerOrderService.delete(order.id())).isTrue();
+        assertThat(beerOrderService.getById(order.id())).isEmpty();
+        assertThat(beerOrderService.delete(order.id())).isFalse();
+    }
+
+    @Test
+    void customerDelete_removesOrdersFromShard() {
+        Integer beerId = beer("Deleted Dunkel", "3.00");
+        Integer customerId = customer("Deleted customer");
+        BeerOrderDto first = beerOrderService.createOrder(order(customerId, beerId, 1));
+        BeerOrderDto second = beerOrderService.createOrder(order(customerId, beerId, 2));
+
+        assertThat(customerService.delete(customerId)).isTrue();
+
+        assertThat(countOrders(customerId % 3, first.id())).isZero();
+        assertThat(countOrders(customerId % 3, second.id())).isZero();
+        assertThat(beerOrderService.getByCustomer(customerId, null, null)).isEmpty();
+    }
+
+    @Test
+    void idempotentCreate_replaysOrderFromShard() {
+        Integer beerId = beer("Replayed Rauchbier", "2.00");
+        BeerOrderUpsertDto upsert = order(customer("Replay customer"), beerId, 3);
+
+        BeerOrderDto created = beerOrderIdempotencyService.createOrder("shard-key-1", upsert);
+        BeerOrderDto replayed = beerOrderIdempotencyService.createOrder("shard-key-1", upsert);
+
+        assertThat(replayed.id()).isEqualTo(created.id());
+        assertThat(beerOrderService.getByCustomer(upsert.customerId(), null, null))
+                .extracting(BeerOrderDto::id).containsExactly(created.id());
+    }
+
+    @Test
+    void idempotentCreate_retryAfterKeyRowWasLost_returnsOrderFromShard() {
+        Integer beerId = beer("Retried Roggenbier", "2.00");
+        BeerOrderUpsertDto upsert = order(customer("Retry customer"), beerId, 1);
+        // The shard committed, but the transaction claiming the key row in the application database did not
+        BeerOrderDto orphan = beerOrderService.createOrder(upsert, "shard-key-2");
+
+        BeerOrderDto retried = beerOrderIdempotencyService.createOrder("shard-key-2", upsert);
+
+        assertThat(retried.id()).isEqualTo(orphan.id());
+        assertThat(beerOrderService.getByCustomer(upsert.customerId(), null, null))
+                .extracting(BeerOrderDto::id).containsExactly(orphan.id());
+    }
+
+    @Test
+    void createOrder_duringCustomerDelete_isRejectedInsteadOfOrphaned() throws Exception {
+        Integer beerId = beer("Raced Radler", "2.00");
+        Integer customerId = customer("Raced customer");
+        CountDownLatch deleted = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+
+        // The delete stays uncommitted until released, so the customer row still reads as present
+        CompletableFuture<Boolean> delete = CompletableFuture.supplyAsync(() -> transactionTemplate.execute(status -> {
+            boolean result = customerService.delete(customerId);
+            deleted.countDown();
+            await(release);
+            return result;
+        }));
+        assertThat(deleted.await(5, TimeUnit.SECONDS)).isTrue();
+        CompletableFuture<BeerOrderDto> create = CompletableFuture.supplyAsync(
+                () -> beerOrderService.createOrder(order(customerId, beerId, 1)));
+        Thread.sleep(300);
+        release.countDown();
+
+        assertThat(delete.get(5, TimeUnit.SECONDS)).isTrue();
+        assertThatThrownBy(() -> create.get(5, TimeUnit.SECONDS))
+                .hasCauseInstanceOf(IllegalArgumentException.class);
+        assertThat(countCustomerOrders(customerId % 3, customerId)).isZero();
+    }
+
+    @Test
+    void startupFails_whenFeaturesReadingUnshardedOrdersAreOn() {
+        assertThatThrownBy(() -> new SpringApplicationBuilder(JunieMvcApplication.class).run(
+                "--junie.sharding.enabled=true",
+                "--junie.sharding.shards[0].url=jdbc:h2:mem:sharding-rejected;DB_CLOSE_DELAY=-1",
+                "--junie.order-intake.mode=ASYNC",
+                "--junie.warmup.enabled=false",
+                "--server.port=0"))
+                .rootCause()
+                .hasMessageContaining("junie.order-intake.mode=SYNC")
+                .hasMessageContaining("junie.archival.enabled=false")
+                .hasMessageContaining("junie.reporting.enabled=false");
+    }
+
+    private Integer customer(String name) {
+        return customerService.create(new CustomerUpsertDto(name, "shard@example.com", "123")).id();
+    }
+
+    private Integer beer(String name, String price) {
+        return beerService.saveBeer(BeerUpsertDto.builder()
+                .beerName(name).beerStyle("STOUT").upc(name)
+                .quantityOnHand(100).price(new BigDecimal(price))
+                .build()).getId();
+    }
+
+    private static BeerOrderUpsertDto order(Integer customerId, Integer beerId, int quantity) {
+        return new BeerOrderUpsertDto(customerId, "ref-" + customerId, null,
+                List.of(new BeerOrderLineUpsertDto(beerId, quantity)));
+    }
+
+    private static Integer countOrders(int shard, Integer orderId) {
+        return shard(shard).queryForObject("SELECT COUNT(*) FROM beer_order WHERE id = ?", Integer.class, orderId);
+    }
+
+    private static Integer countCustomerOrders(int shard, Integer customerId) {
+        return shard(shard).queryForObject("SELECT COUNT(*) FROM beer_order WHERE customer_id = ?", Integer.class,
+                customerId);
+    }
+
+    private static JdbcTemplate shard(int shard) {
+        String url = List.of(SHARD_0, SHARD_1, SHARD_2).get(shard);
+        return new JdbcTemplate(new DriverManagerDataSource(url, "sa", ""));
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
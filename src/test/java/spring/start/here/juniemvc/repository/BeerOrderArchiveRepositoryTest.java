@@ -0,0 +1,142 @@
+package spring.start.here.juniemvc.repository;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.context.annotation.Import;
+import org.springframework.jdbc.core.JdbcTemplate;
+import spring.start.here.juniemvc.domain.model.*;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@DataJpaTest
+@Import(BeerOrderArchiveRepository.class)
+class BeerOrderArchiveRepositoryTest {
+
+    private static final List<String> TERMINAL = List.of("DELIVERED", "CANCELLED");
+
+    @Autowired
+    BeerOrderArchiveRepository beerOrderArchiveRepository;
+
+    @Autowired
+    BeerOrderRepository beerOrderRepository;
+
+    @Autowired
+    CustomerRepository customerRepository;
+
+    @Autowired
+    BeerRepository beerRepository;
+
+    @Autowired
+    TestEntityManager entityManager;
+
+    @Autowired
+    JdbcTemplate jdbcTemplate;
+
+    @Test
+    void archive_movesOldTerminalOrdersWithLines() {
+        Customer customer = customerRepository.save(Customer.builder()
+                .name("John Doe").email("john@example.com").phone("123")
+                .build());
+        Beer beer = beerRepository.save(Beer.builder()
+                .beerName("Test").beerStyle("IPA").upc("u").price(BigDecimal.ONE).quantityOnHand(10)
+                .build());
+        BeerOrder delivered = saveOrder(customer, beer, "DELIVERED");
+        BeerOrder open = saveOrder(customer, beer, "ALLOCATED");
+        jdbcTemplate.update("UPDATE beer_order SET update_date = ?", LocalDateTime.now().minusYears(2));
+        entityManager.clear();
+
+        List<Integer> ids = beerOrderArchiveRepository.findArchivableIds(TERMINAL,
+                LocalDateTime.now().minusYears(1), 10);
+        assertThat(ids).containsExactly(delivered.getId());
+
+        assertThat(beerOrderArchiveRepository.archive(ids, TERMINAL)).isEqualTo(1);
+
+        assertThat(beerOrderRepository.findById(delivered.getId())).isEmpty();
+        assertThat(beerOrderRepository.findById(open.getId())).isPresent();
+        Optional<BeerOrder> archived = beerOrderArchiveRepository.findById(delivered.getId());
+        assertThat(archived).hasValueSatisfying(order -> {
+            assertThat(order.getOrderStatus()).isEqualTo("DELIVERED");
+            assertThat(order.getCustomer().getId()).isEqualTo(customer.getId());
+            assertThat(order.getTotalAmount()).isEqualByComparingTo("3.00");
+            assertThat(order.getLineCount()).isEqualTo(1);
+            assertThat(order.getBeerOrderLines()).singleElement().satisfies(line -> {
+                assertThat(line.getBeer().getId()).isEqualTo(beer.getId());
+                assertThat(line.getOrderQuantity()).isEqualTo(3);
+                assertThat(line.getUnitPrice()).isEqualByComparingTo("1.00");
+            });
+        });
+    }
+
+    @Test
+    void findArchivableIds_partitionsSplitOrdersById() {
+        Customer customer = customerRepository.save(Customer.builder()
+                .name("Joe Doe").email("joe@example.com").phone("123")
+                .build());
+        Beer beer = beerRepository.save(Beer.builder()
+                .beerName("Test").beerStyle("IPA").upc("x").price(BigDecimal.ONE).quantityOnHand(10)
+                .build());
+        List<Integer> all = List.of(saveOrder(customer, beer, "DELIVERED").getId(),
+                saveOrder(customer, beer, "DELIVERED").getId(), saveOrder(customer, beer, "CANCELLED").getId());
+        jdbcTemplate.update("UPDATE beer_order SET update_date = ?", LocalDateTime.now().minusYears(2));
+        LocalDateTime cutoff = LocalDateTime.now().minusYears(1);
+
+        List<Integer> even = beerOrderArchiveRepository.findArchivableIds(TERMINAL, cutoff, 10, 0, 2);
+        List<Integer> odd = beerOrderArchiveRepository.findArchivableIds(TERMINAL, cutoff, 10, 1, 2);
+
+        assertThat(even).allSatisfy(id -> assertThat(id % 2).isZero());
+        assertThat(odd).allSatisfy(id -> assertThat(id % 2).isOne());
+        assertThat(Stream.concat(even.stream(), odd.stream())).containsExactlyInAnyOrderElementsOf(all);
+    }
+
+    @Test
+    void findAllById_loadsArchivedOrdersWithTheirLines() {
+        Customer customer = customerRepository.save(Customer.builder()
+                .name("Jim Doe").email("jim@example.com").phone("123")
+                .build());
+        Beer beer = beerRepository.save(Beer.builder()
+                .beerName("Test").beerStyle("IPA").upc("w").price(BigDecimal.ONE).quantityOnHand(10)
+                .build());
+        BeerOrder first = saveOrder(customer, beer, "DELIVERED");
+        BeerOrder second = saveOrder(customer, beer, "CANCELLED");
+        entityManager.clear();
+        beerOrderArchiveRepository.archive(List.of(first.getId(), second.getId()), TERMINAL);
+
+        List<BeerOrder> archived = beerOrderArchiveRepository.findAllById(List.of(first.getId(), second.getId(), -1));
+
+        assertThat(archived).extracting(BeerOrder::getId).containsExactlyInAnyOrder(first.getId(), second.getId());
+        assertThat(archived).allSatisfy(order -> assertThat(order.getBeerOrderLines()).hasSize(1));
+    }
+
+    @Test
+    void archive_skipsOrdersNoLongerInTerminalStatus() {
+        Customer customer = customerRepository.save(Customer.builder()
+                .name("Jane Doe").email("jane@example.com").phone("123")
+                .build());
+        Beer beer = beerRepository.save(Beer.builder()
+                .beerName("Test").beerStyle("IPA").upc("v").price(BigDecimal.ONE).quantityOnHand(10)
+                .build());
+        BeerOrder order = saveOrder(customer, beer, "ALLOCATED");
+        entityManager.clear();
+
+        assertThat(beerOrderArchiveRepository.archive(List.of(order.getId()), TERMINAL)).isZero();
+        assertThat(beerOrderRepository.findById(order.getId())).isPresent();
+    }
+
+    private BeerOrder saveOrder(Customer customer, Beer beer, String status) {
+        BeerOrder order = BeerOrder.builder().customer(customer).orderStatus(status)
+                .totalAmount(new BigDecimal("3.00")).lineCount(1)
+                .build();
+        order.getBeerOrderLines().add(BeerOrderLine.builder()
+                .beer(beer).beerOrder(order).orderQuantity(3).quantityAllocated(0).unitPrice(BigDecimal.ONE)
+                .build());
+        return beerOrderRepository.saveAndFlush(order);
+    }
+}
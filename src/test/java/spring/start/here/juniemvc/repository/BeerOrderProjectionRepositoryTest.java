@@ -0,0 +1,70 @@
+package spring.start.here.juniemvc.repository;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import spring.start.here.juniemvc.domain.model.*;
+
+import java.math.BigDecimal;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+@DataJpaTest
+@Import(BeerOrderProjectionRepository.class)
+class BeerOrderProjectionRepositoryTest {
+
+    @Autowired
+    BeerOrderProjectionRepository beerOrderProjectionRepository;
+
+    @Autowired
+    BeerOrderRepository beerOrderRepository;
+
+    @Autowired
+    CustomerRepository customerRepository;
+
+    @Autowired
+    BeerRepository beerRepository;
+
+    @Test
+    void findColumns_returnsRequestedColumnsInIdOrder() {
+        Customer customer = customerRepository.save(Customer.builder()
+                .name("John Doe").email("john@example.com").phone("123")
+                .build());
+        Beer beer = beerRepository.save(Beer.builder()
+                .beerName("Test").beerStyle("IPA").upc("u").price(BigDecimal.ONE).quantityOnHand(10)
+                .build());
+        BeerOrder first = saveOrder(customer, beer, "NEW");
+        BeerOrder second = saveOrder(customer, beer, "ALLOCATED");
+        beerOrderRepository.flush();
+
+        List<Object[]> all = beerOrderProjectionRepository.findColumns(
+                List.of("order_status", "id"), Pageable.unpaged());
+        assertThat(all).containsExactly(
+                new Object[]{"NEW", first.getId()},
+                new Object[]{"ALLOCATED", second.getId()});
+
+        List<Object[]> page = beerOrderProjectionRepository.findColumns(
+                List.of("id", "customer_id"), PageRequest.of(1, 1));
+        assertThat(page).containsExactly(new Object[]{second.getId(), customer.getId()});
+    }
+
+    @Test
+    void findColumns_rejectsUnknownColumns() {
+        assertThatThrownBy(() -> beerOrderProjectionRepository.findColumns(
+                List.of("id", "1; DROP TABLE beer_order"), Pageable.unpaged()))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+
+    private BeerOrder saveOrder(Customer customer, Beer beer, String status) {
+        BeerOrder order = BeerOrder.builder().customer(customer).orderStatus(status).build();
+        order.getBeerOrderLines().add(BeerOrderLine.builder()
+                .beer(beer).beerOrder(order).orderQuantity(2).quantityAllocated(0)
+                .build());
+        return beerOrderRepository.save(order);
+    }
+}
@@ -0,0 +1,137 @@
+package spring.start.here.juniemvc.repository;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import spring.start.here.juniemvc.domain.model.*;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@DataJpaTest
+@Import(BeerOrderArchiveRepository.class)
+class BeerSalesDailyRepositoryTest {
+
+    @Autowired
+    BeerSalesDailyRepository beerSalesDailyRepository;
+
+    @Autowired
+    CustomerOrdersDailyRepository customerOrdersDailyRepository;
+
+    @Autowired
+    BeerOrderRepository beerOrderRepository;
+
+    @Autowired
+    CustomerRepository customerRepository;
+
+    @Autowired
+    BeerRepository beerRepository;
+
+    @Autowired
+    BeerOrderArchiveRepository beerOrderArchiveRepository;
+
+    @Test
+    void applyOrder_addsAndRemovesOrderFromDayBucket() {
+        Beer beer = saveBeer();
+        Customer customer = saveCustomer();
+        BeerOrder first = saveOrder(customer, beer, 3, "NEW");
+        BeerOrder second = saveOrder(customer, beer, 4, "NEW");
+        LocalDate today = LocalDate.now();
+
+        beerSalesDailyRepository.applyOrder(first.getId(), 1);
+        beerSalesDailyRepository.applyOrder(second.getId(), 1);
+        customerOrdersDailyRepository.applyOrder(first.getId(), 1);
+        customerOrdersDailyRepository.applyOrder(second.getId(), 1);
+        beerSalesDailyRepository.applyOrder(first.getId(), -1);
+        customerOrdersDailyRepository.applyOrder(first.getId(), -1);
+
+        List<BeerSalesDaily> sales = beerSalesDailyRepository
+                .findAllByBeerIdAndSalesDateBetweenOrderBySalesDateAsc(beer.getId(), today, today);
+        assertThat(sales).singleElement().satisfies(row -> {
+            assertThat(row.getQuantity()).isEqualTo(4L);
+            assertThat(row.getOrderLineCount()).isEqualTo(1L);
+        });
+        List<CustomerOrdersDaily> orders = customerOrdersDailyRepository
+                .findAllByCustomerIdAndOrderDateBetweenOrderByOrderDateAsc(customer.getId(), today, today);
+        assertThat(orders).singleElement().satisfies(row -> assertThat(row.getOrderCount()).isEqualTo(1L));
+    }
+
+    @Test
+    void rebuild_recomputesRangeFromRawTablesAndSkipsCancelledOrders() {
+        Beer beer = saveBeer();
+        Customer customer = saveCustomer();
+        saveOrder(customer, beer, 2, "NEW");
+        saveOrder(customer, beer, 5, "DELIVERED");
+        saveOrder(customer, beer, 7, "CANCELLED");
+        LocalDate today = LocalDate.now();
+
+        for (int run = 0; run < 2; run++) {
+            beerSalesDailyRepository.deleteRange(today, today);
+            customerOrdersDailyRepository.deleteRange(today, today);
+            beerSalesDailyRepository.insertRange(today.atStartOfDay(), today.plusDays(1).atStartOfDay());
+            customerOrdersDailyRepository.insertRange(today.atStartOfDay(), today.plusDays(1).atStartOfDay());
+        }
+
+        assertThat(beerSalesDailyRepository
+                .findAllByBeerIdAndSalesDateBetweenOrderBySalesDateAsc(beer.getId(), today, today))
+                .singleElement().satisfies(row -> {
+                    assertThat(row.getQuantity()).isEqualTo(7L);
+                    assertThat(row.getOrderLineCount()).isEqualTo(2L);
+                });
+        assertThat(customerOrdersDailyRepository
+                .findAllByCustomerIdAndOrderDateBetweenOrderByOrderDateAsc(customer.getId(), today, today))
+                .singleElement().satisfies(row -> assertThat(row.getOrderCount()).isEqualTo(2L));
+    }
+
+    @Test
+    void removeOrders_subtractsLiveAndArchivedOrdersButNotCancelledOnes() {
+        Beer beer = saveBeer();
+        Customer customer = saveCustomer();
+        saveOrder(customer, beer, 2, "NEW");
+        BeerOrder live = saveOrder(customer, beer, 3, "NEW");
+        BeerOrder archived = saveOrder(customer, beer, 4, "DELIVERED");
+        BeerOrder cancelled = saveOrder(customer, beer, 5, "CANCELLED");
+        LocalDate today = LocalDate.now();
+        beerSalesDailyRepository.insertRange(today.atStartOfDay(), today.plusDays(1).atStartOfDay());
+        customerOrdersDailyRepository.insertRange(today.atStartOfDay(), today.plusDays(1).atStartOfDay());
+        beerOrderArchiveRepository.archive(List.of(archived.getId()), List.of("DELIVERED"));
+
+        List<Integer> deleted = List.of(live.getId(), archived.getId(), cancelled.getId());
+        beerSalesDailyRepository.removeOrders(deleted);
+        customerOrdersDailyRepository.removeOrders(deleted);
+
+        assertThat(beerSalesDailyRepository
+                .findAllByBeerIdAndSalesDateBetweenOrderBySalesDateAsc(beer.getId(), today, today))
+                .singleElement().satisfies(row -> {
+                    assertThat(row.getQuantity()).isEqualTo(2L);
+                    assertThat(row.getOrderLineCount()).isEqualTo(1L);
+                });
+        assertThat(customerOrdersDailyRepository
+                .findAllByCustomerIdAndOrderDateBetweenOrderByOrderDateAsc(customer.getId(), today, today))
+                .singleElement().satisfies(row -> assertThat(row.getOrderCount()).isEqualTo(1L));
+    }
+
+    private Beer saveBeer() {
+        return beerRepository.save(Beer.builder()
+                .beerName("Rollup").beerStyle("IPA").upc("rollup").price(BigDecimal.ONE).quantityOnHand(10)
+                .build());
+    }
+
+    private Customer saveCustomer() {
+        return customerRepository.save(Customer.builder()
+                .name("Jane Doe").email("jane@example.com").phone("123")
+                .build());
+    }
+
+    private BeerOrder saveOrder(Customer customer, Beer beer, int quantity, String status) {
+        BeerOrder order = BeerOrder.builder().customer(customer).orderStatus(status).build();
+        order.getBeerOrderLines().add(BeerOrderLine.builder()
+                .beer(beer).beerOrder(order).orderQuantity(quantity).quantityAllocated(0)
+                .build());
+        return beerOrderRepository.saveAndFlush(order);
+    }
+}
@@ -0,0 +1,91 @@
+package spring.start.here.juniemvc.repository;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.context.annotation.Import;
+import org.springframework.jdbc.core.JdbcTemplate;
+import spring.start.here.juniemvc.domain.model.*;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@DataJpaTest
+@Import(DatabaseSnapshotRepository.class)
+class DatabaseSnapshotRepositoryTest {
+
+    // Foreign key order; restored front to back, cleared back to front
+    private static final List<String> TABLES = List.of("customer", "beer", "beer_order", "beer_order_line");
+
+    @Autowired
+    DatabaseSnapshotRepository databaseSnapshotRepository;
+
+    @Autowired
+    BeerOrderRepository beerOrderRepository;
+
+    @Autowired
+    TestEntityManager entityManager;
+
+    @Autowired
+    JdbcTemplate jdbcTemplate;
+
+    @Test
+    void dumpAndRestore_reproducesEveryRow() throws Exception {
+        Customer customer = entityManager.persist(Customer.builder()
+                .name("John Doe").email(null).phone("123")
+                .build());
+        Beer beer = entityManager.persist(Beer.builder()
+                .beerName("Snapshot Ale").beerStyle("ALE").upc("snap").price(new BigDecimal("12.50")).quantityOnHand(7)
+                .build());
+        for (int i = 0; i < 25; i++) {
+            BeerOrder order = BeerOrder.builder().customer(customer).orderStatus("NEW").build();
+            order.getBeerOrderLines().add(BeerOrderLine.builder()
+                    .beer(beer).beerOrder(order).orderQuantity(i + 1).quantityAllocated(0)
+                    .build());
+            beerOrderRepository.save(order);
+        }
+        entityManager.flush();
+        entityManager.clear();
+        Map<String, List<Map<String, Object>>> before = readTables();
+
+        ByteArrayOutputStream snapshot = new ByteArrayOutputStream();
+        try (SnapshotOutput out = new SnapshotOutput(snapshot)) {
+            for (String table : TABLES) {
+                databaseSnapshotRepository.dumpTable(table, out);
+            }
+            out.finish();
+        }
+        for (String table : TABLES.reversed()) {
+            jdbcTemplate.update("DELETE FROM " + table);
+        }
+        assertThat(databaseSnapshotRepository.isEmpty("beer_order")).isTrue();
+
+        try (SnapshotInput in = new SnapshotInput(new ByteArrayInputStream(snapshot.toByteArray()))) {
+            assertThat(in.nextTable()).isEqualTo("customer");
+            assertThat(databaseSnapshotRepository.restoreTable("customer", in, 10)).isEqualTo(1);
+            assertThat(in.nextTable()).isEqualTo("beer");
+            assertThat(databaseSnapshotRepository.restoreTable("beer", in, 10)).isEqualTo(1);
+            assertThat(in.nextTable()).isEqualTo("beer_order");
+            assertThat(databaseSnapshotRepository.restoreTable("beer_order", in, 10)).isEqualTo(25);
+            assertThat(in.nextTable()).isEqualTo("beer_order_line");
+            assertThat(databaseSnapshotRepository.restoreTable("beer_order_line", in, 10)).isEqualTo(25);
+            assertThat(in.nextTable()).isNull();
+        }
+
+        assertThat(readTables()).isEqualTo(before);
+    }
+
+    private Map<String, List<Map<String, Object>>> readTables() {
+        return Map.of(
+                "customer", jdbcTemplate.queryForList("SELECT * FROM customer ORDER BY id"),
+                "beer", jdbcTemplate.queryForList("SELECT * FROM beer ORDER BY id"),
+                "beer_order", jdbcTemplate.queryForList("SELECT * FROM beer_order ORDER BY id"),
+                "beer_order_line", jdbcTemplate.queryForList("SELECT * FROM beer_order_line ORDER BY id"));
+    }
+}
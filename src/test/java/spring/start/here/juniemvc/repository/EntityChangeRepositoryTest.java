@@ -0,0 +1,47 @@
+package spring.start.here.juniemvc.repository;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import spring.start.here.juniemvc.domain.event.EntityChangedEvent;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static spring.start.here.juniemvc.domain.event.EntityChangedEvent.EntityType.BEER;
+import static spring.start.here.juniemvc.domain.event.EntityChangedEvent.EntityType.CUSTOMER;
+
+@DataJpaTest
+@Import(EntityChangeRepository.class)
+class EntityChangeRepositoryTest {
+
+    @Autowired
+    EntityChangeRepository entityChangeRepository;
+
+    @Test
+    void findSince_returnsChangesOfOtherNodesInIdOrder() {
+        LocalDateTime start = entityChangeRepository.currentTimestamp().minusSeconds(1);
+        entityChangeRepository.insertAll("node-a", List.of(
+                new EntityChangedEvent(BEER, 1), new EntityChangedEvent(CUSTOMER, 2)));
+        entityChangeRepository.insertAll("node-b", List.of(new EntityChangedEvent(BEER, 3)));
+
+        List<EntityChangeRepository.Change> changes = entityChangeRepository.findSince(start, "node-b");
+
+        assertThat(changes).extracting(EntityChangeRepository.Change::event).containsExactly(
+                new EntityChangedEvent(BEER, 1), new EntityChangedEvent(CUSTOMER, 2));
+        assertThat(changes.get(0).id()).isLessThan(changes.get(1).id());
+        assertThat(changes.get(0).createdDate()).isAfterOrEqualTo(start);
+        assertThat(entityChangeRepository.findSince(start.plusHours(1), "node-b")).isEmpty();
+    }
+
+    @Test
+    void deleteCreatedBefore_removesOnlyOlderChanges() {
+        entityChangeRepository.insertAll("node-a", List.of(new EntityChangedEvent(BEER, 1)));
+        LocalDateTime now = entityChangeRepository.currentTimestamp();
+
+        assertThat(entityChangeRepository.deleteCreatedBefore(now.minusHours(1))).isZero();
+        assertThat(entityChangeRepository.deleteCreatedBefore(now.plusSeconds(1))).isEqualTo(1);
+    }
+}
@@ -0,0 +1,157 @@
+package spring.start.here.juniemvc.service;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.transaction.PlatformTransactionManager;
+import spring.start.here.juniemvc.config.IdempotencyProperties;
+import spring.start.here.juniemvc.domain.model.IdempotencyKey;
+import spring.start.here.juniemvc.repository.IdempotencyKeyRepository;
+import spring.start.here.juniemvc.web.exception.IdempotencyKeyConflictException;
+import spring.start.here.juniemvc.web.model.BeerOrderDto;
+import spring.start.here.juniemvc.web.model.BeerOrderLineUpsertDto;
+import spring.start.here.juniemvc.web.model.BeerOrderUpsertDto;
+
+import java.math.BigDecimal;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.BDDMockito.given;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+@ExtendWith(MockitoExtension.class)
+class BeerOrderIdempotencyServiceImplTest {
+
+    @Mock
+    BeerOrderService beerOrderService;
+
+    @Mock
+    IdempotencyKeyRepository idempotencyKeyRepository;
+
+    @Mock
+    PlatformTransactionManager transactionManager;
+
+    @Mock
+    ClusterJobRunner clusterJobRunner;
+
+    BeerOrderIdempotencyServiceImpl idempotencyService;
+
+    BeerOrderUpsertDto upsertDto;
+    BeerOrderDto orderDto;
+
+    @BeforeEach
+    void setUp() {
+        idempotencyService = new BeerOrderIdempotencyServiceImpl(beerOrderService, idempotencyKeyRepository,
+                transactionManager, new IdempotencyProperties(), clusterJobRunner);
+        upsertDto = new BeerOrderUpsertDto(10, "REF", "cb", List.of(new BeerOrderLineUpsertDto(5, 2)));
+        orderDto = new BeerOrderDto(1, 0, 10, null, "NEW", "cb", BigDecimal.ZERO, 0, List.of());
+    }
+
+    @Test
+    void createOrder_retryIsReplayedWithoutReexecuting() {
+        given(idempotencyKeyRepository.findById("key-1")).willReturn(Optional.empty());
+        given(idempotencyKeyRepository.saveAndFlush(any(IdempotencyKey.class))).willAnswer(inv -> inv.getArgument(0));
+        given(beerOrderService.createOrder(upsertDto, "key-1")).willReturn(orderDto);
+
+        BeerOrderDto first = idempotencyService.createOrder("key-1", upsertDto);
+        BeerOrderDto retry = idempotencyService.createOrder("key-1", upsertDto);
+
+        assertThat(first).isEqualTo(orderDto);
+        assertThat(retry).isEqualTo(orderDto);
+        verify(beerOrderService, times(1)).createOrder(upsertDto, "key-1");
+    }
+
+    @Test
+    void createOrder_keyStoredByEarlierProcess_returnsStoredOrder() {
+        given(idempotencyKeyRepository.findById("key-1")).willReturn(Optional.empty());
+        given(idempotencyKeyRepository.saveAndFlush(any(IdempotencyKey.class))).willAnswer(inv -> inv.getArgument(0));
+        given(beerOrderService.createOrder(upsertDto, "key-1")).willReturn(orderDto);
+        idempotencyService.createOrder("key-1", upsertDto);
+
+        // A fresh instance has an empty in-memory cache and must fall back to the table
+        BeerOrderIdempotencyServiceImpl restarted = new BeerOrderIdempotencyServiceImpl(beerOrderService,
+                idempotencyKeyRepository, transactionManager, new IdempotencyProperties(), clusterJobRunner);
+        IdempotencyKey stored = IdempotencyKey.builder().key("key-1").beerOrderId(1)
+                .requestHash(capturedRequestHash()).build();
+        given(idempotencyKeyRepository.findById("key-1")).willReturn(Optional.of(stored));
+        given(beerOrderService.getById(1)).willReturn(Optional.of(orderDto));
+
+        assertThat(restarted.createOrder("key-1", upsertDto)).isEqualTo(orderDto);
+        verify(beerOrderService, times(1)).createOrder(upsertDto, "key-1");
+    }
+
+    @Test
+    void createOrder_keyReusedForDifferentRequest_throws() {
+        given(idempotencyKeyRepository.findById("key-1")).willReturn(Optional.empty());
+        given(idempotencyKeyRepository.saveAndFlush(any(IdempotencyKey.class))).willAnswer(inv -> inv.getArgument(0));
+        given(beerOrderService.createOrder(upsertDto, "key-1")).willReturn(orderDto);
+        idempotencyService.createOrder("key-1", upsertDto);
+
+        BeerOrderUpsertDto other = new BeerOrderUpsertDto(10, "REF", "cb", List.of(new BeerOrderLineUpsertDto(5, 3)));
+
+        assertThatThrownBy(() -> idempotencyService.createOrder("key-1", other))
+                .isInstanceOf(IdempotencyKeyConflictException.class);
+    }
+
+    @Test
+    void hash_isIndependentOfMapOrderAndDecimalScale() {
+        Map<String, Object> request = new LinkedHashMap<>();
+        request.put("quantity", 2);
+        request.put("price", new BigDecimal("1.0"));
+        Map<String, Object> sameRequest = new LinkedHashMap<>();
+        sameRequest.put("price", new BigDecimal("1.00"));
+        sameRequest.put("quantity", 2);
+
+        assertThat(BeerOrderIdempotencyServiceImpl.hash(sameRequest))
+                .isEqualTo(BeerOrderIdempotencyServiceImpl.hash(request))
+                .isNotEqualTo(BeerOrderIdempotencyServiceImpl.hash(Map.of("price", new BigDecimal("1.01"), "quantity", 2)));
+        assertThat(BeerOrderIdempotencyServiceImpl.hash(upsertDto)).hasSize(64);
+    }
+
+    @Test
+    void createOrder_concurrentDuplicatesShareOneExecution() throws Exception {
+        CountDownLatch executing = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        given(idempotencyKeyRepository.findById("key-1")).willReturn(Optional.empty());
+        given(idempotencyKeyRepository.saveAndFlush(any(IdempotencyKey.class))).willAnswer(inv -> inv.getArgument(0));
+        given(beerOrderService.createOrder(upsertDto, "key-1")).willAnswer(inv -> {
+            executing.countDown();
+            release.await(5, TimeUnit.SECONDS);
+            return orderDto;
+        });
+
+        ExecutorService executor = Executors.newFixedThreadPool(2);
+        try {
+            Future<BeerOrderDto> first = executor.submit(() -> idempotencyService.createOrder("key-1", upsertDto));
+            assertThat(executing.await(5, TimeUnit.SECONDS)).isTrue();
+            Future<BeerOrderDto> duplicate = executor.submit(() -> idempotencyService.createOrder("key-1", upsertDto));
+            release.countDown();
+
+            assertThat(first.get(5, TimeUnit.SECONDS)).isEqualTo(orderDto);
+            assertThat(duplicate.get(5, TimeUnit.SECONDS)).isEqualTo(orderDto);
+        } finally {
+            executor.shutdownNow();
+        }
+        verify(beerOrderService, times(1)).createOrder(upsertDto, "key-1");
+    }
+
+    private String capturedRequestHash() {
+        ArgumentCaptor<IdempotencyKey> captor = ArgumentCaptor.forClass(IdempotencyKey.class);
+        verify(idempotencyKeyRepository).saveAndFlush(captor.capture());
+        return captor.getValue().getRequestHash();
+    }
+}
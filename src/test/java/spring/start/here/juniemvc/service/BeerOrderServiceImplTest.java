@@ -3,26 +3,44 @@ package spring.start.here.juniemvc.service;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageImpl;
 import org.springframework.data.domain.PageRequest;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
+import spring.start.here.juniemvc.domain.event.BeerOrderLinesChangedEvent;
+import spring.start.here.juniemvc.domain.event.BeerOrderPlacedEvent;
+import spring.start.here.juniemvc.domain.event.BeerOrderStatusChangedEvent;
+import spring.start.here.juniemvc.domain.event.BeerOrdersDeletingEvent;
 import spring.start.here.juniemvc.domain.model.Beer;
 import spring.start.here.juniemvc.domain.model.BeerOrder;
 import spring.start.here.juniemvc.domain.model.BeerOrderLine;
 import spring.start.here.juniemvc.domain.model.Customer;
+import spring.start.here.juniemvc.repository.BeerOrderArchiveRepository;
+import spring.start.here.juniemvc.repository.BeerOrderLineRepository;
+import spring.start.here.juniemvc.repository.BeerOrderProjectionRepository;
 import spring.start.here.juniemvc.repository.BeerOrderRepository;
 import spring.start.here.juniemvc.repository.BeerRepository;
 import spring.start.here.juniemvc.repository.CustomerRepository;
+import spring.start.here.juniemvc.web.exception.InvalidOrderLinePatchException;
 import spring.start.here.juniemvc.web.mappers.BeerOrderLineMapper;
 import spring.start.here.juniemvc.web.mappers.BeerOrderMapper;
 import spring.start.here.juniemvc.web.model.BeerOrderDto;
+import spring.start.here.juniemvc.web.model.BeerOrderField;
+import spring.start.here.juniemvc.web.model.BeerOrderLineOperationDto;
+import spring.start.here.juniemvc.web.model.BeerOrderLineOperationDto.Operation;
 import spring.start.here.juniemvc.web.model.BeerOrderLineUpsertDto;
+import spring.start.here.juniemvc.web.model.BeerOrderLinesPatchDto;
 import spring.start.here.juniemvc.web.model.BeerOrderUpsertDto;
 
+import java.math.BigDecimal;
+import java.util.EnumSet;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 import java.util.Set;
 
@@ -30,6 +48,7 @@ import static org.assertj.core.api.Assertions.assertThat;
 import static org.assertj.core.api.Assertions.assertThatThrownBy;
 import static org.mockito.ArgumentMatchers.*;
 import static org.mockito.BDDMockito.given;
+import static org.mockito.BDDMockito.then;
 import static org.mockito.Mockito.verify;
 
 @ExtendWith(MockitoExtension.class)
@@ -38,6 +57,15 @@ class BeerOrderServiceImplTest {
     @Mock
     BeerOrderRepository beerOrderRepository;
 
+    @Mock
+    BeerOrderArchiveRepository beerOrderArchiveRepository;
+
+    @Mock
+    BeerOrderLineRepository beerOrderLineRepository;
+
+    @Mock
+    BeerOrderProjectionRepository beerOrderProjectionRepository;
+
     @Mock
     CustomerRepository customerRepository;
 
@@ -50,6 +78,9 @@ class BeerOrderServiceImplTest {
     @Mock
     BeerOrderLineMapper beerOrderLineMapper;
 
+    @Mock
+    ApplicationEventPublisher eventPublisher;
+
     @InjectMocks
     BeerOrderServiceImpl beerOrderService;
 
@@ -64,7 +95,7 @@ class BeerOrderServiceImplTest {
         customer = Customer.builder().id(10).build();
         beer = Beer.builder().id(5).build();
         order = BeerOrder.builder().id(1).customer(customer).orderStatus("NEW").build();
-        orderDto = new BeerOrderDto(1, 0, 10, null, "NEW", "cb", List.of());
+        orderDto = new BeerOrderDto(1, 0, 10, null, "NEW", "cb", BigDecimal.ZERO, 0, List.of());
         upsertDto = new BeerOrderUpsertDto(10, "REF", "cb", List.of(new BeerOrderLineUpsertDto(5, 2)));
     }
 
@@ -78,6 +109,27 @@ class BeerOrderServiceImplTest {
         BeerOrderDto result = beerOrderService.createOrder(upsertDto);
         assertThat(result).isEqualTo(orderDto);
         verify(beerOrderRepository).save(any(BeerOrder.class));
+        verify(eventPublisher).publishEvent(any(BeerOrderStatusChangedEvent.class));
+        verify(eventPublisher).publishEvent(any(BeerOrderPlacedEvent.class));
+    }
+
+    @Test
+    void createOrder_snapshotsPricesAndTotals() {
+        beer.setPrice(new BigDecimal("12.95"));
+        given(customerRepository.findById(10)).willReturn(Optional.of(customer));
+        given(beerRepository.findById(5)).willReturn(Optional.of(beer));
+        given(beerOrderRepository.save(any(BeerOrder.class))).willReturn(order);
+        given(beerOrderMapper.toDto(order)).willReturn(orderDto);
+
+        beerOrderService.createOrder(upsertDto);
+
+        ArgumentCaptor<BeerOrder> saved = ArgumentCaptor.forClass(BeerOrder.class);
+        verify(beerOrderRepository).save(saved.capture());
+        assertThat(saved.getValue().getTotalAmount()).isEqualByComparingTo("25.90");
+        assertThat(saved.getValue().getLineCount()).isEqualTo(1);
+        assertThat(saved.getValue().getBeerOrderLines())
+                .singleElement()
+                .satisfies(line -> assertThat(line.getUnitPrice()).isEqualByComparingTo("12.95"));
     }
 
     @Test
@@ -106,6 +158,15 @@ class BeerOrderServiceImplTest {
         assertThat(result.get()).isEqualTo(orderDto);
     }
 
+    @Test
+    void getById_archived() {
+        given(beerOrderRepository.findById(1)).willReturn(Optional.empty());
+        given(beerOrderArchiveRepository.findById(1)).willReturn(Optional.of(order));
+        given(beerOrderMapper.toDto(order)).willReturn(orderDto);
+        Optional<BeerOrderDto> result = beerOrderService.getById(1);
+        assertThat(result).contains(orderDto);
+    }
+
     @Test
     void getById_notFound() {
         given(beerOrderRepository.findById(1)).willReturn(Optional.empty());
@@ -130,6 +191,31 @@ class BeerOrderServiceImplTest {
         assertThat(result).hasSize(1);
     }
 
+    @Test
+    void getAll_summaryReadsOnlyOrderColumns() {
+        given(beerOrderProjectionRepository.findColumns(List.of("id", "customer_id", "order_status"),
+                PageRequest.of(0, 10))).willReturn(List.<Object[]>of(new Object[]{1, 10, "NEW"}));
+
+        List<Map<String, Object>> result = beerOrderService.getAll(0, 10, BeerOrderField.SUMMARY);
+
+        assertThat(result).containsExactly(Map.of("id", 1, "customerId", 10, "orderStatus", "NEW"));
+        assertThat(result.get(0).keySet()).containsExactly("id", "customerId", "orderStatus");
+        then(beerOrderRepository).shouldHaveNoInteractions();
+        then(beerOrderLineRepository).shouldHaveNoInteractions();
+    }
+
+    @Test
+    void getAll_withOrderLinesTrimsFullOrders() {
+        given(beerOrderRepository.findAll()).willReturn(List.of(order));
+        given(beerOrderMapper.toDto(order)).willReturn(orderDto);
+
+        List<Map<String, Object>> result = beerOrderService.getAll(null, null,
+                EnumSet.of(BeerOrderField.ID, BeerOrderField.ORDER_LINES));
+
+        assertThat(result).containsExactly(Map.of("id", 1, "orderLines", List.of()));
+        then(beerOrderProjectionRepository).shouldHaveNoInteractions();
+    }
+
     @Test
     void getByCustomer_found() {
         given(customerRepository.findById(10)).willReturn(Optional.of(customer));
@@ -149,11 +235,81 @@ class BeerOrderServiceImplTest {
     @Test
     void updateStatus_found() {
         given(beerOrderRepository.findById(1)).willReturn(Optional.of(order));
-        given(beerOrderRepository.save(order)).willReturn(order);
-        given(beerOrderMapper.toDto(order)).willReturn(new BeerOrderDto(1, 0, 10, null, "ALLOCATED", "cb", List.of()));
+        given(beerOrderRepository.saveAndFlush(order)).willReturn(order);
+        given(beerOrderMapper.toDto(order)).willReturn(new BeerOrderDto(1, 0, 10, null, "ALLOCATED", "cb", BigDecimal.ZERO, 0, List.of()));
         Optional<BeerOrderDto> result = beerOrderService.updateStatus(1, "ALLOCATED");
         assertThat(result).isPresent();
         assertThat(result.get().orderStatus()).isEqualTo("ALLOCATED");
+
+        ArgumentCaptor<BeerOrderStatusChangedEvent> event = ArgumentCaptor.forClass(BeerOrderStatusChangedEvent.class);
+        verify(eventPublisher).publishEvent(event.capture());
+        assertThat(event.getValue().orderId()).isEqualTo(1);
+        assertThat(event.getValue().customerId()).isEqualTo(10);
+        assertThat(event.getValue().previousStatus()).isEqualTo("NEW");
+        assertThat(event.getValue().orderStatus()).isEqualTo("ALLOCATED");
+    }
+
+    @Test
+    void patchLines_appliesOnlyTouchedLines() {
+        order.setVersion(3);
+        order.setTotalAmount(new BigDecimal("30.00"));
+        order.setLineCount(2);
+        BeerOrderLine updated = BeerOrderLine.builder().id(100).version(0).beer(beer).beerOrder(order).orderQuantity(2)
+                .unitPrice(BigDecimal.TEN).build();
+        BeerOrderLine removed = BeerOrderLine.builder().id(101).version(1).beer(beer).beerOrder(order).orderQuantity(1)
+                .unitPrice(BigDecimal.TEN).build();
+        Beer added = Beer.builder().id(7).price(new BigDecimal("4.50")).build();
+        given(beerOrderRepository.findWithLockById(1)).willReturn(Optional.of(order));
+        given(beerOrderLineRepository.findAllById(anyIterable())).willReturn(List.of(updated, removed));
+        given(beerRepository.findAllById(Set.of(7))).willReturn(List.of(added));
+        given(beerOrderLineRepository.save(any(BeerOrderLine.class))).willAnswer(inv -> inv.getArgument(0));
+        given(beerOrderRepository.saveAndFlush(order)).willReturn(order);
+        given(beerOrderMapper.toDto(order)).willReturn(orderDto);
+
+        Optional<BeerOrderDto> result = beerOrderService.patchLines(1, new BeerOrderLinesPatchDto(3, List.of(
+                new BeerOrderLineOperationDto(Operation.UPDATE, 100, 0, null, 6),
+                new BeerOrderLineOperationDto(Operation.REMOVE, 101, 1, null, null),
+                new BeerOrderLineOperationDto(Operation.ADD, null, null, 7, 3))));
+
+        assertThat(result).contains(orderDto);
+        assertThat(updated.getOrderQuantity()).isEqualTo(6);
+        verify(beerOrderLineRepository).delete(removed);
+        ArgumentCaptor<BeerOrderLine> inserted = ArgumentCaptor.forClass(BeerOrderLine.class);
+        verify(beerOrderLineRepository).save(inserted.capture());
+        assertThat(inserted.getValue().getBeer()).isSameAs(added);
+        assertThat(inserted.getValue().getOrderQuantity()).isEqualTo(3);
+        assertThat(inserted.getValue().getUnitPrice()).isEqualByComparingTo("4.50");
+        // 6 x 10.00 updated + 3 x 4.50 added; the removed line no longer counts
+        assertThat(order.getTotalAmount()).isEqualByComparingTo("73.50");
+        assertThat(order.getLineCount()).isEqualTo(2);
+
+        ArgumentCaptor<BeerOrderLinesChangedEvent> event = ArgumentCaptor.forClass(BeerOrderLinesChangedEvent.class);
+        verify(eventPublisher).publishEvent(event.capture());
+        assertThat(event.getValue().deltas()).containsExactlyInAnyOrder(
+                new BeerOrderLinesChangedEvent.BeerDelta(5, 3, -1),
+                new BeerOrderLinesChangedEvent.BeerDelta(7, 3, 1));
+    }
+
+    @Test
+    void patchLines_staleOrderVersion_throws() {
+        order.setVersion(3);
+        given(beerOrderRepository.findWithLockById(1)).willReturn(Optional.of(order));
+
+        assertThatThrownBy(() -> beerOrderService.patchLines(1, new BeerOrderLinesPatchDto(2, List.of(
+                new BeerOrderLineOperationDto(Operation.UPDATE, 100, null, null, 6)))))
+                .isInstanceOf(ObjectOptimisticLockingFailureException.class);
+    }
+
+    @Test
+    void patchLines_lineOfOtherOrder_throws() {
+        BeerOrder other = BeerOrder.builder().id(2).build();
+        BeerOrderLine foreign = BeerOrderLine.builder().id(200).version(0).beer(beer).beerOrder(other).orderQuantity(1).build();
+        given(beerOrderRepository.findWithLockById(1)).willReturn(Optional.of(order));
+        given(beerOrderLineRepository.findAllById(anyIterable())).willReturn(List.of(foreign));
+
+        assertThatThrownBy(() -> beerOrderService.patchLines(1, new BeerOrderLinesPatchDto(null, List.of(
+                new BeerOrderLineOperationDto(Operation.REMOVE, 200, null, null, null)))))
+                .isInstanceOf(InvalidOrderLinePatchException.class);
     }
 
     @Test
@@ -168,7 +324,9 @@ class BeerOrderServiceImplTest {
         given(beerOrderRepository.existsById(1)).willReturn(true);
         boolean result = beerOrderService.delete(1);
         assertThat(result).isTrue();
-        verify(beerOrderRepository).deleteById(1);
+        verify(eventPublisher).publishEvent(new BeerOrdersDeletingEvent(List.of(1)));
+        verify(beerOrderLineRepository).bulkDeleteByOrderIds(List.of(1));
+        verify(beerOrderRepository).bulkDeleteByIds(List.of(1));
     }
 
     @Test
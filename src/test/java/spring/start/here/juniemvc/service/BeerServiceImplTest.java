@@ -1,30 +1,47 @@
 package spring.start.here.juniemvc.service;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.validation.ConstraintViolationException;
+import jakarta.validation.Validation;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
+import org.mockito.Spy;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageImpl;
 import org.springframework.data.domain.PageRequest;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
+import org.springframework.transaction.PlatformTransactionManager;
+import spring.start.here.juniemvc.config.EntityCacheProperties;
+import spring.start.here.juniemvc.config.SingleFlightProperties;
+import spring.start.here.juniemvc.domain.event.EntityChangedEvent;
 import spring.start.here.juniemvc.domain.model.Beer;
 import spring.start.here.juniemvc.repository.BeerRepository;
 import spring.start.here.juniemvc.web.mappers.BeerMapper;
 import spring.start.here.juniemvc.web.model.BeerDto;
 import spring.start.here.juniemvc.web.model.BeerListDto;
+import spring.start.here.juniemvc.web.model.BeerMultiGetDto;
 import spring.start.here.juniemvc.web.model.BeerUpsertDto;
 
 import java.math.BigDecimal;
 import java.time.LocalDateTime;
 import java.util.List;
 import java.util.Optional;
+import java.util.stream.IntStream;
 
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyList;
 import static org.mockito.BDDMockito.given;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 
 @ExtendWith(MockitoExtension.class)
@@ -36,6 +53,22 @@ class BeerServiceImplTest {
     @Mock
     BeerMapper beerMapper;
 
+    @Spy
+    JsonMergePatcher mergePatcher = new JsonMergePatcher(new ObjectMapper(),
+            Validation.buildDefaultValidatorFactory().getValidator());
+
+    @Spy
+    SingleFlight singleFlight = new SingleFlight(mock(PlatformTransactionManager.class),
+            new SingleFlightProperties(), new SimpleMeterRegistry());
+
+    @Spy
+    EntityCache entityCache = new EntityCache(new EntityCacheProperties(), new SimpleMeterRegistry());
+
+    @Mock
+    ApplicationEventPublisher eventPublisher;
+
+    ObjectMapper objectMapper = new ObjectMapper();
+
     @InjectMocks
     BeerServiceImpl beerService;
 
@@ -108,6 +141,21 @@ class BeerServiceImplTest {
         assertThat(foundBeerDto.get().getId()).isEqualTo(testBeerDto.getId());
     }
 
+    @Test
+    void testGetBeerByIdServesRepeatedReadsFromCache() {
+        // Given
+        given(beerRepository.findById(1)).willReturn(Optional.of(testBeer));
+        given(beerMapper.beerToBeerDto(testBeer)).willReturn(testBeerDto);
+
+        // When
+        beerService.getBeerById(1);
+        Optional<BeerDto> foundBeerDto = beerService.getBeerById(1);
+
+        // Then
+        assertThat(foundBeerDto).containsSame(testBeerDto);
+        verify(beerRepository, times(1)).findById(1);
+    }
+
     @Test
     void testGetBeerByIdNotFound() {
         // Given
@@ -154,6 +202,38 @@ class BeerServiceImplTest {
         verify(beerRepository).findAll(any(PageRequest.class));
     }
 
+    @Test
+    void testGetBeersByIdsPreservesOrderAndReportsMissing() {
+        // Given
+        Beer second = Beer.builder().id(2).beerName("Second").build();
+        BeerDto secondDto = BeerDto.builder().id(2).beerName("Second").build();
+        given(beerRepository.findAllById(List.of(2, 7, 1))).willReturn(List.of(testBeer, second));
+        given(beerMapper.beerToBeerDto(testBeer)).willReturn(testBeerDto);
+        given(beerMapper.beerToBeerDto(second)).willReturn(secondDto);
+
+        // When
+        BeerMultiGetDto result = beerService.getBeersByIds(List.of(2, 7, 1, 2));
+
+        // Then
+        assertThat(result.beers()).containsExactly(secondDto, testBeerDto);
+        assertThat(result.missingIds()).containsExactly(7);
+    }
+
+    @Test
+    void testGetBeersByIdsQueriesInChunks() {
+        // Given
+        List<Integer> ids = IntStream.rangeClosed(1, MultiGet.CHUNK_SIZE + 1).boxed().toList();
+        given(beerRepository.findAllById(anyList())).willReturn(List.of());
+
+        // When
+        BeerMultiGetDto result = beerService.getBeersByIds(ids);
+
+        // Then
+        assertThat(result.missingIds()).isEqualTo(ids);
+        verify(beerRepository).findAllById(ids.subList(0, MultiGet.CHUNK_SIZE));
+        verify(beerRepository).findAllById(List.of(MultiGet.CHUNK_SIZE + 1));
+    }
+
     @Test
     void testUpdateBeer() {
         // Given
@@ -168,6 +248,7 @@ class BeerServiceImplTest {
         assertThat(updatedBeerDto).isPresent();
         assertThat(updatedBeerDto.get().getId()).isEqualTo(testBeerDto.getId());
         verify(beerRepository).save(testBeer);
+        verify(eventPublisher).publishEvent(new EntityChangedEvent(EntityChangedEvent.EntityType.BEER, 1));
     }
 
     @Test
@@ -182,6 +263,60 @@ class BeerServiceImplTest {
         assertThat(updatedBeerDto).isEmpty();
     }
 
+    @Test
+    void testPatchBeer() throws Exception {
+        // Given
+        given(beerRepository.findById(1)).willReturn(Optional.of(testBeer));
+        given(beerMapper.beerToBeerUpsertDto(testBeer)).willReturn(testBeerUpsertDto);
+        given(beerRepository.saveAndFlush(testBeer)).willReturn(testBeer);
+        given(beerMapper.beerToBeerDto(testBeer)).willReturn(testBeerDto);
+
+        // When
+        Optional<BeerDto> patchedBeerDto = beerService.patchBeer(1, objectMapper.readTree("{\"price\": 9.50}"), 1);
+
+        // Then
+        assertThat(patchedBeerDto).isPresent();
+        assertThat(testBeer.getPrice()).isEqualByComparingTo("9.50");
+        assertThat(testBeer.getBeerName()).isEqualTo("Test Beer");
+        assertThat(testBeer.getQuantityOnHand()).isEqualTo(100);
+        verify(beerRepository).saveAndFlush(testBeer);
+    }
+
+    @Test
+    void testPatchBeerStaleVersion() throws Exception {
+        // Given
+        given(beerRepository.findById(1)).willReturn(Optional.of(testBeer));
+
+        // When / Then
+        assertThatThrownBy(() -> beerService.patchBeer(1, objectMapper.readTree("{\"price\": 9.50}"), 0))
+                .isInstanceOf(ObjectOptimisticLockingFailureException.class);
+        assertThat(testBeer.getPrice()).isEqualByComparingTo("12.99");
+    }
+
+    @Test
+    void testPatchBeerInvalidValue() throws Exception {
+        // Given
+        given(beerRepository.findById(1)).willReturn(Optional.of(testBeer));
+        given(beerMapper.beerToBeerUpsertDto(testBeer)).willReturn(testBeerUpsertDto);
+
+        // When / Then
+        assertThatThrownBy(() -> beerService.patchBeer(1, objectMapper.readTree("{\"quantityOnHand\": -1}"), null))
+                .isInstanceOf(ConstraintViolationException.class);
+        assertThat(testBeer.getQuantityOnHand()).isEqualTo(100);
+    }
+
+    @Test
+    void testPatchBeerNotFound() throws Exception {
+        // Given
+        given(beerRepository.findById(1)).willReturn(Optional.empty());
+
+        // When
+        Optional<BeerDto> patchedBeerDto = beerService.patchBeer(1, objectMapper.readTree("{}"), null);
+
+        // Then
+        assertThat(patchedBeerDto).isEmpty();
+    }
+
     @Test
     void testDeleteBeer() {
         // Given
@@ -193,6 +328,7 @@ class BeerServiceImplTest {
         // Then
         assertThat(result).isTrue();
         verify(beerRepository).delete(testBeer);
+        verify(eventPublisher).publishEvent(new EntityChangedEvent(EntityChangedEvent.EntityType.BEER, 1));
     }
 
     @Test
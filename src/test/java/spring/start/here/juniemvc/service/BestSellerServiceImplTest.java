@@ -0,0 +1,115 @@
+package spring.start.here.juniemvc.service;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import spring.start.here.juniemvc.config.BestSellerProperties;
+import spring.start.here.juniemvc.domain.event.BeerOrderPlacedEvent;
+import spring.start.here.juniemvc.domain.event.BeerOrderPlacedEvent.BeerSale;
+import spring.start.here.juniemvc.domain.model.Beer;
+import spring.start.here.juniemvc.repository.BeerRepository;
+import spring.start.here.juniemvc.web.model.TopBeerDto;
+import spring.start.here.juniemvc.web.model.TopBeersDto;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Random;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.tuple;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.BDDMockito.given;
+
+@ExtendWith(MockitoExtension.class)
+class BestSellerServiceImplTest {
+
+    private static final long MINUTE = 60_000;
+
+    @Mock
+    BeerRepository beerRepository;
+
+    BestSellerProperties properties;
+
+    @BeforeEach
+    void init() {
+        properties = new BestSellerProperties();
+        properties.setBucketWidth(Duration.ofMinutes(1));
+        properties.setRetention(Duration.ofMinutes(60));
+        properties.setCapacity(20);
+    }
+
+    @Test
+    void getTopBeers_exactWhileCatalogFitsCapacity() {
+        given(beerRepository.findAllById(anyList())).willReturn(List.of(Beer.builder().id(1).beerName("Pils").build()));
+        BestSellerServiceImpl service = new BestSellerServiceImpl(beerRepository, properties);
+        long now = 100 * MINUTE;
+
+        service.recordSale(1, 5, now - 2 * MINUTE);
+        service.recordSale(2, 3, now - MINUTE);
+        service.recordSale(1, 1, now);
+
+        TopBeersDto top = service.getTopBeers(Duration.ofMinutes(5), 1, now);
+
+        assertThat(top.totalQuantity()).isEqualTo(9);
+        assertThat(top.maxError()).isZero();
+        assertThat(top.beers()).containsExactly(new TopBeerDto(1, "Pils", 6, 6));
+    }
+
+    @Test
+    void getTopBeers_ignoresSalesOutsideWindow() {
+        given(beerRepository.findAllById(anyList())).willReturn(List.of());
+        BestSellerServiceImpl service = new BestSellerServiceImpl(beerRepository, properties);
+        long now = 100 * MINUTE;
+
+        service.recordSale(1, 50, now - 10 * MINUTE);
+        service.recordSale(2, 3, now);
+
+        TopBeersDto top = service.getTopBeers(Duration.ofMinutes(5), 5, now);
+
+        assertThat(top.totalQuantity()).isEqualTo(3);
+        assertThat(top.beers()).extracting(TopBeerDto::beerId).containsExactly(2);
+    }
+
+    @Test
+    void onOrderPlaced_recordsEveryLine() {
+        given(beerRepository.findAllById(anyList())).willReturn(List.of());
+        BestSellerServiceImpl service = new BestSellerServiceImpl(beerRepository, properties);
+
+        service.onOrderPlaced(new BeerOrderPlacedEvent(7, List.of(new BeerSale(1, 2), new BeerSale(2, 4), new BeerSale(1, 1))));
+
+        TopBeersDto top = service.getTopBeers(Duration.ofMinutes(5), 5);
+        assertThat(top.totalQuantity()).isEqualTo(7);
+        assertThat(top.beers()).extracting(TopBeerDto::beerId, TopBeerDto::estimatedQuantity)
+                .containsExactly(tuple(2, 4L), tuple(1, 3L));
+    }
+
+    @Test
+    void getTopBeers_heavyHittersFoundWithinErrorBound() {
+        given(beerRepository.findAllById(anyList())).willReturn(List.of());
+        BestSellerServiceImpl service = new BestSellerServiceImpl(beerRepository, properties);
+        long now = 100 * MINUTE;
+        Random random = new Random(42);
+        long[] exact = new long[1_001];
+
+        // Beers 1..3 take half the volume; the tail of 1000 beers far exceeds the 20 counters per bucket
+        for (int minute = 0; minute < 30; minute++) {
+            for (int i = 0; i < 200; i++) {
+                int beerId = random.nextBoolean() ? 1 + random.nextInt(3) : 1 + random.nextInt(1_000);
+                exact[beerId]++;
+                service.recordSale(beerId, 1, now - minute * MINUTE);
+            }
+        }
+
+        TopBeersDto top = service.getTopBeers(Duration.ofMinutes(30), 3, now);
+
+        assertThat(top.totalQuantity()).isEqualTo(6_000);
+        assertThat(top.maxError()).isLessThanOrEqualTo(top.totalQuantity() / properties.getCapacity());
+        assertThat(top.beers()).extracting(TopBeerDto::beerId).containsExactlyInAnyOrder(1, 2, 3);
+        for (TopBeerDto beer : top.beers()) {
+            assertThat(exact[beer.beerId()]).isBetween(beer.minimumQuantity(), beer.estimatedQuantity());
+            assertThat(beer.estimatedQuantity() - exact[beer.beerId()]).isLessThanOrEqualTo(top.maxError());
+        }
+    }
+}
@@ -0,0 +1,168 @@
+package spring.start.here.juniemvc.service;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import spring.start.here.juniemvc.config.JobProperties;
+import spring.start.here.juniemvc.repository.JobLeaseRepository;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * Two runners with their own node ids stand in for two nodes sharing the database. Leases are committed
+ * in transactions of their own, so the tests run without a surrounding test transaction and use a job
+ * name of their own.
+ */
+@DataJpaTest
+@Import(JobLeaseRepository.class)
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class ClusterJobRunnerTest {
+
+    private static final Duration HOUR = Duration.ofHours(1);
+
+    @Autowired
+    JobLeaseRepository jobLeaseRepository;
+
+    @Autowired
+    PlatformTransactionManager transactionManager;
+
+    MeterRegistry registryA;
+    MeterRegistry registryB;
+    ClusterJobRunner nodeA;
+    ClusterJobRunner nodeB;
+
+    @BeforeEach
+    void setUp() {
+        registryA = new SimpleMeterRegistry();
+        registryB = new SimpleMeterRegistry();
+        nodeA = runner("node-a", registryA);
+        nodeB = runner("node-b", registryB);
+    }
+
+    @Test
+    void runExclusive_skipsJobRunningOnAnotherNode() {
+        AtomicBoolean ranOnB = new AtomicBoolean(true);
+
+        boolean ranOnA = nodeA.runExclusive("running", Duration.ZERO,
+                () -> ranOnB.set(nodeB.runExclusive("running", Duration.ZERO, () -> { })));
+
+        assertThat(ranOnA).isTrue();
+        assertThat(ranOnB).isFalse();
+        assertThat(runs(registryB, "running", "skipped")).isEqualTo(1);
+        // Released once completed
+        assertThat(nodeB.runExclusive("running", Duration.ZERO, () -> { })).isTrue();
+    }
+
+    @Test
+    void runExclusive_skipsJobCompletedWithinMinInterval() {
+        assertThat(nodeA.runExclusive("completed", HOUR, () -> { })).isTrue();
+
+        assertThat(nodeB.runExclusive("completed", HOUR, () -> { })).isFalse();
+        assertThat(nodeB.runExclusive("completed", Duration.ZERO, () -> { })).isTrue();
+        assertThat(runs(registryA, "completed", "completed")).isEqualTo(1);
+    }
+
+    @Test
+    void runExclusive_failedRunMayBeRetriedAtOnce() {
+        assertThatThrownBy(() -> nodeA.runExclusive("failing", HOUR, () -> {
+            throw new IllegalStateException("boom");
+        })).isInstanceOf(IllegalStateException.class);
+
+        assertThat(nodeB.runExclusive("failing", HOUR, () -> { })).isTrue();
+        assertThat(runs(registryA, "failing", "failed")).isEqualTo(1);
+    }
+
+    @Test
+    void runExclusive_takesOverLeaseOfDeadNodeOnceExpired() {
+        jobLeaseRepository.createIfAbsent("abandoned");
+        LocalDateTime now = jobLeaseRepository.currentTimestamp();
+        assertThat(jobLeaseRepository.tryAcquire("abandoned", "dead-node", now, now.plusMinutes(1), now)).isTrue();
+
+        assertThat(nodeA.runExclusive("abandoned", HOUR, () -> { })).isFalse();
+
+        // Stand in for the lease running out by taking it again with an expiry in the past
+        assertThat(jobLeaseRepository.release("abandoned", "dead-node", null)).isTrue();
+        assertThat(jobLeaseRepository.tryAcquire("abandoned", "dead-node", now, now.minusSeconds(1), now)).isTrue();
+
+        assertThat(nodeA.runExclusive("abandoned", HOUR, () -> { })).isTrue();
+        assertThat(jobLeaseRepository.release("abandoned", "dead-node", null)).isFalse();
+    }
+
+    @Test
+    void runPartitioned_splitsPartitionsBetweenNodes() {
+        List<Integer> partitionsA = new ArrayList<>();
+        List<Integer> partitionsB = new ArrayList<>();
+
+        int ranOnA = nodeA.runPartitioned("split", 4, HOUR, (partition, lease) -> {
+            partitionsA.add(partition);
+            if (partitionsA.size() == 1) {
+                // Node B fires while node A works on its first partition
+                nodeB.runPartitioned("split", 4, HOUR, (partitionB, leaseB) -> partitionsB.add(partitionB));
+            }
+        });
+
+        assertThat(ranOnA).isEqualTo(1);
+        assertThat(partitionsB).hasSize(3).doesNotContainAnyElementsOf(partitionsA);
+        assertThat(runs(registryB, "split", "completed")).isEqualTo(3);
+        assertThat(nodeA.runPartitioned("split", 4, HOUR, (partition, lease) -> { })).isZero();
+        assertThat(runs(registryA, "split", "skipped")).isEqualTo(1);
+    }
+
+    @Test
+    void runPartitioned_failingPartitionDoesNotStopTheOthers() {
+        List<Integer> ran = new ArrayList<>();
+
+        int completed = nodeA.runPartitioned("partly-failing", 3, HOUR, (partition, lease) -> {
+            ran.add(partition);
+            if (ran.size() == 1) throw new IllegalStateException("boom");
+        });
+
+        assertThat(completed).isEqualTo(2);
+        assertThat(ran).containsExactlyInAnyOrder(0, 1, 2);
+        assertThat(runs(registryA, "partly-failing", "failed")).isEqualTo(1);
+        // Only the failed partition is left for the next run
+        assertThat(nodeB.runPartitioned("partly-failing", 3, HOUR, (partition, lease) -> { })).isEqualTo(1);
+    }
+
+    @Test
+    void lease_renewalFailsOnceAnotherNodeTookItOver() {
+        AtomicBoolean renewed = new AtomicBoolean();
+        AtomicBoolean renewedAfterTakeover = new AtomicBoolean(true);
+
+        nodeA.runPartitioned("renewed", 1, HOUR, (partition, lease) -> {
+            renewed.set(lease.renew());
+            // Stand in for the lease running out and node B taking it over
+            LocalDateTime now = jobLeaseRepository.currentTimestamp();
+            assertThat(jobLeaseRepository.release("renewed#0", "node-a", null)).isTrue();
+            assertThat(jobLeaseRepository.tryAcquire("renewed#0", "node-b", now, now.plusMinutes(1), now)).isTrue();
+            renewedAfterTakeover.set(lease.renew());
+        });
+
+        assertThat(renewed).isTrue();
+        assertThat(renewedAfterTakeover).isFalse();
+    }
+
+    private ClusterJobRunner runner(String nodeId, MeterRegistry meterRegistry) {
+        JobProperties properties = new JobProperties();
+        properties.setNodeId(nodeId);
+        return new ClusterJobRunner(jobLeaseRepository, transactionManager, properties, meterRegistry);
+    }
+
+    private static double runs(MeterRegistry meterRegistry, String job, String outcome) {
+        return meterRegistry.get("junie.jobs.runs").tag("job", job).tag("outcome", outcome).counter().count();
+    }
+}
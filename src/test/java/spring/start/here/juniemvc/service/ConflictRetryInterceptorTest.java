@@ -0,0 +1,109 @@
+package spring.start.here.juniemvc.service;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.aop.framework.ProxyFactory;
+import org.springframework.beans.factory.support.StaticListableBeanFactory;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import spring.start.here.juniemvc.config.ConflictRetryProperties;
+import spring.start.here.juniemvc.domain.model.Beer;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class ConflictRetryInterceptorTest {
+
+    interface Updater {
+        String update();
+    }
+
+    ConflictRetryProperties properties;
+    SimpleMeterRegistry meterRegistry;
+    AtomicInteger attempts;
+
+    @BeforeEach
+    void setUp() {
+        properties = new ConflictRetryProperties();
+        properties.setMaxAttempts(3);
+        properties.setInitialBackoff(Duration.ofMillis(1));
+        meterRegistry = new SimpleMeterRegistry();
+        attempts = new AtomicInteger();
+    }
+
+    @Test
+    void invoke_retriesConflictsUntilAnAttemptSucceeds() {
+        Updater updater = proxy(() -> {
+            if (attempts.incrementAndGet() < 3) throw new ObjectOptimisticLockingFailureException(Beer.class, 1);
+            return "updated";
+        });
+
+        assertThat(updater.update()).isEqualTo("updated");
+        assertThat(attempts).hasValue(3);
+        assertThat(meterRegistry.get("junie.conflict_retry.conflicts").counter().count()).isEqualTo(2);
+        assertThat(calls("after_retry")).isEqualTo(1);
+    }
+
+    @Test
+    void invoke_givesUpAfterMaxAttempts() {
+        Updater updater = proxy(() -> {
+            attempts.incrementAndGet();
+            throw new ObjectOptimisticLockingFailureException(Beer.class, 1);
+        });
+
+        assertThatThrownBy(updater::update).isInstanceOf(OptimisticLockingFailureException.class);
+        assertThat(attempts).hasValue(3);
+        assertThat(calls("exhausted")).isEqualTo(1);
+    }
+
+    @Test
+    void invoke_otherFailuresAreNotRetried() {
+        Updater updater = proxy(() -> {
+            attempts.incrementAndGet();
+            throw new IllegalArgumentException("Beer not found");
+        });
+
+        assertThatThrownBy(updater::update).isInstanceOf(IllegalArgumentException.class);
+        assertThat(attempts).hasValue(1);
+    }
+
+    @Test
+    void invoke_disabledOrInsideTransactionRunsOnce() {
+        Updater updater = proxy(() -> {
+            attempts.incrementAndGet();
+            throw new ObjectOptimisticLockingFailureException(Beer.class, 1);
+        });
+
+        properties.setEnabled(false);
+        assertThatThrownBy(updater::update).isInstanceOf(OptimisticLockingFailureException.class);
+        properties.setEnabled(true);
+        TransactionSynchronizationManager.setActualTransactionActive(true);
+        try {
+            assertThatThrownBy(updater::update).isInstanceOf(OptimisticLockingFailureException.class);
+        } finally {
+            TransactionSynchronizationManager.setActualTransactionActive(false);
+        }
+        assertThat(attempts).hasValue(2);
+    }
+
+    private Updater proxy(Updater target) {
+        ProxyFactory factory = new ProxyFactory(target);
+        factory.addInterface(Updater.class);
+        StaticListableBeanFactory beanFactory = new StaticListableBeanFactory(
+                Map.of("conflictRetryProperties", properties, "meterRegistry", meterRegistry));
+        factory.addAdvice(new ConflictRetryInterceptor(beanFactory.getBeanProvider(ConflictRetryProperties.class),
+                beanFactory.getBeanProvider(MeterRegistry.class)));
+        return (Updater) factory.getProxy();
+    }
+
+    private double calls(String outcome) {
+        return meterRegistry.get("junie.conflict_retry.calls").tag("outcome", outcome).counter().count();
+    }
+}
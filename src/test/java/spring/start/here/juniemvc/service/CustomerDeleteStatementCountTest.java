@@ -0,0 +1,93 @@
+package spring.start.here.juniemvc.service;
+
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.context.annotation.Import;
+import spring.start.here.juniemvc.domain.model.Beer;
+import spring.start.here.juniemvc.domain.model.BeerOrder;
+import spring.start.here.juniemvc.domain.model.BeerOrderLine;
+import spring.start.here.juniemvc.domain.model.Customer;
+import spring.start.here.juniemvc.repository.BeerOrderArchiveRepository;
+import spring.start.here.juniemvc.repository.BeerOrderRepository;
+import spring.start.here.juniemvc.repository.CustomerRepository;
+import spring.start.here.juniemvc.web.mappers.CustomerMapperImpl;
+
+import java.math.BigDecimal;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Deleting a customer must cost the same number of SQL statements whether it has a few orders or many.
+ */
+@DataJpaTest(properties = "spring.jpa.properties.hibernate.generate_statistics=true")
+@Import({CustomerServiceImpl.class, CustomerMapperImpl.class, BeerOrderArchiveRepository.class})
+class CustomerDeleteStatementCountTest {
+
+    @Autowired
+    CustomerService customerService;
+
+    @Autowired
+    CustomerRepository customerRepository;
+
+    @Autowired
+    BeerOrderRepository beerOrderRepository;
+
+    @Autowired
+    TestEntityManager entityManager;
+
+    @Autowired
+    EntityManagerFactory entityManagerFactory;
+
+    @MockBean
+    JsonMergePatcher mergePatcher;
+
+    @MockBean
+    EntityCache entityCache;
+
+    @Test
+    void delete_statementCountIndependentOfOrderCount() {
+        Beer beer = entityManager.persist(Beer.builder()
+                .beerName("Test").beerStyle("IPA").upc("u").price(BigDecimal.ONE).quantityOnHand(10)
+                .build());
+        Customer small = customerWithOrders("small", beer, 2, 1);
+        Customer large = customerWithOrders("large", beer, 50, 4);
+        entityManager.flush();
+        entityManager.clear();
+
+        long smallStatements = statementsFor(small.getId());
+        long largeStatements = statementsFor(large.getId());
+
+        assertThat(largeStatements).isEqualTo(smallStatements);
+        assertThat(customerRepository.findAll()).isEmpty();
+        assertThat(beerOrderRepository.findAll()).isEmpty();
+    }
+
+    private long statementsFor(Integer customerId) {
+        Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+        assertThat(customerService.delete(customerId)).isTrue();
+        return statistics.getPrepareStatementCount();
+    }
+
+    private Customer customerWithOrders(String name, Beer beer, int orders, int linesPerOrder) {
+        Customer customer = entityManager.persist(Customer.builder()
+                .name(name).email(name + "@example.com").phone("123")
+                .build());
+        for (int i = 0; i < orders; i++) {
+            BeerOrder order = BeerOrder.builder().customer(customer).orderStatus("NEW").build();
+            for (int j = 0; j < linesPerOrder; j++) {
+                order.getBeerOrderLines().add(BeerOrderLine.builder()
+                        .beer(beer).beerOrder(order).orderQuantity(1).quantityAllocated(0)
+                        .build());
+            }
+            entityManager.persist(order);
+        }
+        return customer;
+    }
+}
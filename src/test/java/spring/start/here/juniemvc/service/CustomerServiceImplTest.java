@@ -1,14 +1,32 @@
 package spring.start.here.juniemvc.service;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.validation.ConstraintViolationException;
+import jakarta.validation.Validation;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InOrder;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
+import org.mockito.Spy;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
+import org.springframework.transaction.PlatformTransactionManager;
+import spring.start.here.juniemvc.config.EntityCacheProperties;
+import spring.start.here.juniemvc.domain.event.BeerOrdersDeletingEvent;
+import spring.start.here.juniemvc.domain.event.EntityChangedEvent;
 import spring.start.here.juniemvc.domain.model.Customer;
+import spring.start.here.juniemvc.repository.BeerOrderArchiveRepository;
+import spring.start.here.juniemvc.repository.BeerOrderLineRepository;
+import spring.start.here.juniemvc.repository.BeerOrderRepository;
 import spring.start.here.juniemvc.repository.CustomerRepository;
+import spring.start.here.juniemvc.repository.ShardedBeerOrderRepository;
 import spring.start.here.juniemvc.web.exception.CustomerNotFoundException;
+import spring.start.here.juniemvc.web.exception.InvalidMergePatchException;
 import spring.start.here.juniemvc.web.mappers.CustomerMapper;
 import spring.start.here.juniemvc.web.model.CustomerDto;
 import spring.start.here.juniemvc.web.model.CustomerUpsertDto;
@@ -19,7 +37,10 @@ import java.util.Optional;
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.assertj.core.api.Assertions.assertThatThrownBy;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.BDDMockito.given;
+import static org.mockito.Mockito.inOrder;
+import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 
 @ExtendWith(MockitoExtension.class)
@@ -28,9 +49,36 @@ class CustomerServiceImplTest {
     @Mock
     CustomerRepository customerRepository;
 
+    @Mock
+    BeerOrderRepository beerOrderRepository;
+
+    @Mock
+    BeerOrderLineRepository beerOrderLineRepository;
+
+    @Mock
+    BeerOrderArchiveRepository beerOrderArchiveRepository;
+
+    @Mock
+    ObjectProvider<ShardedBeerOrderRepository> shardedBeerOrderRepository;
+
     @Mock
     CustomerMapper customerMapper;
 
+    @Spy
+    JsonMergePatcher mergePatcher = new JsonMergePatcher(new ObjectMapper(),
+            Validation.buildDefaultValidatorFactory().getValidator());
+
+    @Spy
+    EntityCache entityCache = new EntityCache(new EntityCacheProperties(), new SimpleMeterRegistry());
+
+    @Mock
+    ApplicationEventPublisher eventPublisher;
+
+    @Mock
+    PlatformTransactionManager transactionManager;
+
+    ObjectMapper objectMapper = new ObjectMapper();
+
     @InjectMocks
     CustomerServiceImpl customerService;
 
@@ -65,6 +113,16 @@ class CustomerServiceImplTest {
         assertThat(result.get()).isEqualTo(dto);
     }
 
+    @Test
+    void getById_repeatedReadsServedFromCache() {
+        given(customerRepository.findById(1)).willReturn(Optional.of(entity));
+        given(customerMapper.toDto(entity)).willReturn(dto);
+        customerService.getById(1);
+        Optional<CustomerDto> result = customerService.getById(1);
+        assertThat(result).containsSame(dto);
+        verify(customerRepository, times(1)).findById(1);
+    }
+
     @Test
     void getById_notFound() {
         given(customerRepository.findById(1)).willReturn(Optional.empty());
@@ -92,6 +150,7 @@ class CustomerServiceImplTest {
         assertThat(result).isPresent();
         assertThat(result.get().name()).isEqualTo("Jane");
         verify(customerRepository).save(entity);
+        verify(eventPublisher).publishEvent(new EntityChangedEvent(EntityChangedEvent.EntityType.CUSTOMER, 1));
     }
 
     @Test
@@ -102,12 +161,80 @@ class CustomerServiceImplTest {
                 .hasMessageContaining("Customer not found");
     }
 
+    @Test
+    void patch_changesOnlySuppliedFields() throws Exception {
+        given(customerRepository.findById(1)).willReturn(Optional.of(entity));
+        given(customerMapper.toUpsertDto(entity)).willReturn(new CustomerUpsertDto("John", "j@e.com", "123"));
+        given(customerRepository.saveAndFlush(entity)).willReturn(entity);
+        given(customerMapper.toDto(entity)).willReturn(new CustomerDto(1, 1, "John", null, "555"));
+
+        Optional<CustomerDto> result = customerService.patch(1,
+                objectMapper.readTree("{\"phone\":\"555\",\"email\":null}"), 0);
+
+        assertThat(result).isPresent();
+        assertThat(entity.getName()).isEqualTo("John");
+        assertThat(entity.getPhone()).isEqualTo("555");
+        assertThat(entity.getEmail()).isNull();
+        verify(customerRepository).saveAndFlush(entity);
+    }
+
+    @Test
+    void patch_staleVersion_throwsOptimisticLockingFailure() throws Exception {
+        given(customerRepository.findById(1)).willReturn(Optional.of(entity));
+
+        assertThatThrownBy(() -> customerService.patch(1, objectMapper.readTree("{\"phone\":\"555\"}"), 3))
+                .isInstanceOf(ObjectOptimisticLockingFailureException.class);
+        assertThat(entity.getPhone()).isEqualTo("123");
+    }
+
+    @Test
+    void patch_clearingRequiredField_throwsConstraintViolation() throws Exception {
+        given(customerRepository.findById(1)).willReturn(Optional.of(entity));
+        given(customerMapper.toUpsertDto(entity)).willReturn(new CustomerUpsertDto("John", "j@e.com", "123"));
+
+        assertThatThrownBy(() -> customerService.patch(1, objectMapper.readTree("{\"name\":null}"), null))
+                .isInstanceOf(ConstraintViolationException.class);
+        assertThat(entity.getName()).isEqualTo("John");
+    }
+
+    @Test
+    void patch_unknownProperty_throwsInvalidMergePatch() throws Exception {
+        given(customerRepository.findById(1)).willReturn(Optional.of(entity));
+        given(customerMapper.toUpsertDto(entity)).willReturn(new CustomerUpsertDto("John", "j@e.com", "123"));
+
+        assertThatThrownBy(() -> customerService.patch(1, objectMapper.readTree("{\"vip\":true}"), null))
+                .isInstanceOf(InvalidMergePatchException.class)
+                .hasMessageContaining("vip");
+    }
+
     @Test
     void delete_found_returnsTrue() {
         given(customerRepository.existsById(1)).willReturn(true);
         boolean deleted = customerService.delete(1);
         assertThat(deleted).isTrue();
-        verify(customerRepository).deleteById(1);
+        verify(beerOrderArchiveRepository).findIdsByCustomerId(1, CustomerServiceImpl.DELETE_CHUNK_SIZE);
+        verify(customerRepository).bulkDeleteById(1);
+        verify(eventPublisher).publishEvent(new EntityChangedEvent(EntityChangedEvent.EntityType.CUSTOMER, 1));
+    }
+
+    @Test
+    void delete_withOrders_announcesEachChunkBeforeDeletingIt() {
+        given(customerRepository.existsById(1)).willReturn(true);
+        given(beerOrderRepository.findIdsByCustomerId(eq(1), any())).willReturn(List.of(10, 11));
+        given(beerOrderArchiveRepository.findIdsByCustomerId(1, CustomerServiceImpl.DELETE_CHUNK_SIZE))
+                .willReturn(List.of(5));
+
+        assertThat(customerService.delete(1)).isTrue();
+
+        InOrder inOrder = inOrder(eventPublisher, beerOrderLineRepository, beerOrderRepository,
+                beerOrderArchiveRepository);
+        inOrder.verify(eventPublisher).publishEvent(new BeerOrdersDeletingEvent(List.of(10, 11)));
+        inOrder.verify(beerOrderLineRepository).bulkDeleteByOrderIds(List.of(10, 11));
+        inOrder.verify(beerOrderRepository).bulkDeleteByIds(List.of(10, 11));
+        inOrder.verify(eventPublisher).publishEvent(new BeerOrdersDeletingEvent(List.of(5)));
+        inOrder.verify(beerOrderArchiveRepository).deleteAllById(List.of(5));
+        // Every chunk and the customer itself commit separately
+        verify(transactionManager, times(3)).commit(any());
     }
 
     @Test
@@ -0,0 +1,132 @@
+package spring.start.here.juniemvc.service;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.boot.DefaultApplicationArguments;
+import org.springframework.dao.DataAccessResourceFailureException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.springframework.transaction.PlatformTransactionManager;
+import spring.start.here.juniemvc.config.SnapshotProperties;
+import spring.start.here.juniemvc.repository.DatabaseSnapshotRepository;
+import spring.start.here.juniemvc.repository.SnapshotInput;
+import spring.start.here.juniemvc.repository.SnapshotOutput;
+import spring.start.here.juniemvc.web.model.DatabaseSnapshotDto;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.assertj.core.api.Assertions.entry;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.BDDMockito.given;
+import static org.mockito.BDDMockito.then;
+import static org.mockito.BDDMockito.willAnswer;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.spy;
+
+@ExtendWith(MockitoExtension.class)
+class DatabaseSnapshotServiceImplTest {
+
+    @Mock
+    DatabaseSnapshotRepository databaseSnapshotRepository;
+
+    @Mock
+    PlatformTransactionManager transactionManager;
+
+    @TempDir
+    Path directory;
+
+    SnapshotProperties properties;
+    DatabaseSnapshotServiceImpl service;
+
+    @BeforeEach
+    void setUp() {
+        properties = new SnapshotProperties();
+        properties.setFile(directory.resolve("db.snapshot"));
+        properties.setTables(List.of("customer", "beer"));
+        properties.setRestoreOnStartup(true);
+        service = new DatabaseSnapshotServiceImpl(databaseSnapshotRepository, transactionManager, properties);
+    }
+
+    @Test
+    void dump_writesTablesInConfiguredOrder() {
+        given(databaseSnapshotRepository.dumpTable(eq("customer"), any(SnapshotOutput.class))).willReturn(3L);
+        given(databaseSnapshotRepository.dumpTable(eq("beer"), any(SnapshotOutput.class))).willReturn(5L);
+
+        DatabaseSnapshotDto result = service.dump();
+
+        assertThat(result.rowsPerTable()).containsExactly(
+                entry("customer", 3L),
+                entry("beer", 5L));
+        assertThat(Files.exists(properties.getFile())).isTrue();
+        assertThat(result.fileBytes()).isPositive();
+    }
+
+    @Test
+    void run_skipsRestoreWhenSnapshotFileIsMissing() throws Exception {
+        service.run(new DefaultApplicationArguments());
+
+        then(databaseSnapshotRepository).should(never()).restoreTable(anyString(), any(SnapshotInput.class), anyInt());
+    }
+
+    @Test
+    void run_skipsRestoreWhenDatabaseHasData() throws Exception {
+        Files.createFile(properties.getFile());
+        given(databaseSnapshotRepository.isEmpty("customer")).willReturn(false);
+
+        service.run(new DefaultApplicationArguments());
+
+        then(databaseSnapshotRepository).should(never()).restoreTable(anyString(), any(SnapshotInput.class), anyInt());
+    }
+
+    @Test
+    void restore_refusesNonEmptyTables() {
+        given(databaseSnapshotRepository.isEmpty("customer")).willReturn(true);
+        given(databaseSnapshotRepository.isEmpty("beer")).willReturn(false);
+
+        assertThatThrownBy(() -> service.restore()).isInstanceOf(IllegalStateException.class);
+    }
+
+    @Test
+    void restore_afterFailingMidway_leavesTablesEmptyForRetry() throws Exception {
+        JdbcTemplate jdbcTemplate = new JdbcTemplate(
+                new DriverManagerDataSource("jdbc:h2:mem:snapshot-retry;DB_CLOSE_DELAY=-1", "sa", ""));
+        jdbcTemplate.execute("CREATE TABLE parent (id INTEGER PRIMARY KEY)");
+        jdbcTemplate.execute("CREATE TABLE child (id INTEGER PRIMARY KEY, parent_id INTEGER REFERENCES parent(id))");
+        jdbcTemplate.update("INSERT INTO parent VALUES (1), (2)");
+        jdbcTemplate.update("INSERT INTO child VALUES (1, 1), (2, 2), (3, 2)");
+        DatabaseSnapshotRepository repository = spy(new DatabaseSnapshotRepository(jdbcTemplate));
+        properties.setTables(List.of("parent", "child"));
+        DatabaseSnapshotServiceImpl realService = new DatabaseSnapshotServiceImpl(repository,
+                new DataSourceTransactionManager(jdbcTemplate.getDataSource()), properties);
+        realService.dump();
+        jdbcTemplate.update("DELETE FROM child");
+        jdbcTemplate.update("DELETE FROM parent");
+        AtomicBoolean failed = new AtomicBoolean();
+        willAnswer(invocation -> {
+            if (invocation.getArgument(0).equals("child") && failed.compareAndSet(false, true)) {
+                throw new DataAccessResourceFailureException("Disk full");
+            }
+            return invocation.callRealMethod();
+        }).given(repository).restoreTable(anyString(), any(SnapshotInput.class), anyInt());
+
+        assertThatThrownBy(realService::restore).isInstanceOf(DataAccessResourceFailureException.class);
+        assertThat(repository.isEmpty("parent")).isTrue();
+
+        assertThat(realService.restore().rowsPerTable()).containsExactly(
+                entry("parent", 2L),
+                entry("child", 3L));
+    }
+}
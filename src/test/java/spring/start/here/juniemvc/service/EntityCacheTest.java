@@ -0,0 +1,109 @@
+package spring.start.here.juniemvc.service;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import spring.start.here.juniemvc.config.EntityCacheProperties;
+import spring.start.here.juniemvc.domain.event.EntityChangedEvent.EntityType;
+
+import java.time.Duration;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static spring.start.here.juniemvc.domain.event.EntityChangedEvent.EntityType.BEER;
+import static spring.start.here.juniemvc.domain.event.EntityChangedEvent.EntityType.CUSTOMER;
+
+class EntityCacheTest {
+
+    EntityCacheProperties properties;
+    EntityCache entityCache;
+    AtomicInteger loads;
+
+    @BeforeEach
+    void setUp() {
+        properties = new EntityCacheProperties();
+        entityCache = new EntityCache(properties, new SimpleMeterRegistry());
+        loads = new AtomicInteger();
+    }
+
+    @Test
+    void get_servesLoadedEntityUntilInvalidated() {
+        assertThat(load(BEER, 1, "Mango Bobs")).contains("Mango Bobs");
+        assertThat(load(BEER, 1, "Galaxy Cat")).contains("Mango Bobs");
+        // Same id, other entity type
+        assertThat(load(CUSTOMER, 1, "John")).contains("John");
+        assertThat(loads).hasValue(2);
+
+        entityCache.invalidate(BEER, 1);
+
+        assertThat(load(BEER, 1, "Galaxy Cat")).contains("Galaxy Cat");
+        assertThat(load(CUSTOMER, 1, "Jane")).contains("John");
+        assertThat(loads).hasValue(3);
+    }
+
+    @Test
+    void get_doesNotCacheMissingEntities() {
+        entityCache.get(BEER, 1, () -> {
+            loads.incrementAndGet();
+            return Optional.empty();
+        });
+
+        assertThat(load(BEER, 1, "Created since")).contains("Created since");
+        assertThat(loads).hasValue(2);
+    }
+
+    @Test
+    void get_doesNotCacheLoadOverlappingInvalidation() {
+        Optional<String> stale = entityCache.get(BEER, 1, () -> {
+            // The entity changes and is invalidated while its old state is being read
+            entityCache.invalidate(BEER, 1);
+            return Optional.of("Before");
+        });
+
+        assertThat(stale).contains("Before");
+        assertThat(load(BEER, 1, "After")).contains("After");
+    }
+
+    @Test
+    void get_reloadsAfterTimeToLive() {
+        properties.setTimeToLive(Duration.ZERO);
+
+        load(BEER, 1, "Mango Bobs");
+        load(BEER, 1, "Mango Bobs");
+
+        assertThat(loads).hasValue(2);
+    }
+
+    @Test
+    void get_evictsLeastRecentlyReadBeyondMaxEntries() {
+        properties.setMaxEntries(2);
+        load(BEER, 1, "One");
+        load(BEER, 2, "Two");
+        load(BEER, 1, "One");
+        load(BEER, 3, "Three");
+
+        load(BEER, 1, "One");
+        load(BEER, 2, "Two");
+
+        // 1 stayed cached as it was read after 2; 2 was evicted by 3
+        assertThat(loads).hasValue(4);
+    }
+
+    @Test
+    void get_bypassedWhenDisabled() {
+        properties.setEnabled(false);
+
+        load(BEER, 1, "Mango Bobs");
+        load(BEER, 1, "Mango Bobs");
+
+        assertThat(loads).hasValue(2);
+    }
+
+    private Optional<String> load(EntityType entityType, Integer id, String value) {
+        return entityCache.get(entityType, id, () -> {
+            loads.incrementAndGet();
+            return Optional.of(value);
+        });
+    }
+}
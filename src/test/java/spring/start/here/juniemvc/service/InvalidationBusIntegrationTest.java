@@ -0,0 +1,134 @@
+package spring.start.here.juniemvc.service;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import spring.start.here.juniemvc.JunieMvcApplication;
+import spring.start.here.juniemvc.web.model.BeerDto;
+import spring.start.here.juniemvc.web.model.BeerUpsertDto;
+import spring.start.here.juniemvc.web.model.CustomerDto;
+import spring.start.here.juniemvc.web.model.CustomerUpsertDto;
+
+import java.math.BigDecimal;
+import java.net.DatagramSocket;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Supplier;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Two nodes in one JVM sharing one in-memory database, each with its own entity cache: a beer or customer
+ * changed on one node must leave the cache of the other through each transport.
+ */
+class InvalidationBusIntegrationTest {
+
+    private static final long TIMEOUT_MILLIS = 10_000;
+
+    @Test
+    void databaseTransport_invalidatesOtherNode() {
+        String url = "jdbc:h2:mem:invalidation-database;DB_CLOSE_DELAY=-1";
+        try (ConfigurableApplicationContext nodeA = startNode(url, "node-a", "junie.entity-cache.bus.transport=database");
+             ConfigurableApplicationContext nodeB = startNode(url, "node-b", "junie.entity-cache.bus.transport=database")) {
+            assertChangesReachOtherNode(nodeA, nodeB);
+        }
+    }
+
+    @Test
+    void udpTransport_invalidatesOtherNode() throws Exception {
+        String url = "jdbc:h2:mem:invalidation-udp;DB_CLOSE_DELAY=-1";
+        int portA = freeUdpPort();
+        int portB = freeUdpPort();
+        try (ConfigurableApplicationContext nodeA = startNode(url, "node-a", "junie.entity-cache.bus.transport=udp",
+                "junie.entity-cache.bus.port=" + portA, "junie.entity-cache.bus.peer-ports=" + portB);
+             ConfigurableApplicationContext nodeB = startNode(url, "node-b", "junie.entity-cache.bus.transport=udp",
+                     "junie.entity-cache.bus.port=" + portB, "junie.entity-cache.bus.peer-ports=" + portA)) {
+            assertChangesReachOtherNode(nodeA, nodeB);
+        }
+    }
+
+    @Test
+    void noTransport_otherNodeKeepsServingItsCachedCopy() throws Exception {
+        // Control for the tests above: without a bus the cached copy outlives the change, so they pass only
+        // when the transport delivers the invalidation
+        String url = "jdbc:h2:mem:invalidation-none;DB_CLOSE_DELAY=-1";
+        try (ConfigurableApplicationContext nodeA = startNode(url, "node-a", "junie.entity-cache.bus.transport=none");
+             ConfigurableApplicationContext nodeB = startNode(url, "node-b", "junie.entity-cache.bus.transport=none")) {
+            BeerService beersA = nodeA.getBean(BeerService.class);
+            BeerService beersB = nodeB.getBean(BeerService.class);
+            Integer beerId = beersA.saveBeer(beer("Before")).getId();
+            assertThat(beersB.getBeerById(beerId)).get().extracting(BeerDto::getBeerName).isEqualTo("Before");
+
+            beersA.updateBeer(beerId, beer("After"));
+            Thread.sleep(1_000);
+
+            assertThat(beersA.getBeerById(beerId)).get().extracting(BeerDto::getBeerName).isEqualTo("After");
+            assertThat(beersB.getBeerById(beerId)).get().extracting(BeerDto::getBeerName).isEqualTo("Before");
+        }
+    }
+
+    private void assertChangesReachOtherNode(ConfigurableApplicationContext nodeA, ConfigurableApplicationContext nodeB) {
+        BeerService beersA = nodeA.getBean(BeerService.class);
+        BeerService beersB = nodeB.getBean(BeerService.class);
+        CustomerService customersA = nodeA.getBean(CustomerService.class);
+        CustomerService customersB = nodeB.getBean(CustomerService.class);
+
+        Integer beerId = beersA.saveBeer(beer("Before")).getId();
+        Integer customerId = customersA.create(new CustomerUpsertDto("Before", "before@example.com", "123")).id();
+        // Node B caches both
+        assertThat(beersB.getBeerById(beerId)).get().extracting(BeerDto::getBeerName).isEqualTo("Before");
+        assertThat(customersB.getById(customerId)).get().extracting(CustomerDto::name).isEqualTo("Before");
+
+        beersA.updateBeer(beerId, beer("After"));
+        customersA.update(customerId, new CustomerUpsertDto("After", "after@example.com", "123"));
+
+        awaitValue(() -> beersB.getBeerById(beerId).orElseThrow().getBeerName(), "After");
+        awaitValue(() -> customersB.getById(customerId).orElseThrow().name(), "After");
+        assertThat(nodeB.getBean(MeterRegistry.class).get("junie.entity_cache.invalidations")
+                .tag("source", "remote").counter().count()).isGreaterThanOrEqualTo(2);
+
+        beersA.deleteBeer(beerId);
+        awaitValue(() -> beersB.getBeerById(beerId).isPresent(), false);
+    }
+
+    private static ConfigurableApplicationContext startNode(String url, String nodeId, String... properties) {
+        // Command-line arguments, as default properties would lose to application.properties
+        List<String> args = new ArrayList<>(List.of(
+                "--server.port=0",
+                "--spring.datasource.url=" + url,
+                "--junie.warmup.enabled=false",
+                "--junie.entity-cache.bus.node-id=" + nodeId,
+                "--junie.entity-cache.bus.interval=50ms"));
+        List.of(properties).forEach(property -> args.add("--" + property));
+        return new SpringApplicationBuilder(JunieMvcApplication.class)
+                .run(args.toArray(String[]::new));
+    }
+
+    private static <T> void awaitValue(Supplier<T> read, T expected) {
+        long deadline = System.currentTimeMillis() + TIMEOUT_MILLIS;
+        T value = read.get();
+        while (!expected.equals(value) && System.currentTimeMillis() < deadline) {
+            try {
+                Thread.sleep(20);
+            } catch (InterruptedException ex) {
+                Thread.currentThread().interrupt();
+                break;
+            }
+            value = read.get();
+        }
+        assertThat(value).isEqualTo(expected);
+    }
+
+    private static int freeUdpPort() throws Exception {
+        try (DatagramSocket socket = new DatagramSocket(0)) {
+            return socket.getLocalPort();
+        }
+    }
+
+    private static BeerUpsertDto beer(String name) {
+        return BeerUpsertDto.builder()
+                .beerName(name).beerStyle("IPA").upc("invalidated")
+                .quantityOnHand(10).price(BigDecimal.TEN).build();
+    }
+}
@@ -0,0 +1,115 @@
+package spring.start.here.juniemvc.service;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class InventoryCsvParserTest {
+
+    private final UpcIndex upcIndex = UpcIndex.of(Map.of("0012345", 1, "0067890", 2));
+
+    @Test
+    void parse_resolvesUpcsAndCountsRejectedLines() {
+        Rows rows = parse("""
+                upc,quantity\r
+                0012345,10\r
+                 "0067890" , 7
+                
+                0099999,3
+                0012345,abc
+                0012345
+                0067890,1""", true);
+
+        assertThat(rows.beerIds).containsExactly(1, 2, 2);
+        assertThat(rows.quantities).containsExactly(10, 7, 1);
+        assertThat(rows.unknownUpc).isEqualTo(1);
+        assertThat(rows.malformed).isEqualTo(2);
+    }
+
+    @Test
+    void parse_withoutHeaderSkipping_countsNonNumericFirstLineAsMalformed() {
+        Rows rows = parse("upc,quantity\n0012345,10\n", false);
+
+        assertThat(rows.beerIds).containsExactly(1);
+        assertThat(rows.malformed).isEqualTo(1);
+    }
+
+    @Test
+    void parse_rejectsQuantitiesOutOfIntRange() {
+        Rows rows = parse("0012345,2147483648\n0012345,2147483647\n", false);
+
+        assertThat(rows.quantities).containsExactly(Integer.MAX_VALUE);
+        assertThat(rows.malformed).isEqualTo(1);
+    }
+
+    @Test
+    void chunkBoundaries_cutAtLineStartsAndCoverTheFile(@TempDir Path dir) throws Exception {
+        StringBuilder csv = new StringBuilder();
+        for (int i = 0; i < 1_000; i++) {
+            csv.append(i % 2 == 0 ? "0012345," : "0067890,").append(i).append('\n');
+        }
+        Path file = Files.writeString(dir.resolve("stock.csv"), csv);
+
+        Rows rows = new Rows();
+        try (FileChannel channel = FileChannel.open(file)) {
+            long[] boundaries = InventoryCsvParser.chunkBoundaries(channel, 100);
+
+            assertThat(boundaries.length).isGreaterThan(10);
+            assertThat(boundaries[0]).isZero();
+            assertThat(boundaries[boundaries.length - 1]).isEqualTo(channel.size());
+            for (int i = 0; i + 1 < boundaries.length; i++) {
+                if (boundaries[i] > 0) {
+                    assertThat(csv.charAt((int) boundaries[i] - 1)).isEqualTo('\n');
+                }
+                MappedByteBuffer region = channel.map(FileChannel.MapMode.READ_ONLY,
+                        boundaries[i], boundaries[i + 1] - boundaries[i]);
+                InventoryCsvParser.parse(region, upcIndex, rows, i == 0);
+            }
+        }
+
+        assertThat(rows.quantities).hasSize(1_000);
+        assertThat(rows.quantities.stream().mapToLong(Integer::longValue).sum()).isEqualTo(999L * 1_000 / 2);
+        assertThat(rows.malformed).isZero();
+    }
+
+    private Rows parse(String csv, boolean skipHeader) {
+        Rows rows = new Rows();
+        InventoryCsvParser.parse(ByteBuffer.wrap(csv.getBytes(StandardCharsets.UTF_8)), upcIndex, rows, skipHeader);
+        return rows;
+    }
+
+    private static final class Rows implements InventoryCsvParser.RowHandler {
+
+        final List<Integer> beerIds = new ArrayList<>();
+        final List<Integer> quantities = new ArrayList<>();
+        int unknownUpc;
+        int malformed;
+
+        @Override
+        public void row(int beerId, int quantity) {
+            beerIds.add(beerId);
+            quantities.add(quantity);
+        }
+
+        @Override
+        public void unknownUpc() {
+            unknownUpc++;
+        }
+
+        @Override
+        public void malformed() {
+            malformed++;
+        }
+    }
+}
@@ -0,0 +1,170 @@
+package spring.start.here.juniemvc.service;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.dao.DataAccessResourceFailureException;
+import org.springframework.transaction.PlatformTransactionManager;
+import spring.start.here.juniemvc.repository.BeerInventoryBatchRepository;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.BDDMockito.given;
+import static org.mockito.BDDMockito.then;
+import static org.mockito.BDDMockito.willAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+
+class InventoryDeltaBufferTest {
+
+    private static final int SCANNERS = 8;
+    private static final int SCANS = 1_000;
+
+    BeerInventoryBatchRepository beerInventoryBatchRepository;
+    SimpleMeterRegistry meterRegistry;
+    InventoryDeltaBuffer buffer;
+
+    // Every flush as inventory id -> delta
+    List<Map<Integer, Long>> writes;
+
+    @BeforeEach
+    void setUp() {
+        beerInventoryBatchRepository = mock(BeerInventoryBatchRepository.class);
+        meterRegistry = new SimpleMeterRegistry();
+        buffer = new InventoryDeltaBuffer(beerInventoryBatchRepository, mock(PlatformTransactionManager.class),
+                meterRegistry);
+        writes = new ArrayList<>();
+    }
+
+    @Test
+    void flush_writesNetChangePerRowInOneBatch() throws Exception {
+        rowsExist();
+        ExecutorService executor = Executors.newFixedThreadPool(SCANNERS);
+        try {
+            CountDownLatch start = new CountDownLatch(1);
+            List<Future<?>> futures = new ArrayList<>();
+            for (int s = 0; s < SCANNERS; s++) {
+                futures.add(executor.submit(() -> {
+                    start.await();
+                    for (int i = 0; i < SCANS; i++) {
+                        buffer.add(1, 1);
+                        buffer.add(2, -1);
+                        buffer.add(3, i % 2 == 0 ? 1 : -1);
+                    }
+                    return null;
+                }));
+            }
+            start.countDown();
+            for (Future<?> future : futures) {
+                future.get();
+            }
+        } finally {
+            executor.shutdown();
+        }
+
+        assertThat(buffer.pendingDelta(1)).isEqualTo(SCANNERS * SCANS);
+        buffer.flush();
+
+        // Row 3 netted out to zero and is not written at all
+        assertThat(writes).containsExactly(Map.of(1, (long) SCANNERS * SCANS, 2, (long) -SCANNERS * SCANS));
+        assertThat(buffer.pendingDelta(1)).isZero();
+        assertThat(buffer.isTracked(3)).isTrue();
+        assertThat(meterRegistry.get("junie.inventory_adjustment.rows").tag("outcome", "written").counter().count())
+                .isEqualTo(2);
+    }
+
+    @Test
+    void flush_withoutAdjustmentsWritesNothing() {
+        buffer.flush();
+
+        then(beerInventoryBatchRepository).should(never()).addToQuantities(any(), any(), anyInt());
+    }
+
+    @Test
+    void flush_failedWriteIsRetriedWithLaterAdjustments() {
+        given(beerInventoryBatchRepository.addToQuantities(any(), any(), anyInt()))
+                .willThrow(new DataAccessResourceFailureException("connection lost"));
+        buffer.add(1, 5);
+        buffer.flush();
+
+        assertThat(buffer.pendingDelta(1)).isEqualTo(5);
+
+        rowsExist();
+        buffer.add(1, -2);
+        buffer.flush();
+
+        assertThat(writes).containsExactly(Map.of(1, 3L));
+        assertThat(meterRegistry.get("junie.inventory_adjustment.rows").tag("outcome", "requeued").counter().count())
+                .isEqualTo(1);
+    }
+
+    @Test
+    void flush_dropsAdjustmentsOfDeletedRows() {
+        given(beerInventoryBatchRepository.addToQuantities(any(), any(), anyInt())).willReturn(new int[]{0});
+        buffer.add(7, 1);
+        buffer.flush();
+
+        assertThat(buffer.isTracked(7)).isFalse();
+        assertThat(buffer.pendingDelta(7)).isZero();
+        assertThat(meterRegistry.get("junie.inventory_adjustment.rows").tag("outcome", "dropped").counter().count())
+                .isEqualTo(1);
+    }
+
+    @Test
+    void stop_flushesBufferedAdjustments() {
+        rowsExist();
+        buffer.start();
+        buffer.add(1, -1);
+
+        buffer.stop();
+
+        assertThat(buffer.isRunning()).isFalse();
+        assertThat(writes).containsExactly(Map.of(1, -1L));
+    }
+
+    @Test
+    void read_repeatsReaderWhenFlushOverlaps() {
+        rowsExist();
+        buffer.add(1, 4);
+        AtomicInteger runs = new AtomicInteger();
+
+        long seen = buffer.read(() -> {
+            long pending = buffer.pendingDelta(1);
+            // The first run reads the buffer, then a flush moves the delta to the database
+            if (runs.incrementAndGet() == 1) buffer.flush();
+            return pending;
+        });
+
+        assertThat(runs).hasValue(2);
+        assertThat(seen).isZero();
+    }
+
+    private void rowsExist() {
+        // Stubbed answer-first, since an earlier stub of the same call may throw
+        willAnswer(invocation -> {
+            int[] inventoryIds = invocation.getArgument(0);
+            long[] deltas = invocation.getArgument(1);
+            int count = invocation.getArgument(2);
+            Map<Integer, Long> write = new HashMap<>();
+            for (int i = 0; i < count; i++) {
+                write.put(inventoryIds[i], deltas[i]);
+            }
+            writes.add(write);
+            int[] updated = new int[count];
+            Arrays.fill(updated, 1);
+            return updated;
+        }).given(beerInventoryBatchRepository).addToQuantities(any(), any(), anyInt());
+    }
+}
@@ -0,0 +1,165 @@
+package spring.start.here.juniemvc.service;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.validation.Validation;
+import jakarta.validation.Validator;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.util.unit.DataSize;
+import spring.start.here.juniemvc.config.InventoryImportProperties;
+import spring.start.here.juniemvc.repository.BeerInventoryBatchRepository;
+import spring.start.here.juniemvc.web.exception.InvalidInventoryImportException;
+import spring.start.here.juniemvc.web.model.InventoryImportJobDto;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.BDDMockito.given;
+import static org.mockito.BDDMockito.willAnswer;
+import static org.mockito.BDDMockito.willThrow;
+
+@ExtendWith(MockitoExtension.class)
+class InventoryImportServiceImplTest {
+
+    @Mock
+    BeerInventoryBatchRepository beerInventoryBatchRepository;
+
+    @Mock
+    PlatformTransactionManager transactionManager;
+
+    @TempDir
+    Path importDirectory;
+
+    InventoryImportServiceImpl service;
+
+    @BeforeEach
+    void setUp() {
+        InventoryImportProperties properties = new InventoryImportProperties();
+        properties.setDirectory(importDirectory);
+        properties.setChunkSize(DataSize.ofBytes(4_096));
+        properties.setBatchSize(100);
+        properties.setParallelism(3);
+        service = new InventoryImportServiceImpl(beerInventoryBatchRepository, transactionManager,
+                properties, new SimpleMeterRegistry());
+    }
+
+    @AfterEach
+    void tearDown() {
+        service.destroy();
+    }
+
+    @Test
+    void startImport_writesEveryKnownRowInBatches() throws Exception {
+        StringBuilder csv = new StringBuilder("upc,quantity\n");
+        for (int i = 0; i < 10_000; i++) {
+            csv.append(i % 10 == 9 ? "unknown" : "upc-" + (i % 3)).append(',').append(i % 7).append('\n');
+        }
+        csv.append("not a row\n");
+        Files.writeString(importDirectory.resolve("stock.csv"), csv);
+
+        given(beerInventoryBatchRepository.findBeerIdsByUpc()).willReturn(Map.of("upc-0", 1, "upc-1", 2, "upc-2", 3));
+        AtomicLong insertedRows = new AtomicLong();
+        AtomicInteger batches = new AtomicInteger();
+        willAnswer(invocation -> {
+            int count = invocation.getArgument(2);
+            assertThat(count).isBetween(1, 100);
+            insertedRows.addAndGet(count);
+            batches.incrementAndGet();
+            return null;
+        }).given(beerInventoryBatchRepository).insertAll(any(int[].class), any(int[].class), anyInt());
+
+        InventoryImportJobDto job = awaitFinished(service.startImport("stock.csv").jobId());
+
+        assertThat(job.status()).isEqualTo("COMPLETED");
+        assertThat(job.rowsImported()).isEqualTo(9_000).isEqualTo(insertedRows.get());
+        assertThat(job.rowsUnknownUpc()).isEqualTo(1_000);
+        assertThat(job.rowsMalformed()).isEqualTo(1);
+        assertThat(job.bytesProcessed()).isEqualTo(job.fileBytes());
+        assertThat(job.percentComplete()).isEqualTo(100.0);
+        assertThat(batches.get()).isGreaterThanOrEqualTo(90);
+    }
+
+    @Test
+    void startImport_failedBatch_marksJobFailed() throws Exception {
+        Files.writeString(importDirectory.resolve("stock.csv"), "upc-0,1\n");
+        given(beerInventoryBatchRepository.findBeerIdsByUpc()).willReturn(Map.of("upc-0", 1));
+        willThrow(new IllegalStateException("database down"))
+                .given(beerInventoryBatchRepository).insertAll(any(int[].class), any(int[].class), anyInt());
+
+        InventoryImportJobDto job = awaitFinished(service.startImport("stock.csv").jobId());
+
+        assertThat(job.status()).isEqualTo("FAILED");
+        assertThat(job.error()).contains("database down");
+        assertThat(job.rowsImported()).isZero();
+    }
+
+    @Test
+    void startImport_rejectsFilesOutsideTheImportDirectory() {
+        assertThatThrownBy(() -> service.startImport("../etc/passwd"))
+                .isInstanceOf(InvalidInventoryImportException.class);
+        assertThatThrownBy(() -> service.startImport("missing.csv"))
+                .isInstanceOf(InvalidInventoryImportException.class);
+    }
+
+    @Test
+    void startImport_keepsUnfinishedJobsBeyondTheRetainedCount() throws Exception {
+        Files.writeString(importDirectory.resolve("stock.csv"), "upc-0,1\n");
+        CountDownLatch release = new CountDownLatch(1);
+        given(beerInventoryBatchRepository.findBeerIdsByUpc()).willAnswer(invocation -> {
+            release.await(10, TimeUnit.SECONDS);
+            return Map.of();
+        });
+
+        // The first job blocks the import thread, so all later ones stay queued
+        UUID running = service.startImport("stock.csv").jobId();
+        UUID queued = service.startImport("stock.csv").jobId();
+        for (int i = 0; i < InventoryImportServiceImpl.RETAINED_JOBS; i++) {
+            service.startImport("stock.csv");
+        }
+        assertThat(service.getJob(running)).isPresent();
+        assertThat(service.getJob(queued)).get().extracting(InventoryImportJobDto::status).isEqualTo("QUEUED");
+
+        release.countDown();
+        awaitFinished(service.startImport("stock.csv").jobId());
+        awaitFinished(service.startImport("stock.csv").jobId());
+        assertThat(service.getJob(running)).isEmpty();
+    }
+
+    @Test
+    void properties_rejectChunksTooLargeToMap() {
+        InventoryImportProperties properties = new InventoryImportProperties();
+        Validator validator = Validation.buildDefaultValidatorFactory().getValidator();
+        assertThat(validator.validate(properties)).isEmpty();
+
+        properties.setChunkSize(DataSize.ofGigabytes(2));
+
+        assertThat(validator.validate(properties)).singleElement()
+                .satisfies(violation -> assertThat(violation.getMessage()).contains("chunk-size"));
+    }
+
+    private InventoryImportJobDto awaitFinished(UUID jobId) throws InterruptedException {
+        long deadline = System.nanoTime() + 10_000_000_000L;
+        InventoryImportJobDto job = service.getJob(jobId).orElseThrow();
+        while (job.finishedAt() == null && System.nanoTime() < deadline) {
+            Thread.sleep(20);
+            job = service.getJob(jobId).orElseThrow();
+        }
+        return job;
+    }
+}
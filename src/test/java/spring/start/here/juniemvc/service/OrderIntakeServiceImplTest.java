@@ -0,0 +1,195 @@
+package spring.start.here.juniemvc.service;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.transaction.PlatformTransactionManager;
+import spring.start.here.juniemvc.config.OrderIntakeProperties;
+import spring.start.here.juniemvc.domain.model.Beer;
+import spring.start.here.juniemvc.domain.model.BeerOrder;
+import spring.start.here.juniemvc.domain.model.BeerOrderLine;
+import spring.start.here.juniemvc.repository.BeerOrderBatchRepository;
+import spring.start.here.juniemvc.repository.BeerRepository;
+import spring.start.here.juniemvc.repository.CustomerRepository;
+import spring.start.here.juniemvc.web.exception.OrderIntakeRejectedException;
+import spring.start.here.juniemvc.web.mappers.BeerOrderLineMapper;
+import spring.start.here.juniemvc.web.model.BeerOrderLineUpsertDto;
+import spring.start.here.juniemvc.web.model.BeerOrderUpsertDto;
+import spring.start.here.juniemvc.web.model.OrderIntakeTicketDto;
+
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.BDDMockito.given;
+import static org.mockito.BDDMockito.willAnswer;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.spy;
+import static org.mockito.Mockito.verify;
+
+@ExtendWith(MockitoExtension.class)
+class OrderIntakeServiceImplTest {
+
+    @Mock
+    CustomerRepository customerRepository;
+
+    @Mock
+    BeerRepository beerRepository;
+
+    @Mock
+    BeerOrderBatchRepository beerOrderBatchRepository;
+
+    @Mock
+    BeerOrderLineMapper beerOrderLineMapper;
+
+    @Mock
+    PlatformTransactionManager transactionManager;
+
+    @Mock
+    ApplicationEventPublisher eventPublisher;
+
+    OrderIntakeProperties properties;
+    OrderIntakeServiceImpl intakeService;
+    BeerOrderUpsertDto upsertDto;
+
+    @BeforeEach
+    void setUp() {
+        properties = new OrderIntakeProperties();
+        properties.setMode(OrderIntakeProperties.Mode.ASYNC);
+        properties.setQueueCapacity(1);
+        upsertDto = new BeerOrderUpsertDto(10, "REF", "cb", List.of(new BeerOrderLineUpsertDto(5, 2)));
+    }
+
+    @AfterEach
+    void tearDown() {
+        if (intakeService != null) {
+            intakeService.stop();
+        }
+    }
+
+    @Test
+    void submit_missingCustomer_throws() {
+        intakeService = newService();
+        given(customerRepository.existsById(10)).willReturn(false);
+
+        assertThatThrownBy(() -> intakeService.submit(upsertDto))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessageContaining("Customer not found");
+    }
+
+    @Test
+    void submit_missingBeer_throws() {
+        intakeService = newService();
+        given(customerRepository.existsById(10)).willReturn(true);
+        given(beerRepository.countByIdIn(Set.of(5))).willReturn(0L);
+
+        assertThatThrownBy(() -> intakeService.submit(upsertDto))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessageContaining("Beer not found");
+    }
+
+    @Test
+    void submit_writerNotRunning_isRejected() {
+        intakeService = newService();
+        given(customerRepository.existsById(10)).willReturn(true);
+        given(beerRepository.countByIdIn(Set.of(5))).willReturn(1L);
+
+        assertThatThrownBy(() -> intakeService.submit(upsertDto))
+                .isInstanceOf(OrderIntakeRejectedException.class);
+        verify(beerOrderBatchRepository, never()).insertAll(anyList());
+    }
+
+    @Test
+    void submit_writerCommitsOrderAndTicketBecomesCommitted() throws Exception {
+        properties.setQueueCapacity(10);
+        intakeService = newService();
+        given(customerRepository.existsById(10)).willReturn(true);
+        given(beerRepository.countByIdIn(Set.of(5))).willReturn(1L);
+        given(beerOrderLineMapper.toEntity(any(BeerOrderLineUpsertDto.class)))
+                .willAnswer(inv -> BeerOrderLine.builder().beer(Beer.builder().id(5).build()).orderQuantity(2).build());
+        given(beerRepository.findAllById(Set.of(5)))
+                .willReturn(List.of(Beer.builder().id(5).price(new BigDecimal("4.50")).build()));
+        AtomicInteger ids = new AtomicInteger(100);
+        List<BeerOrder> inserted = new CopyOnWriteArrayList<>();
+        willAnswer(inv -> {
+            List<BeerOrder> orders = inv.getArgument(0);
+            orders.forEach(order -> order.setId(ids.incrementAndGet()));
+            inserted.addAll(orders);
+            return null;
+        }).given(beerOrderBatchRepository).insertAll(anyList());
+
+        intakeService.start();
+        OrderIntakeTicketDto ticket = intakeService.submit(upsertDto);
+        assertThat(ticket.status()).isEqualTo(OrderIntakeServiceImpl.QUEUED);
+
+        OrderIntakeTicketDto committed = ticket;
+        for (int i = 0; i < 500 && !OrderIntakeServiceImpl.COMMITTED.equals(committed.status()); i++) {
+            Thread.sleep(10);
+            committed = intakeService.getTicket(ticket.trackingId()).orElseThrow();
+        }
+        assertThat(committed.status()).isEqualTo(OrderIntakeServiceImpl.COMMITTED);
+        assertThat(committed.orderId()).isEqualTo(101);
+        assertThat(inserted).singleElement().satisfies(order -> {
+            assertThat(order.getTotalAmount()).isEqualByComparingTo("9.00");
+            assertThat(order.getLineCount()).isEqualTo(1);
+        });
+    }
+
+    @Test
+    void stop_waitsForSubmissionBetweenRunningCheckAndEnqueue() throws Exception {
+        intakeService = spy(newService());
+        given(customerRepository.existsById(10)).willReturn(true);
+        given(beerRepository.countByIdIn(Set.of(5))).willReturn(1L);
+        given(beerOrderLineMapper.toEntity(any(BeerOrderLineUpsertDto.class)))
+                .willReturn(BeerOrderLine.builder().beer(Beer.builder().id(5).build()).orderQuantity(2).build());
+        given(beerRepository.findAllById(Set.of(5)))
+                .willReturn(List.of(Beer.builder().id(5).price(BigDecimal.ONE).build()));
+        willAnswer(inv -> {
+            List<BeerOrder> orders = inv.getArgument(0);
+            orders.forEach(order -> order.setId(101));
+            return null;
+        }).given(beerOrderBatchRepository).insertAll(anyList());
+        // Hold the submission after it has seen the intake running, before its order is queued
+        CountDownLatch enqueuing = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        willAnswer(inv -> {
+            enqueuing.countDown();
+            release.await(5, TimeUnit.SECONDS);
+            return inv.callRealMethod();
+        }).given(intakeService).enqueue(any());
+
+        intakeService.start();
+        CompletableFuture<OrderIntakeTicketDto> submitted =
+                CompletableFuture.supplyAsync(() -> intakeService.submit(upsertDto));
+        assertThat(enqueuing.await(5, TimeUnit.SECONDS)).isTrue();
+        CompletableFuture<Void> stopped = CompletableFuture.runAsync(intakeService::stop);
+        // Long enough for an unguarded stop() to let the writer drain the empty queue and exit
+        Thread.sleep(300);
+        release.countDown();
+        OrderIntakeTicketDto ticket = submitted.get(5, TimeUnit.SECONDS);
+        stopped.get(35, TimeUnit.SECONDS);
+
+        assertThat(intakeService.getTicket(ticket.trackingId())).get()
+                .extracting(OrderIntakeTicketDto::status).isEqualTo(OrderIntakeServiceImpl.COMMITTED);
+    }
+
+    private OrderIntakeServiceImpl newService() {
+        return new OrderIntakeServiceImpl(customerRepository, beerRepository, beerOrderBatchRepository,
+                beerOrderLineMapper, transactionManager, eventPublisher, properties,
+                new SimpleMeterRegistry());
+    }
+}
@@ -0,0 +1,165 @@
+package spring.start.here.juniemvc.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestHeader;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+import spring.start.here.juniemvc.config.OrderStreamProperties;
+import spring.start.here.juniemvc.domain.event.BeerOrderStatusChangedEvent;
+
+import java.time.Instant;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
+
+class OrderStatusStreamServiceImplTest {
+
+    OrderStatusStreamServiceImpl streamService;
+    MockMvc mockMvc;
+
+    @RestController
+    class StreamController {
+        @GetMapping("/stream")
+        SseEmitter stream(@RequestParam(name = "customerId", required = false) Integer customerId,
+                          @RequestParam(name = "orderIds", required = false) List<Integer> orderIds,
+                          @RequestHeader(name = "Last-Event-ID", required = false) String lastEventId) {
+            return streamService.subscribe(customerId, orderIds != null ? new HashSet<>(orderIds) : Set.of(),
+                    lastEventId);
+        }
+    }
+
+    OrderStreamProperties properties = new OrderStreamProperties();
+
+    @BeforeEach
+    void setUp() {
+        ObjectMapper objectMapper = new ObjectMapper().registerModule(new JavaTimeModule())
+                .disable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS);
+        streamService = new OrderStatusStreamServiceImpl(properties, objectMapper, new SimpleMeterRegistry());
+        mockMvc = MockMvcBuilders.standaloneSetup(new StreamController()).build();
+    }
+
+    @AfterEach
+    void tearDown() {
+        streamService.destroy();
+    }
+
+    @Test
+    void subscriber_receivesOnlyMatchingEvents() throws Exception {
+        MvcResult result = mockMvc.perform(get("/stream").param("customerId", "10"))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        streamService.onStatusChanged(change(2, 11, "ALLOCATED"));
+        streamService.onStatusChanged(change(1, 10, "ALLOCATED"));
+
+        String body = awaitContent(result, "\"orderId\":1");
+        assertThat(body).contains("event:order-status");
+        assertThat(body).containsPattern("id:\\w+-2");
+        assertThat(body).doesNotContain("\"orderId\":2");
+        assertThat(streamService.getSubscriberCount()).isEqualTo(1);
+    }
+
+    @Test
+    void subscriber_resumesFromLastEventId() throws Exception {
+        String firstId = firstEventId();
+        streamService.onStatusChanged(change(1, 10, "ALLOCATED"));
+        streamService.onStatusChanged(change(1, 10, "PICKED_UP"));
+
+        String body = resume(firstId, "PICKED_UP");
+        assertThat(body).contains("ALLOCATED");
+        assertThat(body).doesNotContain("\"orderStatus\":\"NEW\"");
+        assertThat(body).doesNotContain("event:resync");
+    }
+
+    @Test
+    void subscriber_withIdFromAnotherNode_isToldToResync() throws Exception {
+        streamService.onStatusChanged(change(1, 10, "NEW"));
+
+        String body = resume("othernode-1", "event:resync");
+        assertThat(body).doesNotContain("event:order-status");
+    }
+
+    @Test
+    void subscriber_behindTheReplayBuffer_isToldToResync() throws Exception {
+        properties.setReplayBufferSize(2);
+        String firstId = firstEventId();
+        streamService.onStatusChanged(change(1, 10, "ALLOCATED"));
+        streamService.onStatusChanged(change(1, 10, "PICKED_UP"));
+        streamService.onStatusChanged(change(1, 10, "DELIVERED"));
+
+        String body = resume(firstId, "event:resync");
+        assertThat(body).doesNotContain("event:order-status");
+    }
+
+    @Test
+    void subscriber_missingMoreThanItMayHavePending_isToldToResyncInsteadOfDropped() throws Exception {
+        properties.setMaxPendingPerSubscriber(2);
+        String firstId = firstEventId();
+        streamService.onStatusChanged(change(1, 10, "ALLOCATED"));
+        streamService.onStatusChanged(change(1, 10, "PICKED_UP"));
+        streamService.onStatusChanged(change(1, 10, "DELIVERED"));
+
+        String body = resume(firstId, "event:resync");
+        assertThat(body).doesNotContain("event:order-status");
+    }
+
+    @Test
+    void heartbeat_isSentAsComment() throws Exception {
+        MvcResult result = mockMvc.perform(get("/stream"))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        streamService.sendHeartbeats();
+
+        assertThat(awaitContent(result, ":heartbeat")).isNotBlank();
+    }
+
+    // Publishes the NEW event of order 1 and returns its id as a connected client saw it
+    private String firstEventId() throws Exception {
+        MvcResult result = mockMvc.perform(get("/stream"))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+        streamService.onStatusChanged(change(1, 10, "NEW"));
+        Matcher id = Pattern.compile("id:(\\S+)").matcher(awaitContent(result, "\"orderStatus\":\"NEW\""));
+        assertThat(id.find()).isTrue();
+        return id.group(1);
+    }
+
+    private String resume(String lastEventId, String expected) throws Exception {
+        MvcResult result = mockMvc.perform(get("/stream").param("orderIds", "1").header("Last-Event-ID", lastEventId))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+        return awaitContent(result, expected);
+    }
+
+    private static BeerOrderStatusChangedEvent change(Integer orderId, Integer customerId, String status) {
+        return new BeerOrderStatusChangedEvent(orderId, customerId, null, status, 0, Instant.now());
+    }
+
+    private static String awaitContent(MvcResult result, String expected) throws Exception {
+        String body = "";
+        for (int i = 0; i < 200 && !body.contains(expected); i++) {
+            Thread.sleep(10);
+            body = result.getResponse().getContentAsString();
+        }
+        assertThat(body).contains(expected);
+        return body;
+    }
+}
@@ -0,0 +1,107 @@
+package spring.start.here.juniemvc.service;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.transaction.PlatformTransactionManager;
+import spring.start.here.juniemvc.config.ReportingProperties;
+import spring.start.here.juniemvc.domain.event.BeerOrderLinesChangedEvent;
+import spring.start.here.juniemvc.domain.event.BeerOrderStatusChangedEvent;
+import spring.start.here.juniemvc.domain.event.BeerOrdersDeletingEvent;
+import spring.start.here.juniemvc.repository.BeerSalesDailyRepository;
+import spring.start.here.juniemvc.repository.CustomerOrdersDailyRepository;
+import spring.start.here.juniemvc.web.mappers.SalesRollupMapper;
+
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.BDDMockito.then;
+import static org.mockito.Mockito.verifyNoInteractions;
+
+@ExtendWith(MockitoExtension.class)
+class SalesReportServiceImplTest {
+
+    @Mock
+    BeerSalesDailyRepository beerSalesDailyRepository;
+
+    @Mock
+    CustomerOrdersDailyRepository customerOrdersDailyRepository;
+
+    @Mock
+    SalesRollupMapper salesRollupMapper;
+
+    @Mock
+    PlatformTransactionManager transactionManager;
+
+    @Mock
+    ClusterJobRunner clusterJobRunner;
+
+    @Test
+    void delta_countsEverythingButCancelled() {
+        assertThat(SalesReportServiceImpl.delta(null, "NEW")).isEqualTo(1);
+        assertThat(SalesReportServiceImpl.delta(null, "CANCELLED")).isZero();
+        assertThat(SalesReportServiceImpl.delta("NEW", "ALLOCATED")).isZero();
+        assertThat(SalesReportServiceImpl.delta("ALLOCATED", "CANCELLED")).isEqualTo(-1);
+        assertThat(SalesReportServiceImpl.delta("CANCELLED", "NEW")).isEqualTo(1);
+    }
+
+    @Test
+    void onStatusChanged_cancellation_removesOrderFromRollups() {
+        SalesReportServiceImpl service = newService();
+
+        service.onStatusChanged(new BeerOrderStatusChangedEvent(7, 3, "NEW", "CANCELLED", 1, Instant.now()));
+
+        then(beerSalesDailyRepository).should().applyOrder(7, -1);
+        then(customerOrdersDailyRepository).should().applyOrder(7, -1);
+    }
+
+    @Test
+    void onStatusChanged_noCountingChange_leavesRollupsAlone() {
+        SalesReportServiceImpl service = newService();
+
+        service.onStatusChanged(new BeerOrderStatusChangedEvent(7, 3, "NEW", "VALIDATED", 1, Instant.now()));
+
+        verifyNoInteractions(beerSalesDailyRepository, customerOrdersDailyRepository);
+    }
+
+    @Test
+    void onOrdersDeleting_removesOrdersFromRollups() {
+        SalesReportServiceImpl service = newService();
+
+        service.onOrdersDeleting(new BeerOrdersDeletingEvent(List.of(7, 8)));
+
+        then(beerSalesDailyRepository).should().removeOrders(List.of(7, 8));
+        then(customerOrdersDailyRepository).should().removeOrders(List.of(7, 8));
+    }
+
+    @Test
+    void onLinesChanged_countedOrder_appliesDeltaToOrderDay() {
+        SalesReportServiceImpl service = newService();
+        LocalDateTime created = LocalDateTime.of(2024, 5, 1, 18, 30);
+
+        service.onLinesChanged(new BeerOrderLinesChangedEvent(7, "NEW", created,
+                List.of(new BeerOrderLinesChangedEvent.BeerDelta(5, -2, -1))));
+
+        then(beerSalesDailyRepository).should().applyDelta(created.toLocalDate(), 5, -2, -1);
+    }
+
+    @Test
+    void onLinesChanged_cancelledOrder_ignored() {
+        SalesReportServiceImpl service = newService();
+
+        service.onLinesChanged(new BeerOrderLinesChangedEvent(7, "CANCELLED", LocalDateTime.now(),
+                List.of(new BeerOrderLinesChangedEvent.BeerDelta(5, 3, 1))));
+
+        verifyNoInteractions(beerSalesDailyRepository, customerOrdersDailyRepository);
+    }
+
+    private SalesReportServiceImpl newService() {
+        return new SalesReportServiceImpl(beerSalesDailyRepository, customerOrdersDailyRepository,
+                salesRollupMapper, transactionManager, clusterJobRunner, new ReportingProperties(),
+                new SimpleMeterRegistry());
+    }
+}
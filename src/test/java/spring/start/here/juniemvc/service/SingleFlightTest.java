@@ -0,0 +1,177 @@
+package spring.start.here.juniemvc.service;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.transaction.PlatformTransactionManager;
+import spring.start.here.juniemvc.config.SingleFlightProperties;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.Mockito.mock;
+
+class SingleFlightTest {
+
+    private static final int CALLERS = 50;
+
+    SingleFlightProperties properties;
+    SimpleMeterRegistry meterRegistry;
+    SingleFlight singleFlight;
+    ExecutorService executor;
+
+    @BeforeEach
+    void setUp() {
+        properties = new SingleFlightProperties();
+        meterRegistry = new SimpleMeterRegistry();
+        singleFlight = new SingleFlight(mock(PlatformTransactionManager.class), properties, meterRegistry);
+        executor = Executors.newFixedThreadPool(CALLERS);
+    }
+
+    @AfterEach
+    void tearDown() {
+        executor.shutdownNow();
+    }
+
+    @Test
+    void load_concurrentCallersForSameKeyShareOneLoad() throws Exception {
+        AtomicInteger loads = new AtomicInteger();
+        CountDownLatch release = new CountDownLatch(1);
+
+        List<Future<String>> results = callConcurrently("beer-1", () -> {
+            loads.incrementAndGet();
+            await(release);
+            return "Mango Bobs";
+        });
+        release.countDown();
+
+        for (Future<String> result : results) {
+            assertThat(result.get(5, TimeUnit.SECONDS)).isEqualTo("Mango Bobs");
+        }
+        assertThat(loads).hasValue(1);
+        assertThat(calls("leader")).isEqualTo(1);
+        assertThat(calls("shared")).isEqualTo(CALLERS - 1);
+    }
+
+    @Test
+    void load_differentKeysLoadIndependently() {
+        assertThat(singleFlight.load("beer-1", () -> "one")).isEqualTo("one");
+        assertThat(singleFlight.load("beer-2", () -> "two")).isEqualTo("two");
+        assertThat(calls("leader")).isEqualTo(2);
+    }
+
+    @Test
+    void load_failureIsSharedAndNotCached() throws Exception {
+        CountDownLatch release = new CountDownLatch(1);
+
+        List<Future<String>> results = callConcurrently("beer-1", () -> {
+            await(release);
+            throw new IllegalStateException("database down");
+        });
+        release.countDown();
+
+        for (Future<String> result : results) {
+            assertThatThrownBy(() -> result.get(5, TimeUnit.SECONDS))
+                    .isInstanceOf(ExecutionException.class)
+                    .hasRootCauseMessage("database down");
+        }
+        assertThat(singleFlight.load("beer-1", () -> "recovered")).isEqualTo("recovered");
+    }
+
+    @Test
+    void load_waiterRunsOwnLoadAfterTimeout() throws Exception {
+        properties.setTimeout(Duration.ofMillis(50));
+        CountDownLatch release = new CountDownLatch(1);
+        CountDownLatch leaderStarted = new CountDownLatch(1);
+
+        Future<String> leader = executor.submit(() -> singleFlight.load("beer-1", () -> {
+            leaderStarted.countDown();
+            await(release);
+            return "slow";
+        }));
+        leaderStarted.await(5, TimeUnit.SECONDS);
+
+        assertThat(singleFlight.load("beer-1", () -> "own")).isEqualTo("own");
+        assertThat(calls("timeout")).isEqualTo(1);
+
+        release.countDown();
+        assertThat(leader.get(5, TimeUnit.SECONDS)).isEqualTo("slow");
+    }
+
+    @Test
+    void load_waiterUsesTimeoutOfItsKeyType() throws Exception {
+        properties.setTimeout(Duration.ofMillis(50));
+        properties.getTimeouts().put("beer-page", Duration.ofSeconds(5));
+        CountDownLatch release = new CountDownLatch(1);
+        CountDownLatch leaderStarted = new CountDownLatch(1);
+
+        Future<String> leader = executor.submit(() -> singleFlight.load("beer-page", "page-0", () -> {
+            leaderStarted.countDown();
+            await(release);
+            return "slow";
+        }));
+        leaderStarted.await(5, TimeUnit.SECONDS);
+        Future<String> waiter = executor.submit(() -> singleFlight.load("beer-page", "page-0", () -> "own"));
+
+        // Well past the default timeout, the waiter is still waiting for the leader's load
+        Thread.sleep(200);
+        release.countDown();
+
+        assertThat(waiter.get(5, TimeUnit.SECONDS)).isEqualTo("slow");
+        assertThat(leader.get(5, TimeUnit.SECONDS)).isEqualTo("slow");
+        assertThat(calls("timeout")).isZero();
+    }
+
+    @Test
+    void load_disabledRunsEveryLoad() {
+        properties.setEnabled(false);
+        AtomicInteger loads = new AtomicInteger();
+
+        singleFlight.load("beer-1", loads::incrementAndGet);
+        singleFlight.load("beer-1", loads::incrementAndGet);
+
+        assertThat(loads).hasValue(2);
+        assertThat(calls("leader")).isZero();
+    }
+
+    private List<Future<String>> callConcurrently(String key, Supplier<String> loader)
+            throws InterruptedException {
+        CountDownLatch leaderStarted = new CountDownLatch(1);
+        List<Future<String>> results = new ArrayList<>();
+        results.add(executor.submit(() -> singleFlight.load(key, () -> {
+            leaderStarted.countDown();
+            return loader.get();
+        })));
+        leaderStarted.await(5, TimeUnit.SECONDS);
+        for (int i = 1; i < CALLERS; i++) {
+            results.add(executor.submit(() -> singleFlight.load(key, loader)));
+        }
+        // Give the waiters time to join the in-flight load before it is released
+        Thread.sleep(200);
+        return results;
+    }
+
+    private double calls(String outcome) {
+        return meterRegistry.get("junie.single_flight.calls").tag("outcome", outcome).counter().count();
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,88 @@
+package spring.start.here.juniemvc.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.boot.DefaultApplicationArguments;
+import spring.start.here.juniemvc.config.WarmupProperties;
+import spring.start.here.juniemvc.web.model.BeerDto;
+import spring.start.here.juniemvc.web.model.BeerListDto;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.util.List;
+import java.util.Optional;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatCode;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.BDDMockito.given;
+import static org.mockito.BDDMockito.then;
+import static org.mockito.Mockito.atLeastOnce;
+import static org.mockito.Mockito.times;
+
+@ExtendWith(MockitoExtension.class)
+class WarmupRunnerTest {
+
+    @Mock
+    BeerService beerService;
+
+    @Mock
+    BeerOrderService beerOrderService;
+
+    @Mock
+    DataSource dataSource;
+
+    @Mock
+    Connection connection;
+
+    WarmupProperties properties;
+    SimpleMeterRegistry meterRegistry;
+    WarmupRunner runner;
+
+    @BeforeEach
+    void setUp() {
+        properties = new WarmupProperties();
+        properties.setIterations(10);
+        properties.setConcurrency(2);
+        meterRegistry = new SimpleMeterRegistry();
+        runner = new WarmupRunner(beerService, beerOrderService, new ObjectMapper().findAndRegisterModules(),
+                dataSource, properties, meterRegistry);
+    }
+
+    @Test
+    void run_opensPoolReadsCatalogAndRunsSyntheticRequests() throws Exception {
+        BeerDto beer = BeerDto.builder().id(1).beerName("Mango Bobs").build();
+        given(dataSource.getConnection()).willReturn(connection);
+        given(beerService.getAllBeers(anyInt(), anyInt()))
+                .willReturn(new BeerListDto(List.of(beer), 3, 0, 3));
+        given(beerService.getBeerById(1)).willReturn(Optional.of(beer));
+        given(beerOrderService.getAll(0, 25)).willReturn(List.of());
+
+        runner.run(new DefaultApplicationArguments());
+
+        then(connection).should(times(2)).isValid(1);
+        then(connection).should(times(2)).close();
+        then(beerService).should().getAllBeers(1, 25);
+        then(beerService).should().getAllBeers(2, 25);
+        // 3 catalog pages plus one list request per iteration and worker
+        then(beerService).should(times(3 + 20)).getAllBeers(anyInt(), anyInt());
+        then(beerOrderService).should(times(20)).getAll(0, 25);
+        assertThat(meterRegistry.get("junie.warmup.duration").timer().count()).isEqualTo(1);
+    }
+
+    @Test
+    void run_failureDoesNotPreventStartup() throws Exception {
+        given(dataSource.getConnection()).willReturn(connection);
+        given(beerService.getAllBeers(anyInt(), anyInt())).willThrow(new IllegalStateException("boom"));
+
+        assertThatCode(() -> runner.run(new DefaultApplicationArguments())).doesNotThrowAnyException();
+
+        then(connection).should(atLeastOnce()).close();
+        assertThat(meterRegistry.get("junie.warmup.duration").timer().count()).isEqualTo(1);
+    }
+}
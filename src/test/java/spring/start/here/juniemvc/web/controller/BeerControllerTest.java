@@ -1,29 +1,45 @@
 package spring.start.here.juniemvc.web.controller;
 
+import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.MockitoAnnotations;
+import org.mockito.Spy;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.MediaType;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
 import org.springframework.test.web.servlet.MockMvc;
 import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+import spring.start.here.juniemvc.config.BestSellerProperties;
+import spring.start.here.juniemvc.domain.model.Beer;
 import spring.start.here.juniemvc.service.BeerService;
+import spring.start.here.juniemvc.service.BestSellerService;
 import spring.start.here.juniemvc.web.exception.GlobalExceptionHandler;
 import spring.start.here.juniemvc.web.model.BeerDto;
 import spring.start.here.juniemvc.web.model.BeerListDto;
+import spring.start.here.juniemvc.web.model.BeerMultiGetDto;
 import spring.start.here.juniemvc.web.model.BeerUpsertDto;
+import spring.start.here.juniemvc.web.model.TopBeerDto;
+import spring.start.here.juniemvc.web.model.TopBeersDto;
 
 import java.math.BigDecimal;
+import java.time.Duration;
+import java.time.Instant;
 import java.time.LocalDateTime;
 import java.util.Arrays;
 import java.util.List;
 import java.util.Optional;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
 
 import static org.hamcrest.Matchers.*;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.ArgumentMatchers.isNull;
 import static org.mockito.BDDMockito.given;
 import static org.mockito.Mockito.verify;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
@@ -34,6 +50,12 @@ class BeerControllerTest {
     @Mock
     private BeerService beerService;
 
+    @Mock
+    private BestSellerService bestSellerService;
+
+    @Spy
+    private BestSellerProperties bestSellerProperties = new BestSellerProperties();
+
     @InjectMocks
     private BeerController beerController;
 
@@ -133,6 +155,30 @@ class BeerControllerTest {
                 .andExpect(jsonPath("$.totalElements", is(1)));
     }
 
+    @Test
+    void testGetBeersByIds() throws Exception {
+        // Given
+        given(beerService.getBeersByIds(List.of(1, 9))).willReturn(new BeerMultiGetDto(List.of(validBeerDto), List.of(9)));
+
+        // When/Then
+        mockMvc.perform(get("/api/v1/beers").param("ids", "1,9"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.beers", hasSize(1)))
+                .andExpect(jsonPath("$.beers[0].id", is(1)))
+                .andExpect(jsonPath("$.missingIds", contains(9)));
+    }
+
+    @Test
+    void testGetBeersByIdsTooMany() throws Exception {
+        // Given
+        String ids = IntStream.rangeClosed(1, IdLists.MAX_IDS + 1).mapToObj(String::valueOf)
+                .collect(Collectors.joining(","));
+
+        // When/Then
+        mockMvc.perform(get("/api/v1/beers").param("ids", ids))
+                .andExpect(status().isBadRequest());
+    }
+
     @Test
     void testUpdateBeer() throws Exception {
         // Given
@@ -164,6 +210,59 @@ class BeerControllerTest {
         verify(beerService).updateBeer(anyInt(), any(BeerUpsertDto.class));
     }
 
+    @Test
+    void testPatchBeer() throws Exception {
+        // Given
+        given(beerService.patchBeer(eq(1), any(JsonNode.class), eq(1))).willReturn(Optional.of(validBeerDto));
+
+        // When/Then
+        mockMvc.perform(patch("/api/v1/beers/1")
+                .contentType("application/merge-patch+json")
+                .header(HttpHeaders.IF_MATCH, "\"1\"")
+                .content("{\"price\": 9.50}"))
+                .andExpect(status().isOk())
+                .andExpect(header().string(HttpHeaders.ETAG, "\"1\""))
+                .andExpect(jsonPath("$.id", is(1)));
+
+        verify(beerService).patchBeer(eq(1), any(JsonNode.class), eq(1));
+    }
+
+    @Test
+    void testPatchBeerWithoutIfMatch() throws Exception {
+        // Given
+        given(beerService.patchBeer(eq(1), any(JsonNode.class), isNull())).willReturn(Optional.empty());
+
+        // When/Then
+        mockMvc.perform(patch("/api/v1/beers/1")
+                .contentType("application/merge-patch+json")
+                .content("{\"price\": 9.50}"))
+                .andExpect(status().isNotFound());
+    }
+
+    @Test
+    void testPatchBeerStaleVersion() throws Exception {
+        // Given
+        given(beerService.patchBeer(eq(1), any(JsonNode.class), eq(0)))
+                .willThrow(new ObjectOptimisticLockingFailureException(Beer.class, 1));
+
+        // When/Then
+        mockMvc.perform(patch("/api/v1/beers/1")
+                .contentType("application/merge-patch+json")
+                .header(HttpHeaders.IF_MATCH, "W/\"0\"")
+                .content("{\"price\": 9.50}"))
+                .andExpect(status().isConflict())
+                .andExpect(jsonPath("$.title", is("Conflict")));
+    }
+
+    @Test
+    void testPatchBeerMalformedIfMatch() throws Exception {
+        mockMvc.perform(patch("/api/v1/beers/1")
+                .contentType("application/merge-patch+json")
+                .header(HttpHeaders.IF_MATCH, "\"abc\"")
+                .content("{\"price\": 9.50}"))
+                .andExpect(status().isBadRequest());
+    }
+
     @Test
     void testDeleteBeer() throws Exception {
         // Given
@@ -230,4 +329,28 @@ class BeerControllerTest {
                 .andExpect(jsonPath("$.totalPages", is(5)))
                 .andExpect(jsonPath("$.totalElements", is(10)));
     }
-}
\ No newline at end of file
+
+    @Test
+    void testGetTopBeers() throws Exception {
+        // Given
+        Instant now = Instant.now();
+        given(bestSellerService.getTopBeers(Duration.ofMinutes(15), 5)).willReturn(new TopBeersDto(
+                now.minusSeconds(900), now, 12, 1, List.of(new TopBeerDto(1, "Test Beer", 9, 8))));
+
+        // When/Then
+        mockMvc.perform(get("/api/v1/beers/top").param("window", "PT15M").param("limit", "5"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.totalQuantity", is(12)))
+                .andExpect(jsonPath("$.maxError", is(1)))
+                .andExpect(jsonPath("$.beers", hasSize(1)))
+                .andExpect(jsonPath("$.beers[0].beerName", is("Test Beer")))
+                .andExpect(jsonPath("$.beers[0].estimatedQuantity", is(9)));
+    }
+
+    @Test
+    void testGetTopBeersWindowBeyondRetention() throws Exception {
+        // When/Then
+        mockMvc.perform(get("/api/v1/beers/top").param("window", "PT2H"))
+                .andExpect(status().isBadRequest());
+    }
+}
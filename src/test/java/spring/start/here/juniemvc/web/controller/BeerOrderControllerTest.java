@@ -7,21 +7,36 @@ import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.MockitoAnnotations;
 import org.springframework.http.MediaType;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
 import org.springframework.test.web.servlet.MockMvc;
 import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+import spring.start.here.juniemvc.service.BeerOrderIdempotencyService;
 import spring.start.here.juniemvc.service.BeerOrderService;
+import spring.start.here.juniemvc.service.OrderIntakeService;
+import spring.start.here.juniemvc.service.OrderStatusStreamService;
 import spring.start.here.juniemvc.web.exception.GlobalExceptionHandler;
+import spring.start.here.juniemvc.domain.model.BeerOrderLine;
 import spring.start.here.juniemvc.web.model.BeerOrderDto;
+import spring.start.here.juniemvc.web.model.BeerOrderField;
 import spring.start.here.juniemvc.web.model.BeerOrderLineDto;
+import spring.start.here.juniemvc.web.model.BeerOrderLineOperationDto;
+import spring.start.here.juniemvc.web.model.BeerOrderLinesPatchDto;
+import spring.start.here.juniemvc.web.model.BeerOrderMultiGetDto;
 import spring.start.here.juniemvc.web.model.BeerOrderLineUpsertDto;
 import spring.start.here.juniemvc.web.model.BeerOrderUpsertDto;
+import spring.start.here.juniemvc.web.model.OrderIntakeTicketDto;
 
+import java.math.BigDecimal;
+import java.util.EnumSet;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.UUID;
 
 import static org.hamcrest.Matchers.*;
 import static org.mockito.ArgumentMatchers.*;
 import static org.mockito.BDDMockito.given;
+import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.verify;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
@@ -31,6 +46,15 @@ class BeerOrderControllerTest {
     @Mock
     private BeerOrderService beerOrderService;
 
+    @Mock
+    private BeerOrderIdempotencyService beerOrderIdempotencyService;
+
+    @Mock
+    private OrderIntakeService orderIntakeService;
+
+    @Mock
+    private OrderStatusStreamService orderStatusStreamService;
+
     @InjectMocks
     private BeerOrderController beerOrderController;
 
@@ -49,8 +73,8 @@ class BeerOrderControllerTest {
         objectMapper = new ObjectMapper();
 
         sampleOrderDto = new BeerOrderDto(
-                1, 0, 10, null, "NEW", "http://callback", List.of(
-                new BeerOrderLineDto(100, 0, 5, 2, 0)
+                1, 0, 10, null, "NEW", "http://callback", new BigDecimal("25.90"), 1, List.of(
+                new BeerOrderLineDto(100, 0, 5, 2, 0, new BigDecimal("12.95"))
         ));
 
         sampleUpsert = new BeerOrderUpsertDto(
@@ -77,6 +101,61 @@ class BeerOrderControllerTest {
         verify(beerOrderService).createOrder(org.mockito.ArgumentMatchers.any(BeerOrderUpsertDto.class));
     }
 
+    @Test
+    void testCreateOrder_withIdempotencyKey() throws Exception {
+        given(beerOrderIdempotencyService.createOrder(eq("key-1"), org.mockito.ArgumentMatchers.any(BeerOrderUpsertDto.class)))
+                .willReturn(sampleOrderDto);
+
+        mockMvc.perform(post("/api/v1/beer-orders")
+                        .header("Idempotency-Key", "key-1")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(sampleUpsert)))
+                .andExpect(status().isCreated())
+                .andExpect(jsonPath("$.id", is(1)));
+
+        verify(beerOrderIdempotencyService).createOrder(eq("key-1"), org.mockito.ArgumentMatchers.any(BeerOrderUpsertDto.class));
+        verify(beerOrderService, never()).createOrder(org.mockito.ArgumentMatchers.any(BeerOrderUpsertDto.class));
+    }
+
+    @Test
+    void testCreateOrder_idempotencyKeyTooLong() throws Exception {
+        mockMvc.perform(post("/api/v1/beer-orders")
+                        .header("Idempotency-Key", "k".repeat(101))
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(sampleUpsert)))
+                .andExpect(status().isBadRequest());
+    }
+
+    @Test
+    void testCreateOrder_asyncIntake_returnsAcceptedWithTicket() throws Exception {
+        UUID trackingId = UUID.randomUUID();
+        given(orderIntakeService.isAsync()).willReturn(true);
+        given(orderIntakeService.submit(org.mockito.ArgumentMatchers.any(BeerOrderUpsertDto.class)))
+                .willReturn(new OrderIntakeTicketDto(trackingId, "QUEUED", null, null));
+
+        mockMvc.perform(post("/api/v1/beer-orders")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(sampleUpsert)))
+                .andExpect(status().isAccepted())
+                .andExpect(header().string("Location", "/api/v1/beer-orders/intake/" + trackingId))
+                .andExpect(jsonPath("$.trackingId", is(trackingId.toString())))
+                .andExpect(jsonPath("$.status", is("QUEUED")));
+
+        verify(beerOrderService, never()).createOrder(org.mockito.ArgumentMatchers.any(BeerOrderUpsertDto.class));
+    }
+
+    @Test
+    void testGetIntakeTicket_found() throws Exception {
+        UUID trackingId = UUID.randomUUID();
+        given(orderIntakeService.getTicket(trackingId))
+                .willReturn(Optional.of(new OrderIntakeTicketDto(trackingId, "COMMITTED", 7, null)));
+
+        mockMvc.perform(get("/api/v1/beer-orders/intake/" + trackingId))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.status", is("COMMITTED")))
+                .andExpect(jsonPath("$.orderId", is(7)));
+    }
+
     @Test
     void testGetById_found() throws Exception {
         given(beerOrderService.getById(1)).willReturn(Optional.of(sampleOrderDto));
@@ -87,6 +166,49 @@ class BeerOrderControllerTest {
                 .andExpect(jsonPath("$.customerId", is(10)));
     }
 
+    @Test
+    void testGetByIds() throws Exception {
+        given(beerOrderService.getByIds(List.of(1, 5))).willReturn(new BeerOrderMultiGetDto(List.of(sampleOrderDto), List.of(5)));
+
+        mockMvc.perform(get("/api/v1/beer-orders").param("ids", "1,5"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.orders", hasSize(1)))
+                .andExpect(jsonPath("$.orders[0].id", is(1)))
+                .andExpect(jsonPath("$.missingIds", contains(5)));
+    }
+
+    @Test
+    void testGetAll_summaryFields() throws Exception {
+        given(beerOrderService.getAll(isNull(), isNull(), eq(BeerOrderField.SUMMARY)))
+                .willReturn(List.of(Map.of("id", 1, "customerId", 10, "orderStatus", "NEW")));
+
+        mockMvc.perform(get("/api/v1/beer-orders").param("fields", "summary"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[0].orderStatus", is("NEW")))
+                .andExpect(jsonPath("$[0].orderLines").doesNotExist());
+    }
+
+    @Test
+    void testGetAll_listedFieldsAlwaysIncludeId() throws Exception {
+        given(beerOrderService.getAll(0, 25, EnumSet.of(BeerOrderField.ID, BeerOrderField.ORDER_STATUS)))
+                .willReturn(List.of(Map.of("id", 1, "orderStatus", "NEW")));
+
+        mockMvc.perform(get("/api/v1/beer-orders")
+                        .param("fields", "orderStatus")
+                        .param("pageNumber", "0")
+                        .param("pageSize", "25"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[0].id", is(1)));
+    }
+
+    @Test
+    void testGetAll_unknownFieldRejected() throws Exception {
+        mockMvc.perform(get("/api/v1/beer-orders").param("fields", "id,price"))
+                .andExpect(status().isBadRequest());
+
+        verify(beerOrderService, never()).getAll(any(), any(), any());
+    }
+
     @Test
     void testGetById_notFound() throws Exception {
         given(beerOrderService.getById(1)).willReturn(Optional.empty());
@@ -129,7 +251,7 @@ class BeerOrderControllerTest {
     @Test
     void testUpdateStatus_found() throws Exception {
         given(beerOrderService.updateStatus(1, "ALLOCATED")).willReturn(Optional.of(
-                new BeerOrderDto(1, 0, 10, null, "ALLOCATED", "http://callback", List.of())
+                new BeerOrderDto(1, 0, 10, null, "ALLOCATED", "http://callback", BigDecimal.ZERO, 0, List.of())
         ));
 
         mockMvc.perform(put("/api/v1/beer-orders/1/status").param("orderStatus", "ALLOCATED"))
@@ -147,6 +269,46 @@ class BeerOrderControllerTest {
                 .andExpect(status().isNotFound());
     }
 
+    @Test
+    void testPatchLines_found() throws Exception {
+        BeerOrderLinesPatchDto patch = new BeerOrderLinesPatchDto(0, List.of(
+                new BeerOrderLineOperationDto(BeerOrderLineOperationDto.Operation.UPDATE, 100, 0, null, 4)));
+        given(beerOrderService.patchLines(1, patch)).willReturn(Optional.of(
+                new BeerOrderDto(1, 1, 10, null, "NEW", "http://callback", new BigDecimal("51.80"), 1,
+                        List.of(new BeerOrderLineDto(100, 1, 5, 4, 0, new BigDecimal("12.95"))))
+        ));
+
+        mockMvc.perform(patch("/api/v1/beer-orders/1/lines")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(patch)))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.version", is(1)))
+                .andExpect(jsonPath("$.orderLines[0].orderQuantity", is(4)));
+    }
+
+    @Test
+    void testPatchLines_staleVersion_conflict() throws Exception {
+        BeerOrderLinesPatchDto patch = new BeerOrderLinesPatchDto(null, List.of(
+                new BeerOrderLineOperationDto(BeerOrderLineOperationDto.Operation.REMOVE, 100, 3, null, null)));
+        given(beerOrderService.patchLines(1, patch))
+                .willThrow(new ObjectOptimisticLockingFailureException(BeerOrderLine.class, 100));
+
+        mockMvc.perform(patch("/api/v1/beer-orders/1/lines")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(patch)))
+                .andExpect(status().isConflict())
+                .andExpect(jsonPath("$.title", is("Conflict")));
+    }
+
+    @Test
+    void testPatchLines_emptyOperations_badRequest() throws Exception {
+        mockMvc.perform(patch("/api/v1/beer-orders/1/lines")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"operations\":[]}"))
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$.title", is("Validation Error")));
+    }
+
     @Test
     void testDelete_found() throws Exception {
         given(beerOrderService.delete(1)).willReturn(true);
@@ -1,11 +1,15 @@
 package spring.start.here.juniemvc.web.controller;
 
+import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.validation.ConstraintViolationException;
+import jakarta.validation.Validation;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
 import org.springframework.boot.test.mock.mockito.MockBean;
 import org.springframework.context.annotation.Import;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.MediaType;
 import org.springframework.test.web.servlet.MockMvc;
 import spring.start.here.juniemvc.service.CustomerService;
@@ -121,6 +125,35 @@ class CustomerControllerTest {
                 .andExpect(jsonPath("$.id", is(42)));
     }
 
+    @Test
+    void patch_withIfMatch_returns200AndETag() throws Exception {
+        CustomerDto dto = new CustomerDto(1, 3, "John", "john@example.com", "555");
+        given(customerService.patch(eq(1), any(JsonNode.class), eq(2))).willReturn(Optional.of(dto));
+
+        mockMvc.perform(patch("/api/v1/customers/1")
+                        .contentType("application/merge-patch+json")
+                        .header(HttpHeaders.IF_MATCH, "\"2\"")
+                        .content("{\"phone\":\"555\"}"))
+                .andExpect(status().isOk())
+                .andExpect(header().string(HttpHeaders.ETAG, "\"3\""))
+                .andExpect(jsonPath("$.phone", is("555")));
+    }
+
+    @Test
+    void patch_invalidResult_returns400_withProblemDetails() throws Exception {
+        var violations = Validation.buildDefaultValidatorFactory().getValidator()
+                .validate(new CustomerUpsertDto(null, "john@example.com", "555"));
+        doThrow(new ConstraintViolationException(violations))
+                .when(customerService).patch(eq(1), any(JsonNode.class), any());
+
+        mockMvc.perform(patch("/api/v1/customers/1")
+                        .contentType("application/merge-patch+json")
+                        .content("{\"name\":null}"))
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$.title", is("Validation Error")))
+                .andExpect(jsonPath("$.errors.name").exists());
+    }
+
     @Test
     void delete_found_returns204() throws Exception {
         doReturn(true).when(customerService).delete(1);
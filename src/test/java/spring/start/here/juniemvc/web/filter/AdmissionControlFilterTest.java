@@ -0,0 +1,131 @@
+package spring.start.here.juniemvc.web.filter;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import spring.start.here.juniemvc.config.AdmissionControlProperties;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class AdmissionControlFilterTest {
+
+    AdmissionControlProperties properties;
+    SimpleMeterRegistry meterRegistry;
+    AtomicLong clock;
+
+    @BeforeEach
+    void setUp() {
+        properties = new AdmissionControlProperties();
+        properties.setPerClient(new AdmissionControlProperties.Limit(1, 2));
+        properties.setTrustedProxies(List.of("127.0.0.1"));
+        meterRegistry = new SimpleMeterRegistry();
+        clock = new AtomicLong(0);
+    }
+
+    @Test
+    void clientOverRate_isRejectedWith429AndRetryAfter() throws Exception {
+        AdmissionControlFilter filter = filter(10);
+
+        assertThat(perform(filter, "client-a").getStatus()).isEqualTo(200);
+        assertThat(perform(filter, "client-a").getStatus()).isEqualTo(200);
+        MockHttpServletResponse rejected = perform(filter, "client-a");
+
+        assertThat(rejected.getStatus()).isEqualTo(429);
+        assertThat(rejected.getHeader("Retry-After")).isEqualTo("1");
+        assertThat(meterRegistry.get("junie.admission.shed").tag("reason", "client_rate").counter().count())
+                .isEqualTo(1.0);
+        // Other clients keep their own budget
+        assertThat(perform(filter, "client-b").getStatus()).isEqualTo(200);
+    }
+
+    @Test
+    void clientIdHeaderFromUntrustedAddress_isIgnored() throws Exception {
+        properties.setTrustedProxies(List.of("10.0.0.1"));
+        AdmissionControlFilter filter = filter(10);
+
+        // Rotating the header does not buy a fresh bucket; the remote address is the client
+        assertThat(perform(filter, "client-a").getStatus()).isEqualTo(200);
+        assertThat(perform(filter, "client-b").getStatus()).isEqualTo(200);
+        assertThat(perform(filter, "client-c").getStatus()).isEqualTo(429);
+    }
+
+    @Test
+    void clientsBeyondMaxClients_evictLeastRecentlySeen() throws Exception {
+        properties.setMaxClients(2);
+        AdmissionControlFilter filter = filter(10);
+        perform(filter, "client-a");
+        perform(filter, "client-a");
+        perform(filter, "client-b");
+        assertThat(perform(filter, "client-a").getStatus()).isEqualTo(429);
+
+        // client-c evicts client-b, then client-d evicts client-a, which starts over with a full bucket
+        perform(filter, "client-c");
+        perform(filter, "client-d");
+        assertThat(perform(filter, "client-a").getStatus()).isEqualTo(200);
+    }
+
+    @Test
+    void tokensRefillOverTime() throws Exception {
+        AdmissionControlFilter filter = filter(10);
+        perform(filter, "client-a");
+        perform(filter, "client-a");
+        assertThat(perform(filter, "client-a").getStatus()).isEqualTo(429);
+
+        clock.addAndGet(1_000_000_000L);
+
+        assertThat(perform(filter, "client-a").getStatus()).isEqualTo(200);
+    }
+
+    @Test
+    void routeOverRate_isRejectedWith429() throws Exception {
+        properties.setPerClient(new AdmissionControlProperties.Limit(100, 100));
+        properties.getRoutes().put("GET /api/v1/beer-orders", new AdmissionControlProperties.Limit(1, 1));
+        AdmissionControlFilter filter = filter(10);
+
+        assertThat(perform(filter, "client-a").getStatus()).isEqualTo(200);
+        assertThat(perform(filter, "client-b").getStatus()).isEqualTo(429);
+        assertThat(meterRegistry.get("junie.admission.shed").tag("reason", "route_rate").counter().count())
+                .isEqualTo(1.0);
+    }
+
+    @Test
+    void noConcurrencySlot_isShedWith503() throws Exception {
+        properties.setMaxQueueWait(Duration.ZERO);
+        AdmissionControlFilter filter = filter(0);
+
+        MockHttpServletResponse rejected = perform(filter, "client-a");
+
+        assertThat(rejected.getStatus()).isEqualTo(503);
+        assertThat(rejected.getHeader("Retry-After")).isEqualTo("1");
+        assertThat(meterRegistry.get("junie.admission.shed").tag("reason", "overload").counter().count())
+                .isEqualTo(1.0);
+    }
+
+    @Test
+    void routeKey_replacesNumericIds() {
+        MockHttpServletRequest request = new MockHttpServletRequest("PUT", "/api/v1/beer-orders/42/status");
+        assertThat(AdmissionControlFilter.routeKey(request)).isEqualTo("PUT /api/v1/beer-orders/{id}/status");
+    }
+
+    private AdmissionControlFilter filter(int maxConcurrentRequests) {
+        ObjectMapper objectMapper = new ObjectMapper().registerModule(new JavaTimeModule());
+        return new AdmissionControlFilter(properties, maxConcurrentRequests, objectMapper, meterRegistry, clock::get);
+    }
+
+    private static MockHttpServletResponse perform(AdmissionControlFilter filter, String clientId) throws Exception {
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/api/v1/beer-orders");
+        request.addHeader("X-Client-Id", clientId);
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        filter.doFilter(request, response, new MockFilterChain());
+        return response;
+    }
+}
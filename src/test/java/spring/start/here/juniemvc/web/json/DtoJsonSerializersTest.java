@@ -0,0 +1,59 @@
+package spring.start.here.juniemvc.web.json;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.module.SimpleModule;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import spring.start.here.juniemvc.web.model.BeerOrderDto;
+import spring.start.here.juniemvc.web.model.BeerOrderLineDto;
+import spring.start.here.juniemvc.web.model.CustomerDto;
+
+import java.math.BigDecimal;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * The hand-written serializers must produce exactly what Jackson's default serialization of the records does.
+ */
+class DtoJsonSerializersTest {
+
+    ObjectMapper reflective;
+    ObjectMapper handWritten;
+
+    @BeforeEach
+    void setUp() {
+        reflective = new ObjectMapper();
+        handWritten = new ObjectMapper().registerModule(new SimpleModule()
+                .addSerializer(BeerOrderDto.class, new DtoJsonSerializers.BeerOrderSerializer())
+                .addSerializer(BeerOrderLineDto.class, new DtoJsonSerializers.BeerOrderLineSerializer())
+                .addSerializer(CustomerDto.class, new DtoJsonSerializers.CustomerSerializer()));
+    }
+
+    @Test
+    void beerOrder_matchesDefaultSerialization() throws Exception {
+        BeerOrderDto order = new BeerOrderDto(1, 2, 3, "ref \"quoted\" é", "NEW", "https://example.com/cb",
+                new BigDecimal("38.85"), 2, Arrays.asList(new BeerOrderLineDto(10, 0, 5, 2, 1, new BigDecimal("12.95")),
+                new BeerOrderLineDto(11, null, 6, 1, null, null), null));
+
+        assertSameJson(order);
+        assertSameJson(List.of(order, order));
+    }
+
+    @Test
+    void beerOrder_withNullsMatchesDefaultSerialization() throws Exception {
+        assertSameJson(new BeerOrderDto(null, null, null, null, null, null, null, null, null));
+        assertSameJson(new BeerOrderDto(1, 0, 3, null, "NEW", null, new BigDecimal("1E+3"), 0, List.of()));
+    }
+
+    @Test
+    void customer_matchesDefaultSerialization() throws Exception {
+        assertSameJson(new CustomerDto(1, 0, "Ada", "ada@example.com", "555"));
+        assertSameJson(new CustomerDto(2, null, "Bob", null, null));
+    }
+
+    private void assertSameJson(Object value) throws Exception {
+        assertThat(handWritten.writeValueAsString(value)).isEqualTo(reflective.writeValueAsString(value));
+    }
+}